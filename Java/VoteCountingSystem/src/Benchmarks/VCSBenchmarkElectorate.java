@@ -0,0 +1,73 @@
+package Benchmarks;
+
+import Model.VCSElectorateGenerator;
+import Model.VCSPreferenceDistribution;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A ballot file for the benchmarks, with the same ballots for the same parameters on every run.
+ *
+ * Each ballot ranks a number of distinct candidates chosen uniformly at random, from the shared seed.
+ * Files are kept in the temporary directory and reused, as large electorates take
+ * longer to write than to benchmark.
+ */
+public class VCSBenchmarkElectorate {
+
+    private final int ballotCount;
+    private final int candidateCount;
+    private final int ballotLength;
+
+    /**
+     * @param ballotCount - The number of ballots in the file
+     * @param candidateCount - The number of candidates standing
+     * @param ballotLength - The number of preferences on each ballot
+     *
+     * @pre. 0 < ballotLength <= candidateCount
+     */
+    public VCSBenchmarkElectorate(int ballotCount, int candidateCount, int ballotLength) {
+        assert ballotLength > 0 && ballotLength <= candidateCount : "Ballot length must be between one and the candidate count";
+
+        this.ballotCount = ballotCount;
+        this.candidateCount = candidateCount;
+        this.ballotLength = ballotLength;
+    }
+
+    /**
+     * @return The names of the candidates, in the order they should be registered
+     */
+    public String[] getCandidateNames() {
+        return VCSElectorateGenerator.createCandidateNames(candidateCount);
+    }
+
+    /**
+     * Writes the ballot file, if it has not been written by an earlier run
+     *
+     * @return The ballot file
+     * @throws IOException - If the file can not be written
+     */
+    public File getBallotFile() throws IOException {
+        File ballotFile = new File(System.getProperty("java.io.tmpdir"),
+                "vcs-electorate-" + ballotCount + "-" + candidateCount + "-" + ballotLength + ".csv");
+
+        if (ballotFile.exists()) {
+            return ballotFile;
+        }
+
+        // Written beside the file and renamed, so an interrupted run is not reused
+        File partialFile = new File(ballotFile.getPath() + ".partial");
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(getCandidateNames(),
+                VCSPreferenceDistribution.UNIFORM, VCSElectorateGenerator.DEFAULT_SEED);
+
+        generator.setBallotLength(ballotLength, 1.0);
+        generator.writeCsvFile(partialFile, ballotCount);
+
+        if (!partialFile.renameTo(ballotFile)) {
+            throw new IOException("Could not create " + ballotFile);
+        }
+
+        return ballotFile;
+    }
+}
@@ -0,0 +1,35 @@
+package Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks, reporting the allocation rate beside the throughput of each.
+ *
+ * Takes the usual JMH arguments, such as a benchmark name to run, or
+ * "-p ballotCount=50000000" to run with a larger electorate.
+ * The benchmarks need JMH on the class path, with its annotation processor enabled.
+ */
+public class VCSBenchmarks {
+
+    public static void main(String args[]) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLineOptions);
+
+        // Only benchmarks in this package, unless others are named
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include(VCSBenchmarks.class.getPackage().getName() + ".*");
+        }
+
+        // Bytes allocated per operation, and the rate of collections
+        options.addProfiler(GCProfiler.class);
+
+        new Runner(options.build()).run();
+    }
+}
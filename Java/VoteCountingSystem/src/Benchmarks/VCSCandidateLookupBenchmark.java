@@ -0,0 +1,45 @@
+package Benchmarks;
+
+import Model.VCSCandidate;
+import Model.VCSVotesModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding candidates, which the view does for every ballot it shows
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VCSCandidateLookupBenchmark {
+
+    @Param({"4", "20", "1000"})
+    public int candidateCount;
+
+    private VCSVotesModel model;
+    private String[] candidateNames;
+    private int nameIndex;
+
+    @Setup(Level.Trial)
+    public void createModel() {
+        candidateNames = new VCSBenchmarkElectorate(0, candidateCount, 1).getCandidateNames();
+        model = new VCSVotesModel(candidateNames);
+    }
+
+    @Benchmark
+    public VCSCandidate getCandidateWithName() {
+        // A different name each call, so the lookup can not be hoisted
+        nameIndex = nameIndex + 1 == candidateNames.length ? 0 : nameIndex + 1;
+
+        return model.getCandidateWithName(candidateNames[nameIndex]);
+    }
+
+    @Benchmark
+    public VCSCandidate[] getAllCandidates() {
+        return model.getAllCandidates();
+    }
+}
@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import Model.VCSCountingMethod;
+import Model.VCSVotesModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the first count of a vote and a redistribution round, with each counting method
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VCSCountingBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int ballotCount;
+
+    @Param({"4", "20"})
+    public int candidateCount;
+
+    @Param({"3"})
+    public int ballotLength;
+
+    @Param({"FULL_RECOUNT", "INCREMENTAL_TRANSFERS", "BALLOT_TRIE"})
+    public VCSCountingMethod countingMethod;
+
+    private VCSVotesModel model;
+
+    @Setup(Level.Trial)
+    public void loadBallots() throws IOException {
+        VCSBenchmarkElectorate electorate = new VCSBenchmarkElectorate(ballotCount, candidateCount, ballotLength);
+
+        model = new VCSVotesModel(electorate.getCandidateNames());
+        model.canLoadFileAtPath(electorate.getBallotFile());
+        model.loadBallots();
+
+        model.setCountingMethod(countingMethod);
+    }
+
+    /**
+     * Each redistribution starts from the first round, so every invocation eliminates the same candidate
+     */
+    @State(Scope.Thread)
+    public static class FirstRound {
+
+        @Setup(Level.Invocation)
+        public void countFirstRound(VCSCountingBenchmark benchmark) {
+            benchmark.model.shouldResetVotingProcedure();
+            benchmark.model.shouldStartCountingVotes();
+        }
+    }
+
+    @Benchmark
+    public void shouldStartCountingVotes(Blackhole blackhole) {
+        model.shouldResetVotingProcedure();
+        model.shouldStartCountingVotes();
+
+        blackhole.consume(model.voteHasWinner());
+    }
+
+    @Benchmark
+    public void redistributeVotesForCandidates(FirstRound firstRound, Blackhole blackhole) {
+        model.redistributeVotesForCandidates();
+
+        blackhole.consume(model.voteHasWinner());
+    }
+}
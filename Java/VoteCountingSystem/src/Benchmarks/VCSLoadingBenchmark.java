@@ -0,0 +1,51 @@
+package Benchmarks;
+
+import Model.VCSVotesModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a ballot file with loadBallots()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VCSLoadingBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int ballotCount;
+
+    @Param({"4", "20"})
+    public int candidateCount;
+
+    @Param({"3"})
+    public int ballotLength;
+
+    private String[] candidateNames;
+    private File ballotFile;
+
+    @Setup(Level.Trial)
+    public void createBallotFile() throws IOException {
+        VCSBenchmarkElectorate electorate = new VCSBenchmarkElectorate(ballotCount, candidateCount, ballotLength);
+
+        candidateNames = electorate.getCandidateNames();
+        ballotFile = electorate.getBallotFile();
+    }
+
+    @Benchmark
+    public VCSVotesModel loadBallots() throws IOException {
+        // The candidates are registered first, as they are in the application
+        VCSVotesModel model = new VCSVotesModel(candidateNames);
+
+        model.canLoadFileAtPath(ballotFile);
+        model.loadBallots();
+
+        return model;
+    }
+}
@@ -0,0 +1,50 @@
+package Benchmarks;
+
+import Model.VCSSTVResult;
+import Model.VCSVotesModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole single transferable vote count for several seats
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VCSSTVBenchmark {
+
+    @Param({"100000", "2000000"})
+    public int ballotCount;
+
+    @Param({"12"})
+    public int candidateCount;
+
+    @Param({"6"})
+    public int ballotLength;
+
+    @Param({"3", "5", "7"})
+    public int seatCount;
+
+    private VCSVotesModel model;
+
+    @Setup(Level.Trial)
+    public void loadBallots() throws IOException {
+        VCSBenchmarkElectorate electorate = new VCSBenchmarkElectorate(ballotCount, candidateCount, ballotLength);
+
+        model = new VCSVotesModel(electorate.getCandidateNames());
+        model.canLoadFileAtPath(electorate.getBallotFile());
+        model.loadBallots();
+
+        model.setSeatCount(seatCount);
+    }
+
+    @Benchmark
+    public VCSSTVResult countAllSeats() {
+        return model.countAllSeats();
+    }
+}
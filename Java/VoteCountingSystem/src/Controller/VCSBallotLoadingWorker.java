@@ -0,0 +1,195 @@
+package Controller;
+
+import Model.VCSBallotLoadingListener;
+import Model.VCSBinaryBallotFile;
+import Model.VCSBallotStore;
+import Model.VCSCandidateRegistry;
+import Model.VCSMappedBallotLoader;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads a ballot file on a background thread, so the interface stays responsive.
+ *
+ * The file is parsed into a store with its own candidate registry, so the model is
+ * never touched off the event dispatch thread. Every batch of ballots is handed to
+ * the controller on the event dispatch thread, along with the progress of the load.
+ *
+ * Cancelling stops the load after the current batch. Batches handed over before the load was
+ * cancelled stay in the model, and batches still waiting for the event dispatch thread are dropped.
+ */
+public class VCSBallotLoadingWorker extends SwingWorker<Integer, VCSBallotLoadingWorker.LoadedBatch>
+        implements VCSBallotLoadingListener {
+
+    private static final int BALLOTS_PER_BATCH = 50000;
+
+    private final File file;
+    private final VCSVotesController controller;
+    private final VCSCandidateRegistry loadingRegistry;
+
+    private VCSMappedBallotLoader loader;
+    private VCSBallotStore batchStore;
+
+    private long totalBytes;
+    private long startTime;
+
+    /**
+     * @param file - The ballot file to load
+     * @param candidateNames - The names of the candidates already standing, so they keep their order
+     * @param controller - Told about each batch and when the load finishes
+     */
+    public VCSBallotLoadingWorker(File file, String[] candidateNames, VCSVotesController controller) {
+        this.file = file;
+        this.controller = controller;
+
+        loadingRegistry = new VCSCandidateRegistry(candidateNames);
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            totalBytes = fileChannel.size();
+            startTime = System.nanoTime();
+
+            if (VCSBinaryBallotFile.isBinaryBallotFile(fileChannel)) {
+                // A binary file is mapped in one step, and handed over as a single batch
+                batchStore = VCSBinaryBallotFile.mapBallotStore(fileChannel);
+                publishBatch(totalBytes, batchStore.getBallotCount());
+
+                return batchStore.getBallotCount();
+            }
+
+            batchStore = new VCSBallotStore(loadingRegistry);
+
+            loader = new VCSMappedBallotLoader(fileChannel, batchStore, true);
+            loader.setLoadingListener(this, BALLOTS_PER_BATCH);
+
+            int ballotsLoaded = loader.loadBallots();
+
+            // Hand over the ballots after the last full batch
+            if (!isCancelled() && !loader.isCancelled()) {
+                publishBatch(totalBytes, ballotsLoaded);
+            }
+
+            return ballotsLoaded;
+        }
+    }
+
+    /**
+     * Called by the loader on the background thread after every batch
+     */
+    public boolean didLoadBallots(long bytesParsed, int ballotsLoaded) {
+        if (isCancelled()) {
+            return false;
+        }
+
+        publishBatch(bytesParsed, ballotsLoaded);
+
+        // Following ballots go into a new store, the published one now belongs to the event dispatch thread
+        batchStore = new VCSBallotStore(loadingRegistry);
+        loader.setBallotStore(batchStore);
+
+        return true;
+    }
+
+    @Override
+    protected void process(List<LoadedBatch> batches) {
+        // done() may already have told the controller the load was cancelled
+        if (isCancelled()) return;
+
+        for (LoadedBatch batch : batches) {
+            controller.didLoadBallotBatch(batch);
+        }
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) {
+            controller.didFinishLoadingVotes(null, true);
+            return;
+        }
+
+        try {
+            get();
+            controller.didFinishLoadingVotes(null, false);
+
+        } catch (ExecutionException e) {
+            controller.didFinishLoadingVotes(e.getCause(), false);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            controller.didFinishLoadingVotes(e, false);
+        }
+    }
+
+    private void publishBatch(long bytesParsed, int ballotsLoaded) {
+
+        // Copy the candidates now, the registry keeps growing on this thread
+        VCSCandidateRegistry candidateRegistry = batchStore.getCandidateRegistry().copy();
+
+        double elapsedSeconds = Math.max(System.nanoTime() - startTime, 1) / 1e9;
+
+        publish(new LoadedBatch(batchStore, candidateRegistry, bytesParsed, totalBytes,
+                ballotsLoaded, ballotsLoaded / elapsedSeconds));
+    }
+
+    /**
+     * A batch of loaded ballots, and the progress of the load when it was completed
+     */
+    public static class LoadedBatch {
+
+        private final VCSBallotStore ballots;
+        private final VCSCandidateRegistry candidateRegistry;
+        private final long bytesParsed;
+        private final long totalBytes;
+        private final int ballotsLoaded;
+        private final double ballotsPerSecond;
+
+        LoadedBatch(VCSBallotStore ballots, VCSCandidateRegistry candidateRegistry, long bytesParsed, long totalBytes,
+                    int ballotsLoaded, double ballotsPerSecond) {
+            this.ballots = ballots;
+            this.candidateRegistry = candidateRegistry;
+            this.bytesParsed = bytesParsed;
+            this.totalBytes = totalBytes;
+            this.ballotsLoaded = ballotsLoaded;
+            this.ballotsPerSecond = ballotsPerSecond;
+        }
+
+        /**
+         * @return The ballots in the batch, using the loader's own candidate ordinals
+         */
+        public VCSBallotStore getBallots() {
+            return ballots;
+        }
+
+        /**
+         * @return The name and standing of the candidate with each ordinal in the batch
+         */
+        public VCSCandidateRegistry getCandidateRegistry() {
+            return candidateRegistry;
+        }
+
+        public long getBytesParsed() {
+            return bytesParsed;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public int getBallotsLoaded() {
+            return ballotsLoaded;
+        }
+
+        public double getBallotsPerSecond() {
+            return ballotsPerSecond;
+        }
+    }
+}
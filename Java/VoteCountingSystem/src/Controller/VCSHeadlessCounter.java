@@ -0,0 +1,268 @@
+package Controller;
+
+import Model.VCSCandidate;
+import Model.VCSCountResult;
+import Model.VCSElection;
+import Model.VCSElectionRegistry;
+import Model.VCSCountOptions;
+import Model.VCSSTVResult;
+import Model.VCSShardCoordinator;
+import Model.VCSVotesModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Counts a ballot file to completion without a user interface, for use from scripts.
+ *
+ * The file is loaded, then every round is counted with the count engine. The votes for
+ * each continuing candidate and the candidate eliminated are printed for every round.
+ * Nothing here touches Swing or AWT, so no display is needed.
+ *
+ * Several files are counted as separate elections in an election registry, all at once,
+ * and their results printed in the order the files were given.
+ *
+ * A file too large for one process is split into shards, each counted by a worker process.
+ */
+public class VCSHeadlessCounter {
+
+    /**
+     * The count finished with a winner
+     */
+    public static final int EXIT_SUCCESS = 0;
+
+    /**
+     * The arguments were not understood
+     */
+    public static final int EXIT_USAGE_ERROR = 1;
+
+    /**
+     * The file could not be loaded, or has nothing to count
+     */
+    public static final int EXIT_LOADING_ERROR = 2;
+
+    private final VCSVotesModel model;
+    private final VCSElectionRegistry electionRegistry;
+    private final PrintStream output;
+
+    /**
+     * @param model - The model to count with
+     * @param output - Where the results are printed
+     */
+    public VCSHeadlessCounter(VCSVotesModel model, PrintStream output) {
+        this.model = model;
+        this.output = output;
+
+        electionRegistry = null;
+    }
+
+    /**
+     * @param electionRegistry - The registry each file is counted in
+     * @param output - Where the results are printed
+     */
+    public VCSHeadlessCounter(VCSElectionRegistry electionRegistry, PrintStream output) {
+        this.electionRegistry = electionRegistry;
+        this.output = output;
+
+        model = null;
+    }
+
+    /**
+     * Creates a counter which splits each file across worker processes
+     *
+     * @param output - Where the results are printed
+     */
+    public VCSHeadlessCounter(PrintStream output) {
+        this.output = output;
+
+        model = null;
+        electionRegistry = null;
+    }
+
+    /**
+     * Loads the file and counts every round
+     *
+     * @param file - The ballot file to count
+     * @return EXIT_SUCCESS, or the exit code describing why the count could not run
+     */
+    public int countBallotsInFile(File file) {
+        assert model != null : "Counter has no model";
+
+        if (!model.canLoadFileAtPath(file)) {
+            System.err.println("Could not load file: " + file);
+            return EXIT_LOADING_ERROR;
+        }
+
+        try {
+            model.loadBallots();
+        } catch (IOException e) {
+            System.err.println("Could not load file: " + file + ": " + e.getMessage());
+            return EXIT_LOADING_ERROR;
+        }
+
+        if (!model.canStartCountingVotes() || model.getAllCandidates().length == 0) {
+            System.err.println("No ballots to count in file: " + file);
+            return EXIT_LOADING_ERROR;
+        }
+
+        // Every round is counted in one call, without notifying observers
+        if (model.getSeatCount() > 1) {
+            printSTVResult(model.countAllSeats());
+        }
+        else {
+            printCountResult(model.countAllRounds());
+        }
+
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Counts each file as its own election, all at once, and prints the results in file order
+     *
+     * @param files - The ballot files to count, one per election
+     * @return EXIT_SUCCESS, or EXIT_LOADING_ERROR if any file could not be counted
+     */
+    public int countBallotsInFiles(List<File> files) {
+        assert electionRegistry != null : "Counter has no election registry";
+
+        VCSElection[] elections = new VCSElection[files.size()];
+
+        // Every file is submitted before any result is waited for
+        for (int x = 0; x < elections.length; x++) {
+            elections[x] = electionRegistry.submitElection(files.get(x).getPath(), files.get(x));
+        }
+
+        int exitCode = EXIT_SUCCESS;
+
+        for (VCSElection election : elections) {
+            VCSCountResult countResult;
+
+            try {
+                countResult = election.awaitCountResult();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return EXIT_LOADING_ERROR;
+            }
+
+            output.println("Election: " + election.getElectionId());
+
+            if (countResult == null) {
+                System.err.println(election.getFailureMessage());
+                exitCode = EXIT_LOADING_ERROR;
+                continue;
+            }
+
+            printCountResult(countResult);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Counts a file split across worker processes, none of which holds the whole file
+     *
+     * @param file - The ballot file to count
+     * @param shardCount - The number of worker processes
+     * @return EXIT_SUCCESS, or EXIT_LOADING_ERROR if a shard could not be loaded or counted
+     *
+     * @pre. shardCount > 0
+     */
+    public int countBallotsInShards(File file, int shardCount) {
+        VCSCountResult countResult;
+
+        try {
+            countResult = new VCSShardCoordinator(file, shardCount).count(new VCSCountOptions());
+        } catch (IOException e) {
+            System.err.println("Could not count file: " + e.getMessage());
+            return EXIT_LOADING_ERROR;
+        }
+
+        printCountResult(countResult);
+
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Prints the number of ballots, every round and the winner
+     */
+    private void printCountResult(VCSCountResult countResult) {
+        output.println("Ballots: " + countResult.getBallotCount());
+
+        for (int round = 0; round < countResult.getRoundCount(); round++) {
+            printRound(countResult, round);
+        }
+
+        VCSCandidate winner = countResult.getWinningCandidate();
+
+        output.println("Winner: " + winner.getName() + " with " + countResult.getWinningVotes() + " votes");
+    }
+
+    /**
+     * Prints the quota, the votes of every candidate still in the count at each stage and the elected candidates
+     */
+    private void printSTVResult(VCSSTVResult stvResult) {
+        output.println("Ballots: " + stvResult.getBallotCount());
+        output.println("Seats: " + stvResult.getSeatCount());
+        output.println("Quota: " + VCSSTVResult.formatVotes(stvResult.getQuota()));
+
+        for (int stage = 0; stage < stvResult.getStageCount(); stage++) {
+            output.println("Stage " + (stage + 1));
+
+            VCSCandidate surplusCandidate = stvResult.getSurplusCandidate(stage);
+            VCSCandidate excludedCandidate = stvResult.getExcludedCandidate(stage);
+
+            if (surplusCandidate != null) {
+                output.println("Surplus of: " + surplusCandidate.getName());
+            }
+
+            if (excludedCandidate != null) {
+                output.println("Excluded: " + excludedCandidate.getName());
+            }
+
+            for (int x = 0; x < stvResult.getCandidateCount(); x++) {
+                if (stvResult.isInCountAtStage(stage, x)) {
+                    output.println("  " + stvResult.getCandidate(x).getName() + ": "
+                            + VCSSTVResult.formatVotes(stvResult.getVotes(stage, x))
+                            + (stvResult.isElectedByStage(stage, x) ? " (elected)" : ""));
+                }
+            }
+
+            output.println("  Exhausted: " + VCSSTVResult.formatVotes(stvResult.getExhaustedVotes(stage)));
+            output.println("  Loss by fraction: " + VCSSTVResult.formatVotes(stvResult.getLossByFraction(stage)));
+        }
+
+        for (VCSCandidate candidate : stvResult.getElectedCandidates()) {
+            output.println("Elected: " + candidate.getName());
+        }
+    }
+
+    /**
+     * Prints the votes of every continuing candidate, and the candidate eliminated after the round
+     */
+    private void printRound(VCSCountResult countResult, int round) {
+        output.println("Round " + (round + 1));
+
+        for (int x = 0; x < countResult.getCandidateCount(); x++) {
+            if (countResult.isContinuingInRound(round, x)) {
+                output.println("  " + countResult.getCandidate(x).getName() + ": " + countResult.getVotes(round, x));
+            }
+        }
+
+        VCSCandidate[] eliminatedCandidates = countResult.getEliminatedCandidates(round);
+
+        if (countResult.isBulkExclusion(round)) {
+            StringBuilder names = new StringBuilder();
+
+            for (VCSCandidate candidate : eliminatedCandidates) {
+                names.append(names.length() > 0 ? ", " : "").append(candidate.getName());
+            }
+
+            output.println("Bulk excluded: " + names);
+        }
+        else if (eliminatedCandidates.length == 1) {
+            output.println("Eliminated: " + eliminatedCandidates[0].getName());
+        }
+    }
+}
@@ -1,23 +1,39 @@
 package Controller;
 
 import Model.VCSBallot;
+import Model.VCSBallotJournalListener;
 import Model.VCSCandidate;
+import Model.VCSCountResult;
+import Model.VCSSTVResult;
 import Model.VCSVotesModel;
 import View.VoteCounting.VCSCountingView;
 import View.ViewVotes.VCSVotesView;
 
+import javax.swing.SwingUtilities;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
  * Created by Oliver Poole(12022846) on 23/10/15.
  */
-public class VCSVotesController {
+public class VCSVotesController implements VCSBallotJournalListener {
 
     private VCSVotesModel model;
     private VCSVotesView votesView;
     private VCSCountingView countingView;
 
+    // The load in progress, if any
+    private VCSBallotLoadingWorker loadingWorker;
+
+    // Every round of the count, and the round being shown
+    private VCSCountResult countResult;
+    private int displayedRound;
+
+    // Every stage of a count for several seats, stepped through in the same way
+    private VCSSTVResult stvResult;
+
 
     public VCSVotesController(VCSVotesModel model) {
         this.model = model;
@@ -30,16 +46,30 @@ public class VCSVotesController {
      * @param candidateNames - An array of candidate names in order of preference
      */
     public void addVoteWithBallotEntries(String[] candidateNames) {
+        addVotesWithBallotEntries(new String[][] {candidateNames});
+    }
+
+    /**
+     * Asks the controller to update the model with several ballots at once.
+     * The view is only updated once, after every ballot has been added
+     *
+     * @param ballotEntries - For each ballot, an array of candidate names in order of preference
+     */
+    public void addVotesWithBallotEntries(String[][] ballotEntries) {
 
-        VCSCandidate[] candidates = new VCSCandidate[candidateNames.length];
+        ArrayList<VCSBallot> ballots = new ArrayList<>(ballotEntries.length);
 
-        for (int x = 0; x < candidateNames.length; x++) {
-            candidates[x] = model.getCandidateWithName(candidateNames[x]);
-        }
+        for (String[] candidateNames : ballotEntries) {
+            VCSCandidate[] candidates = new VCSCandidate[candidateNames.length];
 
-        VCSBallot ballot = new VCSBallot(candidates);
+            for (int x = 0; x < candidateNames.length; x++) {
+                candidates[x] = model.getCandidateWithName(candidateNames[x]);
+            }
 
-        model.addBallot(ballot);
+            ballots.add(new VCSBallot(candidates));
+        }
+
+        model.addBallots(ballots);
     }
 
     /**
@@ -58,18 +88,88 @@ public class VCSVotesController {
         return model.canAddNewCandidateField(currentTextFieldCount);
     }
 
+    /**
+     * Called by the view, loads a ballot file on a background thread.
+     * The votes view is disabled and shows the progress until the load finishes
+     *
+     * @param file - The ballot file to load
+     */
     public void loadVotes(File file) {
 
-        // Ask the model if it can load the file
-        if (model.canLoadFileAtPath(file)) {
+        // Check the file can be read before starting the load
+        if (!file.isFile() || !file.canRead()) {
+            votesView.displayErrorAlertWithMessage("Could not load file");
+            return;
+        }
+
+        // Start from the names already standing, so they keep their order in the file's batches
+        VCSCandidate[] candidates = model.getAllCandidates();
+        String[] candidateNames = new String[candidates.length];
 
-            // Load the file with the model
-            model.loadBallots();
+        for (int x = 0; x < candidates.length; x++) {
+            candidateNames[x] = candidates[x].getName();
         }
-        else {
-            // The model can't load the file, show an error message
-            votesView.displayErrorAlertWithMessage("Could not load file");
+
+        loadingWorker = new VCSBallotLoadingWorker(file, candidateNames, this);
+
+        votesView.setViewEnabled(false);
+        votesView.showLoadingProgress(file.getName());
+
+        loadingWorker.execute();
+    }
+
+    /**
+     * Called by the progress dialog, stops the current load after its current batch
+     *
+     * @post. Ballots already loaded stay in the model
+     */
+    public void cancelLoadingVotes() {
+        if (loadingWorker != null) {
+            loadingWorker.cancel(false);
+        }
+    }
+
+    /**
+     * Called on the event dispatch thread with each batch of loaded ballots
+     *
+     * @param batch - The ballots, and the progress of the load
+     */
+    public void didLoadBallotBatch(VCSBallotLoadingWorker.LoadedBatch batch) {
+        model.addBallotsFromStore(batch.getBallots(), batch.getCandidateRegistry());
+
+        votesView.setLoadingProgress(batch.getBytesParsed(), batch.getTotalBytes(),
+                batch.getBallotsLoaded(), batch.getBallotsPerSecond());
+    }
+
+    /**
+     * Called on the event dispatch thread when a load has finished
+     *
+     * @param error - The reason the load failed, or null
+     * @param wasCancelled - True, if the load was cancelled
+     */
+    public void didFinishLoadingVotes(Throwable error, boolean wasCancelled) {
+        loadingWorker = null;
+
+        votesView.hideLoadingProgress();
+        votesView.setViewEnabled(true);
+
+        if (wasCancelled) {
+            votesView.displayAlertWithMessage("Loading was cancelled, ballots already loaded have been kept");
         }
+        else if (error != null) {
+            votesView.displayErrorAlertWithMessage("Could not load file: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Called by the model when ballots could not be written to the journal, so the operator
+     * knows they will not survive a restart. May be called on the journal's committing thread
+     *
+     * @param error - The reason the ballots could not be written
+     */
+    public void didFailToJournalBallots(IOException error) {
+        SwingUtilities.invokeLater(() -> votesView.displayErrorAlertWithMessage(
+                "Ballots could not be written to the journal: " + error.getMessage()));
     }
 
     /**
@@ -91,34 +191,115 @@ public class VCSVotesController {
     }
 
     /**
-     * Updates the model to tell it to start counting votes
+     * Asks the model to count every round, then shows the first round
      *
      * @pre. The model is ready to start counting votes (model.canStartCountingVotes())
      *
-     * @post. The model will have counted the votes
+     * @post. The first round of votes will be shown
      * @post. The vote counting button will be disabled
      * @post. The redistribute button will be enabled
      */
     public void startVoteCountButtonClicked() {
-        model.shouldStartCountingVotes();
+        displayedRound = 0;
 
         countingView.setVoteCountingButtonEnabled(false);
         countingView.setDistributeVotesButtonEnabled(true);
+
+        if (model.getSeatCount() > 1) {
+            stvResult = model.countAllSeats();
+            showCountedStage();
+            return;
+        }
+
+        countResult = model.countAllRounds();
+
+        showCountedRound();
+    }
+
+    /**
+     * Called by the counting view when the number of seats is changed
+     *
+     * @param seatCount - The number of candidates to elect
+     *
+     * @pre. seatCount > 0
+     * @post. The next count fills that many seats
+     */
+    public void seatCountChanged(int seatCount) {
+        model.setSeatCount(seatCount);
     }
 
     /**
-     * Updates the model to tell it to redistribute the votes
+     * Shows the next of the counted rounds
      *
-     * @pre. The model should have started counting the votes (model.shouldStartCountingVotes())
+     * @pre. The votes have been counted (startVoteCountButtonClicked())
      *
-     * @post. The next round of votes will be calculated
+     * @post. The next round of votes will be shown
      */
     public void redistributeVotesButtonClicked() {
-        model.redistributeVotesForCandidates();
+        displayedRound++;
+
+        if (stvResult != null) {
+            showCountedStage();
+            return;
+        }
+
+        showCountedRound();
+    }
+
+    /**
+     * Shows the round being stepped through, and announces the winner after the final round
+     */
+    private void showCountedRound() {
+        countingView.showRound(countResult, displayedRound);
+
+        if (displayedRound == countResult.getRoundCount() - 1) {
+            oneCandidateRemainingWithCandidate(countResult.getWinningCandidate());
+        }
     }
 
     /**
-     * Called by the view when one candidate is remaining
+     * Shows the stage being stepped through, and announces the elected candidates after the final stage
+     */
+    private void showCountedStage() {
+        countingView.showStage(stvResult, displayedRound);
+
+        if (displayedRound == stvResult.getStageCount() - 1) {
+            seatsFilledWithCandidates(stvResult.getElectedCandidates());
+        }
+    }
+
+    /**
+     * Called when every seat has been filled
+     * Updates the state of the views and resets the ballot
+     *
+     * @post. The counting votes view will be hidden
+     * @post. The votes view will be enabled
+     * @post. The model will reset the voting process
+     */
+    public void seatsFilledWithCandidates(VCSCandidate[] candidates) {
+        countingView.setViewVisible(false);
+
+        votesView.setViewEnabled(true);
+
+        StringBuilder names = new StringBuilder();
+
+        for (int x = 0; x < candidates.length; x++) {
+            if (x > 0) {
+                names.append(x == candidates.length - 1 ? " and " : ", ");
+            }
+
+            names.append(candidates[x].getName());
+        }
+
+        votesView.displayAlertWithMessage(names + (candidates.length == 1 ? " has" : " have") + " been elected");
+
+        stvResult = null;
+
+        model.shouldResetVotingProcedure();
+    }
+
+    /**
+     * Called when the count has a winner
      * Updates the state of the views and resets the ballot
      *
      * @post. The counting votes view will be hidden
@@ -130,7 +311,11 @@ public class VCSVotesController {
 
         votesView.setViewEnabled(true);
 
-        votesView.displayAlertWithMessage(candidate.getName() + " has won with " + model.getVotesForCandidate(candidate) + " votes");
+        int votes = countResult != null ? countResult.getWinningVotes() : model.getVotesForCandidate(candidate);
+
+        votesView.displayAlertWithMessage(candidate.getName() + " has won with " + votes + " votes");
+
+        countResult = null;
 
         model.shouldResetVotingProcedure();
     }
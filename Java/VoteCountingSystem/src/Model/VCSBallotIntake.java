@@ -0,0 +1,231 @@
+package Model;
+
+import java.util.ArrayList;
+
+/**
+ * Accepts ballots from many threads at once, such as scanner stations and file importers
+ * feeding the same election, and passes them to the model on the model's own thread.
+ *
+ * Each producing thread appends to a stripe of its own, holding a ballot store and a
+ * candidate registry used by no other producer, so producers never wait for each other.
+ * Each stripe has a lock, which only its producer takes while appending, so the lock is
+ * not contended. The model's thread drains the stripes, taking each lock only long enough
+ * to swap in an empty store, and adds the ballots to the model by candidate name.
+ *
+ * Sealing stops any more ballots being accepted. A ballot is either in a stripe before
+ * the seal, and so drained into the model, or rejected; none are lost or added twice.
+ * Ballots from one producer keep their order, ballots from different producers are
+ * grouped by producer.
+ */
+public class VCSBallotIntake {
+
+    private final VCSVotesModel model;
+    private final VCSFirstPreferenceTally firstPreferenceTally;
+
+    // Every stripe created, in the order their producers first added a ballot. Guarded by this intake
+    private final ArrayList<Stripe> stripes = new ArrayList<>();
+
+    private final ThreadLocal<Stripe> producerStripe = new ThreadLocal<>();
+
+    private volatile boolean sealed;
+
+    /**
+     * @param model - The model the ballots are added to
+     */
+    VCSBallotIntake(VCSVotesModel model) {
+        this.model = model;
+
+        firstPreferenceTally = model.getFirstPreferenceTally();
+    }
+
+    /**
+     * Adds a ballot to this thread's stripe. May be called from any thread
+     *
+     * @param ballot - The ballot to add
+     * @return True, if the ballot was accepted. False, if the intake has been sealed
+     *
+     * @pre. ballot != null
+     */
+    public boolean addBallot(VCSBallot ballot) {
+        assert ballot != null : "Ballot is null";
+
+        Stripe stripe = getProducerStripe();
+
+        if (stripe == null) return false;
+
+        synchronized (stripe) {
+            // Checked under the stripe's lock, so the seal can not miss the ballot
+            if (sealed) return false;
+
+            stripe.addBallot(ballot);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The number of ballots accepted and not yet drained into the model. May be called from any thread
+     */
+    public int getPendingBallotCount() {
+        int pendingBallotCount = 0;
+
+        for (Stripe stripe : getStripes()) {
+            synchronized (stripe) {
+                pendingBallotCount += stripe.ballotStore.getBallotCount();
+            }
+        }
+
+        return pendingBallotCount;
+    }
+
+    /**
+     * @return True, if the intake no longer accepts ballots
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Adds every ballot accepted so far to the model, while producers carry on adding more
+     *
+     * @return The number of ballots added to the model
+     *
+     * @pre. Called on the same thread as the model's other methods
+     * @post. Observers are notified once for each stripe which had ballots
+     */
+    public int drain() {
+        int drainedBallotCount = 0;
+
+        for (Stripe stripe : getStripes()) {
+            VCSBallotStore drainedStore;
+            VCSCandidateRegistry drainedRegistry;
+
+            synchronized (stripe) {
+                if (stripe.ballotStore.getBallotCount() == 0) continue;
+
+                drainedStore = stripe.ballotStore;
+                drainedRegistry = stripe.candidateRegistry.copy();
+
+                // The producer carries on with an empty store, its registry keeps the same ordinals
+                stripe.ballotStore = new VCSBallotStore(stripe.candidateRegistry);
+            }
+
+            // The drained store is no longer reachable by the producer, so needs no lock
+            model.addTalliedBallotsFromStore(drainedStore, drainedRegistry);
+            drainedBallotCount += drainedStore.getBallotCount();
+        }
+
+        return drainedBallotCount;
+    }
+
+    /**
+     * Stops accepting ballots, and adds every ballot accepted to the model
+     *
+     * @return The number of ballots added to the model
+     *
+     * @pre. Called on the same thread as the model's other methods
+     * @post. isSealed() is true, and every accepted ballot is in the model
+     */
+    public int seal() {
+        synchronized (this) {
+            // No new stripes can be created after this
+            sealed = true;
+        }
+
+        // Each stripe's lock is taken by the drain, so any ballot being added finishes first
+        return drain();
+    }
+
+    /**
+     * Counts the ballots not yet drained into new tally counters, after the model has removed every counter
+     * because its ballots were replaced
+     *
+     * @pre. Called on the same thread as the model's other methods
+     */
+    void recountPendingBallots() {
+        for (Stripe stripe : getStripes()) {
+            synchronized (stripe) {
+                stripe.recountBallots(firstPreferenceTally.createCounters());
+            }
+        }
+    }
+
+    /**
+     * @return This thread's stripe, created the first time, or null if the intake is sealed
+     */
+    private Stripe getProducerStripe() {
+        Stripe stripe = producerStripe.get();
+
+        if (stripe != null) return stripe;
+
+        synchronized (this) {
+            if (sealed) return null;
+
+            stripe = new Stripe(firstPreferenceTally.createCounters());
+            stripes.add(stripe);
+        }
+
+        producerStripe.set(stripe);
+
+        return stripe;
+    }
+
+    private synchronized ArrayList<Stripe> getStripes() {
+        return new ArrayList<>(stripes);
+    }
+
+    /**
+     * The ballots added by a single producer
+     */
+    private static class Stripe {
+
+        private final VCSCandidateRegistry candidateRegistry = new VCSCandidateRegistry(new String[0]);
+        private VCSBallotStore ballotStore = new VCSBallotStore(candidateRegistry);
+
+        // Each ballot is in the live tally as soon as it is accepted
+        private VCSFirstPreferenceTally.Counters tallyCounters;
+
+        Stripe(VCSFirstPreferenceTally.Counters tallyCounters) {
+            this.tallyCounters = tallyCounters;
+        }
+
+        /**
+         * @pre. The stripe's lock is held
+         */
+        void addBallot(VCSBallot ballot) {
+            int preferenceIndex = 0;
+            int firstOrdinal = -1;
+
+            while (ballot.hasCandidateAtIndex(preferenceIndex)) {
+                String name = ballot.getCandidateChoiceAtIndex(preferenceIndex).getName();
+                int ordinal = candidateRegistry.registerCandidateWithName(name);
+
+                if (preferenceIndex == 0) {
+                    firstOrdinal = ordinal;
+                }
+
+                ballotStore.addPreferenceToCurrentBallot(ordinal);
+                preferenceIndex++;
+            }
+
+            ballotStore.didFinishAddingPreferencesToBallot();
+
+            tallyCounters.countBallot(firstOrdinal, candidateRegistry);
+        }
+
+        /**
+         * Counts the ballots still in the stripe into new counters
+         *
+         * @pre. The stripe's lock is held
+         */
+        void recountBallots(VCSFirstPreferenceTally.Counters tallyCounters) {
+            this.tallyCounters = tallyCounters;
+
+            for (int ballotIndex = 0; ballotIndex < ballotStore.getBallotCount(); ballotIndex++) {
+                int firstOrdinal = ballotStore.getPreferenceCount(ballotIndex) > 0 ? ballotStore.getOrdinalAtIndex(ballotIndex, 0) : -1;
+
+                tallyCounters.countBallot(firstOrdinal, candidateRegistry);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package Model;
+
+import java.io.IOException;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of the ballots entered by hand, replayed when the application starts.
+ *
+ * Each record is its length, a type, the record's data and a CRC32 of the type and data.
+ * A candidate record gives a name its ordinal in the journal, and a ballot record holds
+ * the journal ordinals of each preference, so the journal does not depend on the model's ordinals.
+ *
+ * Records are buffered and written with a single fsync, either when the commit interval passes
+ * or when enough ballots are waiting, so many ballots share the cost of each fsync.
+ * Every fsync is made on the committing thread, unless a caller asks for one with commit(),
+ * and a failed commit is reported to the journal's listener.
+ * A commit swaps in an empty buffer while holding the journal's lock, then writes and fsyncs
+ * the full one outside it, so ballots can be appended while the disk is busy.
+ * A record cut short by a crash fails its check when replayed, and is removed.
+ */
+public class VCSBallotJournal {
+
+    /**
+     * The longest a ballot waits before it is written to disk
+     */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 50;
+
+    /**
+     * The number of ballots which are written to disk straight away, without waiting for the interval
+     */
+    public static final int DEFAULT_MAXIMUM_UNCOMMITTED_BALLOTS = 1000;
+
+    private static final byte CANDIDATE_RECORD = 1;
+    private static final byte BALLOT_RECORD = 2;
+
+    // The length before a record and the checksum after it
+    private static final int RECORD_OVERHEAD = 8;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    // Preference counts and ordinals are written as unsigned shorts
+    private static final int MAXIMUM_SHORT_VALUE = 0xFFFF;
+
+    private final FileChannel fileChannel;
+    private final int maximumUncommittedBallots;
+
+    // The journal's own ordinals, in the order the names were first written
+    private final VCSCandidateRegistry journalRegistry;
+    private final VCSBallotStore replayedBallots;
+
+    private ByteBuffer buffer;
+    private ByteBuffer spareBuffer;
+    private int uncommittedBallotCount;
+    private final CRC32 checksum = new CRC32();
+
+    // Held across a commit's write and fsync, so records reach the file in the order they were appended
+    private final Object commitLock = new Object();
+
+    private final ScheduledExecutorService committer;
+    private IOException commitError;
+    private boolean isCommitQueued;
+
+    private VCSBallotJournalListener journalListener;
+
+    /**
+     * Opens a journal, replaying any ballots already in it
+     *
+     * @param file - The journal, created if it does not exist
+     * @param commitIntervalMillis - The longest a ballot waits before it is written to disk
+     * @param maximumUncommittedBallots - The number of waiting ballots which are written straight away
+     * @throws IOException - If the journal can not be opened
+     *
+     * @pre. commitIntervalMillis > 0
+     * @pre. maximumUncommittedBallots > 0
+     */
+    public VCSBallotJournal(File file, long commitIntervalMillis, int maximumUncommittedBallots) throws IOException {
+        assert commitIntervalMillis > 0 : "Commit interval must be positive";
+        assert maximumUncommittedBallots > 0 : "Maximum uncommitted ballots must be positive";
+
+        this.maximumUncommittedBallots = maximumUncommittedBallots;
+
+        fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        journalRegistry = new VCSCandidateRegistry(new String[0]);
+        replayedBallots = new VCSBallotStore(journalRegistry);
+
+        long validLength = replay();
+
+        // Remove a record cut short by a crash, so new records follow the last complete one
+        if (validLength < fileChannel.size()) {
+            fileChannel.truncate(validLength);
+            fileChannel.force(true);
+        }
+
+        fileChannel.position(validLength);
+
+        buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Ballot journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        committer.scheduleWithFixedDelay(this::commitInBackground,
+                commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The ballots found in the journal when it was opened, using the journal's own candidate ordinals
+     */
+    public VCSBallotStore getReplayedBallots() {
+        return replayedBallots;
+    }
+
+    /**
+     * Sets a listener to be told when a commit on the committing thread fails
+     *
+     * @param journalListener - The listener, called on the committing thread
+     */
+    public synchronized void setJournalListener(VCSBallotJournalListener journalListener) {
+        this.journalListener = journalListener;
+    }
+
+    /**
+     * Adds ballots to the end of the journal. They are on disk once the next commit has finished.
+     * When enough ballots are waiting a commit is started on the committing thread,
+     * this never waits for the disk, even while a commit is being written
+     *
+     * @param ballots - The ballots to write
+     * @throws IOException - If an earlier commit failed, or a ballot can not be held by the journal
+     */
+    public synchronized void appendBallots(Collection<VCSBallot> ballots) throws IOException {
+        throwCommitError();
+
+        for (VCSBallot ballot : ballots) {
+            appendBallot(ballot);
+        }
+
+        if (uncommittedBallotCount >= maximumUncommittedBallots && !isCommitQueued) {
+            isCommitQueued = true;
+            committer.execute(this::commitInBackground);
+        }
+    }
+
+    /**
+     * Writes every waiting record and waits for them to reach the disk
+     *
+     * @throws IOException - If the records could not be written
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            ByteBuffer records;
+
+            synchronized (this) {
+                throwCommitError();
+
+                if (buffer.position() == 0) return;
+
+                // Later ballots go into another buffer while these are written
+                records = buffer;
+                buffer = spareBuffer != null ? spareBuffer
+                        : ByteBuffer.allocate(INITIAL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                spareBuffer = null;
+
+                uncommittedBallotCount = 0;
+            }
+
+            try {
+                records.flip();
+
+                while (records.hasRemaining()) {
+                    fileChannel.write(records);
+                }
+
+                // One fsync for every ballot waiting
+                fileChannel.force(false);
+            } catch (IOException e) {
+                // The file may now hold part of the records, so nothing more is written after them
+                synchronized (this) {
+                    commitError = e;
+                }
+
+                throw e;
+            }
+
+            records.clear();
+
+            synchronized (this) {
+                spareBuffer = records;
+            }
+        }
+    }
+
+    /**
+     * Commits any waiting ballots and closes the journal
+     *
+     * @throws IOException - If the waiting ballots could not be written
+     */
+    public void close() throws IOException {
+        committer.shutdown();
+
+        try {
+            commit();
+        } finally {
+            synchronized (commitLock) {
+                fileChannel.close();
+            }
+        }
+    }
+
+    private void appendBallot(VCSBallot ballot) throws IOException {
+        int preferenceCount = 0;
+
+        while (ballot.hasCandidateAtIndex(preferenceCount)) {
+            preferenceCount++;
+        }
+
+        if (preferenceCount > MAXIMUM_SHORT_VALUE) {
+            throw new IOException("Ballot has too many preferences for the journal");
+        }
+
+        for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+            String name = ballot.getCandidateChoiceAtIndex(preferenceIndex).getName();
+
+            // Names are written the first time the journal meets them
+            if (journalRegistry.getCandidateWithName(name) == null) {
+                if (journalRegistry.getCandidateCount() > MAXIMUM_SHORT_VALUE) {
+                    throw new IOException("Too many candidates for the journal");
+                }
+
+                appendCandidateRecord(journalRegistry.registerCandidateWithName(name), name);
+            }
+        }
+
+        int recordStart = startRecord(BALLOT_RECORD, 2 + 2 * preferenceCount);
+
+        buffer.putShort((short) preferenceCount);
+
+        for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+            String name = ballot.getCandidateChoiceAtIndex(preferenceIndex).getName();
+            int ordinal = journalRegistry.getOrdinalOfCandidate(journalRegistry.getCandidateWithName(name));
+
+            buffer.putShort((short) ordinal);
+        }
+
+        finishRecord(recordStart);
+
+        uncommittedBallotCount++;
+    }
+
+    private void appendCandidateRecord(int ordinal, String name) {
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+
+        int recordStart = startRecord(CANDIDATE_RECORD, 4 + encodedName.length);
+
+        buffer.putInt(ordinal);
+        buffer.put(encodedName);
+
+        finishRecord(recordStart);
+    }
+
+    /**
+     * Writes the length and type of a record
+     *
+     * @param type - The type of the record
+     * @param dataLength - The length of the record's data, after its type
+     * @return The position of the record's type, where its checksum starts
+     */
+    private int startRecord(byte type, int dataLength) {
+        ensureRemaining(RECORD_OVERHEAD + 1 + dataLength);
+
+        buffer.putInt(1 + dataLength);
+
+        int recordStart = buffer.position();
+        buffer.put(type);
+
+        return recordStart;
+    }
+
+    private void finishRecord(int recordStart) {
+        checksum.reset();
+        checksum.update(buffer.array(), recordStart, buffer.position() - recordStart);
+
+        buffer.putInt((int) checksum.getValue());
+    }
+
+    private void ensureRemaining(int size) {
+        if (buffer.remaining() >= size) return;
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    /**
+     * Called on the committing thread each interval, and when enough ballots are waiting
+     */
+    private void commitInBackground() {
+        synchronized (this) {
+            isCommitQueued = false;
+
+            if (commitError != null) return;
+        }
+
+        try {
+            commit();
+        } catch (IOException e) {
+            // Reported now to the listener, and to the next caller to append
+            VCSBallotJournalListener listener;
+
+            synchronized (this) {
+                listener = journalListener;
+            }
+
+            if (listener != null) {
+                listener.didFailToJournalBallots(new IOException("The journal could not be written", e));
+            }
+        }
+    }
+
+    private void throwCommitError() throws IOException {
+        if (commitError != null) {
+            throw new IOException("The journal could not be written", commitError);
+        }
+    }
+
+    /**
+     * Reads every complete record from the start of the file
+     *
+     * @return The length of the file up to the end of the last complete record
+     */
+    private long replay() throws IOException {
+        long fileSize = fileChannel.size();
+
+        if (fileSize == 0) return 0;
+
+        ByteBuffer contents = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        CRC32 recordChecksum = new CRC32();
+
+        while (contents.remaining() >= RECORD_OVERHEAD + 1) {
+            int recordPosition = contents.position();
+            int recordLength = contents.getInt();
+
+            if (recordLength < 1 || recordLength > contents.remaining() - 4) {
+                return recordPosition;
+            }
+
+            ByteBuffer record = contents.slice();
+            record.limit(recordLength);
+
+            recordChecksum.reset();
+            recordChecksum.update(record.duplicate());
+
+            if (contents.getInt(contents.position() + recordLength) != (int) recordChecksum.getValue()) {
+                return recordPosition;
+            }
+
+            if (!replayRecord(record.order(ByteOrder.LITTLE_ENDIAN))) {
+                return recordPosition;
+            }
+
+            contents.position(contents.position() + recordLength + 4);
+        }
+
+        return contents.position();
+    }
+
+    /**
+     * @return False, if the record can not be understood
+     */
+    private boolean replayRecord(ByteBuffer record) {
+        byte type = record.get();
+
+        if (type == CANDIDATE_RECORD && record.remaining() >= 4) {
+            int ordinal = record.getInt();
+
+            byte[] encodedName = new byte[record.remaining()];
+            record.get(encodedName);
+
+            String name = new String(encodedName, StandardCharsets.UTF_8);
+
+            // Ordinals are given in the order names were written
+            return encodedName.length > 0 && journalRegistry.getCandidateWithName(name) == null
+                    && journalRegistry.registerCandidateWithName(name) == ordinal;
+        }
+
+        if (type == BALLOT_RECORD && record.remaining() >= 2) {
+            int preferenceCount = record.getShort() & 0xFFFF;
+
+            if (record.remaining() != 2 * preferenceCount) return false;
+
+            int[] ordinals = new int[preferenceCount];
+
+            // Every ordinal is checked first, so a bad record adds nothing to the replayed ballots
+            for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+                ordinals[preferenceIndex] = record.getShort() & 0xFFFF;
+
+                if (ordinals[preferenceIndex] >= journalRegistry.getCandidateCount()) return false;
+            }
+
+            for (int ordinal : ordinals) {
+                replayedBallots.addPreferenceToCurrentBallot(ordinal);
+            }
+
+            replayedBallots.didFinishAddingPreferencesToBallot();
+            return true;
+        }
+
+        return false;
+    }
+}
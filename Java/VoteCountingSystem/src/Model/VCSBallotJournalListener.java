@@ -0,0 +1,18 @@
+package Model;
+
+import java.io.IOException;
+
+/**
+ * Told when ballots added to the vote could not be written to the ballot journal
+ */
+public interface VCSBallotJournalListener {
+
+    /**
+     * Called when ballots could not be appended to the journal, or a commit to disk failed.
+     * The ballots stay in the vote, but will not be replayed after a restart.
+     * May be called on the journal's committing thread
+     *
+     * @param error - The reason the ballots could not be written
+     */
+    void didFailToJournalBallots(IOException error);
+}
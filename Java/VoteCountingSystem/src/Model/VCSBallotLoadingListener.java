@@ -0,0 +1,17 @@
+package Model;
+
+/**
+ * Told about the progress of a ballot loader as it reads a file
+ */
+public interface VCSBallotLoadingListener {
+
+    /**
+     * Called each time a batch of ballots has been completed.
+     * No ballot is being built when this is called, so the loader's store can be swapped
+     *
+     * @param bytesParsed - The position in the file the loader has reached
+     * @param ballotsLoaded - The number of ballots completed so far
+     * @return True, to carry on loading. False, to stop
+     */
+    boolean didLoadBallots(long bytesParsed, int ballotsLoaded);
+}
@@ -0,0 +1,157 @@
+package Model;
+
+/**
+ * Keeps a pile of ballot indices for each candidate still in the vote,
+ * along with a cursor for each ballot pointing at its current preference.
+ *
+ * When a candidate is eliminated only the ballots in that candidate's pile
+ * are re-examined, rather than every ballot in the vote.
+ */
+public class VCSBallotPiles {
+
+    private static final int INITIAL_PILE_CAPACITY = 16;
+
+    private final VCSBallotStore ballotStore;
+
+    private final boolean[] continuingCandidates;
+
+    // The preference index each ballot is currently counted at
+    private final int[] ballotCursors;
+
+    private final int[][] piles;
+    private final int[] pileSizes;
+
+    private int exhaustedBallotCount;
+
+    /**
+     * Sorts every ballot onto the pile of its highest continuing preference
+     *
+     * @param ballotStore - The ballots in the vote
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the vote,
+     *                               the ordinal of each candidate is used as its pile number.
+     *                               Ordinals past the end of the array are never counted.
+     *
+     * @post. Every ballot with a continuing preference is on exactly one pile
+     */
+    public VCSBallotPiles(VCSBallotStore ballotStore, boolean[] continuingCandidates) {
+        this.ballotStore = ballotStore;
+        this.continuingCandidates = continuingCandidates.clone();
+
+        ballotCursors = new int[ballotStore.getBallotCount()];
+
+        piles = new int[continuingCandidates.length][];
+        pileSizes = new int[continuingCandidates.length];
+
+        for (int x = 0; x < piles.length; x++) {
+            piles[x] = new int[INITIAL_PILE_CAPACITY];
+        }
+
+        // Place each ballot on the pile of its first continuing preference
+        for (int ballotIndex = 0; ballotIndex < ballotCursors.length; ballotIndex++) {
+            placeBallotFromPreference(ballotIndex, 0);
+        }
+    }
+
+    /**
+     * @param candidateIndex - The pile number of the candidate
+     * @return The number of ballots currently on the candidate's pile
+     */
+    public int getPileSize(int candidateIndex) {
+        return pileSizes[candidateIndex];
+    }
+
+    /**
+     * @return The number of ballots which have no continuing preferences left
+     */
+    public int getExhaustedBallotCount() {
+        return exhaustedBallotCount;
+    }
+
+    /**
+     * Removes a candidate from the vote and moves each ballot on their pile
+     * to the ballot's next continuing preference
+     *
+     * @param candidateIndex - The pile number of the candidate to eliminate
+     *
+     * @pre. The candidate is still in the vote
+     * @post. The candidate's pile is empty
+     * @post. Ballots with no continuing preferences are counted as exhausted
+     */
+    public void eliminateCandidate(int candidateIndex) {
+        eliminateCandidates(new int[] {candidateIndex});
+    }
+
+    /**
+     * Removes several candidates from the vote at once. Each ballot on their piles moves
+     * straight to its next preference still in the vote, never through another of them
+     *
+     * @param candidateIndices - The pile numbers of the candidates to eliminate
+     *
+     * @pre. Every candidate is still in the vote
+     * @post. The candidates' piles are empty
+     * @post. Ballots with no continuing preferences are counted as exhausted
+     */
+    public void eliminateCandidates(int[] candidateIndices) {
+        for (int candidateIndex : candidateIndices) {
+            assert continuingCandidates[candidateIndex] : "Candidate has already been eliminated";
+
+            continuingCandidates[candidateIndex] = false;
+        }
+
+        for (int candidateIndex : candidateIndices) {
+            transferPile(candidateIndex);
+        }
+    }
+
+    /**
+     * Moves each ballot on an eliminated candidate's pile to its next continuing preference
+     */
+    private void transferPile(int candidateIndex) {
+        int[] pile = piles[candidateIndex];
+        int pileSize = pileSizes[candidateIndex];
+
+        // Release the pile before transferring, no ballot can return to it
+        piles[candidateIndex] = new int[0];
+        pileSizes[candidateIndex] = 0;
+
+        for (int x = 0; x < pileSize; x++) {
+            int ballotIndex = pile[x];
+            placeBallotFromPreference(ballotIndex, ballotCursors[ballotIndex] + 1);
+        }
+    }
+
+    /**
+     * Walks a ballot from a preference index until a continuing candidate is found,
+     * then adds the ballot to that candidate's pile
+     */
+    private void placeBallotFromPreference(int ballotIndex, int preferenceIndex) {
+        int preferenceCount = ballotStore.getPreferenceCount(ballotIndex);
+
+        while (preferenceIndex < preferenceCount) {
+            int candidateIndex = ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex);
+
+            if (candidateIndex < continuingCandidates.length && continuingCandidates[candidateIndex]) {
+                ballotCursors[ballotIndex] = preferenceIndex;
+                addBallotToPile(ballotIndex, candidateIndex);
+                return;
+            }
+
+            // That candidate is no longer in the vote, take the next choice instead
+            preferenceIndex++;
+        }
+
+        exhaustedBallotCount++;
+    }
+
+    private void addBallotToPile(int ballotIndex, int candidateIndex) {
+        int[] pile = piles[candidateIndex];
+
+        if (pileSizes[candidateIndex] == pile.length) {
+            int[] grownPile = new int[Math.max(INITIAL_PILE_CAPACITY, pile.length * 2)];
+            System.arraycopy(pile, 0, grownPile, 0, pile.length);
+            piles[candidateIndex] = pile = grownPile;
+        }
+
+        pile[pileSizes[candidateIndex]++] = ballotIndex;
+    }
+}
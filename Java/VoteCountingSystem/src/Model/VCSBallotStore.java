@@ -0,0 +1,527 @@
+package Model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Stores every ballot in the vote as columns of primitive values.
+ *
+ * Each candidate has an ordinal in the candidate registry, and a ballot's preferences
+ * are kept as ordinals packed one after another in a single byte column. Once an
+ * ordinal no longer fits in a byte the column is widened to shorts. An offsets array marks
+ * where each ballot starts, so ballot n holds the preferences from
+ * offsets[n] up to offsets[n + 1].
+ *
+ * A store can also read its columns straight from a mapped binary ballot file,
+ * so opening the file needs no parsing. The mapped columns are copied into
+ * arrays the first time ballots are added to the store.
+ */
+public class VCSBallotStore {
+
+    private static final int INITIAL_BALLOT_CAPACITY = 64;
+    private static final int INITIAL_PREFERENCE_CAPACITY = 256;
+
+    private static final int MAXIMUM_BYTE_ORDINAL = 0xFF;
+    private static final int MAXIMUM_SHORT_ORDINAL = 0xFFFF;
+
+    private final VCSCandidateRegistry candidateRegistry;
+
+    // Preference columns, only one is in use at a time
+    private byte[] bytePreferences;
+    private short[] shortPreferences;
+
+    private int preferenceCount;
+
+    // offsets[n] is the position of the first preference of ballot n
+    private int[] offsets;
+    private int ballotCount;
+
+    // Read only columns from a mapped file, used instead of the arrays while they are set
+    private ByteBuffer mappedPreferences;
+    private IntBuffer mappedOffsets;
+    private boolean hasMappedShortPreferences;
+
+    /**
+     * Initialises an empty store
+     *
+     * @param candidateRegistry - The registry giving each candidate its ordinal
+     */
+    public VCSBallotStore(VCSCandidateRegistry candidateRegistry) {
+        this.candidateRegistry = candidateRegistry;
+
+        bytePreferences = new byte[INITIAL_PREFERENCE_CAPACITY];
+
+        offsets = new int[INITIAL_BALLOT_CAPACITY + 1];
+    }
+
+    /**
+     * Initialises a store which reads its columns from a mapped file
+     *
+     * @param candidateRegistry - The registry giving each candidate its ordinal
+     * @param mappedOffsets - The position of the first preference of each ballot, then the total number of preferences
+     * @param mappedPreferences - The ordinals of every preference
+     * @param hasShortPreferences - True, if each ordinal takes two bytes rather than one
+     *
+     * @pre. mappedOffsets holds one more offset than there are ballots
+     * @pre. Both buffers use the byte order they were written in
+     */
+    VCSBallotStore(VCSCandidateRegistry candidateRegistry, IntBuffer mappedOffsets,
+                   ByteBuffer mappedPreferences, boolean hasShortPreferences) {
+        this.candidateRegistry = candidateRegistry;
+
+        this.mappedOffsets = mappedOffsets;
+        this.mappedPreferences = mappedPreferences;
+        this.hasMappedShortPreferences = hasShortPreferences;
+
+        ballotCount = mappedOffsets.limit() - 1;
+        preferenceCount = mappedOffsets.get(ballotCount);
+    }
+
+    /**
+     * @return The number of completed ballots in the store
+     */
+    public int getBallotCount() {
+        return ballotCount;
+    }
+
+    /**
+     * @return The registry giving each candidate its ordinal
+     */
+    public VCSCandidateRegistry getCandidateRegistry() {
+        return candidateRegistry;
+    }
+
+    /**
+     * Copies the preferences of a ballot into the store
+     *
+     * @param ballot - The ballot to add
+     *
+     * @pre. ballot != null
+     * @post. getBallotCount() is increased by one
+     */
+    public void addBallot(VCSBallot ballot) {
+        assert ballot != null : "Ballot is null";
+
+        int preferenceIndex = 0;
+
+        while (ballot.hasCandidateAtIndex(preferenceIndex)) {
+            addPreferenceToCurrentBallot(candidateRegistry.addCandidate(ballot.getCandidateChoiceAtIndex(preferenceIndex)));
+            preferenceIndex++;
+        }
+
+        didFinishAddingPreferencesToBallot();
+    }
+
+    /**
+     * Copies every completed ballot from another store onto the end of this one
+     *
+     * @param otherStore - The store to copy from
+     *
+     * @pre. Both stores share the same candidate registry
+     * @pre. This store has no ballot currently being built
+     * @post. The other store's ballots follow this store's ballots, in the same order
+     */
+    public void addBallotsFromStore(VCSBallotStore otherStore) {
+        assert otherStore.candidateRegistry == candidateRegistry : "Stores have different candidate registries";
+        assert !hasPreferencesInCurrentBallot() : "A ballot is being built";
+
+        // An empty store can read a mapped store's columns without copying them
+        if (otherStore.isMapped() && ballotCount == 0 && !isMapped()) {
+            adoptMappedColumnsFromStore(otherStore);
+            return;
+        }
+
+        appendColumnsFromStore(otherStore, null);
+    }
+
+    /**
+     * Copies every completed ballot from a store with a different candidate registry,
+     * translating each ordinal into this store's registry
+     *
+     * @param otherStore - The store to copy from
+     * @param ordinalMap - ordinalMap[n] is the ordinal in this store of the candidate with ordinal n in the other store
+     *
+     * @pre. Every ordinal in the other store is less than ordinalMap.length
+     * @pre. This store has no ballot currently being built
+     * @post. The other store's ballots follow this store's ballots, in the same order
+     */
+    public void addBallotsFromStore(VCSBallotStore otherStore, int[] ordinalMap) {
+        assert !hasPreferencesInCurrentBallot() : "A ballot is being built";
+
+        // A mapped store with the same ordinals can be read in place by an empty store
+        if (otherStore.isMapped() && ballotCount == 0 && !isMapped() && isIdentityMap(ordinalMap)) {
+            adoptMappedColumnsFromStore(otherStore);
+            return;
+        }
+
+        appendColumnsFromStore(otherStore, isIdentityMap(ordinalMap) ? null : ordinalMap);
+    }
+
+    /**
+     * Copies every completed ballot into a new store with a different candidate registry,
+     * translating each ordinal. Only this store and the map are read, so several stores
+     * can be translated on different threads at once
+     *
+     * @param candidateRegistry - The registry of the new store
+     * @param ordinalMap - ordinalMap[n] is the ordinal in the new store of the candidate with ordinal n in this store
+     * @return A store holding this store's ballots, in the same order
+     *
+     * @pre. Every ordinal in this store is less than ordinalMap.length
+     */
+    VCSBallotStore copyWithCandidateRegistry(VCSCandidateRegistry candidateRegistry, int[] ordinalMap) {
+        VCSBallotStore copy = new VCSBallotStore(candidateRegistry);
+        copy.appendColumnsFromStore(this, ordinalMap);
+
+        return copy;
+    }
+
+    /**
+     * Copies another store's ballots into this store's columns with a single pass over each column
+     *
+     * @param ordinalMap - Translates the other store's ordinals, or null if they are the same in both stores
+     */
+    private void appendColumnsFromStore(VCSBallotStore otherStore, int[] ordinalMap) {
+        // Only completed ballots are copied, not one the other store is still building
+        int addedPreferences = otherStore.getTotalPreferenceCount();
+        int addedBallots = otherStore.ballotCount;
+
+        copyMappedColumns();
+
+        // The copied ordinals may not fit in this store's byte column
+        boolean needsShortColumn = ordinalMap != null ? getLargestOrdinal(ordinalMap) > MAXIMUM_BYTE_ORDINAL
+                : otherStore.hasShortPreferences();
+
+        if (needsShortColumn && shortPreferences == null) {
+            widenPreferenceColumn();
+        }
+
+        ensurePreferenceCapacity(preferenceCount + addedPreferences);
+
+        if (ordinalMap == null && shortPreferences == null) {
+            // Both stores use byte columns, so the columns can be copied as they are
+            if (otherStore.isMapped()) {
+                otherStore.mappedPreferences.duplicate().get(bytePreferences, preferenceCount, addedPreferences);
+            }
+            else {
+                System.arraycopy(otherStore.bytePreferences, 0, bytePreferences, preferenceCount, addedPreferences);
+            }
+        }
+        else if (ordinalMap == null && otherStore.shortPreferences != null) {
+            System.arraycopy(otherStore.shortPreferences, 0, shortPreferences, preferenceCount, addedPreferences);
+        }
+        else if (shortPreferences != null) {
+            for (int x = 0; x < addedPreferences; x++) {
+                int ordinal = otherStore.getOrdinalAtPosition(x);
+                shortPreferences[preferenceCount + x] = (short) (ordinalMap != null ? ordinalMap[ordinal] : ordinal);
+            }
+        }
+        else {
+            for (int x = 0; x < addedPreferences; x++) {
+                bytePreferences[preferenceCount + x] = (byte) ordinalMap[otherStore.getOrdinalAtPosition(x)];
+            }
+        }
+
+        if (ballotCount + addedBallots + 1 > offsets.length) {
+            int[] grown = new int[Math.max(offsets.length * 2, ballotCount + addedBallots + 1)];
+            System.arraycopy(offsets, 0, grown, 0, ballotCount + 1);
+            offsets = grown;
+        }
+
+        // The other store's offsets start from its first preference, so each is moved past this store's preferences
+        for (int x = 1; x <= addedBallots; x++) {
+            offsets[ballotCount + x] = preferenceCount + otherStore.getOffset(x);
+        }
+
+        preferenceCount += addedPreferences;
+        ballotCount += addedBallots;
+    }
+
+    /**
+     * Adds the next preference to the ballot currently being built.
+     * When the ballot is complete, call didFinishAddingPreferencesToBallot()
+     *
+     * @param ordinal - The ordinal of the candidate preferred
+     *
+     * @pre. ordinal < getCandidateRegistry().getCandidateCount()
+     */
+    public void addPreferenceToCurrentBallot(int ordinal) {
+        assert ordinal >= 0 && ordinal < candidateRegistry.getCandidateCount() : "Ordinal is not a candidate";
+        assert ordinal <= MAXIMUM_SHORT_ORDINAL : "Too many candidates";
+
+        copyMappedColumns();
+
+        // The byte column can no longer hold every ordinal
+        if (ordinal > MAXIMUM_BYTE_ORDINAL && shortPreferences == null) {
+            widenPreferenceColumn();
+        }
+
+        ensurePreferenceCapacity(preferenceCount + 1);
+
+        if (shortPreferences != null) {
+            shortPreferences[preferenceCount++] = (short) ordinal;
+        }
+        else {
+            bytePreferences[preferenceCount++] = (byte) ordinal;
+        }
+    }
+
+    /**
+     * Completes the ballot currently being built
+     *
+     * @post. getBallotCount() is increased by one
+     * @post. Further preferences will be added to a new ballot
+     */
+    public void didFinishAddingPreferencesToBallot() {
+        copyMappedColumns();
+
+        if (ballotCount + 1 == offsets.length) {
+            int[] grown = new int[offsets.length * 2];
+            System.arraycopy(offsets, 0, grown, 0, offsets.length);
+            offsets = grown;
+        }
+
+        offsets[++ballotCount] = preferenceCount;
+    }
+
+    /**
+     * Removes the preferences added to the ballot currently being built
+     *
+     * @post. hasPreferencesInCurrentBallot() is false
+     * @post. getBallotCount() is unchanged
+     */
+    public void discardCurrentBallot() {
+        preferenceCount = getOffset(ballotCount);
+    }
+
+    /**
+     * @return True, if preferences have been added that are not yet part of a completed ballot
+     */
+    public boolean hasPreferencesInCurrentBallot() {
+        return preferenceCount > getOffset(ballotCount);
+    }
+
+    /**
+     * @param ballotIndex - The ballot to check
+     * @return The number of preferences on the ballot
+     */
+    public int getPreferenceCount(int ballotIndex) {
+        assert ballotIndex < ballotCount : "No ballot at index";
+
+        return getOffset(ballotIndex + 1) - getOffset(ballotIndex);
+    }
+
+    /**
+     * Used to check if a ballot has a candidate at a specific preference index
+     *
+     * @param ballotIndex - The ballot to check
+     * @param preferenceIndex - The preference index to check
+     * @return True, if a candidate exists at that index
+     */
+    public boolean hasCandidateAtIndex(int ballotIndex, int preferenceIndex) {
+        assert preferenceIndex >= 0 : "index selected is less that zero";
+
+        return preferenceIndex < getPreferenceCount(ballotIndex);
+    }
+
+    /**
+     * @param ballotIndex - The ballot to read
+     * @param preferenceIndex - The preference index to read
+     * @return The ordinal of the candidate at that preference
+     *
+     * @pre. hasCandidateAtIndex(ballotIndex, preferenceIndex)
+     */
+    public int getOrdinalAtIndex(int ballotIndex, int preferenceIndex) {
+        assert hasCandidateAtIndex(ballotIndex, preferenceIndex) : "No candidate at index";
+
+        return getOrdinalAtPosition(getOffset(ballotIndex) + preferenceIndex);
+    }
+
+    /**
+     * @param position - The position in the preference column
+     * @return The ordinal stored at that position
+     */
+    private int getOrdinalAtPosition(int position) {
+        if (mappedPreferences != null) {
+            if (hasMappedShortPreferences) {
+                return mappedPreferences.getShort(position << 1) & MAXIMUM_SHORT_ORDINAL;
+            }
+
+            return mappedPreferences.get(position) & MAXIMUM_BYTE_ORDINAL;
+        }
+
+        if (shortPreferences != null) {
+            return shortPreferences[position] & MAXIMUM_SHORT_ORDINAL;
+        }
+
+        return bytePreferences[position] & MAXIMUM_BYTE_ORDINAL;
+    }
+
+    /**
+     * @param ballotIndex - The ballot, or the ballot count for the end of the last ballot
+     * @return The position in the preference column of the ballot's first preference
+     */
+    int getOffset(int ballotIndex) {
+        if (mappedOffsets != null) {
+            return mappedOffsets.get(ballotIndex);
+        }
+
+        return offsets[ballotIndex];
+    }
+
+    /**
+     * @return The number of preferences on every completed ballot
+     */
+    int getTotalPreferenceCount() {
+        return getOffset(ballotCount);
+    }
+
+    /**
+     * @return True, if an ordinal may not fit in a single byte
+     */
+    boolean hasShortPreferences() {
+        return isMapped() ? hasMappedShortPreferences : shortPreferences != null;
+    }
+
+    /**
+     * @return The bytes held by the store's columns, including unused capacity and any mapped file
+     */
+    public long getMemoryUsage() {
+        if (isMapped()) {
+            return 4L * mappedOffsets.capacity() + mappedPreferences.capacity();
+        }
+
+        long preferenceBytes = shortPreferences != null ? 2L * shortPreferences.length : bytePreferences.length;
+
+        return 4L * offsets.length + preferenceBytes;
+    }
+
+    /**
+     * @return True, if the store is reading its columns from a mapped file
+     */
+    public boolean isMapped() {
+        return mappedPreferences != null;
+    }
+
+    /**
+     * @param ballotIndex - The ballot to read
+     * @param preferenceIndex - The preference index to read
+     * @return The candidate at that preference
+     *
+     * @pre. hasCandidateAtIndex(ballotIndex, preferenceIndex)
+     */
+    public VCSCandidate getCandidateChoiceAtIndex(int ballotIndex, int preferenceIndex) {
+        return candidateRegistry.getCandidateWithOrdinal(getOrdinalAtIndex(ballotIndex, preferenceIndex));
+    }
+
+    /**
+     * @param ballotIndex - The ballot to view
+     * @return A ballot which reads its preferences from the store
+     */
+    public VCSBallot getBallot(int ballotIndex) {
+        assert ballotIndex < ballotCount : "No ballot at index";
+
+        return new VCSStoredBallot(this, ballotIndex);
+    }
+
+    /**
+     * Reads the columns of a mapped store in place
+     *
+     * @pre. This store is empty and not mapped
+     */
+    private void adoptMappedColumnsFromStore(VCSBallotStore otherStore) {
+        mappedOffsets = otherStore.mappedOffsets;
+        mappedPreferences = otherStore.mappedPreferences;
+        hasMappedShortPreferences = otherStore.hasMappedShortPreferences;
+
+        ballotCount = otherStore.ballotCount;
+        preferenceCount = otherStore.preferenceCount;
+
+        // The arrays are rebuilt from the mapped columns if ballots are added
+        bytePreferences = null;
+        shortPreferences = null;
+        offsets = null;
+    }
+
+    /**
+     * Copies mapped columns into arrays, so ballots can be added to the store
+     *
+     * @post. isMapped() is false
+     */
+    private void copyMappedColumns() {
+        if (mappedPreferences == null) return;
+
+        int[] copiedOffsets = new int[Math.max(ballotCount + 1, INITIAL_BALLOT_CAPACITY + 1)];
+        for (int x = 0; x <= ballotCount; x++) {
+            copiedOffsets[x] = mappedOffsets.get(x);
+        }
+
+        int capacity = Math.max(preferenceCount, INITIAL_PREFERENCE_CAPACITY);
+
+        if (hasMappedShortPreferences) {
+            shortPreferences = new short[capacity];
+            for (int x = 0; x < preferenceCount; x++) {
+                shortPreferences[x] = (short) getOrdinalAtPosition(x);
+            }
+        }
+        else {
+            bytePreferences = new byte[capacity];
+            mappedPreferences.duplicate().get(bytePreferences, 0, preferenceCount);
+        }
+
+        offsets = copiedOffsets;
+
+        mappedPreferences = null;
+        mappedOffsets = null;
+    }
+
+    private static int getLargestOrdinal(int[] ordinalMap) {
+        int largestOrdinal = 0;
+
+        for (int ordinal : ordinalMap) {
+            largestOrdinal = Math.max(largestOrdinal, ordinal);
+        }
+
+        return largestOrdinal;
+    }
+
+    private static boolean isIdentityMap(int[] ordinalMap) {
+        for (int x = 0; x < ordinalMap.length; x++) {
+            if (ordinalMap[x] != x) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Grows whichever preference column is in use so it can hold at least the capacity given
+     */
+    private void ensurePreferenceCapacity(int capacity) {
+        if (shortPreferences != null) {
+            if (capacity > shortPreferences.length) {
+                short[] grown = new short[Math.max(shortPreferences.length * 2, capacity)];
+                System.arraycopy(shortPreferences, 0, grown, 0, preferenceCount);
+                shortPreferences = grown;
+            }
+        }
+        else if (capacity > bytePreferences.length) {
+            byte[] grown = new byte[Math.max(bytePreferences.length * 2, capacity)];
+            System.arraycopy(bytePreferences, 0, grown, 0, preferenceCount);
+            bytePreferences = grown;
+        }
+    }
+
+    /**
+     * Moves the preferences from the byte column into a short column
+     */
+    private void widenPreferenceColumn() {
+        shortPreferences = new short[bytePreferences.length];
+
+        for (int x = 0; x < preferenceCount; x++) {
+            shortPreferences[x] = (short) (bytePreferences[x] & MAXIMUM_BYTE_ORDINAL);
+        }
+
+        bytePreferences = null;
+    }
+}
@@ -0,0 +1,299 @@
+package Model;
+
+/**
+ * A prefix tree of the preference orders in the vote.
+ *
+ * Each node is a candidate ordinal reached by following a ballot's preferences
+ * from the root, and carries the number of ballots which pass through it.
+ * Identical rankings share a single path, so counting only visits each
+ * distinct ranking prefix once rather than every ballot.
+ *
+ * Nodes are stored as parallel primitive arrays, with children kept as a
+ * linked list through firstChild and nextSibling.
+ *
+ * Between counts the tree keeps, for each continuing candidate, the nodes their votes
+ * were counted from. When candidates are eliminated only the trees below their nodes are
+ * walked, so a round costs the same as re-examining the eliminated candidate's pile.
+ * Adding ballots, or returning a candidate to the vote, walks the whole tree again.
+ */
+public class VCSBallotTrie {
+
+    private static final int INITIAL_NODE_CAPACITY = 64;
+    private static final int NO_NODE = -1;
+    private static final int ROOT_NODE = 0;
+
+    private int[] nodeOrdinals;
+    private int[] nodeWeights;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+
+    private int nodeCount;
+
+    // Reused between counts to walk the tree without recursion
+    private int[] nodeStack;
+
+    private int exhaustedBallotCount;
+
+    // The nodes each candidate was counted from, and the votes they hold, as of the last count
+    private int[][] countedNodes;
+    private int[] countedNodeCounts;
+    private int[] countedVotes;
+    private boolean[] countedCandidates;
+
+    // False until the first count, and after ballots are added
+    private boolean isCountCurrent;
+
+    /**
+     * Initialises an empty tree containing only the root
+     */
+    public VCSBallotTrie() {
+        nodeOrdinals = new int[INITIAL_NODE_CAPACITY];
+        nodeWeights = new int[INITIAL_NODE_CAPACITY];
+        firstChildren = new int[INITIAL_NODE_CAPACITY];
+        nextSiblings = new int[INITIAL_NODE_CAPACITY];
+
+        nodeStack = new int[INITIAL_NODE_CAPACITY];
+
+        // The root is not a candidate, it holds the total number of ballots
+        createNodeWithOrdinal(NO_NODE);
+    }
+
+    /**
+     * Builds a tree from every ballot in a store
+     *
+     * @param ballotStore - The ballots to add
+     */
+    public VCSBallotTrie(VCSBallotStore ballotStore) {
+        this();
+
+        for (int ballotIndex = 0; ballotIndex < ballotStore.getBallotCount(); ballotIndex++) {
+            addBallotFromStore(ballotStore, ballotIndex);
+        }
+    }
+
+    /**
+     * Adds the ranking of a stored ballot to the tree
+     *
+     * @param ballotStore - The store holding the ballot
+     * @param ballotIndex - The ballot to add
+     *
+     * @post. Each node along the ballot's ranking has its weight increased by one
+     */
+    public void addBallotFromStore(VCSBallotStore ballotStore, int ballotIndex) {
+        int node = ROOT_NODE;
+        nodeWeights[node]++;
+
+        int preferenceCount = ballotStore.getPreferenceCount(ballotIndex);
+
+        for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+            node = getChildWithOrdinal(node, ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex));
+            nodeWeights[node]++;
+        }
+
+        isCountCurrent = false;
+    }
+
+    /**
+     * @return The number of ballots in the tree
+     */
+    public int getBallotCount() {
+        return nodeWeights[ROOT_NODE];
+    }
+
+    /**
+     * @return The number of distinct ranking prefixes in the tree
+     */
+    public int getNodeCount() {
+        return nodeCount - 1;
+    }
+
+    /**
+     * @return The number of ballots which had no continuing preference in the last count
+     */
+    public int getExhaustedBallotCount() {
+        return exhaustedBallotCount;
+    }
+
+    /**
+     * Counts the votes for each continuing candidate.
+     *
+     * A node of a continuing candidate gives its whole weight to that candidate.
+     * A node of an eliminated candidate passes its weight down to its children,
+     * and any ballots which end at that node are exhausted.
+     *
+     * If the only change since the last count is that candidates were eliminated,
+     * only the nodes those candidates were counted from are walked again.
+     *
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the vote.
+     *                               Ordinals past the end of the array are never counted.
+     * @param votes - Filled with the votes for each ordinal
+     *
+     * @pre. votes.length >= continuingCandidates.length
+     * @post. votes[n] holds the votes for the candidate with ordinal n
+     */
+    public void countVotes(boolean[] continuingCandidates, int[] votes) {
+        assert votes.length >= continuingCandidates.length : "Votes array is too small";
+
+        int stackSize = 0;
+
+        if (canCountFromLastCount(continuingCandidates)) {
+            // Move the votes of each newly eliminated candidate down to their next choices
+            for (int ordinal = 0; ordinal < continuingCandidates.length; ordinal++) {
+                if (!countedCandidates[ordinal] || continuingCandidates[ordinal]) {
+                    continue;
+                }
+
+                for (int x = 0; x < countedNodeCounts[ordinal]; x++) {
+                    int node = countedNodes[ordinal][x];
+
+                    // Ballots ending here are exhausted, the rest are taken back by the walk
+                    exhaustedBallotCount += nodeWeights[node];
+                    stackSize = pushChildren(node, stackSize);
+                }
+
+                countedNodeCounts[ordinal] = 0;
+                countedVotes[ordinal] = 0;
+            }
+        }
+        else {
+            resetCountedNodes(continuingCandidates.length);
+
+            // Start with the first preferences
+            exhaustedBallotCount = nodeWeights[ROOT_NODE];
+            stackSize = pushChildren(ROOT_NODE, 0);
+        }
+
+        while (stackSize > 0) {
+            int node = nodeStack[--stackSize];
+            int ordinal = nodeOrdinals[node];
+
+            if (ordinal < continuingCandidates.length && continuingCandidates[ordinal]) {
+                // Every ballot through this node counts for this candidate
+                addCountedNode(ordinal, node);
+                countedVotes[ordinal] += nodeWeights[node];
+                exhaustedBallotCount -= nodeWeights[node];
+            }
+            else {
+                // Candidate is no longer in the vote, take the next choices instead
+                stackSize = pushChildren(node, stackSize);
+            }
+        }
+
+        System.arraycopy(continuingCandidates, 0, countedCandidates, 0, continuingCandidates.length);
+        System.arraycopy(countedVotes, 0, votes, 0, continuingCandidates.length);
+
+        isCountCurrent = true;
+    }
+
+    /**
+     * @return True, if no ballots were added and no candidate returned to the vote since the last count
+     */
+    private boolean canCountFromLastCount(boolean[] continuingCandidates) {
+        if (!isCountCurrent || countedCandidates.length != continuingCandidates.length) {
+            return false;
+        }
+
+        for (int ordinal = 0; ordinal < continuingCandidates.length; ordinal++) {
+            if (continuingCandidates[ordinal] && !countedCandidates[ordinal]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void resetCountedNodes(int candidateCount) {
+        if (countedCandidates == null || countedCandidates.length != candidateCount) {
+            countedNodes = new int[candidateCount][];
+            countedNodeCounts = new int[candidateCount];
+            countedVotes = new int[candidateCount];
+            countedCandidates = new boolean[candidateCount];
+        }
+        else {
+            for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+                countedNodeCounts[ordinal] = 0;
+                countedVotes[ordinal] = 0;
+            }
+        }
+    }
+
+    private void addCountedNode(int ordinal, int node) {
+        int[] nodes = countedNodes[ordinal];
+
+        if (nodes == null) {
+            nodes = new int[INITIAL_NODE_CAPACITY];
+        }
+        else if (countedNodeCounts[ordinal] == nodes.length) {
+            nodes = copyOf(nodes, nodes.length * 2);
+        }
+
+        nodes[countedNodeCounts[ordinal]++] = node;
+        countedNodes[ordinal] = nodes;
+    }
+
+    /**
+     * @return The size of the stack after the children of the node are pushed
+     */
+    private int pushChildren(int node, int stackSize) {
+        for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+            nodeStack[stackSize++] = child;
+        }
+
+        return stackSize;
+    }
+
+    /**
+     * Finds the child of a node for a candidate, creating it if it does not exist
+     */
+    private int getChildWithOrdinal(int parent, int ordinal) {
+        int lastChild = NO_NODE;
+
+        for (int child = firstChildren[parent]; child != NO_NODE; child = nextSiblings[child]) {
+            if (nodeOrdinals[child] == ordinal) {
+                return child;
+            }
+
+            lastChild = child;
+        }
+
+        int child = createNodeWithOrdinal(ordinal);
+
+        if (lastChild == NO_NODE) {
+            firstChildren[parent] = child;
+        }
+        else {
+            nextSiblings[lastChild] = child;
+        }
+
+        return child;
+    }
+
+    private int createNodeWithOrdinal(int ordinal) {
+        if (nodeCount == nodeOrdinals.length) {
+            int capacity = nodeOrdinals.length * 2;
+
+            nodeOrdinals = copyOf(nodeOrdinals, capacity);
+            nodeWeights = copyOf(nodeWeights, capacity);
+            firstChildren = copyOf(firstChildren, capacity);
+            nextSiblings = copyOf(nextSiblings, capacity);
+
+            // A walk can never hold more nodes than the tree has
+            nodeStack = new int[capacity];
+        }
+
+        int node = nodeCount++;
+
+        nodeOrdinals[node] = ordinal;
+        nodeWeights[node] = 0;
+        firstChildren[node] = NO_NODE;
+        nextSiblings[node] = NO_NODE;
+
+        return node;
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
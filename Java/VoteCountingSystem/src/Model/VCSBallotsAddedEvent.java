@@ -0,0 +1,34 @@
+package Model;
+
+/**
+ * Passed to the model's observers when ballots are added,
+ * describing the range of the ballot store which is new
+ */
+public class VCSBallotsAddedEvent {
+
+    private final int firstBallotIndex;
+    private final int ballotCount;
+
+    /**
+     * @param firstBallotIndex - The index in the ballot store of the first new ballot
+     * @param ballotCount - The number of ballots added
+     */
+    public VCSBallotsAddedEvent(int firstBallotIndex, int ballotCount) {
+        this.firstBallotIndex = firstBallotIndex;
+        this.ballotCount = ballotCount;
+    }
+
+    /**
+     * @return The index in the ballot store of the first new ballot
+     */
+    public int getFirstBallotIndex() {
+        return firstBallotIndex;
+    }
+
+    /**
+     * @return The number of ballots added
+     */
+    public int getBallotCount() {
+        return ballotCount;
+    }
+}
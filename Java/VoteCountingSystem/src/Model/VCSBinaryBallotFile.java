@@ -0,0 +1,405 @@
+package Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes ballot stores in the binary .vcsb format.
+ *
+ * The file holds the ballot store's columns as they are kept in memory, so it can be
+ * mapped and read by the store in place without parsing each ballot. All values are little endian.
+ *
+ *   magic "VCSB", version, ordinal width (1 or 2 bytes), candidate count,
+ *   ballot count, preference count, candidate table length
+ *   candidate table: for each ordinal, the name's length, 1 if the candidate stands in the vote
+ *   or 0 if they were only met on a ballot, then the name's UTF-8 bytes
+ *   padding to a multiple of four bytes
+ *   offsets: ballot count + 1 ints
+ *   preferences: preference count ordinals
+ *   CRC32 checksum of everything before it, as a long
+ */
+public class VCSBinaryBallotFile {
+
+    /**
+     * The extension given to binary ballot files
+     */
+    public static final String FILE_EXTENSION = "vcsb";
+
+    static final byte[] MAGIC = {'V', 'C', 'S', 'B'};
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 28;
+    static final int CHECKSUM_SIZE = 8;
+
+    // Regions larger than this are checked one window at a time
+    static final long CHECKSUM_WINDOW_SIZE = 1 << 30;
+
+    static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private VCSBinaryBallotFile() {
+    }
+
+    /**
+     * @param fileChannel - An opened file
+     * @return True, if the file starts with the binary ballot file's magic bytes
+     * @throws IOException - If the file can not be read
+     */
+    public static boolean isBinaryBallotFile(FileChannel fileChannel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+
+        while (magic.hasRemaining()) {
+            if (fileChannel.read(magic, magic.position()) <= 0) {
+                return false;
+            }
+        }
+
+        return ByteBuffer.wrap(MAGIC).equals(magic.flip());
+    }
+
+    /**
+     * Maps a binary ballot file into a store, without parsing its ballots
+     *
+     * @param fileChannel - The opened binary ballot file
+     * @return A store reading its columns from the file, with a registry of the file's candidates
+     * @throws IOException - If the file can not be read, is not a binary ballot file, fails its checksum,
+     * or holds offsets or ordinals outside its columns
+     *
+     * @post. The store stays readable after the file is closed
+     */
+    public static VCSBallotStore mapBallotStore(FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+
+        if (fileSize < HEADER_SIZE + CHECKSUM_SIZE) {
+            throw new IOException("File is too short to be a ballot file");
+        }
+
+        ByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (byte magicByte : MAGIC) {
+            if (header.get() != magicByte) {
+                throw new IOException("File is not a binary ballot file");
+            }
+        }
+
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported ballot file version " + version);
+        }
+
+        int ordinalWidth = header.getInt();
+        int candidateCount = header.getInt();
+        int ballotCount = header.getInt();
+        int preferenceCount = header.getInt();
+        int candidateTableLength = header.getInt();
+
+        if ((ordinalWidth != 1 && ordinalWidth != 2) || candidateCount < 0 || ballotCount < 0
+                || preferenceCount < 0 || candidateTableLength < 0) {
+            throw new IOException("Ballot file header is corrupt");
+        }
+
+        long offsetsPosition = alignToInt(HEADER_SIZE + (long) candidateTableLength);
+        long offsetsLength = 4L * (ballotCount + 1);
+        long preferencesPosition = offsetsPosition + offsetsLength;
+        long preferencesLength = (long) ordinalWidth * preferenceCount;
+        long checksumPosition = preferencesPosition + preferencesLength;
+
+        if (checksumPosition + CHECKSUM_SIZE != fileSize) {
+            throw new IOException("Ballot file is the wrong size");
+        }
+
+        if (offsetsLength > Integer.MAX_VALUE || preferencesLength > Integer.MAX_VALUE) {
+            throw new IOException("Ballot file is too large to map");
+        }
+
+        verifyChecksum(fileChannel, checksumPosition);
+
+        VCSCandidateRegistry candidateRegistry = readCandidateTable(fileChannel, candidateCount, candidateTableLength);
+
+        IntBuffer offsets = fileChannel.map(FileChannel.MapMode.READ_ONLY, offsetsPosition, offsetsLength)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        ByteBuffer preferences = fileChannel.map(FileChannel.MapMode.READ_ONLY, preferencesPosition, preferencesLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        verifyColumns(offsets, preferences, ordinalWidth == 2, candidateCount, preferenceCount);
+
+        return new VCSBallotStore(candidateRegistry, offsets, preferences, ordinalWidth == 2);
+    }
+
+    /**
+     * Writes every completed ballot in a store, along with the names of its candidates
+     *
+     * @param ballotStore - The ballots to write
+     * @param file - The file to write, replaced if it exists
+     * @throws IOException - If the file can not be written
+     */
+    public static void writeBallotStore(VCSBallotStore ballotStore, File file) throws IOException {
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ChecksummedWriter writer = new ChecksummedWriter(fileChannel);
+
+            VCSCandidateRegistry candidateRegistry = ballotStore.getCandidateRegistry();
+            String[] candidateNames = candidateRegistry.getCandidateNames();
+            byte[][] encodedNames = new byte[candidateNames.length][];
+
+            int candidateTableLength = 0;
+            for (int ordinal = 0; ordinal < candidateNames.length; ordinal++) {
+                encodedNames[ordinal] = candidateNames[ordinal].getBytes(StandardCharsets.UTF_8);
+                candidateTableLength += 5 + encodedNames[ordinal].length;
+            }
+
+            int ballotCount = ballotStore.getBallotCount();
+            boolean hasShortPreferences = ballotStore.hasShortPreferences();
+
+            // Header
+            writer.putBytes(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(hasShortPreferences ? 2 : 1);
+            writer.putInt(candidateNames.length);
+            writer.putInt(ballotCount);
+            writer.putInt(ballotStore.getTotalPreferenceCount());
+            writer.putInt(candidateTableLength);
+
+            // Candidate table
+            for (int ordinal = 0; ordinal < encodedNames.length; ordinal++) {
+                writer.putInt(encodedNames[ordinal].length);
+                writer.putByte((byte) (candidateRegistry.isStandingCandidate(ordinal) ? 1 : 0));
+                writer.putBytes(encodedNames[ordinal]);
+            }
+
+            for (long x = HEADER_SIZE + (long) candidateTableLength; x < alignToInt(HEADER_SIZE + (long) candidateTableLength); x++) {
+                writer.putByte((byte) 0);
+            }
+
+            // Offsets
+            for (int ballotIndex = 0; ballotIndex <= ballotCount; ballotIndex++) {
+                writer.putInt(ballotStore.getOffset(ballotIndex));
+            }
+
+            // Preferences
+            for (int ballotIndex = 0; ballotIndex < ballotCount; ballotIndex++) {
+                int preferences = ballotStore.getPreferenceCount(ballotIndex);
+
+                for (int preferenceIndex = 0; preferenceIndex < preferences; preferenceIndex++) {
+                    int ordinal = ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex);
+
+                    if (hasShortPreferences) {
+                        writer.putShort((short) ordinal);
+                    }
+                    else {
+                        writer.putByte((byte) ordinal);
+                    }
+                }
+            }
+
+            writer.finish();
+
+            // The file is complete on disk before it is used
+            fileChannel.force(true);
+        }
+    }
+
+    /**
+     * Converts a "rank,name" CSV ballot file into a binary ballot file.
+     * The candidates are the names in the CSV file, in the order they first appear
+     *
+     * @param csvFile - The ballot file to read
+     * @param binaryFile - The file to write
+     * @return The number of ballots converted
+     * @throws IOException - If either file can not be used
+     */
+    public static int convertCsvFile(File csvFile, File binaryFile) throws IOException {
+        VCSBallotStore ballotStore = new VCSBallotStore(new VCSCandidateRegistry(new String[0]));
+
+        try (FileChannel fileChannel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            new VCSMappedBallotLoader(fileChannel, ballotStore, true).loadBallots();
+        }
+
+        writeBallotStore(ballotStore, binaryFile);
+
+        return ballotStore.getBallotCount();
+    }
+
+    /**
+     * Builds a registry with a candidate for each name in the file, so ordinals match the file.
+     * Candidates only met on a ballot are given their ordinal without standing in the vote
+     */
+    private static VCSCandidateRegistry readCandidateTable(FileChannel fileChannel, int candidateCount,
+                                                           int candidateTableLength) throws IOException {
+
+        ByteBuffer table = fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, candidateTableLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        VCSCandidateRegistry candidateRegistry = new VCSCandidateRegistry(new String[0]);
+
+        for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+            if (table.remaining() < 5) {
+                throw new IOException("Candidate table is corrupt");
+            }
+
+            int nameLength = table.getInt();
+            byte standing = table.get();
+
+            if (nameLength < 0 || nameLength > table.remaining() || (standing != 0 && standing != 1)) {
+                throw new IOException("Candidate table is corrupt");
+            }
+
+            byte[] encodedName = new byte[nameLength];
+            table.get(encodedName);
+
+            String name = new String(encodedName, StandardCharsets.UTF_8);
+
+            if (standing == 1 && name.isEmpty()) {
+                throw new IOException("Candidate table is corrupt");
+            }
+
+            // Only one standing candidate can have each name
+            int candidateOrdinal = standing == 1
+                    ? candidateRegistry.registerCandidateWithName(name)
+                    : candidateRegistry.addCandidate(new VCSCandidate(name));
+
+            if (candidateOrdinal != ordinal) {
+                throw new IOException("Candidate table is corrupt");
+            }
+        }
+
+        return candidateRegistry;
+    }
+
+    /**
+     * Checks that each ballot's offsets lie in order within the preferences,
+     * and that every preference is the ordinal of a candidate in the table
+     */
+    private static void verifyColumns(IntBuffer offsets, ByteBuffer preferences, boolean hasShortPreferences,
+                                      int candidateCount, int preferenceCount) throws IOException {
+
+        int previousOffset = 0;
+
+        for (int index = 0; index < offsets.limit(); index++) {
+            int offset = offsets.get(index);
+
+            if (offset < previousOffset || (index == 0 && offset != 0)) {
+                throw new IOException("Ballot file offsets are corrupt");
+            }
+
+            previousOffset = offset;
+        }
+
+        if (previousOffset != preferenceCount) {
+            throw new IOException("Ballot file offsets are corrupt");
+        }
+
+        for (int position = 0; position < preferenceCount; position++) {
+            int ordinal = hasShortPreferences
+                    ? Short.toUnsignedInt(preferences.getShort(position * 2))
+                    : Byte.toUnsignedInt(preferences.get(position));
+
+            if (ordinal >= candidateCount) {
+                throw new IOException("Ballot file holds an unknown candidate");
+            }
+        }
+    }
+
+    private static void verifyChecksum(FileChannel fileChannel, long checksumPosition) throws IOException {
+        CRC32 checksum = new CRC32();
+
+        for (long position = 0; position < checksumPosition; position += CHECKSUM_WINDOW_SIZE) {
+            long windowSize = Math.min(CHECKSUM_WINDOW_SIZE, checksumPosition - position);
+
+            MappedByteBuffer window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            checksum.update(window);
+        }
+
+        ByteBuffer storedChecksum = fileChannel.map(FileChannel.MapMode.READ_ONLY, checksumPosition, CHECKSUM_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (storedChecksum.getLong() != checksum.getValue()) {
+            throw new IOException("Ballot file checksum does not match");
+        }
+    }
+
+    static long alignToInt(long position) {
+        return (position + 3) & ~3L;
+    }
+
+    /**
+     * Buffers values on their way to a file, keeping a checksum of every byte written
+     */
+    private static class ChecksummedWriter {
+
+        private final FileChannel fileChannel;
+        private final ByteBuffer buffer;
+        private final CRC32 checksum;
+
+        ChecksummedWriter(FileChannel fileChannel) {
+            this.fileChannel = fileChannel;
+
+            buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            checksum = new CRC32();
+        }
+
+        void putByte(byte value) throws IOException {
+            ensureRemaining(1);
+            buffer.put(value);
+        }
+
+        void putShort(short value) throws IOException {
+            ensureRemaining(2);
+            buffer.putShort(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(4);
+            buffer.putInt(value);
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (byte value : values) {
+                putByte(value);
+            }
+        }
+
+        /**
+         * Writes the checksum of everything written so far, then writes any buffered bytes
+         */
+        void finish() throws IOException {
+            flush();
+
+            ensureRemaining(CHECKSUM_SIZE);
+            buffer.putLong(checksum.getValue());
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+        }
+
+        private void ensureRemaining(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+
+            checksum.update(buffer.duplicate());
+
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+    }
+}
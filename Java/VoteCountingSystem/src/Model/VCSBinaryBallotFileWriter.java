@@ -0,0 +1,233 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a binary ballot file one ballot at a time, without holding the ballots in memory.
+ *
+ * The number of ballots is given up front, so the offsets and preferences can each be
+ * written to their own region of the file as ballots arrive. The header's preference count
+ * and the checksum are written once every ballot has been added.
+ */
+public class VCSBinaryBallotFileWriter implements Closeable {
+
+    private final FileChannel fileChannel;
+    private final int ballotCount;
+    private final int candidateCount;
+    private final boolean hasShortPreferences;
+    private final int candidateTableLength;
+
+    private final ByteBuffer offsetBuffer;
+    private final ByteBuffer preferenceBuffer;
+    private long offsetsPosition;
+    private long preferencesPosition;
+
+    private int addedBallotCount;
+    private long preferenceCount;
+
+    /**
+     * Starts a binary ballot file
+     *
+     * @param file - The file to write, replaced if it exists
+     * @param candidateNames - candidateNames[n] is the name of the candidate with ordinal n
+     * @param ballotCount - The number of ballots which will be added
+     * @throws IOException - If the file can not be written
+     *
+     * @pre. ballotCount >= 0
+     */
+    public VCSBinaryBallotFileWriter(File file, String[] candidateNames, int ballotCount) throws IOException {
+        assert ballotCount >= 0 : "Ballot count is negative";
+
+        this.ballotCount = ballotCount;
+        candidateCount = candidateNames.length;
+        hasShortPreferences = candidateCount > 256;
+
+        if (4L * (ballotCount + 1) > Integer.MAX_VALUE) {
+            throw new IOException("Too many ballots for a binary ballot file");
+        }
+
+        fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        // The candidate table is written now, the header once the preference count is known
+        ByteBuffer table = createCandidateTable(candidateNames);
+        candidateTableLength = table.remaining();
+
+        writeFully(table, VCSBinaryBallotFile.HEADER_SIZE);
+        writeHeader(0);
+
+        offsetsPosition = VCSBinaryBallotFile.alignToInt(VCSBinaryBallotFile.HEADER_SIZE + (long) candidateTableLength);
+        preferencesPosition = offsetsPosition + 4L * (ballotCount + 1);
+
+        offsetBuffer = ByteBuffer.allocateDirect(VCSBinaryBallotFile.WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        preferenceBuffer = ByteBuffer.allocateDirect(VCSBinaryBallotFile.WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        // The first ballot starts at the first preference
+        offsetBuffer.putInt(0);
+    }
+
+    /**
+     * Adds the next ballot to the file
+     *
+     * @param ordinals - The ordinals of the ballot's preferences, in order
+     * @param length - The number of preferences on the ballot
+     * @throws IOException - If the ballot can not be written, or would not fit in the file
+     *
+     * @pre. Fewer than ballotCount ballots have been added
+     * @pre. Each ordinal is less than the number of candidates
+     */
+    public void addBallot(int[] ordinals, int length) throws IOException {
+        assert addedBallotCount < ballotCount : "Every ballot has been added";
+
+        preferenceCount += length;
+
+        long preferencesLength = hasShortPreferences ? 2 * preferenceCount : preferenceCount;
+
+        if (preferenceCount > Integer.MAX_VALUE || preferencesLength > Integer.MAX_VALUE) {
+            throw new IOException("Too many preferences for a binary ballot file");
+        }
+
+        for (int x = 0; x < length; x++) {
+            assert ordinals[x] >= 0 && ordinals[x] < candidateCount : "Ordinal is not a candidate";
+
+            if (preferenceBuffer.remaining() < 2) {
+                preferencesPosition = flush(preferenceBuffer, preferencesPosition);
+            }
+
+            if (hasShortPreferences) {
+                preferenceBuffer.putShort((short) ordinals[x]);
+            }
+            else {
+                preferenceBuffer.put((byte) ordinals[x]);
+            }
+        }
+
+        if (offsetBuffer.remaining() < 4) {
+            offsetsPosition = flush(offsetBuffer, offsetsPosition);
+        }
+
+        offsetBuffer.putInt((int) preferenceCount);
+
+        addedBallotCount++;
+    }
+
+    /**
+     * Writes the header and checksum, and closes the file
+     *
+     * @throws IOException - If the file can not be written
+     *
+     * @pre. ballotCount ballots have been added
+     * @post. The file can be read with VCSBinaryBallotFile.mapBallotStore(fileChannel:)
+     */
+    public void finish() throws IOException {
+        if (addedBallotCount != ballotCount) {
+            throw new IOException("Only " + addedBallotCount + " of " + ballotCount + " ballots were added");
+        }
+
+        try {
+            flush(offsetBuffer, offsetsPosition);
+            long checksumPosition = flush(preferenceBuffer, preferencesPosition);
+
+            writeHeader((int) preferenceCount);
+
+            // The regions were written out of order, so the checksum is taken from the file
+            writeChecksum(checksumPosition);
+
+            // The file is complete on disk before it is used
+            fileChannel.force(true);
+
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    /**
+     * Closes the file. A file which was not finished can not be read as a ballot file
+     */
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private ByteBuffer createCandidateTable(String[] candidateNames) {
+        byte[][] encodedNames = new byte[candidateNames.length][];
+
+        int candidateTableLength = 0;
+        for (int ordinal = 0; ordinal < candidateNames.length; ordinal++) {
+            encodedNames[ordinal] = candidateNames[ordinal].getBytes(StandardCharsets.UTF_8);
+            candidateTableLength += 5 + encodedNames[ordinal].length;
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(candidateTableLength).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Every named candidate stands in the vote
+        for (byte[] encodedName : encodedNames) {
+            table.putInt(encodedName.length);
+            table.put((byte) 1);
+            table.put(encodedName);
+        }
+
+        table.flip();
+        return table;
+    }
+
+    private void writeHeader(int preferenceCount) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(VCSBinaryBallotFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.put(VCSBinaryBallotFile.MAGIC);
+        header.putInt(VCSBinaryBallotFile.VERSION);
+        header.putInt(hasShortPreferences ? 2 : 1);
+        header.putInt(candidateCount);
+        header.putInt(ballotCount);
+        header.putInt(preferenceCount);
+        header.putInt(candidateTableLength);
+
+        header.flip();
+        writeFully(header, 0);
+    }
+
+    private void writeChecksum(long checksumPosition) throws IOException {
+        CRC32 checksum = new CRC32();
+
+        // The padding after the candidate table is never written, and reads back as zeros
+        for (long position = 0; position < checksumPosition; position += VCSBinaryBallotFile.CHECKSUM_WINDOW_SIZE) {
+            long windowSize = Math.min(VCSBinaryBallotFile.CHECKSUM_WINDOW_SIZE, checksumPosition - position);
+
+            MappedByteBuffer window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            checksum.update(window);
+        }
+
+        ByteBuffer storedChecksum = ByteBuffer.allocate(VCSBinaryBallotFile.CHECKSUM_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        storedChecksum.putLong(checksum.getValue());
+
+        storedChecksum.flip();
+        writeFully(storedChecksum, checksumPosition);
+    }
+
+    /**
+     * @return The position after the bytes written
+     */
+    private long flush(ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+
+        long nextPosition = position + buffer.remaining();
+        writeFully(buffer, position);
+
+        buffer.clear();
+        return nextPosition;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += fileChannel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Holds every candidate known to the model and gives each a dense ordinal.
+ *
+ * Candidates registered by name stand in the vote and can be found by their name.
+ * Any other candidate met on a ballot is given an ordinal so the ballot can be stored,
+ * but does not stand in the vote and is never counted.
+ *
+ * Candidates still in the count are tracked in a bit set, so lookups by name,
+ * validity checks and continuing checks take constant time without allocating.
+ */
+public class VCSCandidateRegistry {
+
+    // The position of a candidate is its ordinal
+    private final ArrayList<VCSCandidate> candidates;
+    private final HashMap<VCSCandidate, Integer> candidateOrdinals;
+    private final HashMap<String, VCSCandidate> candidatesByName;
+
+    private final BitSet standingCandidates;
+    private final BitSet continuingCandidates;
+
+    // Rebuilt only when the continuing candidates change
+    private VCSCandidate[] continuingCandidateArray;
+
+    /**
+     * Initialises a registry with candidates standing in the vote
+     *
+     * @param candidateNames - The names of the candidates, in ordinal order
+     */
+    public VCSCandidateRegistry(String[] candidateNames) {
+        candidates = new ArrayList<>();
+        candidateOrdinals = new HashMap<>();
+        candidatesByName = new HashMap<>();
+
+        standingCandidates = new BitSet();
+        continuingCandidates = new BitSet();
+
+        for (String name : candidateNames) {
+            registerCandidateWithName(name);
+        }
+    }
+
+    /**
+     * Adds a candidate to the vote, if there is not already a candidate with that name
+     *
+     * @param name - The name of the candidate
+     * @return The ordinal of the candidate with that name
+     *
+     * @pre. name is not empty
+     * @post. A continuing candidate with that name is in the vote
+     */
+    public int registerCandidateWithName(String name) {
+        assert name != null && !name.equals("") : "Name is empty";
+
+        VCSCandidate candidate = candidatesByName.get(name);
+
+        if (candidate != null) {
+            return candidateOrdinals.get(candidate);
+        }
+
+        candidate = new VCSCandidate(name);
+        int ordinal = appendCandidate(candidate);
+
+        candidatesByName.put(name, candidate);
+
+        standingCandidates.set(ordinal);
+        continuingCandidates.set(ordinal);
+        continuingCandidateArray = null;
+
+        return ordinal;
+    }
+
+    /**
+     * Gives a candidate met on a ballot an ordinal, if they do not already have one.
+     * A candidate added this way does not stand in the vote
+     *
+     * @param candidate - The candidate to add
+     * @return The ordinal of the candidate
+     *
+     * @pre. candidate != null
+     * @post. getOrdinalOfCandidate(candidate) is the ordinal returned
+     */
+    public int addCandidate(VCSCandidate candidate) {
+        assert candidate != null : "Candidate is null";
+
+        Integer ordinal = candidateOrdinals.get(candidate);
+
+        if (ordinal == null) {
+            return appendCandidate(candidate);
+        }
+
+        return ordinal;
+    }
+
+    /**
+     * @param candidate - The candidate to find
+     * @return The ordinal of the candidate, or -1 if they have not been given one
+     *
+     * @pre. candidate != null
+     */
+    public int getOrdinalOfCandidate(VCSCandidate candidate) {
+        assert candidate != null : "Candidate is null";
+
+        Integer ordinal = candidateOrdinals.get(candidate);
+
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * @param ordinal - The ordinal of a candidate
+     * @return The candidate with that ordinal
+     *
+     * @pre. ordinal < getCandidateCount()
+     */
+    public VCSCandidate getCandidateWithOrdinal(int ordinal) {
+        return candidates.get(ordinal);
+    }
+
+    /**
+     * @return The number of candidates given an ordinal, including those not standing
+     */
+    public int getCandidateCount() {
+        return candidates.size();
+    }
+
+    /**
+     * @return The name of the candidate with each ordinal, including those not standing
+     */
+    public String[] getCandidateNames() {
+        String[] names = new String[candidates.size()];
+
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            names[ordinal] = candidates.get(ordinal).getName();
+        }
+
+        return names;
+    }
+
+    /**
+     * @return The number of candidates standing in the vote
+     */
+    public int getStandingCandidateCount() {
+        return candidatesByName.size();
+    }
+
+    /**
+     * @param name - The name of the candidate
+     * @return The standing candidate with that name, or null if there is none
+     */
+    public VCSCandidate getCandidateWithName(String name) {
+        return candidatesByName.get(name);
+    }
+
+    /**
+     * @param name - The name of the candidate
+     * @return True, if a candidate with that name is still in the count
+     */
+    public boolean isContinuingCandidateWithName(String name) {
+        VCSCandidate candidate = candidatesByName.get(name);
+
+        return candidate != null && continuingCandidates.get(candidateOrdinals.get(candidate));
+    }
+
+    /**
+     * @param ordinal - The ordinal of the candidate
+     * @return True, if the candidate stands in the vote, whether or not they are still in the count
+     */
+    public boolean isStandingCandidate(int ordinal) {
+        return standingCandidates.get(ordinal);
+    }
+
+    /**
+     * @param ordinal - The ordinal of the candidate
+     * @return True, if the candidate is still in the count
+     */
+    public boolean isContinuingCandidate(int ordinal) {
+        return continuingCandidates.get(ordinal);
+    }
+
+    /**
+     * @return The number of candidates still in the count
+     */
+    public int getContinuingCandidateCount() {
+        return continuingCandidates.cardinality();
+    }
+
+    /**
+     * @return The set of ordinals of the candidates still in the count. This must not be modified
+     */
+    public BitSet getContinuingCandidateOrdinals() {
+        return continuingCandidates;
+    }
+
+    /**
+     * @return The candidates still in the count, in ordinal order. The array is shared and must not be modified
+     */
+    public VCSCandidate[] getContinuingCandidates() {
+        if (continuingCandidateArray == null) {
+            continuingCandidateArray = new VCSCandidate[continuingCandidates.cardinality()];
+
+            int index = 0;
+            for (int ordinal = continuingCandidates.nextSetBit(0); ordinal >= 0; ordinal = continuingCandidates.nextSetBit(ordinal + 1)) {
+                continuingCandidateArray[index++] = candidates.get(ordinal);
+            }
+        }
+
+        return continuingCandidateArray;
+    }
+
+    /**
+     * Copies the registry, so its candidates can be read on another thread while this one grows
+     *
+     * @return A registry with the same candidates, ordinals, standing and continuing candidates
+     */
+    public VCSCandidateRegistry copy() {
+        VCSCandidateRegistry copy = new VCSCandidateRegistry(new String[0]);
+
+        for (VCSCandidate candidate : candidates) {
+            copy.appendCandidate(candidate);
+        }
+
+        copy.candidatesByName.putAll(candidatesByName);
+        copy.standingCandidates.or(standingCandidates);
+        copy.continuingCandidates.or(continuingCandidates);
+
+        return copy;
+    }
+
+    /**
+     * Removes a candidate from the count
+     *
+     * @param ordinal - The ordinal of the candidate
+     *
+     * @post. isContinuingCandidate(ordinal) is false
+     */
+    public void eliminateCandidate(int ordinal) {
+        continuingCandidates.clear(ordinal);
+        continuingCandidateArray = null;
+    }
+
+    /**
+     * Returns every standing candidate to the count
+     *
+     * @post. Every standing candidate is continuing
+     */
+    public void reinstateAllCandidates() {
+        continuingCandidates.clear();
+        continuingCandidates.or(standingCandidates);
+        continuingCandidateArray = null;
+    }
+
+    private int appendCandidate(VCSCandidate candidate) {
+        int ordinal = candidates.size();
+
+        candidates.add(candidate);
+        candidateOrdinals.put(candidate, ordinal);
+
+        return ordinal;
+    }
+}
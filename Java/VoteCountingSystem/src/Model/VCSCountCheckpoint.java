@@ -0,0 +1,334 @@
+package Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * The state of a count part of the way through, saved so the count can resume after a crash.
+ *
+ * A checkpoint is two files. The ballots are written once, as a binary ballot file beside the
+ * checkpoint, and mapped again when restoring. The checkpoint itself is small and rewritten
+ * after every round, holding for each candidate ordinal whether they stand and continue and
+ * their current votes, and the order candidates were eliminated in, marking tie breaks.
+ * Both files are written to a temporary file then moved into place, so a crash while
+ * writing leaves the previous checkpoint intact.
+ *
+ *   magic "VCSK", version, counting method, ballot count, preference count, candidate count
+ *   for each ordinal: flags (1 standing, 2 continuing) then votes
+ *   elimination count, then for each elimination: ordinal and tie break flag
+ *   CRC32 checksum of everything before it, as a long
+ */
+public class VCSCountCheckpoint {
+
+    /**
+     * Added to the checkpoint's name to give the name of its ballot file
+     */
+    public static final String BALLOT_FILE_SUFFIX = "." + VCSBinaryBallotFile.FILE_EXTENSION;
+
+    private static final byte[] MAGIC = {'V', 'C', 'S', 'K'};
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int CHECKSUM_SIZE = 8;
+
+    private static final byte STANDING_FLAG = 1;
+    private static final byte CONTINUING_FLAG = 2;
+
+    private final VCSCountingMethod countingMethod;
+    private final int ballotCount;
+    private final int preferenceCount;
+
+    private final byte[] candidateFlags;
+    private final int[] candidateVotes;
+
+    private final int[] eliminatedCandidates;
+    private final BitSet tieBreakEliminations;
+
+    /**
+     * @param countingMethod - The way the rounds are being counted
+     * @param ballotStore - The ballots being counted
+     * @param candidateVotes - The current votes, indexed by ordinal
+     * @param eliminatedCandidates - The ordinal eliminated in each round so far
+     * @param eliminationCount - The number of candidates eliminated so far
+     * @param tieBreakEliminations - The rounds in which the candidate was chosen by a tie break
+     */
+    VCSCountCheckpoint(VCSCountingMethod countingMethod, VCSBallotStore ballotStore, int[] candidateVotes,
+                       int[] eliminatedCandidates, int eliminationCount, BitSet tieBreakEliminations) {
+        VCSCandidateRegistry candidateRegistry = ballotStore.getCandidateRegistry();
+
+        this.countingMethod = countingMethod;
+        this.ballotCount = ballotStore.getBallotCount();
+        this.preferenceCount = ballotStore.getTotalPreferenceCount();
+
+        int candidateCount = candidateRegistry.getCandidateCount();
+
+        candidateFlags = new byte[candidateCount];
+        this.candidateVotes = new int[candidateCount];
+
+        for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+            VCSCandidate candidate = candidateRegistry.getCandidateWithOrdinal(ordinal);
+
+            if (candidateRegistry.getCandidateWithName(candidate.getName()) == candidate) {
+                candidateFlags[ordinal] |= STANDING_FLAG;
+            }
+
+            if (candidateRegistry.isContinuingCandidate(ordinal)) {
+                candidateFlags[ordinal] |= CONTINUING_FLAG;
+            }
+
+            this.candidateVotes[ordinal] = ordinal < candidateVotes.length ? candidateVotes[ordinal] : 0;
+        }
+
+        this.eliminatedCandidates = new int[eliminationCount];
+        System.arraycopy(eliminatedCandidates, 0, this.eliminatedCandidates, 0, eliminationCount);
+
+        this.tieBreakEliminations = (BitSet) tieBreakEliminations.clone();
+    }
+
+    private VCSCountCheckpoint(VCSCountingMethod countingMethod, int ballotCount, int preferenceCount,
+                               byte[] candidateFlags, int[] candidateVotes,
+                               int[] eliminatedCandidates, BitSet tieBreakEliminations) {
+        this.countingMethod = countingMethod;
+        this.ballotCount = ballotCount;
+        this.preferenceCount = preferenceCount;
+        this.candidateFlags = candidateFlags;
+        this.candidateVotes = candidateVotes;
+        this.eliminatedCandidates = eliminatedCandidates;
+        this.tieBreakEliminations = tieBreakEliminations;
+    }
+
+    /**
+     * @param checkpointFile - The checkpoint
+     * @return The binary ballot file holding the checkpoint's ballots
+     */
+    public static File getBallotFile(File checkpointFile) {
+        return new File(checkpointFile.getPath() + BALLOT_FILE_SUFFIX);
+    }
+
+    /**
+     * Writes the ballots beside the checkpoint
+     *
+     * @param ballotStore - The ballots being counted
+     * @param checkpointFile - The checkpoint the ballots belong to
+     * @throws IOException - If the file can not be written
+     */
+    static void writeBallots(VCSBallotStore ballotStore, File checkpointFile) throws IOException {
+        File ballotFile = getBallotFile(checkpointFile);
+        File temporaryFile = new File(ballotFile.getPath() + ".tmp");
+
+        VCSBinaryBallotFile.writeBallotStore(ballotStore, temporaryFile);
+
+        Files.move(temporaryFile.toPath(), ballotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the count state, replacing any earlier checkpoint
+     *
+     * @param checkpointFile - The file to write
+     * @throws IOException - If the file can not be written
+     */
+    void write(File checkpointFile) throws IOException {
+        int size = HEADER_SIZE + candidateFlags.length * 5 + 4 + eliminatedCandidates.length * 5 + CHECKSUM_SIZE;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(countingMethod.ordinal());
+        buffer.putInt(ballotCount);
+        buffer.putInt(preferenceCount);
+        buffer.putInt(candidateFlags.length);
+
+        for (int ordinal = 0; ordinal < candidateFlags.length; ordinal++) {
+            buffer.put(candidateFlags[ordinal]);
+            buffer.putInt(candidateVotes[ordinal]);
+        }
+
+        buffer.putInt(eliminatedCandidates.length);
+
+        for (int round = 0; round < eliminatedCandidates.length; round++) {
+            buffer.putInt(eliminatedCandidates[round]);
+            buffer.put((byte) (tieBreakEliminations.get(round) ? 1 : 0));
+        }
+
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(checksum.getValue());
+
+        buffer.flip();
+
+        File temporaryFile = new File(checkpointFile.getPath() + ".tmp");
+
+        try (FileChannel fileChannel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+
+            fileChannel.force(true);
+        }
+
+        Files.move(temporaryFile.toPath(), checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the count state from a checkpoint
+     *
+     * @param checkpointFile - The checkpoint to read
+     * @return The count state
+     * @throws IOException - If the file can not be read, or is corrupt
+     */
+    static VCSCountCheckpoint read(File checkpointFile) throws IOException {
+        byte[] contents = Files.readAllBytes(checkpointFile.toPath());
+
+        if (contents.length < HEADER_SIZE + CHECKSUM_SIZE) {
+            throw new IOException("File is too short to be a checkpoint");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(contents, 0, contents.length - CHECKSUM_SIZE);
+
+        if (buffer.getLong(contents.length - CHECKSUM_SIZE) != checksum.getValue()) {
+            throw new IOException("Checkpoint checksum does not match");
+        }
+
+        for (byte magicByte : MAGIC) {
+            if (buffer.get() != magicByte) {
+                throw new IOException("File is not a checkpoint");
+            }
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version " + version);
+        }
+
+        int countingMethodOrdinal = buffer.getInt();
+        int ballotCount = buffer.getInt();
+        int preferenceCount = buffer.getInt();
+        int candidateCount = buffer.getInt();
+
+        if (countingMethodOrdinal < 0 || countingMethodOrdinal >= VCSCountingMethod.values().length
+                || candidateCount < 0 || candidateCount * 5L > buffer.remaining()) {
+            throw new IOException("Checkpoint is corrupt");
+        }
+
+        byte[] candidateFlags = new byte[candidateCount];
+        int[] candidateVotes = new int[candidateCount];
+
+        for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+            candidateFlags[ordinal] = buffer.get();
+            candidateVotes[ordinal] = buffer.getInt();
+        }
+
+        int eliminationCount = buffer.getInt();
+
+        if (eliminationCount < 0 || eliminationCount > candidateCount) {
+            throw new IOException("Checkpoint is corrupt");
+        }
+
+        int[] eliminatedCandidates = new int[eliminationCount];
+        BitSet tieBreakEliminations = new BitSet();
+
+        for (int round = 0; round < eliminationCount; round++) {
+            eliminatedCandidates[round] = buffer.getInt();
+            tieBreakEliminations.set(round, buffer.get() != 0);
+        }
+
+        return new VCSCountCheckpoint(VCSCountingMethod.values()[countingMethodOrdinal], ballotCount, preferenceCount,
+                candidateFlags, candidateVotes, eliminatedCandidates, tieBreakEliminations);
+    }
+
+    /**
+     * Maps the checkpoint's ballots into a store with a registry matching the checkpoint
+     *
+     * @param checkpointFile - The checkpoint the ballots belong to
+     * @return A store reading the ballots in place, whose registry has every candidate's standing and continuing state
+     * @throws IOException - If the ballot file can not be read, or does not match the checkpoint
+     */
+    VCSBallotStore mapBallots(File checkpointFile) throws IOException {
+        VCSBallotStore fileStore;
+
+        try (FileChannel fileChannel = FileChannel.open(getBallotFile(checkpointFile).toPath(), StandardOpenOption.READ)) {
+            fileStore = VCSBinaryBallotFile.mapBallotStore(fileChannel);
+        }
+
+        String[] candidateNames = fileStore.getCandidateRegistry().getCandidateNames();
+
+        if (fileStore.getBallotCount() != ballotCount || fileStore.getTotalPreferenceCount() != preferenceCount
+                || candidateNames.length != candidateFlags.length) {
+            throw new IOException("Ballot file does not match the checkpoint");
+        }
+
+        // Give every candidate the same ordinal and state it had when the checkpoint was written
+        VCSCandidateRegistry candidateRegistry = new VCSCandidateRegistry(new String[0]);
+
+        for (int ordinal = 0; ordinal < candidateNames.length; ordinal++) {
+            int restoredOrdinal;
+
+            if ((candidateFlags[ordinal] & STANDING_FLAG) != 0) {
+                restoredOrdinal = candidateRegistry.registerCandidateWithName(candidateNames[ordinal]);
+            }
+            else {
+                restoredOrdinal = candidateRegistry.addCandidate(new VCSCandidate(candidateNames[ordinal]));
+            }
+
+            if (restoredOrdinal != ordinal) {
+                throw new IOException("Checkpoint candidates are corrupt");
+            }
+
+            if ((candidateFlags[ordinal] & CONTINUING_FLAG) == 0) {
+                candidateRegistry.eliminateCandidate(ordinal);
+            }
+        }
+
+        int[] identityMap = new int[candidateNames.length];
+        for (int ordinal = 0; ordinal < identityMap.length; ordinal++) {
+            identityMap[ordinal] = ordinal;
+        }
+
+        // The new store reads the mapped columns without copying them
+        VCSBallotStore ballotStore = new VCSBallotStore(candidateRegistry);
+        ballotStore.addBallotsFromStore(fileStore, identityMap);
+
+        return ballotStore;
+    }
+
+    public VCSCountingMethod getCountingMethod() {
+        return countingMethod;
+    }
+
+    /**
+     * @return The votes for each ordinal when the checkpoint was written
+     */
+    public int[] getCandidateVotes() {
+        return candidateVotes.clone();
+    }
+
+    /**
+     * @return The ordinal eliminated in each round so far
+     */
+    public int[] getEliminatedCandidates() {
+        return eliminatedCandidates.clone();
+    }
+
+    /**
+     * @return The rounds in which the eliminated candidate was chosen by a tie break
+     */
+    public BitSet getTieBreakEliminations() {
+        return (BitSet) tieBreakEliminations.clone();
+    }
+}
@@ -0,0 +1,346 @@
+package Model;
+
+import java.util.ArrayList;
+
+/**
+ * Runs a whole alternative vote count in a single call.
+ *
+ * Each round the ballots are tallied by candidate ordinal, the votes are copied into
+ * a row of the result, and either a winner is found or the candidate with the fewest
+ * votes is eliminated. A winner is found in the same way as VCSVotesModel, when one
+ * candidate remains or a candidate has at least 51% of the ballots.
+ *
+ * With bulk exclusion, every trailing group of candidates whose combined votes are fewer
+ * than the next candidate's is eliminated after a single round. None of them could be
+ * saved by the others' transfers, so the winner is the same with far fewer rounds.
+ *
+ * The model is not touched and no observers are notified, so a count can run on any
+ * thread while the store is not being changed. The rounds may also be tallied somewhere
+ * other than a local store, such as by the workers of a sharded count.
+ */
+public class VCSCountEngine {
+
+    private static final int WINNING_PERCENTAGE = 51;
+
+    private VCSCountEngine() {
+    }
+
+    /**
+     * Counts every round until there is a winner
+     *
+     * @param ballotStore - The ballots to count
+     * @param candidates - The candidates standing in the count
+     * @param options - How the rounds are tallied and ties broken
+     * @return Every round of the count, and the winner
+     *
+     * @pre. ballotStore.getBallotCount() > 0
+     * @pre. candidates.length > 0, and every candidate has an ordinal in the store's registry
+     */
+    public static VCSCountResult run(VCSBallotStore ballotStore, VCSCandidate[] candidates, VCSCountOptions options) {
+        assert ballotStore.getBallotCount() > 0 : "No ballots to count";
+
+        VCSRoundTally roundTally = (continuingCandidates, votesByOrdinal) ->
+                options.getParallelTally().countVotes(ballotStore, continuingCandidates, votesByOrdinal);
+
+        return run(roundTally, ballotStore.getCandidateRegistry(), ballotStore.getBallotCount(), candidates, options);
+    }
+
+    /**
+     * Counts every round until there is a winner, with each round tallied by the caller
+     *
+     * @param roundTally - Counts the ballots for the continuing candidates each round
+     * @param candidateRegistry - The registry giving the ordinals the round tally counts by
+     * @param ballotCount - The number of ballots being counted
+     * @param candidates - The candidates standing in the count
+     * @param options - How ties are broken, the parallel tally is not used
+     * @return Every round of the count, and the winner
+     *
+     * @pre. ballotCount > 0
+     * @pre. candidates.length > 0, and every candidate has an ordinal in the registry
+     */
+    static VCSCountResult run(VCSRoundTally roundTally, VCSCandidateRegistry candidateRegistry, int ballotCount,
+                              VCSCandidate[] candidates, VCSCountOptions options) {
+        assert ballotCount > 0 : "No ballots to count";
+        assert candidates.length > 0 : "No candidates to count";
+
+        candidates = candidates.clone();
+
+        int[] ordinals = new int[candidates.length];
+        boolean[] continuingCandidates = new boolean[candidateRegistry.getCandidateCount()];
+
+        for (int x = 0; x < candidates.length; x++) {
+            ordinals[x] = candidateRegistry.getOrdinalOfCandidate(candidates[x]);
+            assert ordinals[x] >= 0 : "Candidate is not in the registry";
+
+            continuingCandidates[ordinals[x]] = true;
+        }
+
+        // Each round eliminates one candidate, so there are at most as many rounds as candidates
+        int[][] roundVotes = new int[candidates.length][];
+        int[][] eliminatedCandidates = new int[candidates.length][];
+
+        // Reused every round, only the row kept in the result is allocated
+        int[] votesByOrdinal = new int[continuingCandidates.length];
+
+        int remainingCandidates = candidates.length;
+        int round = 0;
+
+        VCSCountMetrics countMetrics = options.getCountMetrics();
+        boolean lastEliminationWasTieBreak = false;
+
+        while (true) {
+            long countStart = System.nanoTime();
+
+            if (round == 0 && options.getFirstRoundVotes() != null) {
+                // Kept up to date as the ballots were added, so the first round needs no pass
+                int[] firstRoundVotes = options.getFirstRoundVotes();
+
+                for (int ordinal = 0; ordinal < votesByOrdinal.length; ordinal++) {
+                    votesByOrdinal[ordinal] = ordinal < firstRoundVotes.length ? firstRoundVotes[ordinal] : 0;
+                }
+            }
+            else {
+                roundTally.countVotes(continuingCandidates, votesByOrdinal);
+            }
+
+            int[] votes = new int[candidates.length];
+
+            for (int x = 0; x < candidates.length; x++) {
+                if (continuingCandidates[ordinals[x]]) {
+                    votes[x] = votesByOrdinal[ordinals[x]];
+                }
+            }
+
+            roundVotes[round] = votes;
+
+            if (countMetrics != null) {
+                countMetrics.didCountPass(System.nanoTime() - countStart);
+
+                if (round > 0) {
+                    recordEliminations(countMetrics, roundVotes[round - 1], votes,
+                            eliminatedCandidates[round - 1], lastEliminationWasTieBreak);
+                }
+            }
+
+            int winner = getWinner(votes, ordinals, continuingCandidates, remainingCandidates, ballotCount);
+
+            if (winner >= 0) {
+                eliminatedCandidates[round] = new int[0];
+
+                return new VCSCountResult(candidates, ballotCount, trimRounds(roundVotes, round + 1),
+                        trimRounds(eliminatedCandidates, round + 1), winner);
+            }
+
+            int[] eliminated = options.isBulkExclusion() ? getBulkExclusion(votes, getContinuingIndices(ordinals, continuingCandidates)) : null;
+
+            if (eliminated != null) {
+                lastEliminationWasTieBreak = false;
+            }
+            else {
+                eliminated = new int[] {getCandidateToEliminate(votes, ordinals, continuingCandidates, candidates, options.getTieBreaker())};
+
+                lastEliminationWasTieBreak = isTied(votes, ordinals, continuingCandidates, eliminated[0]);
+            }
+
+            for (int candidateIndex : eliminated) {
+                continuingCandidates[ordinals[candidateIndex]] = false;
+            }
+
+            eliminatedCandidates[round] = eliminated;
+
+            remainingCandidates -= eliminated.length;
+            round++;
+        }
+    }
+
+    /**
+     * Finds the largest group of candidates with the fewest votes whose combined votes are
+     * fewer than those of the candidate above them. Transfers within the group can never
+     * lift any of them past that candidate, so eliminating them one at a time would remove
+     * each of them in turn, unless a winner was found first, who would still win.
+     *
+     * @param votes - The votes of each candidate
+     * @param continuingIndices - The indices into votes of the candidates still in the count
+     * @return The group to eliminate, fewest votes first, or null if no group of two or more exists
+     */
+    static int[] getBulkExclusion(int[] votes, int[] continuingIndices) {
+        int[] order = continuingIndices.clone();
+
+        // Few candidates continue, an insertion sort keeps equal votes in index order
+        for (int x = 1; x < order.length; x++) {
+            int candidateIndex = order[x];
+            int y = x - 1;
+
+            while (y >= 0 && votes[order[y]] > votes[candidateIndex]) {
+                order[y + 1] = order[y];
+                y--;
+            }
+
+            order[y + 1] = candidateIndex;
+        }
+
+        // At least one candidate must remain above the group
+        long groupVotes = 0;
+        int groupSize = 0;
+
+        for (int x = 0; x < order.length - 1; x++) {
+            groupVotes += votes[order[x]];
+
+            if (groupVotes < votes[order[x + 1]]) {
+                groupSize = x + 1;
+            }
+        }
+
+        if (groupSize < 2) {
+            return null;
+        }
+
+        int[] group = new int[groupSize];
+        System.arraycopy(order, 0, group, 0, groupSize);
+
+        return group;
+    }
+
+    private static int[] getContinuingIndices(int[] ordinals, boolean[] continuingCandidates) {
+        int continuingCount = 0;
+
+        for (int ordinal : ordinals) {
+            if (continuingCandidates[ordinal]) continuingCount++;
+        }
+
+        int[] continuingIndices = new int[continuingCount];
+        int next = 0;
+
+        for (int x = 0; x < ordinals.length; x++) {
+            if (continuingCandidates[ordinals[x]]) {
+                continuingIndices[next++] = x;
+            }
+        }
+
+        return continuingIndices;
+    }
+
+    /**
+     * @return The index of the winning candidate, or -1 if there is no winner yet
+     */
+    private static int getWinner(int[] votes, int[] ordinals, boolean[] continuingCandidates,
+                                 int remainingCandidates, int ballotCount) {
+
+        int winner = -1;
+        int winningPercentage = WINNING_PERCENTAGE;
+
+        for (int x = 0; x < votes.length; x++) {
+            if (!continuingCandidates[ordinals[x]]) continue;
+
+            // The last candidate standing wins
+            if (remainingCandidates == 1) {
+                return x;
+            }
+
+            int percentageOfVote = (int) ((votes[x] * 100L) / ballotCount);
+
+            if (percentageOfVote >= winningPercentage) {
+                winner = x;
+                winningPercentage = percentageOfVote;
+            }
+        }
+
+        return winner;
+    }
+
+    /**
+     * @return The index of the continuing candidate with the fewest votes, ties are passed to the tie breaker
+     */
+    private static int getCandidateToEliminate(int[] votes, int[] ordinals, boolean[] continuingCandidates,
+                                               VCSCandidate[] candidates, VCSTieBreaker tieBreaker) {
+        int lowestVote = Integer.MAX_VALUE;
+        int lowestCandidate = -1;
+        int lowestCandidateCount = 0;
+
+        for (int x = 0; x < votes.length; x++) {
+            if (!continuingCandidates[ordinals[x]]) continue;
+
+            if (votes[x] < lowestVote) {
+                lowestVote = votes[x];
+                lowestCandidate = x;
+                lowestCandidateCount = 1;
+            }
+            else if (votes[x] == lowestVote) {
+                lowestCandidateCount++;
+            }
+        }
+
+        if (lowestCandidateCount == 1) {
+            return lowestCandidate;
+        }
+
+        // Only ties need a list of candidates
+        ArrayList<VCSCandidate> lowestCandidates = new ArrayList<>(lowestCandidateCount);
+
+        for (int x = 0; x < votes.length; x++) {
+            if (continuingCandidates[ordinals[x]] && votes[x] == lowestVote) {
+                lowestCandidates.add(candidates[x]);
+            }
+        }
+
+        VCSCandidate chosenCandidate = tieBreaker.chooseCandidateToEliminate(lowestCandidates);
+
+        for (int x = 0; x < candidates.length; x++) {
+            if (candidates[x] == chosenCandidate) {
+                return x;
+            }
+        }
+
+        assert false : "Tie breaker chose a candidate that was not tied";
+
+        return lowestCandidate;
+    }
+
+    /**
+     * @return True, if another continuing candidate has as few votes as the eliminated candidate
+     */
+    private static boolean isTied(int[] votes, int[] ordinals, boolean[] continuingCandidates, int eliminated) {
+        for (int x = 0; x < votes.length; x++) {
+            if (x != eliminated && continuingCandidates[ordinals[x]] && votes[x] == votes[eliminated]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Records where the eliminated candidates' ballots went, from the votes in the rounds either side of them
+     */
+    private static void recordEliminations(VCSCountMetrics countMetrics, int[] previousVotes, int[] votes,
+                                           int[] eliminated, boolean wasTieBreak) {
+        long previousTotal = 0;
+        long total = 0;
+
+        for (int x = 0; x < votes.length; x++) {
+            previousTotal += previousVotes[x];
+            total += votes[x];
+        }
+
+        // Ballots no longer counted for anyone were exhausted by the elimination
+        int exhausted = (int) (previousTotal - total);
+
+        int eliminatedVotes = 0;
+        for (int candidateIndex : eliminated) {
+            eliminatedVotes += previousVotes[candidateIndex];
+        }
+
+        if (eliminated.length > 1) {
+            countMetrics.didBulkEliminateCandidates(eliminated.length, eliminatedVotes - exhausted, exhausted);
+        }
+        else {
+            countMetrics.didEliminateCandidate(eliminatedVotes - exhausted, exhausted, wasTieBreak);
+        }
+    }
+
+    private static int[][] trimRounds(int[][] rounds, int roundCount) {
+        int[][] trimmed = new int[roundCount][];
+        System.arraycopy(rounds, 0, trimmed, 0, roundCount);
+        return trimmed;
+    }
+}
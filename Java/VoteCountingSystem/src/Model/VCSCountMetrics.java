@@ -0,0 +1,197 @@
+package Model;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counters and timers for the phases of a count, published through JMX.
+ *
+ * Values are recorded once per load, tally or elimination rather than per ballot,
+ * so keeping them costs nothing measurable. They may be read from any thread,
+ * such as a JMX connection, while the count runs.
+ */
+public class VCSCountMetrics implements VCSCountMetricsMBean {
+
+    /**
+     * The JMX domain metrics are registered under
+     */
+    public static final String MBEAN_DOMAIN = "VoteCountingSystem";
+
+    private long ballotsLoaded;
+    private long loadingNanos;
+    private double lastLoadBallotsPerSecond;
+
+    private long countPasses;
+    private long totalCountPassNanos;
+    private long lastCountPassNanos;
+    private long maximumCountPassNanos;
+
+    private long eliminations;
+    private long ballotsTransferred;
+    private long lastBallotsTransferred;
+    private long ballotsExhausted;
+    private long lastBallotsExhausted;
+    private long tieBreaks;
+    private long bulkEliminations;
+
+    private long peakBallotStoreBytes;
+
+    /**
+     * Publishes the metrics on the platform MBean server
+     *
+     * @param name - The name of the count, unique in the process
+     * @return The name the metrics were registered with
+     * @throws JMException - If the name is in use or not valid
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = getObjectName(name);
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+        return objectName;
+    }
+
+    /**
+     * Removes metrics registered with registerMBean(name:)
+     *
+     * @param name - The name of the count
+     * @throws JMException - If the name is not valid
+     */
+    public static void unregisterMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = getObjectName(name);
+
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    /**
+     * @param name - The name of the count
+     * @return The JMX name of the count's metrics
+     * @throws JMException - If the name is not valid
+     */
+    public static ObjectName getObjectName(String name) throws JMException {
+        return new ObjectName(MBEAN_DOMAIN + ":type=CountMetrics,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * @return Every metric, read at the same time
+     */
+    public synchronized VCSCountMetricsSnapshot snapshot() {
+        return new VCSCountMetricsSnapshot(this);
+    }
+
+    synchronized void didLoadBallots(int ballotCount, long nanos) {
+        ballotsLoaded += ballotCount;
+        loadingNanos += nanos;
+
+        lastLoadBallotsPerSecond = nanos > 0 ? ballotCount * 1e9 / nanos : 0;
+    }
+
+    synchronized void didCountPass(long nanos) {
+        countPasses++;
+        totalCountPassNanos += nanos;
+        lastCountPassNanos = nanos;
+        maximumCountPassNanos = Math.max(maximumCountPassNanos, nanos);
+    }
+
+    /**
+     * @param transferred - The eliminated candidate's ballots which moved to a continuing candidate
+     * @param exhausted - The eliminated candidate's ballots with no continuing candidate left
+     * @param wasTieBreak - True, if the candidate was chosen from several with the fewest votes
+     */
+    synchronized void didEliminateCandidate(int transferred, int exhausted, boolean wasTieBreak) {
+        eliminations++;
+
+        ballotsTransferred += transferred;
+        lastBallotsTransferred = transferred;
+        ballotsExhausted += exhausted;
+        lastBallotsExhausted = exhausted;
+
+        if (wasTieBreak) {
+            tieBreaks++;
+        }
+    }
+
+    /**
+     * @param candidateCount - The number of candidates eliminated together
+     * @param transferred - The eliminated candidates' ballots which moved to a continuing candidate
+     * @param exhausted - The eliminated candidates' ballots with no continuing candidate left
+     */
+    synchronized void didBulkEliminateCandidates(int candidateCount, int transferred, int exhausted) {
+        eliminations += candidateCount;
+        bulkEliminations += candidateCount;
+
+        ballotsTransferred += transferred;
+        lastBallotsTransferred = transferred;
+        ballotsExhausted += exhausted;
+        lastBallotsExhausted = exhausted;
+    }
+
+    synchronized void didChangeBallotStore(long memoryUsage) {
+        peakBallotStoreBytes = Math.max(peakBallotStoreBytes, memoryUsage);
+    }
+
+    public synchronized long getBallotsLoaded() {
+        return ballotsLoaded;
+    }
+
+    public synchronized long getLoadingNanos() {
+        return loadingNanos;
+    }
+
+    public synchronized double getLastLoadBallotsPerSecond() {
+        return lastLoadBallotsPerSecond;
+    }
+
+    public synchronized long getCountPasses() {
+        return countPasses;
+    }
+
+    public synchronized long getTotalCountPassNanos() {
+        return totalCountPassNanos;
+    }
+
+    public synchronized long getLastCountPassNanos() {
+        return lastCountPassNanos;
+    }
+
+    public synchronized long getMaximumCountPassNanos() {
+        return maximumCountPassNanos;
+    }
+
+    public synchronized long getEliminations() {
+        return eliminations;
+    }
+
+    public synchronized long getBallotsTransferred() {
+        return ballotsTransferred;
+    }
+
+    public synchronized long getLastBallotsTransferred() {
+        return lastBallotsTransferred;
+    }
+
+    public synchronized long getBallotsExhausted() {
+        return ballotsExhausted;
+    }
+
+    public synchronized long getLastBallotsExhausted() {
+        return lastBallotsExhausted;
+    }
+
+    public synchronized long getTieBreaks() {
+        return tieBreaks;
+    }
+
+    public synchronized long getBulkEliminations() {
+        return bulkEliminations;
+    }
+
+    public synchronized long getPeakBallotStoreBytes() {
+        return peakBallotStoreBytes;
+    }
+}
@@ -0,0 +1,82 @@
+package Model;
+
+/**
+ * The attributes of a count's metrics, as published through JMX
+ */
+public interface VCSCountMetricsMBean {
+
+    /**
+     * @return The number of ballots read by every call to loadBallots()
+     */
+    long getBallotsLoaded();
+
+    /**
+     * @return The nanoseconds spent reading ballot files
+     */
+    long getLoadingNanos();
+
+    /**
+     * @return The ballots read per second by the most recent load, or 0 if no file has been loaded
+     */
+    double getLastLoadBallotsPerSecond();
+
+    /**
+     * @return The number of times the ballots have been tallied
+     */
+    long getCountPasses();
+
+    /**
+     * @return The nanoseconds spent tallying the ballots
+     */
+    long getTotalCountPassNanos();
+
+    /**
+     * @return The nanoseconds taken by the most recent tally
+     */
+    long getLastCountPassNanos();
+
+    /**
+     * @return The nanoseconds taken by the slowest tally
+     */
+    long getMaximumCountPassNanos();
+
+    /**
+     * @return The number of candidates eliminated
+     */
+    long getEliminations();
+
+    /**
+     * @return The number of ballots passed to a continuing candidate by every elimination
+     */
+    long getBallotsTransferred();
+
+    /**
+     * @return The number of ballots passed to a continuing candidate by the most recent elimination
+     */
+    long getLastBallotsTransferred();
+
+    /**
+     * @return The number of ballots left with no continuing candidate by every elimination
+     */
+    long getBallotsExhausted();
+
+    /**
+     * @return The number of ballots left with no continuing candidate by the most recent elimination
+     */
+    long getLastBallotsExhausted();
+
+    /**
+     * @return The number of eliminations decided by breaking a tie
+     */
+    long getTieBreaks();
+
+    /**
+     * @return The number of eliminations made as part of a bulk exclusion, included in getEliminations()
+     */
+    long getBulkEliminations();
+
+    /**
+     * @return The most bytes the ballot store has held, as with VCSBallotStore.getMemoryUsage()
+     */
+    long getPeakBallotStoreBytes();
+}
@@ -0,0 +1,107 @@
+package Model;
+
+/**
+ * The metrics of a count at a single moment. Every value was read at the same time
+ */
+public class VCSCountMetricsSnapshot {
+
+    private final long ballotsLoaded;
+    private final long loadingNanos;
+    private final double lastLoadBallotsPerSecond;
+
+    private final long countPasses;
+    private final long totalCountPassNanos;
+    private final long lastCountPassNanos;
+    private final long maximumCountPassNanos;
+
+    private final long eliminations;
+    private final long ballotsTransferred;
+    private final long lastBallotsTransferred;
+    private final long ballotsExhausted;
+    private final long lastBallotsExhausted;
+    private final long tieBreaks;
+    private final long bulkEliminations;
+
+    private final long peakBallotStoreBytes;
+
+    VCSCountMetricsSnapshot(VCSCountMetrics metrics) {
+        ballotsLoaded = metrics.getBallotsLoaded();
+        loadingNanos = metrics.getLoadingNanos();
+        lastLoadBallotsPerSecond = metrics.getLastLoadBallotsPerSecond();
+
+        countPasses = metrics.getCountPasses();
+        totalCountPassNanos = metrics.getTotalCountPassNanos();
+        lastCountPassNanos = metrics.getLastCountPassNanos();
+        maximumCountPassNanos = metrics.getMaximumCountPassNanos();
+
+        eliminations = metrics.getEliminations();
+        ballotsTransferred = metrics.getBallotsTransferred();
+        lastBallotsTransferred = metrics.getLastBallotsTransferred();
+        ballotsExhausted = metrics.getBallotsExhausted();
+        lastBallotsExhausted = metrics.getLastBallotsExhausted();
+        tieBreaks = metrics.getTieBreaks();
+        bulkEliminations = metrics.getBulkEliminations();
+
+        peakBallotStoreBytes = metrics.getPeakBallotStoreBytes();
+    }
+
+    public long getBallotsLoaded() {
+        return ballotsLoaded;
+    }
+
+    public long getLoadingNanos() {
+        return loadingNanos;
+    }
+
+    public double getLastLoadBallotsPerSecond() {
+        return lastLoadBallotsPerSecond;
+    }
+
+    public long getCountPasses() {
+        return countPasses;
+    }
+
+    public long getTotalCountPassNanos() {
+        return totalCountPassNanos;
+    }
+
+    public long getLastCountPassNanos() {
+        return lastCountPassNanos;
+    }
+
+    public long getMaximumCountPassNanos() {
+        return maximumCountPassNanos;
+    }
+
+    public long getEliminations() {
+        return eliminations;
+    }
+
+    public long getBallotsTransferred() {
+        return ballotsTransferred;
+    }
+
+    public long getLastBallotsTransferred() {
+        return lastBallotsTransferred;
+    }
+
+    public long getBallotsExhausted() {
+        return ballotsExhausted;
+    }
+
+    public long getLastBallotsExhausted() {
+        return lastBallotsExhausted;
+    }
+
+    public long getTieBreaks() {
+        return tieBreaks;
+    }
+
+    public long getBulkEliminations() {
+        return bulkEliminations;
+    }
+
+    public long getPeakBallotStoreBytes() {
+        return peakBallotStoreBytes;
+    }
+}
@@ -0,0 +1,117 @@
+package Model;
+
+import java.util.Random;
+
+/**
+ * The settings used by the count engine
+ */
+public class VCSCountOptions {
+
+    private VCSParallelTally parallelTally;
+
+    // A tally created by these options is stopped when it is replaced, a shared tally is left to its owner
+    private boolean ownsParallelTally;
+    private VCSTieBreaker tieBreaker;
+    private VCSCountMetrics countMetrics;
+    private int[] firstRoundVotes;
+    private boolean isBulkExclusion;
+
+    /**
+     * Default initializer, counts on a single thread and breaks ties at random
+     */
+    public VCSCountOptions() {
+        parallelTally = new VCSParallelTally(1, VCSParallelTally.DEFAULT_SEQUENTIAL_THRESHOLD);
+
+        Random random = new Random();
+        tieBreaker = candidates -> candidates.get(random.nextInt(candidates.size()));
+    }
+
+    /**
+     * @param countingParallelism - The number of threads each round is counted with
+     * @param parallelCountingThreshold - The smallest number of ballots worth counting in parallel
+     *
+     * @pre. countingParallelism > 0
+     */
+    public void setCountingParallelism(int countingParallelism, int parallelCountingThreshold) {
+        replaceParallelTally(new VCSParallelTally(countingParallelism, parallelCountingThreshold), true);
+    }
+
+    /**
+     * Shares a tally, and its threads, with another counter
+     *
+     * @param parallelTally - The tally each round is counted with
+     *
+     * @pre. parallelTally != null
+     */
+    public void setParallelTally(VCSParallelTally parallelTally) {
+        assert parallelTally != null : "Tally is null";
+
+        replaceParallelTally(parallelTally, false);
+    }
+
+    private void replaceParallelTally(VCSParallelTally parallelTally, boolean ownsParallelTally) {
+        if (this.ownsParallelTally) {
+            this.parallelTally.shutdown();
+        }
+
+        this.parallelTally = parallelTally;
+        this.ownsParallelTally = ownsParallelTally;
+    }
+
+    /**
+     * @param tieBreaker - Chooses between candidates sharing the lowest vote
+     *
+     * @pre. tieBreaker != null
+     */
+    public void setTieBreaker(VCSTieBreaker tieBreaker) {
+        assert tieBreaker != null : "Tie breaker is null";
+
+        this.tieBreaker = tieBreaker;
+    }
+
+    /**
+     * @param countMetrics - Records the time taken by each round and the ballots moved by each elimination, or null
+     */
+    public void setCountMetrics(VCSCountMetrics countMetrics) {
+        this.countMetrics = countMetrics;
+    }
+
+    /**
+     * Lets the first round be taken from a tally kept as ballots were added, rather than counted
+     *
+     * @param firstRoundVotes - The first preferences of each ordinal, or null to count the first round
+     *
+     * @pre. Every candidate with first preferences is in the count
+     */
+    public void setFirstRoundVotes(int[] firstRoundVotes) {
+        this.firstRoundVotes = firstRoundVotes;
+    }
+
+    /**
+     * @param isBulkExclusion - True, to eliminate every trailing group of candidates who can not
+     *                          overtake the next candidate in one round, rather than one candidate a round
+     */
+    public void setBulkExclusion(boolean isBulkExclusion) {
+        this.isBulkExclusion = isBulkExclusion;
+    }
+
+    public VCSParallelTally getParallelTally() {
+        return parallelTally;
+    }
+
+    public VCSTieBreaker getTieBreaker() {
+        return tieBreaker;
+    }
+
+    public VCSCountMetrics getCountMetrics() {
+        return countMetrics;
+    }
+
+    public int[] getFirstRoundVotes() {
+        return firstRoundVotes;
+    }
+
+    public boolean isBulkExclusion() {
+        return isBulkExclusion;
+    }
+}
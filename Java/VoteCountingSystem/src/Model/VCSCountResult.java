@@ -0,0 +1,158 @@
+package Model;
+
+/**
+ * The outcome of a whole count, round by round. Instances can not be changed once created.
+ *
+ * Candidates are referred to by their index in getCandidates(). The votes for every round
+ * are kept as a matrix, with a row per round and a column per candidate. Eliminated
+ * candidates have no votes in the rounds after their elimination. With bulk exclusion
+ * several candidates may be eliminated at the end of one round.
+ */
+public final class VCSCountResult {
+
+    private final VCSCandidate[] candidates;
+    private final int ballotCount;
+
+    // roundVotes[round][candidateIndex]
+    private final int[][] roundVotes;
+
+    // The indices of the candidates eliminated at the end of each round, fewest votes first, none for the final round
+    private final int[][] eliminatedCandidates;
+
+    private final int winningCandidate;
+
+    /**
+     * @param candidates - The candidates in the count
+     * @param ballotCount - The number of ballots counted
+     * @param roundVotes - The votes for each candidate in each round
+     * @param eliminatedCandidates - The candidates eliminated at the end of each round
+     * @param winningCandidate - The index of the winner
+     */
+    VCSCountResult(VCSCandidate[] candidates, int ballotCount, int[][] roundVotes,
+                   int[][] eliminatedCandidates, int winningCandidate) {
+        this.candidates = candidates;
+        this.ballotCount = ballotCount;
+        this.roundVotes = roundVotes;
+        this.eliminatedCandidates = eliminatedCandidates;
+        this.winningCandidate = winningCandidate;
+    }
+
+    /**
+     * @return The candidates in the count, in the order they were given to the engine
+     */
+    public VCSCandidate[] getCandidates() {
+        return candidates.clone();
+    }
+
+    public int getCandidateCount() {
+        return candidates.length;
+    }
+
+    public VCSCandidate getCandidate(int candidateIndex) {
+        return candidates[candidateIndex];
+    }
+
+    /**
+     * @param candidate - A candidate in the count
+     * @return The index of the candidate, or -1 if they were not in the count
+     */
+    public int getIndexOfCandidate(VCSCandidate candidate) {
+        for (int x = 0; x < candidates.length; x++) {
+            if (candidates[x] == candidate) {
+                return x;
+            }
+        }
+
+        return -1;
+    }
+
+    public int getBallotCount() {
+        return ballotCount;
+    }
+
+    /**
+     * @return The number of rounds counted, the last of which found the winner
+     */
+    public int getRoundCount() {
+        return roundVotes.length;
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @param candidateIndex - The index of the candidate
+     * @return The votes for the candidate in that round
+     */
+    public int getVotes(int round, int candidateIndex) {
+        return roundVotes[round][candidateIndex];
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @return A copy of the votes for every candidate in that round
+     */
+    public int[] getRoundVotes(int round) {
+        return roundVotes[round].clone();
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @param candidateIndex - The index of the candidate
+     * @return True, if the candidate was still in the count during that round
+     */
+    public boolean isContinuingInRound(int round, int candidateIndex) {
+        for (int earlierRound = 0; earlierRound < round; earlierRound++) {
+            for (int eliminatedIndex : eliminatedCandidates[earlierRound]) {
+                if (eliminatedIndex == candidateIndex) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @return The candidate eliminated at the end of the round, the one with the fewest votes
+     *         if several were bulk excluded, or null for the final round
+     */
+    public VCSCandidate getEliminatedCandidate(int round) {
+        int[] eliminated = eliminatedCandidates[round];
+
+        return eliminated.length == 0 ? null : candidates[eliminated[0]];
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @return Every candidate eliminated at the end of the round, fewest votes first
+     */
+    public VCSCandidate[] getEliminatedCandidates(int round) {
+        int[] eliminated = eliminatedCandidates[round];
+        VCSCandidate[] eliminatedArray = new VCSCandidate[eliminated.length];
+
+        for (int x = 0; x < eliminated.length; x++) {
+            eliminatedArray[x] = candidates[eliminated[x]];
+        }
+
+        return eliminatedArray;
+    }
+
+    /**
+     * @param round - The round, starting from zero
+     * @return True, if more than one candidate was excluded at the end of the round
+     */
+    public boolean isBulkExclusion(int round) {
+        return eliminatedCandidates[round].length > 1;
+    }
+
+    public VCSCandidate getWinningCandidate() {
+        return candidates[winningCandidate];
+    }
+
+    /**
+     * @return The votes for the winner in the final round
+     */
+    public int getWinningVotes() {
+        return roundVotes[roundVotes.length - 1][winningCandidate];
+    }
+}
@@ -0,0 +1,23 @@
+package Model;
+
+/**
+ * The ways the model can count the votes each round.
+ * Every method gives the same vote counts, they differ only in how much work each round takes.
+ */
+public enum VCSCountingMethod {
+
+    /**
+     * Every ballot is walked from its first preference each round
+     */
+    FULL_RECOUNT,
+
+    /**
+     * Each candidate keeps a pile of ballots, only the eliminated candidate's pile is re-examined
+     */
+    INCREMENTAL_TRANSFERS,
+
+    /**
+     * Identical rankings are merged into a prefix tree, each distinct ranking is counted once
+     */
+    BALLOT_TRIE
+}
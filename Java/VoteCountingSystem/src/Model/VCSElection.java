@@ -0,0 +1,158 @@
+package Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A single election hosted by the election registry, with its own model.
+ *
+ * The model is only used by the pool thread running the count, and is released once
+ * the count has finished so only the result is kept. The status, result and metrics
+ * may be read from any thread.
+ */
+public class VCSElection {
+
+    private final String electionId;
+    private final File ballotFile;
+
+    private VCSVotesModel model;
+    private final VCSCountMetrics countMetrics;
+
+    // Written by the counting thread, the result and message are set before the status
+    private volatile VCSElectionStatus status = VCSElectionStatus.WAITING;
+    private VCSCountResult countResult;
+    private String failureMessage;
+
+    private Future<?> countFuture;
+
+    /**
+     * @param electionId - The id of the election
+     * @param ballotFile - The ballots to count
+     * @param model - The model to count with, used by no other election
+     */
+    VCSElection(String electionId, File ballotFile, VCSVotesModel model) {
+        this.electionId = electionId;
+        this.ballotFile = ballotFile;
+        this.model = model;
+
+        countMetrics = model.getCountMetrics();
+    }
+
+    public String getElectionId() {
+        return electionId;
+    }
+
+    public File getBallotFile() {
+        return ballotFile;
+    }
+
+    public VCSElectionStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return True, if the election has been counted or has failed
+     */
+    public boolean isFinished() {
+        return status == VCSElectionStatus.COUNTED || status == VCSElectionStatus.FAILED;
+    }
+
+    /**
+     * @return The result of the count, or null if the election has not been counted
+     */
+    public VCSCountResult getCountResult() {
+        return status == VCSElectionStatus.COUNTED ? countResult : null;
+    }
+
+    /**
+     * @return Why the election failed, or null if it has not failed
+     */
+    public String getFailureMessage() {
+        return status == VCSElectionStatus.FAILED ? failureMessage : null;
+    }
+
+    /**
+     * @return The timings and counters of the election's count
+     */
+    public VCSCountMetrics getCountMetrics() {
+        return countMetrics;
+    }
+
+    /**
+     * Waits for the election to be counted or to fail
+     *
+     * @return The result of the count, or null if the election failed
+     * @throws InterruptedException - If the thread is interrupted while waiting
+     */
+    public VCSCountResult awaitCountResult() throws InterruptedException {
+        try {
+            countFuture.get();
+        } catch (ExecutionException e) {
+            // Failures are recorded in the status by count()
+        }
+
+        return getCountResult();
+    }
+
+    void setCountFuture(Future<?> countFuture) {
+        this.countFuture = countFuture;
+    }
+
+    /**
+     * Loads and counts the ballots, called on a thread of the registry's pool
+     *
+     * @post. The status is COUNTED or FAILED, and the model is released
+     */
+    void count() {
+        try {
+            status = VCSElectionStatus.LOADING;
+
+            if (!model.canLoadFileAtPath(ballotFile)) {
+                fail("Could not load file: " + ballotFile);
+                return;
+            }
+
+            try {
+                model.loadBallots();
+            } catch (IOException e) {
+                fail("Could not load file: " + ballotFile + ": " + e.getMessage());
+                return;
+            }
+
+            if (!model.canStartCountingVotes() || model.getAllCandidates().length == 0) {
+                fail("No ballots to count in file: " + ballotFile);
+                return;
+            }
+
+            status = VCSElectionStatus.COUNTING;
+
+            countResult = model.countAllRounds();
+            status = VCSElectionStatus.COUNTED;
+
+        } catch (Throwable e) {
+            fail("Count failed: " + e);
+
+            // Errors are still thrown once they are recorded, waiting threads see the failure
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+
+        } finally {
+            // The status must never be left at LOADING or COUNTING
+            if (!isFinished()) {
+                fail("Count stopped before it finished");
+            }
+
+            // Only the result is needed once the count has finished
+            model.releaseCountingThreads();
+            model = null;
+        }
+    }
+
+    private void fail(String message) {
+        failureMessage = message;
+        status = VCSElectionStatus.FAILED;
+    }
+}
@@ -0,0 +1,155 @@
+package Model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts many independent elections, such as every constituency of a general election,
+ * and counts them on a shared pool of threads.
+ *
+ * Each election has its own model, so elections share no state. The pool bounds the
+ * number of elections loaded and counted at once, so memory and threads stay bounded however many
+ * elections are submitted. Each model loads and counts on the pool thread running it, as
+ * the pool already keeps every processor busy.
+ */
+public class VCSElectionRegistry {
+
+    private final ExecutorService countingPool;
+
+    // In the order they were submitted
+    private final LinkedHashMap<String, VCSElection> elections = new LinkedHashMap<>();
+
+    /**
+     * Default initializer, counts one election per processor at a time
+     */
+    public VCSElectionRegistry() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism - The most elections loaded and counted at once
+     *
+     * @pre. parallelism > 0
+     */
+    public VCSElectionRegistry(int parallelism) {
+        assert parallelism > 0 : "Parallelism must be at least one";
+
+        countingPool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "Election count");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds an election, which is counted once a thread of the pool is free
+     *
+     * @param electionId - The id of the election
+     * @param ballotFile - The ballots to count, in any format the model can load
+     * @return The election, which reports its status and result
+     *
+     * @pre. No election has been submitted with the id
+     * @pre. The registry has not been shut down
+     */
+    public synchronized VCSElection submitElection(String electionId, File ballotFile) {
+        assert !elections.containsKey(electionId) : "Election id is already in use";
+
+        // The candidates are the names found in the file
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+        model.setLoadingParallelism(1);
+        model.setCountingParallelism(1, VCSParallelTally.DEFAULT_SEQUENTIAL_THRESHOLD);
+
+        VCSElection election = new VCSElection(electionId, ballotFile, model);
+        elections.put(electionId, election);
+
+        election.setCountFuture(countingPool.submit(election::count));
+
+        return election;
+    }
+
+    /**
+     * @param electionId - The id of an election
+     * @return The election, or null if none was submitted with the id
+     */
+    public synchronized VCSElection getElection(String electionId) {
+        return elections.get(electionId);
+    }
+
+    /**
+     * @return Every election, in the order they were submitted
+     */
+    public synchronized List<VCSElection> getElections() {
+        return new ArrayList<>(elections.values());
+    }
+
+    /**
+     * @param electionId - The id of an election
+     * @return The status of the election
+     *
+     * @pre. An election was submitted with the id
+     */
+    public VCSElectionStatus getStatus(String electionId) {
+        VCSElection election = getElection(electionId);
+
+        assert election != null : "No election with that id";
+
+        return election.getStatus();
+    }
+
+    /**
+     * @param electionId - The id of an election
+     * @return The result of the count, or null if the election has not been counted
+     *
+     * @pre. An election was submitted with the id
+     */
+    public VCSCountResult getCountResult(String electionId) {
+        VCSElection election = getElection(electionId);
+
+        assert election != null : "No election with that id";
+
+        return election.getCountResult();
+    }
+
+    /**
+     * @param status - A status
+     * @return The number of elections with the status
+     */
+    public int getElectionCountWithStatus(VCSElectionStatus status) {
+        int count = 0;
+
+        for (VCSElection election : getElections()) {
+            if (election.getStatus() == status) count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Waits until every election submitted so far has been counted or has failed
+     *
+     * @throws InterruptedException - If the thread is interrupted while waiting
+     */
+    public void awaitAllElections() throws InterruptedException {
+        for (VCSElection election : getElections()) {
+            election.awaitCountResult();
+        }
+    }
+
+    /**
+     * Stops the pool once the elections already submitted have finished
+     *
+     * @param timeoutMillis - The longest to wait for the elections
+     * @return True, if every election finished before the timeout
+     * @throws InterruptedException - If the thread is interrupted while waiting
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        countingPool.shutdown();
+
+        return countingPool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,32 @@
+package Model;
+
+/**
+ * The stages an election passes through in the election registry
+ */
+public enum VCSElectionStatus {
+
+    /**
+     * Waiting for a thread in the registry's pool
+     */
+    WAITING,
+
+    /**
+     * The ballot file is being read
+     */
+    LOADING,
+
+    /**
+     * Every round is being counted
+     */
+    COUNTING,
+
+    /**
+     * The count has finished, the result is available
+     */
+    COUNTED,
+
+    /**
+     * The ballots could not be loaded or counted
+     */
+    FAILED
+}
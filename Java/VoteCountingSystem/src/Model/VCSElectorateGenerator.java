@@ -0,0 +1,310 @@
+package Model;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Generates ballots for testing at scale, and writes them to CSV or binary ballot files.
+ *
+ * Ballots are written as they are generated, so files of any size can be produced in a few
+ * kilobytes of memory. The ballots depend only on the seed and settings, so every file written
+ * by generators with the same seed and settings holds the same ballots, whatever its format.
+ */
+public class VCSElectorateGenerator {
+
+    /**
+     * The seed used unless another is given, so suites share inputs
+     */
+    public static final long DEFAULT_SEED = 12022846L;
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+
+    private final String[] candidateNames;
+    private final VCSPreferenceDistribution distribution;
+    private final long seed;
+
+    private double[] candidateWeights;
+    private double dispersion = 0.8;
+
+    private int maximumBallotLength;
+    private double continuationProbability = 1.0;
+
+    private SplittableRandom random;
+
+    // The candidates not yet placed on the ballot being generated
+    private final int[] remainingCandidates;
+
+    /**
+     * @param candidateNames - The names of the candidates, in ordinal order
+     * @param distribution - How the candidates are ranked on each ballot
+     * @param seed - The seed for the ballots
+     *
+     * @pre. candidateNames is not empty
+     */
+    public VCSElectorateGenerator(String[] candidateNames, VCSPreferenceDistribution distribution, long seed) {
+        assert candidateNames.length > 0 : "There must be a candidate";
+
+        this.candidateNames = candidateNames.clone();
+        this.distribution = distribution;
+        this.seed = seed;
+
+        maximumBallotLength = candidateNames.length;
+        remainingCandidates = new int[candidateNames.length];
+
+        // Earlier candidates are more popular, in proportion to 1 / (ordinal + 1)
+        candidateWeights = new double[candidateNames.length];
+        for (int ordinal = 0; ordinal < candidateWeights.length; ordinal++) {
+            candidateWeights[ordinal] = 1.0 / (ordinal + 1);
+        }
+
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * @param candidateCount - The number of candidates
+     * @return The names "Candidate 0" to "Candidate n"
+     */
+    public static String[] createCandidateNames(int candidateCount) {
+        String[] names = new String[candidateCount];
+
+        for (int x = 0; x < candidateCount; x++) {
+            names[x] = "Candidate " + x;
+        }
+
+        return names;
+    }
+
+    /**
+     * @return The names of the candidates, in ordinal order
+     */
+    public String[] getCandidateNames() {
+        return candidateNames.clone();
+    }
+
+    /**
+     * Sets the weights used with the Plackett-Luce distribution
+     *
+     * @param candidateWeights - candidateWeights[n] is the weight of the candidate with ordinal n
+     *
+     * @pre. There is a positive weight for each candidate
+     */
+    public void setCandidateWeights(double[] candidateWeights) {
+        assert candidateWeights.length == candidateNames.length : "There must be a weight for each candidate";
+
+        for (double weight : candidateWeights) {
+            assert weight > 0 : "Weights must be positive";
+        }
+
+        this.candidateWeights = candidateWeights.clone();
+    }
+
+    /**
+     * Sets how far rankings stray from the ordinal order with the Mallows distribution
+     *
+     * @param dispersion - Close to zero every ballot is in ordinal order, at one rankings are uniform
+     *
+     * @pre. 0 < dispersion <= 1
+     */
+    public void setDispersion(double dispersion) {
+        assert dispersion > 0 && dispersion <= 1 : "Dispersion must be in (0, 1]";
+
+        this.dispersion = dispersion;
+    }
+
+    /**
+     * Truncates ballots. After each preference, another follows with a fixed probability,
+     * so ballot lengths are geometric up to the maximum
+     *
+     * @param maximumBallotLength - The most preferences on a ballot
+     * @param continuationProbability - The probability of another preference, one for ballots of the maximum length
+     *
+     * @pre. 0 < maximumBallotLength <= the number of candidates
+     * @pre. 0 <= continuationProbability <= 1
+     */
+    public void setBallotLength(int maximumBallotLength, double continuationProbability) {
+        assert maximumBallotLength > 0 && maximumBallotLength <= candidateNames.length : "Length must be between one and the candidate count";
+        assert continuationProbability >= 0 && continuationProbability <= 1 : "Probability must be in [0, 1]";
+
+        this.maximumBallotLength = maximumBallotLength;
+        this.continuationProbability = continuationProbability;
+    }
+
+    /**
+     * Starts the ballots again from the first
+     */
+    public void reset() {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Generates the next ballot
+     *
+     * @param preferences - Filled with the ordinals of the ballot's preferences, in order
+     * @return The number of preferences on the ballot
+     *
+     * @pre. preferences.length >= the number of candidates
+     */
+    public int nextBallot(int[] preferences) {
+        int length = 1;
+
+        while (length < maximumBallotLength && random.nextDouble() < continuationProbability) {
+            length++;
+        }
+
+        if (distribution == VCSPreferenceDistribution.MALLOWS) {
+            // The whole ranking is needed before it can be truncated
+            generateMallowsRanking(preferences);
+            return length;
+        }
+
+        for (int x = 0; x < remainingCandidates.length; x++) {
+            remainingCandidates[x] = x;
+        }
+
+        for (int preference = 0; preference < length; preference++) {
+            int remainingCount = remainingCandidates.length - preference;
+
+            int choice = distribution == VCSPreferenceDistribution.PLACKETT_LUCE
+                    ? chooseWeightedCandidate(preference, remainingCount)
+                    : preference + random.nextInt(remainingCount);
+
+            int candidate = remainingCandidates[choice];
+            remainingCandidates[choice] = remainingCandidates[preference];
+            remainingCandidates[preference] = candidate;
+
+            preferences[preference] = candidate;
+        }
+
+        return length;
+    }
+
+    /**
+     * Writes ballots in the "rank,name" CSV format, from the first ballot
+     *
+     * @param file - The file to write, replaced if it exists
+     * @param ballotCount - The number of ballots to write
+     * @throws IOException - If the file can not be written
+     */
+    public void writeCsvFile(File file, int ballotCount) throws IOException {
+        reset();
+
+        // Each line is a rank prefix and a name, both encoded once
+        byte[][] rankPrefixes = new byte[candidateNames.length][];
+        byte[][] nameLines = new byte[candidateNames.length][];
+
+        for (int x = 0; x < candidateNames.length; x++) {
+            rankPrefixes[x] = ((x + 1) + ",").getBytes(StandardCharsets.UTF_8);
+            nameLines[x] = (candidateNames[x] + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        int[] preferences = new int[candidateNames.length];
+
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file), OUTPUT_BUFFER_SIZE)) {
+            for (int ballot = 0; ballot < ballotCount; ballot++) {
+                int length = nextBallot(preferences);
+
+                for (int preference = 0; preference < length; preference++) {
+                    output.write(rankPrefixes[preference]);
+                    output.write(nameLines[preferences[preference]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes ballots in the binary ballot format, from the first ballot
+     *
+     * @param file - The file to write, replaced if it exists
+     * @param ballotCount - The number of ballots to write
+     * @throws IOException - If the file can not be written
+     */
+    public void writeBinaryFile(File file, int ballotCount) throws IOException {
+        reset();
+
+        int[] preferences = new int[candidateNames.length];
+
+        try (VCSBinaryBallotFileWriter writer = new VCSBinaryBallotFileWriter(file, candidateNames, ballotCount)) {
+            for (int ballot = 0; ballot < ballotCount; ballot++) {
+                writer.addBallot(preferences, nextBallot(preferences));
+            }
+
+            writer.finish();
+        }
+    }
+
+    /**
+     * Writes ballots in the format given by the file's extension, binary for .vcsb and CSV otherwise
+     *
+     * @param file - The file to write, replaced if it exists
+     * @param ballotCount - The number of ballots to write
+     * @throws IOException - If the file can not be written
+     */
+    public void writeFile(File file, int ballotCount) throws IOException {
+        if (file.getName().endsWith("." + VCSBinaryBallotFile.FILE_EXTENSION)) {
+            writeBinaryFile(file, ballotCount);
+        }
+        else {
+            writeCsvFile(file, ballotCount);
+        }
+    }
+
+    /**
+     * Chooses from remainingCandidates[first] onwards, in proportion to their weights
+     *
+     * @return The index of the chosen candidate in remainingCandidates
+     */
+    private int chooseWeightedCandidate(int first, int remainingCount) {
+        double totalWeight = 0;
+
+        for (int x = first; x < first + remainingCount; x++) {
+            totalWeight += candidateWeights[remainingCandidates[x]];
+        }
+
+        double target = random.nextDouble() * totalWeight;
+
+        for (int x = first; x < first + remainingCount - 1; x++) {
+            target -= candidateWeights[remainingCandidates[x]];
+
+            if (target < 0) return x;
+        }
+
+        // Rounding can leave a little weight over for the last candidate
+        return first + remainingCount - 1;
+    }
+
+    /**
+     * Builds a ranking by inserting each candidate in ordinal order. The candidate with ordinal i
+     * is placed k places before the end with probability proportional to dispersion ^ k
+     */
+    private void generateMallowsRanking(int[] ranking) {
+        for (int candidate = 0; candidate < candidateNames.length; candidate++) {
+            double totalWeight = 0;
+            double weight = 1;
+
+            for (int k = 0; k <= candidate; k++) {
+                totalWeight += weight;
+                weight *= dispersion;
+            }
+
+            double target = random.nextDouble() * totalWeight;
+
+            int displacement = 0;
+            weight = 1;
+
+            while (displacement < candidate && (target -= weight) >= 0) {
+                displacement++;
+                weight *= dispersion;
+            }
+
+            int position = candidate - displacement;
+
+            System.arraycopy(ranking, position, ranking, position + 1, candidate - position);
+            ranking[position] = candidate;
+        }
+    }
+}
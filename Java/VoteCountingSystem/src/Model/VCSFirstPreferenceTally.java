@@ -0,0 +1,135 @@
+package Model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Provisional first preference standings, kept up to date as ballots are accepted
+ * so they can be read at any time without counting.
+ *
+ * Every thread accepting ballots, the model's own thread and each intake producer,
+ * writes to a set of counters of its own, so writers never contend. Readers sum the
+ * counters without taking any lock, so polling never holds up the writers. A reading
+ * may miss ballots accepted while it is being taken, but never counts a ballot twice.
+ *
+ * When the model's ballots are replaced every set of counters is removed at once. The model
+ * counts its new ballots again, and an open intake counts the ballots not yet drained.
+ */
+public class VCSFirstPreferenceTally {
+
+    private final CopyOnWriteArrayList<Counters> writerCounters = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return The number of ballots accepted so far. May be called from any thread
+     */
+    public long getBallotCount() {
+        long ballotCount = 0;
+
+        for (Counters counters : writerCounters) {
+            ballotCount += counters.ballotCount;
+        }
+
+        return ballotCount;
+    }
+
+    /**
+     * @return The first preferences for each candidate named on a ballot so far, in the order
+     *         the names were first met. May be called from any thread
+     */
+    public Map<String, Integer> getFirstPreferenceVotes() {
+        LinkedHashMap<String, Integer> votes = new LinkedHashMap<>();
+
+        for (Counters counters : writerCounters) {
+            Slots slots = counters.slots;
+
+            for (int slot = 0; slot < slots.names.length; slot++) {
+                votes.merge(slots.names[slot], slots.votes.get(slot), Integer::sum);
+            }
+        }
+
+        return Collections.unmodifiableMap(votes);
+    }
+
+    /**
+     * @return A new set of counters, to be written by a single thread
+     */
+    Counters createCounters() {
+        Counters counters = new Counters();
+
+        writerCounters.add(counters);
+
+        return counters;
+    }
+
+    /**
+     * Stops counting the ballots of every set of counters, such as when the model's ballots are replaced.
+     * Writers which carry on must count the ballots they still hold into new counters
+     */
+    void removeAllCounters() {
+        writerCounters.clear();
+    }
+
+    /**
+     * The counters written by a single thread, indexed by the ordinals of that thread's candidate registry
+     */
+    static class Counters {
+
+        // Replaced as a whole when a new candidate is met, so a reader sees matching names and votes
+        private volatile Slots slots = new Slots(new String[0], new AtomicIntegerArray(0));
+
+        // Only the owning thread writes, so the increments need not be atomic
+        private volatile long ballotCount;
+
+        /**
+         * Counts a ballot
+         *
+         * @param ordinal - The ordinal of the ballot's first preference, or -1 if it has none
+         * @param candidateRegistry - The registry giving the ordinal its name
+         */
+        void countBallot(int ordinal, VCSCandidateRegistry candidateRegistry) {
+            if (ordinal >= 0) {
+                Slots currentSlots = slots;
+
+                if (ordinal >= currentSlots.names.length) {
+                    currentSlots = growSlots(currentSlots, ordinal + 1, candidateRegistry);
+                }
+
+                currentSlots.votes.lazySet(ordinal, currentSlots.votes.get(ordinal) + 1);
+            }
+
+            ballotCount++;
+        }
+
+        private Slots growSlots(Slots currentSlots, int slotCount, VCSCandidateRegistry candidateRegistry) {
+            String[] names = new String[slotCount];
+            AtomicIntegerArray votes = new AtomicIntegerArray(slotCount);
+
+            for (int slot = 0; slot < slotCount; slot++) {
+                names[slot] = candidateRegistry.getCandidateWithOrdinal(slot).getName();
+
+                if (slot < currentSlots.names.length) {
+                    votes.set(slot, currentSlots.votes.get(slot));
+                }
+            }
+
+            Slots grownSlots = new Slots(names, votes);
+            slots = grownSlots;
+
+            return grownSlots;
+        }
+    }
+
+    private static class Slots {
+
+        private final String[] names;
+        private final AtomicIntegerArray votes;
+
+        Slots(String[] names, AtomicIntegerArray votes) {
+            this.names = names;
+            this.votes = votes;
+        }
+    }
+}
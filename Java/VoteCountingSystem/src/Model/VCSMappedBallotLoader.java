@@ -0,0 +1,402 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads a ballot file by mapping it into memory and parsing the bytes directly.
+ *
+ * Each line of the file is "rank,name", and a rank of 1 starts a new ballot.
+ * Candidate names are matched against a table of encoded names, so no Strings
+ * are created while loading and preferences are written straight into the ballot store.
+ * A name not yet in the candidate registry can be registered the first time it is met.
+ */
+public class VCSMappedBallotLoader {
+
+    // Files larger than this are mapped one window at a time
+    private static final long DEFAULT_MAPPING_WINDOW_SIZE = 1 << 30;
+
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte COMMA = ',';
+    private static final byte FIRST_PREFERENCE = '1';
+
+    private static final int INITIAL_NAME_SLOTS = 16;
+
+    private final FileChannel fileChannel;
+    private final VCSCandidateRegistry candidateRegistry;
+    private VCSBallotStore ballotStore;
+
+    // Told about progress after every batch of ballots
+    private VCSBallotLoadingListener loadingListener;
+    private int ballotsPerBatch;
+
+    private int loadedBallotCount;
+    private boolean isCancelled;
+
+    // The position in the file of the window being parsed
+    private long windowPosition;
+    private long mappingWindowSize = DEFAULT_MAPPING_WINDOW_SIZE;
+
+    private final boolean registersUnknownCandidates;
+    private boolean hasSkippedUnknownCandidates;
+
+    // Encoded names indexed by ordinal, null for candidates not standing in the vote
+    private byte[][] candidateNames;
+
+    // Open addressing hash table of candidate names, each slot holds ordinal + 1
+    private int[] nameSlots;
+    private int nameCount;
+
+    /**
+     * @param fileChannel - The opened ballot file
+     * @param ballotStore - The store the ballots are loaded into, its registry is used to find each name
+     * @param registersUnknownCandidates - True, to add names not in the registry as new candidates.
+     *                                     Otherwise preferences for those names are skipped
+     */
+    public VCSMappedBallotLoader(FileChannel fileChannel, VCSBallotStore ballotStore, boolean registersUnknownCandidates) {
+        this.fileChannel = fileChannel;
+        this.ballotStore = ballotStore;
+        this.candidateRegistry = ballotStore.getCandidateRegistry();
+        this.registersUnknownCandidates = registersUnknownCandidates;
+
+        candidateNames = new byte[Math.max(candidateRegistry.getCandidateCount(), 1)][];
+        nameSlots = new int[INITIAL_NAME_SLOTS];
+
+        for (int ordinal = 0; ordinal < candidateRegistry.getCandidateCount(); ordinal++) {
+            VCSCandidate candidate = candidateRegistry.getCandidateWithOrdinal(ordinal);
+
+            // Only standing candidates can be found by name
+            if (candidateRegistry.getCandidateWithName(candidate.getName()) == candidate) {
+                addNameWithOrdinal(candidate.getName().getBytes(StandardCharsets.UTF_8), ordinal);
+            }
+        }
+    }
+
+    /**
+     * Sets a listener to be told about progress as the file is loaded
+     *
+     * @param loadingListener - The listener, which can stop loading
+     * @param ballotsPerBatch - The number of ballots between each call to the listener
+     *
+     * @pre. ballotsPerBatch > 0
+     */
+    public void setLoadingListener(VCSBallotLoadingListener loadingListener, int ballotsPerBatch) {
+        assert ballotsPerBatch > 0 : "Batch size must be positive";
+
+        this.loadingListener = loadingListener;
+        this.ballotsPerBatch = ballotsPerBatch;
+    }
+
+    /**
+     * Sets the largest part of the file mapped at once. A line longer than this can not be loaded
+     *
+     * @param mappingWindowSize - The size of each window, in bytes
+     *
+     * @pre. mappingWindowSize > 0
+     */
+    public void setMappingWindowSize(long mappingWindowSize) {
+        assert mappingWindowSize > 0 : "Window size must be positive";
+
+        this.mappingWindowSize = mappingWindowSize;
+    }
+
+    /**
+     * Sends the following ballots to a different store.
+     * Used by a loading listener to hand over each completed batch
+     *
+     * @param ballotStore - The store to load into
+     *
+     * @pre. The store shares the loader's candidate registry
+     * @pre. No ballot is being built (only call from VCSBallotLoadingListener.didLoadBallots())
+     */
+    public void setBallotStore(VCSBallotStore ballotStore) {
+        assert ballotStore.getCandidateRegistry() == candidateRegistry : "Store has a different candidate registry";
+        assert !this.ballotStore.hasPreferencesInCurrentBallot() : "A ballot is being built";
+
+        this.ballotStore = ballotStore;
+    }
+
+    /**
+     * @return True, if the loading listener stopped the load before the end of the file
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * @return True, if a preference was skipped because its name was not in the registry
+     */
+    public boolean hasSkippedUnknownCandidates() {
+        return hasSkippedUnknownCandidates;
+    }
+
+    /**
+     * Reads every ballot in the file into the ballot store
+     *
+     * @return The number of ballots added to the store
+     * @throws IOException - If the file can not be mapped, or has a line longer than the mapping window.
+     *                       Ballots completed before the error stay in the store
+     *
+     * @post. The file's ballots are added to the store in the order they appear
+     */
+    public int loadBallots() throws IOException {
+        return loadBallots(0, fileChannel.size());
+    }
+
+    /**
+     * Reads the ballots in part of the file into the ballot store
+     *
+     * @param rangeStart - The position of the first byte to read
+     * @param rangeEnd - The position after the last byte to read
+     * @return The number of ballots added to the store
+     * @throws IOException - If the file can not be mapped, or has a line longer than the mapping window.
+     *                       Ballots completed before the error stay in the store
+     *
+     * @pre. rangeStart is at the start of a ballot, or the start of the file
+     * @pre. rangeEnd is at the start of a ballot, or the end of the file
+     * @post. The range's ballots are added to the store in the order they appear
+     */
+    public int loadBallots(long rangeStart, long rangeEnd) throws IOException {
+        int initialBallotCount = loadedBallotCount;
+
+        windowPosition = rangeStart;
+
+        while (windowPosition < rangeEnd && !isCancelled) {
+            long windowSize = Math.min(mappingWindowSize, rangeEnd - windowPosition);
+            boolean isLastWindow = windowPosition + windowSize == rangeEnd;
+
+            MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowPosition, windowSize);
+
+            int parsedBytes = parseLines(buffer, (int) windowSize, isLastWindow);
+
+            if (parsedBytes == 0 && !isCancelled) {
+                // The ballot the line belongs to can not be completed, so none of it is kept
+                ballotStore.discardCurrentBallot();
+
+                throw new IOException("Line is longer than the mapping window");
+            }
+
+            // The next window starts with the line which did not fit in this one
+            windowPosition += parsedBytes;
+        }
+
+        // Add the final ballot
+        if (ballotStore.hasPreferencesInCurrentBallot()) {
+            ballotStore.didFinishAddingPreferencesToBallot();
+            loadedBallotCount++;
+        }
+
+        return loadedBallotCount - initialBallotCount;
+    }
+
+    /**
+     * Parses each complete line in the buffer
+     *
+     * @return The number of bytes parsed, a line cut off by the end of the window is left for the next window
+     */
+    private int parseLines(MappedByteBuffer buffer, int limit, boolean isLastWindow) {
+        int lineStart = 0;
+
+        while (lineStart < limit && !isCancelled) {
+            int lineEnd = lineStart;
+
+            while (lineEnd < limit && buffer.get(lineEnd) != NEW_LINE) {
+                lineEnd++;
+            }
+
+            // The line continues in the next window
+            if (lineEnd == limit && !isLastWindow) {
+                break;
+            }
+
+            if (!parseLine(buffer, lineStart, lineEnd)) {
+                break;
+            }
+
+            lineStart = lineEnd + 1;
+        }
+
+        return Math.min(lineStart, limit);
+    }
+
+    /**
+     * Adds the preference on a single "rank,name" line to the ballot store
+     *
+     * @return False, if the loading listener stopped the load before this line
+     */
+    private boolean parseLine(MappedByteBuffer buffer, int lineStart, int lineEnd) {
+
+        if (lineEnd > lineStart && buffer.get(lineEnd - 1) == CARRIAGE_RETURN) {
+            lineEnd--;
+        }
+
+        // Skip blank lines
+        if (lineEnd == lineStart) return true;
+
+        int commaPosition = lineStart;
+
+        while (commaPosition < lineEnd && buffer.get(commaPosition) != COMMA) {
+            commaPosition++;
+        }
+
+        assert commaPosition < lineEnd : "Line has no comma";
+        if (commaPosition == lineEnd) return true;
+
+        // If we have got to the start of a new ballot
+        if (commaPosition == lineStart + 1 && buffer.get(lineStart) == FIRST_PREFERENCE) {
+
+            // If the ballot has at least one candidate, add it to the list of completed ballots
+            if (ballotStore.hasPreferencesInCurrentBallot()) {
+                ballotStore.didFinishAddingPreferencesToBallot();
+                loadedBallotCount++;
+
+                if (!didFinishBallotAtPosition(windowPosition + lineStart)) {
+                    return false;
+                }
+            }
+        }
+
+        int ordinal = getOrdinalOfName(buffer, commaPosition + 1, lineEnd);
+
+        if (ordinal < 0) {
+            if (!registersUnknownCandidates) {
+                hasSkippedUnknownCandidates = true;
+                return true;
+            }
+
+            ordinal = registerNameFromBytes(buffer, commaPosition + 1, lineEnd);
+        }
+
+        ballotStore.addPreferenceToCurrentBallot(ordinal);
+
+        return true;
+    }
+
+    /**
+     * Tells the loading listener about each completed batch
+     *
+     * @param position - The position in the file the loader has reached
+     * @return False, if the listener has asked to stop loading
+     */
+    private boolean didFinishBallotAtPosition(long position) {
+        if (loadingListener == null || loadedBallotCount % ballotsPerBatch != 0) {
+            return true;
+        }
+
+        isCancelled = !loadingListener.didLoadBallots(position, loadedBallotCount);
+
+        return !isCancelled;
+    }
+
+    /**
+     * @return The ordinal of the candidate whose encoded name matches the bytes, or -1 if there is none
+     */
+    private int getOrdinalOfName(MappedByteBuffer buffer, int nameStart, int nameEnd) {
+        int slot = hashOfBytes(buffer, nameStart, nameEnd) & (nameSlots.length - 1);
+
+        while (nameSlots[slot] != 0) {
+            int ordinal = nameSlots[slot] - 1;
+
+            if (nameMatchesBytes(candidateNames[ordinal], buffer, nameStart, nameEnd)) {
+                return ordinal;
+            }
+
+            slot = (slot + 1) & (nameSlots.length - 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Adds a new candidate to the registry, this is the only time a name is turned into a String
+     *
+     * @return The ordinal of the new candidate
+     */
+    private int registerNameFromBytes(MappedByteBuffer buffer, int nameStart, int nameEnd) {
+        byte[] name = new byte[nameEnd - nameStart];
+
+        for (int x = 0; x < name.length; x++) {
+            name[x] = buffer.get(nameStart + x);
+        }
+
+        int ordinal = candidateRegistry.registerCandidateWithName(new String(name, StandardCharsets.UTF_8));
+
+        addNameWithOrdinal(name, ordinal);
+
+        return ordinal;
+    }
+
+    /**
+     * Adds an encoded name to the hash table, growing the table when it is half full
+     */
+    private void addNameWithOrdinal(byte[] name, int ordinal) {
+        if (ordinal >= candidateNames.length) {
+            byte[][] grown = new byte[Math.max(candidateNames.length * 2, ordinal + 1)][];
+            System.arraycopy(candidateNames, 0, grown, 0, candidateNames.length);
+            candidateNames = grown;
+        }
+
+        candidateNames[ordinal] = name;
+        nameCount++;
+
+        if (nameCount * 2 > nameSlots.length) {
+            int[] oldSlots = nameSlots;
+            nameSlots = new int[oldSlots.length * 2];
+
+            for (int oldSlot : oldSlots) {
+                if (oldSlot != 0) {
+                    insertSlot(oldSlot - 1);
+                }
+            }
+        }
+
+        insertSlot(ordinal);
+    }
+
+    private void insertSlot(int ordinal) {
+        byte[] name = candidateNames[ordinal];
+        int slot = hashOfBytes(name, 0, name.length) & (nameSlots.length - 1);
+
+        while (nameSlots[slot] != 0) {
+            slot = (slot + 1) & (nameSlots.length - 1);
+        }
+
+        nameSlots[slot] = ordinal + 1;
+    }
+
+    private static boolean nameMatchesBytes(byte[] name, MappedByteBuffer buffer, int nameStart, int nameEnd) {
+        if (name.length != nameEnd - nameStart) return false;
+
+        for (int x = 0; x < name.length; x++) {
+            if (name[x] != buffer.get(nameStart + x)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * FNV-1a hash, used for both the stored names and the bytes in the file
+     */
+    private static int hashOfBytes(byte[] bytes, int start, int end) {
+        int hash = 0x811C9DC5;
+
+        for (int x = start; x < end; x++) {
+            hash = (hash ^ (bytes[x] & 0xFF)) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hashOfBytes(MappedByteBuffer buffer, int start, int end) {
+        int hash = 0x811C9DC5;
+
+        for (int x = start; x < end; x++) {
+            hash = (hash ^ (buffer.get(x) & 0xFF)) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,6 +1,8 @@
 package Model;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 
 /**
  * An interface showing the public methods of the model.
@@ -22,15 +24,34 @@ public interface VCSModelInterface {
     void addBallot(VCSBallot ballot);
 
 
+    /**
+     * Adds several ballots to the ballot store and signals a single view update
+     * @param ballots - The ballots to be added, in order
+     *
+     * @pre. None of the ballots are null
+     *
+     * @post. The ballots will be added to the model ballot store
+     * @post. If a journal is open, the ballots will be appended to it, or its listener told they could not be
+     * @post. Observers are notified once, with a VCSBallotsAddedEvent describing the new ballots
+     */
+    void addBallots(Collection<VCSBallot> ballots);
+
+
     /**
      * @return The ballots currently stored in the model
      */
     VCSBallot[] getBallots();
 
 
+    /**
+     * @return The store holding every ballot in the model as candidate ordinals
+     */
+    VCSBallotStore getBallotStore();
+
+
     /**
      * Used to check if the file can be loaded by the view.
-     * Also initialises the scanner for the file
+     * Also opens the file ready to be mapped into memory
      *
      * @param file - The file to load
      *
@@ -44,13 +65,47 @@ public interface VCSModelInterface {
     /**
      * Loads the ballots from a file passed as parameter.
      *
-     * The ballots from the file will be added to those already stored in the model
+     * The ballots from the file will be added to those already stored in the model.
+     * The file is mapped into memory and parsed directly into the ballot store.
+     * A binary (.vcsb) file is not parsed, an empty ballot store reads its ballots in place.
+     * Names in the file which are not yet candidates are added to the vote
+     *
+     * @throws IOException - If the file can not be read. Ballots read before the error are kept
      *
      * @pre. The file has been loaded using canLoadFileAtPath(String:)
      * @post. The new ballots (if any) will be added to the model's ballot storage
-     * @post. The model's observers will be notified
+     * @post. The model's observers will be notified once, with a VCSBallotsAddedEvent
+     * @post. The file is closed
+     */
+    void loadBallots() throws IOException;
+
+
+    /**
+     * Adds the ballots from a store which was loaded with its own candidate registry,
+     * such as a batch parsed on a background thread
+     *
+     * @param ballots - The ballots to be added, in order
+     * @param ballotsRegistry - Gives the name and standing of each ordinal in the store. Not changed while the ballots are added
+     *
+     * @pre. Every ordinal in the store has a candidate in ballotsRegistry
+     * @pre. Called on the same thread as the model's other methods
+     * @post. Standing names which are not yet candidates are added to the vote
+     * @post. Candidates who were not standing are given ordinals, but do not stand in the vote
+     * @post. The ballots will be added to the model's ballot storage
+     * @post. Observers are notified once, with a VCSBallotsAddedEvent describing the new ballots
+     */
+    void addBallotsFromStore(VCSBallotStore ballots, VCSCandidateRegistry ballotsRegistry);
+
+
+    /**
+     * Sets the number of threads used to parse a ballot file.
+     * Files are only split when each thread would have a large enough part to parse
+     *
+     * @param loadingParallelism - The number of threads, defaults to the number of processors
+     *
+     * @pre. loadingParallelism > 0
      */
-    void loadBallots();
+    void setLoadingParallelism(int loadingParallelism);
 
 
     /**
@@ -87,14 +142,32 @@ public interface VCSModelInterface {
 
 
     /**
-     * @return All the candidates who are still in the vote
+     * @return All the candidates who are still in the vote.
+     *         The array is shared between calls and must not be modified
      */
     VCSCandidate[] getAllCandidates();
 
 
+    /**
+     * @return The registry giving each candidate an ordinal
+     */
+    VCSCandidateRegistry getCandidateRegistry();
+
+
+    /**
+     * Adds a new candidate to the vote
+     *
+     * @param name - The name of the candidate
+     *
+     * @pre. The name is not empty
+     * @post. A candidate with that name is in the vote
+     */
+    void registerCandidateWithName(String name);
+
+
     /**
      * Checks if the model is ready to start counting votes.
-     * If not ballots have been added, this will return false
+     * If not ballots have been added, or a ballot intake is open and not sealed, this will return false
      *
      * @return True, if the model is ready to start counting
      */
@@ -112,6 +185,48 @@ public interface VCSModelInterface {
     void shouldStartCountingVotes();
 
 
+    /**
+     * Counts every round of the vote in one call, without changing the model's own count
+     *
+     * @return The votes for each continuing candidate in every round, the eliminations and the winner
+     *
+     * @pre. The model is ready to start counting votes (canStartCountingVotes())
+     * @post. The model's vote counts and continuing candidates are unchanged
+     * @post. Observers are not notified
+     */
+    VCSCountResult countAllRounds();
+
+
+    /**
+     * Counts every stage of a single transferable vote for getSeatCount() seats, without changing the model's own count
+     *
+     * @return The votes for each candidate at every stage, the quota and the elected candidates
+     *
+     * @pre. The model is ready to start counting votes (canStartCountingVotes())
+     * @post. The model's vote counts and continuing candidates are unchanged
+     * @post. Observers are not notified
+     */
+    VCSSTVResult countAllSeats();
+
+
+    /**
+     * Chooses how many candidates are elected. One seat is counted by alternative vote,
+     * more by single transferable vote with countAllSeats()
+     *
+     * @param seatCount - The number of seats
+     *
+     * @pre. seatCount > 0
+     */
+    void setSeatCount(int seatCount);
+
+
+    /**
+     * @return The number of candidates to be elected, at least one.
+     *         More than one seat is counted by single transferable vote
+     */
+    int getSeatCount();
+
+
     /**
      * Returns the number of votes for a candidate
      *
@@ -126,7 +241,8 @@ public interface VCSModelInterface {
     /**
      * Takes the last placed candidate and removes it,
      * any ballots which had that candidate as first choice
-     * are re-examined and their second choices taken
+     * are re-examined and their second choices taken.
+     * With bulk exclusion, a trailing group may be removed together (see setBulkExclusion())
      *
      * @pre. The model should have already counted the votes (shouldStartCountingVotes())
      * @post. The new candidate vote counts will be ready to use
@@ -134,6 +250,56 @@ public interface VCSModelInterface {
      */
     void redistributeVotesForCandidates();
 
+
+    /**
+     * Chooses whether a redistribution may eliminate several candidates at once. With bulk exclusion,
+     * every trailing group of candidates whose combined votes can not overtake the next candidate
+     * is eliminated before one recount, which finds the same winner in fewer rounds
+     *
+     * @param isBulkExclusion - True, to eliminate such groups together
+     *
+     * @post. Later redistributions and whole counts use the selected rule
+     */
+    void setBulkExclusion(boolean isBulkExclusion);
+
+
+    /**
+     * @return The candidates eliminated together by the most recent redistribution, fewest votes first,
+     *         or an empty array if it eliminated a single candidate
+     */
+    VCSCandidate[] getBulkExcludedCandidates();
+
+
+    /**
+     * Chooses how the votes are counted each round.
+     * Every method gives the same counts, see VCSCountingMethod
+     *
+     * @param countingMethod - The method to count with
+     *
+     * @pre. countingMethod != null
+     * @post. The next count will use the selected method
+     */
+    void setCountingMethod(VCSCountingMethod countingMethod);
+
+
+    /**
+     * Sets how a full recount is split across threads.
+     * Each thread counts a range of ballots into its own totals, which are added together at the end
+     *
+     * @param countingParallelism - The number of threads, defaults to the number of processors
+     * @param parallelCountingThreshold - Votes with fewer ballots than this are counted on one thread
+     *
+     * @pre. countingParallelism > 0
+     */
+    void setCountingParallelism(int countingParallelism, int parallelCountingThreshold);
+
+
+    /**
+     * Stops the threads kept for counting in parallel, such as when the model is no longer needed.
+     * A later parallel count starts them again
+     */
+    void releaseCountingThreads();
+
     /**
      * @return True, if the vote has a winner
      */
@@ -148,6 +314,120 @@ public interface VCSModelInterface {
     VCSCandidate getWinningCandidate();
 
 
+    /**
+     * @return The round being counted, starting from one and increased by each elimination
+     */
+    int getRoundNumber();
+
+
+    /**
+     * @return The ordinal of the candidate eliminated in each round so far, in order
+     */
+    int[] getEliminatedCandidateOrdinals();
+
+
+    /**
+     * @param round - A round which has ended with an elimination, starting from one
+     * @return True, if the candidate eliminated in that round was chosen by a tie break
+     */
+    boolean wasEliminatedByTieBreak(int round);
+
+
+    /**
+     * Saves a checkpoint after every round of the count
+     *
+     * @param checkpointFile - The checkpoint to write, or null to stop saving checkpoints
+     *
+     * @post. After each round, the state of the count will be saved as with saveCheckpoint(File:).
+     *        If it can not be saved, the round is still counted and an UncheckedIOException is thrown
+     */
+    void setCheckpointFile(File checkpointFile);
+
+
+    /**
+     * Saves the ballots and the state of the count, so it can be resumed after a crash.
+     * The ballots are written beside the checkpoint, and only rewritten if they have changed
+     *
+     * @param checkpointFile - The checkpoint to write
+     * @throws IOException - If the checkpoint can not be written
+     *
+     * @post. restoreCheckpoint(checkpointFile) will return the model to its current round
+     */
+    void saveCheckpoint(File checkpointFile) throws IOException;
+
+
+    /**
+     * Replaces the ballots and count with those saved in a checkpoint.
+     * The ballots are mapped from the checkpoint's ballot file rather than parsed
+     *
+     * @param checkpointFile - The checkpoint to read
+     * @throws IOException - If the checkpoint or its ballots can not be read, or are corrupt
+     *
+     * @post. The candidates, votes, eliminations and counting method are as they were when the checkpoint was saved
+     * @post. The count resumes with the next call to redistributeVotesForCandidates()
+     * @post. Observers are notified
+     */
+    void restoreCheckpoint(File checkpointFile) throws IOException;
+
+
+    /**
+     * Adds the ballots in a journal to the vote, then appends each ballot added with addBallots(ballots:) to it.
+     * Ballots are written to disk in groups, at most a short interval after they are added
+     *
+     * @param journalFile - The journal, created if it does not exist
+     * @param journalListener - Told whenever ballots could not be written to the journal
+     * @throws IOException - If the journal can not be opened
+     *
+     * @pre. journalListener != null
+     * @post. The ballots in the journal are added to the vote
+     * @post. Any journal already open is closed
+     */
+    void openBallotJournal(File journalFile, VCSBallotJournalListener journalListener) throws IOException;
+
+
+    /**
+     * @param candidate - The candidate
+     * @return The number of ballots whose first standing preference is the candidate, kept as
+     *         ballots are added so the first round needs no pass over the ballots
+     *
+     * @pre. candidate is a valid candidate
+     */
+    int getFirstPreferenceVotesForCandidate(VCSCandidate candidate);
+
+
+    /**
+     * @return Provisional first preference standings, including ballots accepted by an intake
+     *         but not yet drained. These may be read from any thread without blocking ballots being added
+     */
+    VCSFirstPreferenceTally getFirstPreferenceTally();
+
+
+    /**
+     * Opens an intake which accepts ballots from any number of threads at once.
+     * The ballots reach the model when the intake is drained or sealed on the model's thread
+     *
+     * @return The intake
+     *
+     * @pre. No other intake is open and not sealed
+     * @post. canStartCountingVotes() is false until the intake is sealed
+     */
+    VCSBallotIntake openBallotIntake();
+
+
+    /**
+     * Writes any ballots waiting for the journal to disk, and stops appending to it
+     *
+     * @throws IOException - If the waiting ballots can not be written
+     */
+    void closeBallotJournal() throws IOException;
+
+
+    /**
+     * @return The timings and counters of the model's loads and counts, which may be read from any thread
+     */
+    VCSCountMetrics getCountMetrics();
+
+
     /**
      * When the process has finished, asks the model to reset it
      *
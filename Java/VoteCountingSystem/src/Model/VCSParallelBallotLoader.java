@@ -0,0 +1,237 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a single ballot file on several threads.
+ *
+ * Every ballot starts on a line beginning "1,", so the file is split into byte
+ * ranges which each start on such a line. Each range is parsed into its own
+ * ballot store, then the stores are added to the model's store in file order,
+ * so the ballots end up in the same order as a sequential load.
+ *
+ * New candidates must be given ordinals in the order they first appear, which
+ * threads can not agree on. Each range is parsed against a registry of its own,
+ * which holds its names in the order the range first meets them. The names of each
+ * range are then registered in file order, so the ordinals match a sequential load.
+ * Each range's ordinal column is translated on its own thread, and the translated
+ * columns are appended to the store with bulk copies.
+ */
+public class VCSParallelBallotLoader {
+
+    /**
+     * Ranges smaller than this are not worth a thread of their own
+     */
+    public static final long DEFAULT_MINIMUM_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int SEARCH_BUFFER_SIZE = 8 * 1024;
+
+    private final FileChannel fileChannel;
+    private final int parallelism;
+    private final long minimumChunkSize;
+
+    private int loadedChunkCount;
+
+    /**
+     * @param fileChannel - The opened ballot file
+     * @param parallelism - The number of threads to parse with
+     * @param minimumChunkSize - The smallest range of bytes given to a thread
+     *
+     * @pre. parallelism > 0
+     * @pre. minimumChunkSize > 0
+     */
+    public VCSParallelBallotLoader(FileChannel fileChannel, int parallelism, long minimumChunkSize) {
+        assert parallelism > 0 : "Parallelism must be at least one";
+        assert minimumChunkSize > 0 : "Chunk size must be positive";
+
+        this.fileChannel = fileChannel;
+        this.parallelism = parallelism;
+        this.minimumChunkSize = minimumChunkSize;
+    }
+
+    /**
+     * Parses the file on a pool of threads and adds the ballots to a store
+     *
+     * @param ballotStore - The store to add the ballots to, names not in its registry are added as new candidates
+     * @return The number of ballots added to the store
+     * @throws IOException - If the file can not be read
+     *
+     * @post. The ballots are added to the store in the order they appear in the file
+     */
+    public int loadBallots(VCSBallotStore ballotStore) throws IOException {
+        long[] chunkBoundaries = getChunkBoundaries();
+        int chunkCount = chunkBoundaries.length - 1;
+
+        loadedChunkCount = chunkCount;
+
+        // A single chunk is loaded on this thread, straight into the store
+        if (chunkCount == 1) {
+            return new VCSMappedBallotLoader(fileChannel, ballotStore, true).loadBallots();
+        }
+
+        VCSCandidateRegistry candidateRegistry = ballotStore.getCandidateRegistry();
+        List<Callable<VCSBallotStore>> chunkTasks = new ArrayList<>();
+
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            long chunkStart = chunkBoundaries[chunk];
+            long chunkEnd = chunkBoundaries[chunk + 1];
+
+            chunkTasks.add(() -> {
+                // The chunk's names are registered in the order the chunk first meets them
+                VCSBallotStore chunkStore = new VCSBallotStore(new VCSCandidateRegistry(new String[0]));
+
+                new VCSMappedBallotLoader(fileChannel, chunkStore, true).loadBallots(chunkStart, chunkEnd);
+
+                return chunkStore;
+            });
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int initialBallotCount = ballotStore.getBallotCount();
+
+        try {
+            List<Future<VCSBallotStore>> chunkStores = pool.invokeAll(chunkTasks);
+            List<Callable<VCSBallotStore>> translateTasks = new ArrayList<>();
+
+            // Register names in file order so the candidate order does not depend on which thread finished first
+            for (Future<VCSBallotStore> chunkStore : chunkStores) {
+                VCSBallotStore loadedStore = chunkStore.get();
+                int[] ordinalMap = getOrdinalMap(loadedStore.getCandidateRegistry(), candidateRegistry);
+
+                // The registry is not changed again until every chunk is translated
+                translateTasks.add(() -> loadedStore.copyWithCandidateRegistry(candidateRegistry, ordinalMap));
+            }
+
+            // Append in file order, each translated column is copied in one step
+            for (Future<VCSBallotStore> translatedStore : pool.invokeAll(translateTasks)) {
+                ballotStore.addBallotsFromStore(translatedStore.get());
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Loading was interrupted", e);
+
+        } catch (ExecutionException e) {
+            throw new IOException("A chunk of the file could not be loaded", e.getCause());
+
+        } finally {
+            pool.shutdown();
+        }
+
+        return ballotStore.getBallotCount() - initialBallotCount;
+    }
+
+    /**
+     * @return The number of ranges the last load was parsed in, one if it was parsed on a single thread
+     */
+    public int getLoadedChunkCount() {
+        return loadedChunkCount;
+    }
+
+    /**
+     * Registers a chunk's names, in the order the chunk met them
+     *
+     * @param chunkRegistry - The registry the chunk was parsed against
+     * @param candidateRegistry - The registry of the store being loaded
+     * @return The ordinal in the store's registry of each of the chunk's ordinals
+     */
+    private static int[] getOrdinalMap(VCSCandidateRegistry chunkRegistry, VCSCandidateRegistry candidateRegistry) {
+        int[] ordinalMap = new int[chunkRegistry.getCandidateCount()];
+
+        for (int ordinal = 0; ordinal < ordinalMap.length; ordinal++) {
+            ordinalMap[ordinal] = candidateRegistry.registerCandidateWithName(chunkRegistry.getCandidateWithOrdinal(ordinal).getName());
+        }
+
+        return ordinalMap;
+    }
+
+    /**
+     * Splits the file into ranges which each start at the beginning of a ballot
+     *
+     * @return The start of each range, followed by the end of the file
+     */
+    long[] getChunkBoundaries() throws IOException {
+        long fileSize = fileChannel.size();
+
+        int chunkCount = (int) Math.max(1, Math.min(parallelism, fileSize / minimumChunkSize));
+
+        ArrayList<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            long boundary = getNextBallotStart(fileSize * chunk / chunkCount, fileSize);
+
+            // Skip boundaries which fell inside a chunk already found
+            if (boundary > boundaries.get(boundaries.size() - 1) && boundary < fileSize) {
+                boundaries.add(boundary);
+            }
+        }
+
+        boundaries.add(fileSize);
+
+        long[] boundaryArray = new long[boundaries.size()];
+        for (int x = 0; x < boundaryArray.length; x++) {
+            boundaryArray[x] = boundaries.get(x);
+        }
+
+        return boundaryArray;
+    }
+
+    /**
+     * Finds the first line beginning "1," at or after a position
+     *
+     * @return The position of the line, or the end of the file if there are no more ballots
+     */
+    private long getNextBallotStart(long position, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SEARCH_BUFFER_SIZE);
+
+        // Was the byte before the buffer a new line
+        boolean isLineStart = position == 0 || readByte(position - 1) == '\n';
+
+        while (position < fileSize) {
+            buffer.clear();
+            int bytesRead = fileChannel.read(buffer, position);
+
+            if (bytesRead <= 0) break;
+
+            for (int x = 0; x < bytesRead; x++) {
+                byte current = buffer.get(x);
+
+                if (isLineStart && current == '1') {
+                    long linePosition = position + x;
+
+                    // The comma may be in the next buffer
+                    byte next = x + 1 < bytesRead ? buffer.get(x + 1) : readByte(linePosition + 1);
+
+                    if (next == ',') {
+                        return linePosition;
+                    }
+                }
+
+                isLineStart = current == '\n';
+            }
+
+            position += bytesRead;
+        }
+
+        return fileSize;
+    }
+
+    private byte readByte(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+
+        if (fileChannel.read(buffer, position) != 1) {
+            return 0;
+        }
+
+        return buffer.get(0);
+    }
+}
@@ -0,0 +1,180 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the highest continuing preference of every ballot in a store.
+ *
+ * Large stores are split into ranges of ballots counted on a fork-join pool.
+ * Each range is counted into its own array of votes, and the arrays are added
+ * together as the ranges are joined, so the result is the same as a sequential count.
+ *
+ * A tally with the common pool's parallelism counts on the common pool. Otherwise it starts
+ * a pool of its own the first time it counts in parallel, which is stopped by shutdown().
+ */
+public class VCSParallelTally {
+
+    /**
+     * Stores with fewer ballots than this are counted on the calling thread
+     */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 100000;
+
+    // Each thread is given several ranges so a slow range does not hold up the others
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final int parallelism;
+    private final int sequentialThreshold;
+
+    private ForkJoinPool pool;
+
+    /**
+     * @param parallelism - The number of threads to count with
+     * @param sequentialThreshold - The smallest number of ballots worth counting in parallel
+     *
+     * @pre. parallelism > 0
+     */
+    public VCSParallelTally(int parallelism, int sequentialThreshold) {
+        assert parallelism > 0 : "Parallelism must be at least one";
+
+        this.parallelism = parallelism;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Counts the votes for each continuing candidate
+     *
+     * @param ballotStore - The ballots to count
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the vote.
+     *                               Ordinals past the end of the array are never counted.
+     * @return The votes for each ordinal, the same length as continuingCandidates
+     */
+    public int[] countVotes(VCSBallotStore ballotStore, boolean[] continuingCandidates) {
+        int[] votes = new int[continuingCandidates.length];
+
+        countVotes(ballotStore, continuingCandidates, votes);
+
+        return votes;
+    }
+
+    /**
+     * Counts the votes for each continuing candidate into an array the caller keeps between rounds.
+     * Counting on the calling thread allocates nothing, counting in parallel allocates an array per range
+     *
+     * @param ballotStore - The ballots to count
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the vote.
+     *                               Ordinals past the end of the array are never counted.
+     * @param votes - Replaced with the votes for each ordinal
+     *
+     * @pre. votes.length >= continuingCandidates.length
+     */
+    public void countVotes(VCSBallotStore ballotStore, boolean[] continuingCandidates, int[] votes) {
+        assert votes.length >= continuingCandidates.length : "Votes array is too small";
+
+        int ballotCount = ballotStore.getBallotCount();
+
+        Arrays.fill(votes, 0);
+
+        if (parallelism == 1 || ballotCount < sequentialThreshold) {
+            countVotesInRange(ballotStore, continuingCandidates, 0, ballotCount, votes);
+            return;
+        }
+
+        if (pool == null) {
+            pool = parallelism == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        }
+
+        int rangeSize = Math.max(1, ballotCount / (parallelism * RANGES_PER_THREAD));
+
+        int[] rangeVotes = pool.invoke(new TallyTask(ballotStore, continuingCandidates, 0, ballotCount, rangeSize));
+
+        System.arraycopy(rangeVotes, 0, votes, 0, rangeVotes.length);
+    }
+
+    /**
+     * Stops the tally's own pool of threads, if it started one. A later parallel count starts a new pool
+     *
+     * @post. No threads are kept by the tally
+     */
+    public void shutdown() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+
+        pool = null;
+    }
+
+    /**
+     * Adds the votes of a range of ballots to an array of votes
+     *
+     * @param ballotStore - The ballots to count
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the vote
+     * @param fromBallot - The first ballot to count
+     * @param toBallot - The ballot after the last to count
+     * @param votes - The votes for each ordinal, added to
+     */
+    public static void countVotesInRange(VCSBallotStore ballotStore, boolean[] continuingCandidates,
+                                         int fromBallot, int toBallot, int[] votes) {
+
+        for (int ballotIndex = fromBallot; ballotIndex < toBallot; ballotIndex++) {
+            int preferenceCount = ballotStore.getPreferenceCount(ballotIndex);
+
+            for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+                int ordinal = ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex);
+
+                if (ordinal < continuingCandidates.length && continuingCandidates[ordinal]) {
+                    votes[ordinal]++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a range of ballots in half until it is small enough to count
+     */
+    private static class TallyTask extends RecursiveTask<int[]> {
+
+        private final VCSBallotStore ballotStore;
+        private final boolean[] continuingCandidates;
+        private final int fromBallot;
+        private final int toBallot;
+        private final int rangeSize;
+
+        TallyTask(VCSBallotStore ballotStore, boolean[] continuingCandidates, int fromBallot, int toBallot, int rangeSize) {
+            this.ballotStore = ballotStore;
+            this.continuingCandidates = continuingCandidates;
+            this.fromBallot = fromBallot;
+            this.toBallot = toBallot;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected int[] compute() {
+
+            if (toBallot - fromBallot <= rangeSize) {
+                int[] votes = new int[continuingCandidates.length];
+                countVotesInRange(ballotStore, continuingCandidates, fromBallot, toBallot, votes);
+                return votes;
+            }
+
+            int middleBallot = (fromBallot + toBallot) >>> 1;
+
+            TallyTask firstHalf = new TallyTask(ballotStore, continuingCandidates, fromBallot, middleBallot, rangeSize);
+            TallyTask secondHalf = new TallyTask(ballotStore, continuingCandidates, middleBallot, toBallot, rangeSize);
+
+            firstHalf.fork();
+
+            int[] votes = secondHalf.compute();
+            int[] firstHalfVotes = firstHalf.join();
+
+            // Reduce the two halves into one array
+            for (int x = 0; x < votes.length; x++) {
+                votes[x] += firstHalfVotes[x];
+            }
+
+            return votes;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package Model;
+
+/**
+ * The ways the electorate generator can rank the candidates on each ballot.
+ */
+public enum VCSPreferenceDistribution {
+
+    /**
+     * Every ranking of the candidates is equally likely
+     */
+    UNIFORM,
+
+    /**
+     * Each preference is chosen from the remaining candidates in proportion to the candidate's weight
+     */
+    PLACKETT_LUCE,
+
+    /**
+     * Rankings are close to the candidates' ordinal order, less so as the dispersion approaches one
+     */
+    MALLOWS
+}
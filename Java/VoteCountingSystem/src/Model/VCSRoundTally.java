@@ -0,0 +1,20 @@
+package Model;
+
+/**
+ * Counts one round of a count, wherever the ballots are held.
+ *
+ * The count engine decides each elimination from the votes returned, so the ballots
+ * can be in a local store or split across other processes.
+ */
+interface VCSRoundTally {
+
+    /**
+     * Counts the votes for each continuing candidate
+     *
+     * @param continuingCandidates - Whether the candidate with each ordinal is still in the count
+     * @param votesByOrdinal - Replaced with the votes for each ordinal
+     *
+     * @pre. votesByOrdinal.length >= continuingCandidates.length
+     */
+    void countVotes(boolean[] continuingCandidates, int[] votesByOrdinal);
+}
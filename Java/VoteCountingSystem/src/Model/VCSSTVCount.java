@@ -0,0 +1,435 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs a whole single transferable vote count for several seats in a single call.
+ *
+ * The quota is the Droop quota of the ballots with a standing preference. A candidate
+ * reaching the quota is elected, and their surplus is transferred with the weighted
+ * inclusive Gregory method: every ballot they hold moves on to its next continuing
+ * preference, with its weight multiplied by the surplus over the candidate's total.
+ * When no surplus is waiting the continuing candidate with the fewest votes is
+ * excluded, and their ballots move on at the weight they arrived with.
+ *
+ * Ballots are held in weighted bundles of ballot indices, and a cursor per ballot points
+ * at its current preference. Each transfer only walks the ballots in the bundles being
+ * moved. Votes and weights are fixed-point integers with WEIGHT_SCALE units to one vote,
+ * and every division is truncated, so a count gives the same result on any machine.
+ * The votes truncated away are kept as the loss by fraction, so at every stage the
+ * candidates' votes, the exhausted votes and the loss add up to the ballots counted.
+ */
+public class VCSSTVCount {
+
+    /**
+     * The number of fixed-point units in one vote, weights are kept to five decimal places
+     */
+    public static final long WEIGHT_SCALE = 100000;
+
+    private static final int INITIAL_BUNDLE_CAPACITY = 16;
+
+    private static final byte CONTINUING = 0;
+    private static final byte ELECTED = 1;
+    private static final byte EXCLUDED = 2;
+
+    private final VCSBallotStore ballotStore;
+    private final VCSCandidate[] candidates;
+    private final int seatCount;
+    private final VCSTieBreaker tieBreaker;
+
+    // The index in candidates of each ordinal, -1 for ordinals not in the count
+    private final int[] candidateIndices;
+    private final byte[] candidateStates;
+
+    // The preference index each ballot is currently counted at
+    private final int[] ballotCursors;
+
+    private final ArrayList<ArrayList<Bundle>> bundles;
+    private final long[] totals;
+    private long exhaustedTotal;
+    private long lossByFraction;
+
+    // The bundles being built by a transfer, one slot for each candidate, emptied as they are added
+    private final Bundle[] destinationBundles;
+
+    private final ArrayList<long[]> stageVotes = new ArrayList<>();
+    private final ArrayList<Long> stageExhausted = new ArrayList<>();
+    private final ArrayList<Long> stageLossByFraction = new ArrayList<>();
+    private final ArrayList<Integer> excludedCandidates = new ArrayList<>();
+    private final ArrayList<Integer> surplusCandidates = new ArrayList<>();
+
+    private final int[] electedCandidates;
+    private final int[] electedStages;
+    private int electedCount;
+    private int continuingCount;
+
+    // Elected candidates whose surplus has not been transferred, in the order they were elected
+    private final ArrayList<Integer> pendingSurpluses = new ArrayList<>();
+
+    private VCSSTVCount(VCSBallotStore ballotStore, VCSCandidate[] candidates, int seatCount, VCSTieBreaker tieBreaker) {
+        this.ballotStore = ballotStore;
+        this.candidates = candidates.clone();
+        this.seatCount = seatCount;
+        this.tieBreaker = tieBreaker;
+
+        VCSCandidateRegistry candidateRegistry = ballotStore.getCandidateRegistry();
+
+        candidateIndices = new int[candidateRegistry.getCandidateCount()];
+        Arrays.fill(candidateIndices, -1);
+
+        for (int x = 0; x < this.candidates.length; x++) {
+            int ordinal = candidateRegistry.getOrdinalOfCandidate(this.candidates[x]);
+            assert ordinal >= 0 : "Candidate is not in the registry";
+
+            candidateIndices[ordinal] = x;
+        }
+
+        candidateStates = new byte[this.candidates.length];
+        continuingCount = this.candidates.length;
+
+        ballotCursors = new int[ballotStore.getBallotCount()];
+
+        bundles = new ArrayList<>(this.candidates.length);
+        for (int x = 0; x < this.candidates.length; x++) {
+            bundles.add(new ArrayList<>());
+        }
+
+        totals = new long[this.candidates.length];
+        destinationBundles = new Bundle[this.candidates.length];
+
+        electedCandidates = new int[Math.min(seatCount, this.candidates.length)];
+        electedStages = new int[this.candidates.length];
+        Arrays.fill(electedStages, -1);
+    }
+
+    /**
+     * Counts every stage until every seat is filled
+     *
+     * @param ballotStore - The ballots to count
+     * @param candidates - The candidates standing in the count
+     * @param seatCount - The number of candidates to elect
+     * @param options - How ties for exclusion are broken
+     * @return Every stage of the count, and the elected candidates
+     *
+     * @pre. ballotStore.getBallotCount() > 0
+     * @pre. candidates.length > 0, and every candidate has an ordinal in the store's registry
+     * @pre. seatCount > 0
+     */
+    public static VCSSTVResult run(VCSBallotStore ballotStore, VCSCandidate[] candidates, int seatCount, VCSCountOptions options) {
+        assert ballotStore.getBallotCount() > 0 : "No ballots to count";
+        assert candidates.length > 0 : "No candidates to count";
+        assert seatCount > 0 : "Seat count must be at least one";
+
+        return new VCSSTVCount(ballotStore, candidates, seatCount, options.getTieBreaker()).count();
+    }
+
+    /**
+     * @param ballotCount - The number of ballots with a standing preference
+     * @param seatCount - The number of seats
+     * @return The Droop quota, in fixed-point units
+     */
+    public static long getDroopQuota(int ballotCount, int seatCount) {
+        return (ballotCount / (seatCount + 1) + 1) * WEIGHT_SCALE;
+    }
+
+    private VCSSTVResult count() {
+        // Every ballot starts at full weight on the pile of its first standing preference
+        int validBallotCount = 0;
+
+        for (int ballotIndex = 0; ballotIndex < ballotCursors.length; ballotIndex++) {
+            int candidateIndex = placeBallotFromPreference(ballotIndex, 0);
+
+            if (candidateIndex >= 0) {
+                addBallotToBundle(candidateIndex, ballotIndex, WEIGHT_SCALE);
+                validBallotCount++;
+            }
+        }
+
+        addDestinationBundles();
+
+        long quota = getDroopQuota(validBallotCount, seatCount);
+
+        recordStage(-1, -1);
+
+        while (electedCount < electedCandidates.length) {
+            electCandidatesInOrderOfVotes(quota);
+
+            if (electedCount == electedCandidates.length) {
+                break;
+            }
+
+            // The remaining candidates fill the remaining seats
+            if (continuingCount + electedCount <= electedCandidates.length) {
+                electCandidatesInOrderOfVotes(Long.MIN_VALUE);
+                break;
+            }
+
+            if (!pendingSurpluses.isEmpty()) {
+                int surplusCandidate = takeLargestSurplus();
+                long surplus = totals[surplusCandidate] - quota;
+
+                if (surplus > 0) {
+                    transferSurplus(surplusCandidate, surplus);
+                    recordStage(-1, surplusCandidate);
+                }
+            }
+            else {
+                int excludedCandidate = getCandidateToExclude();
+
+                excludeCandidate(excludedCandidate);
+                recordStage(excludedCandidate, -1);
+            }
+        }
+
+        long[][] stageVoteArray = stageVotes.toArray(new long[0][]);
+        long[] exhaustedArray = new long[stageExhausted.size()];
+        long[] lossArray = new long[stageLossByFraction.size()];
+        int[] excludedArray = new int[excludedCandidates.size()];
+        int[] surplusArray = new int[surplusCandidates.size()];
+
+        for (int stage = 0; stage < exhaustedArray.length; stage++) {
+            exhaustedArray[stage] = stageExhausted.get(stage);
+            lossArray[stage] = stageLossByFraction.get(stage);
+            excludedArray[stage] = excludedCandidates.get(stage);
+            surplusArray[stage] = surplusCandidates.get(stage);
+        }
+
+        return new VCSSTVResult(candidates, seatCount, validBallotCount, quota, stageVoteArray, exhaustedArray, lossArray,
+                excludedArray, surplusArray, Arrays.copyOf(electedCandidates, electedCount), electedStages);
+    }
+
+    /**
+     * Elects continuing candidates with at least a number of votes, the highest first,
+     * until there are no more or every seat is filled
+     */
+    private void electCandidatesInOrderOfVotes(long minimumVotes) {
+        while (electedCount < electedCandidates.length) {
+            int highestCandidate = -1;
+
+            for (int x = 0; x < candidates.length; x++) {
+                if (candidateStates[x] == CONTINUING && totals[x] >= minimumVotes
+                        && (highestCandidate < 0 || totals[x] > totals[highestCandidate])) {
+                    highestCandidate = x;
+                }
+            }
+
+            if (highestCandidate < 0) {
+                return;
+            }
+
+            candidateStates[highestCandidate] = ELECTED;
+            continuingCount--;
+
+            electedCandidates[electedCount++] = highestCandidate;
+            electedStages[highestCandidate] = stageVotes.size() - 1;
+
+            pendingSurpluses.add(highestCandidate);
+        }
+    }
+
+    /**
+     * @return The elected candidate with the largest surplus waiting, the earliest elected if tied
+     */
+    private int takeLargestSurplus() {
+        int largestPosition = 0;
+
+        for (int position = 1; position < pendingSurpluses.size(); position++) {
+            if (totals[pendingSurpluses.get(position)] > totals[pendingSurpluses.get(largestPosition)]) {
+                largestPosition = position;
+            }
+        }
+
+        return pendingSurpluses.remove(largestPosition);
+    }
+
+    /**
+     * @return The continuing candidate with the fewest votes, ties are passed to the tie breaker
+     */
+    private int getCandidateToExclude() {
+        long lowestVotes = Long.MAX_VALUE;
+        ArrayList<VCSCandidate> lowestCandidates = new ArrayList<>();
+        int lowestCandidate = -1;
+
+        for (int x = 0; x < candidates.length; x++) {
+            if (candidateStates[x] != CONTINUING) continue;
+
+            if (totals[x] < lowestVotes) {
+                lowestVotes = totals[x];
+                lowestCandidate = x;
+                lowestCandidates.clear();
+            }
+
+            if (totals[x] == lowestVotes) {
+                lowestCandidates.add(candidates[x]);
+            }
+        }
+
+        if (lowestCandidates.size() == 1) {
+            return lowestCandidate;
+        }
+
+        VCSCandidate chosenCandidate = tieBreaker.chooseCandidateToEliminate(lowestCandidates);
+
+        for (int x = 0; x < candidates.length; x++) {
+            if (candidates[x] == chosenCandidate) {
+                return x;
+            }
+        }
+
+        assert false : "Tie breaker chose a candidate that was not tied";
+
+        return lowestCandidate;
+    }
+
+    /**
+     * Moves every ballot an elected candidate holds to its next preference, at the transfer value
+     *
+     * @param candidateIndex - The elected candidate
+     * @param surplus - The candidate's votes over the quota, in fixed-point units
+     */
+    private void transferSurplus(int candidateIndex, long surplus) {
+        long candidateTotal = totals[candidateIndex];
+        long transferred = 0;
+
+        // Each bundle keeps its own weight, scaled by surplus / total and truncated
+        for (Bundle bundle : bundles.get(candidateIndex)) {
+            long transferWeight = bundle.weight * surplus / candidateTotal;
+
+            transferBundle(bundle, transferWeight);
+            transferred += transferWeight * bundle.size;
+        }
+
+        bundles.get(candidateIndex).clear();
+        totals[candidateIndex] -= surplus;
+
+        // The part of the surplus truncated away, including bundles whose weight truncated to nothing
+        lossByFraction += surplus - transferred;
+    }
+
+    /**
+     * Removes a candidate from the count and moves every ballot they hold on at its current weight
+     */
+    private void excludeCandidate(int candidateIndex) {
+        candidateStates[candidateIndex] = EXCLUDED;
+        continuingCount--;
+
+        for (Bundle bundle : bundles.get(candidateIndex)) {
+            transferBundle(bundle, bundle.weight);
+        }
+
+        bundles.get(candidateIndex).clear();
+        totals[candidateIndex] = 0;
+    }
+
+    /**
+     * Sorts the ballots of a bundle into new bundles, one for each continuing candidate they move to
+     */
+    private void transferBundle(Bundle bundle, long transferWeight) {
+        // A ballot with no weight left can not change any total
+        if (transferWeight == 0) {
+            return;
+        }
+
+        for (int x = 0; x < bundle.size; x++) {
+            int ballotIndex = bundle.ballots[x];
+            int candidateIndex = placeBallotFromPreference(ballotIndex, ballotCursors[ballotIndex] + 1);
+
+            if (candidateIndex >= 0) {
+                addBallotToBundle(candidateIndex, ballotIndex, transferWeight);
+            }
+            else {
+                exhaustedTotal += transferWeight;
+            }
+        }
+
+        addDestinationBundles();
+    }
+
+    /**
+     * Walks a ballot from a preference index until a continuing candidate is found
+     *
+     * @return The index of the candidate, or -1 if the ballot is exhausted
+     */
+    private int placeBallotFromPreference(int ballotIndex, int preferenceIndex) {
+        int preferenceCount = ballotStore.getPreferenceCount(ballotIndex);
+
+        while (preferenceIndex < preferenceCount) {
+            int ordinal = ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex);
+            int candidateIndex = ordinal < candidateIndices.length ? candidateIndices[ordinal] : -1;
+
+            if (candidateIndex >= 0 && candidateStates[candidateIndex] == CONTINUING) {
+                ballotCursors[ballotIndex] = preferenceIndex;
+                return candidateIndex;
+            }
+
+            // That candidate is elected or out of the count, take the next choice instead
+            preferenceIndex++;
+        }
+
+        return -1;
+    }
+
+    private void addBallotToBundle(int candidateIndex, int ballotIndex, long weight) {
+        Bundle bundle = destinationBundles[candidateIndex];
+
+        if (bundle == null) {
+            bundle = destinationBundles[candidateIndex] = new Bundle(weight);
+        }
+
+        bundle.add(ballotIndex);
+    }
+
+    /**
+     * Gives each destination bundle to its candidate, leaving every slot empty for the next transfer
+     */
+    private void addDestinationBundles() {
+        for (int candidateIndex = 0; candidateIndex < destinationBundles.length; candidateIndex++) {
+            Bundle bundle = destinationBundles[candidateIndex];
+
+            if (bundle != null) {
+                bundles.get(candidateIndex).add(bundle);
+                totals[candidateIndex] += bundle.weight * bundle.size;
+
+                destinationBundles[candidateIndex] = null;
+            }
+        }
+    }
+
+    /**
+     * Copies the totals into a new stage
+     *
+     * @param excludedCandidate - The candidate excluded to reach this stage, or -1
+     * @param surplusCandidate - The candidate whose surplus was transferred to reach this stage, or -1
+     */
+    private void recordStage(int excludedCandidate, int surplusCandidate) {
+        stageVotes.add(totals.clone());
+        stageExhausted.add(exhaustedTotal);
+        stageLossByFraction.add(lossByFraction);
+        excludedCandidates.add(excludedCandidate);
+        surplusCandidates.add(surplusCandidate);
+    }
+
+    /**
+     * A pile of ballots which all moved to the same candidate at the same weight
+     */
+    private static class Bundle {
+
+        private final long weight;
+
+        private int[] ballots = new int[INITIAL_BUNDLE_CAPACITY];
+        private int size;
+
+        Bundle(long weight) {
+            this.weight = weight;
+        }
+
+        void add(int ballotIndex) {
+            if (size == ballots.length) {
+                ballots = Arrays.copyOf(ballots, ballots.length * 2);
+            }
+
+            ballots[size++] = ballotIndex;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package Model;
+
+/**
+ * The outcome of a single transferable vote count, stage by stage. Instances can not be changed once created.
+ *
+ * Candidates are referred to by their index in getCandidates(). Stage zero holds the first
+ * preferences, each later stage the votes after one surplus transfer or one exclusion.
+ * Votes are fixed-point, with VCSSTVCount.WEIGHT_SCALE units to one vote. At every stage
+ * the candidates' votes, the exhausted votes and the loss by fraction add up to the ballots counted.
+ */
+public final class VCSSTVResult {
+
+    private final VCSCandidate[] candidates;
+    private final int seatCount;
+    private final int ballotCount;
+    private final long quota;
+
+    // stageVotes[stage][candidateIndex]
+    private final long[][] stageVotes;
+    private final long[] stageExhausted;
+    private final long[] stageLossByFraction;
+
+    // The candidate whose ballots were moved to reach each stage, -1 if none
+    private final int[] excludedCandidates;
+    private final int[] surplusCandidates;
+
+    // In the order they were elected
+    private final int[] electedCandidates;
+
+    // The stage at which each candidate was elected, -1 if they were not
+    private final int[] electedStages;
+
+    /**
+     * @param candidates - The candidates in the count
+     * @param seatCount - The number of seats being filled
+     * @param ballotCount - The number of ballots with a standing preference
+     * @param quota - The votes needed to be elected
+     * @param stageVotes - The votes for each candidate at each stage
+     * @param stageExhausted - The votes on exhausted ballots at each stage
+     * @param stageLossByFraction - The votes truncated away by surplus transfers, by each stage
+     * @param excludedCandidates - The candidate excluded to reach each stage
+     * @param surplusCandidates - The candidate whose surplus was transferred to reach each stage
+     * @param electedCandidates - The elected candidates, in the order they were elected
+     * @param electedStages - The stage at which each candidate was elected
+     */
+    VCSSTVResult(VCSCandidate[] candidates, int seatCount, int ballotCount, long quota, long[][] stageVotes,
+                 long[] stageExhausted, long[] stageLossByFraction, int[] excludedCandidates, int[] surplusCandidates,
+                 int[] electedCandidates, int[] electedStages) {
+        this.candidates = candidates;
+        this.seatCount = seatCount;
+        this.ballotCount = ballotCount;
+        this.quota = quota;
+        this.stageVotes = stageVotes;
+        this.stageExhausted = stageExhausted;
+        this.stageLossByFraction = stageLossByFraction;
+        this.excludedCandidates = excludedCandidates;
+        this.surplusCandidates = surplusCandidates;
+        this.electedCandidates = electedCandidates;
+        this.electedStages = electedStages;
+    }
+
+    /**
+     * @param votes - Votes in fixed-point units
+     * @return The votes as a decimal, to five places
+     */
+    public static String formatVotes(long votes) {
+        return String.format("%d.%05d", votes / VCSSTVCount.WEIGHT_SCALE, votes % VCSSTVCount.WEIGHT_SCALE);
+    }
+
+    /**
+     * @return The candidates in the count, in the order they were given to the count
+     */
+    public VCSCandidate[] getCandidates() {
+        return candidates.clone();
+    }
+
+    public int getCandidateCount() {
+        return candidates.length;
+    }
+
+    public VCSCandidate getCandidate(int candidateIndex) {
+        return candidates[candidateIndex];
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    /**
+     * @return The number of ballots with a standing preference, from which the quota is found
+     */
+    public int getBallotCount() {
+        return ballotCount;
+    }
+
+    /**
+     * @return The Droop quota, in fixed-point units
+     */
+    public long getQuota() {
+        return quota;
+    }
+
+    /**
+     * @return The number of stages counted, the first holding the first preferences
+     */
+    public int getStageCount() {
+        return stageVotes.length;
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @param candidateIndex - The index of the candidate
+     * @return The votes for the candidate at that stage, in fixed-point units
+     */
+    public long getVotes(int stage, int candidateIndex) {
+        return stageVotes[stage][candidateIndex];
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @return The votes on ballots with no continuing preference left at that stage, in fixed-point units
+     */
+    public long getExhaustedVotes(int stage) {
+        return stageExhausted[stage];
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @return The votes truncated away by every surplus transfer up to that stage, in fixed-point units
+     */
+    public long getLossByFraction(int stage) {
+        return stageLossByFraction[stage];
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @return The candidate excluded to reach the stage, or null
+     */
+    public VCSCandidate getExcludedCandidate(int stage) {
+        int candidateIndex = excludedCandidates[stage];
+
+        return candidateIndex < 0 ? null : candidates[candidateIndex];
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @return The candidate whose surplus was transferred to reach the stage, or null
+     */
+    public VCSCandidate getSurplusCandidate(int stage) {
+        int candidateIndex = surplusCandidates[stage];
+
+        return candidateIndex < 0 ? null : candidates[candidateIndex];
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @param candidateIndex - The index of the candidate
+     * @return True, if the candidate had not been excluded by that stage
+     */
+    public boolean isInCountAtStage(int stage, int candidateIndex) {
+        for (int earlierStage = 0; earlierStage <= stage; earlierStage++) {
+            if (excludedCandidates[earlierStage] == candidateIndex) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param stage - The stage, starting from zero
+     * @param candidateIndex - The index of the candidate
+     * @return True, if the candidate had been elected by the end of that stage
+     */
+    public boolean isElectedByStage(int stage, int candidateIndex) {
+        return electedStages[candidateIndex] >= 0 && electedStages[candidateIndex] <= stage;
+    }
+
+    /**
+     * @return The elected candidates, in the order they were elected
+     */
+    public VCSCandidate[] getElectedCandidates() {
+        VCSCandidate[] elected = new VCSCandidate[electedCandidates.length];
+
+        for (int x = 0; x < elected.length; x++) {
+            elected[x] = candidates[electedCandidates[x]];
+        }
+
+        return elected;
+    }
+}
@@ -0,0 +1,377 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts a ballot file too large for one process, by splitting it across worker processes.
+ *
+ * The file is split into shards, each starting at the beginning of a ballot, and a
+ * VCSShardWorker process is started for each on this machine. The workers connect back
+ * over a loopback socket, so the coordinator never holds any ballots itself.
+ *
+ * Each round the coordinator sends every worker the candidates eliminated since the
+ * last round, and adds the tallies they send back. The count engine decides the
+ * elimination from the merged tally, exactly as it would for a single store, so the
+ * result is the same as counting the whole file in one process.
+ *
+ * Candidates are given ordinals in the order they first appear in the file. A shard's
+ * candidates are in the order they first appear in it, so taking each shard's new names
+ * in shard order gives the same ordinals as loading the whole file.
+ */
+public class VCSShardCoordinator {
+
+    /**
+     * How long a worker has to start and connect before the count fails
+     */
+    public static final int DEFAULT_CONNECTION_TIMEOUT_MILLIS = 60000;
+
+    // How long finished workers are given to exit before they are killed
+    private static final long WORKER_EXIT_TIMEOUT_MILLIS = 5000;
+
+    private final File ballotFile;
+    private final int requestedShardCount;
+
+    private List<String> workerJvmOptions = Collections.emptyList();
+    private int connectionTimeoutMillis = DEFAULT_CONNECTION_TIMEOUT_MILLIS;
+
+    /**
+     * @param ballotFile - The CSV or binary ballot file to count
+     * @param shardCount - The number of worker processes to split the file across
+     *
+     * @pre. shardCount > 0
+     */
+    public VCSShardCoordinator(File ballotFile, int shardCount) {
+        assert shardCount > 0 : "Shard count must be at least one";
+
+        this.ballotFile = ballotFile;
+        this.requestedShardCount = shardCount;
+    }
+
+    /**
+     * Sets options passed to each worker's JVM, such as its heap size
+     *
+     * @param workerJvmOptions - The options, for example "-Xmx2g"
+     */
+    public void setWorkerJvmOptions(List<String> workerJvmOptions) {
+        this.workerJvmOptions = new ArrayList<>(workerJvmOptions);
+    }
+
+    /**
+     * @param connectionTimeoutMillis - How long a worker has to start and connect, loading its shard is not limited
+     *
+     * @pre. connectionTimeoutMillis > 0
+     */
+    public void setConnectionTimeout(int connectionTimeoutMillis) {
+        assert connectionTimeoutMillis > 0 : "Timeout must be positive";
+
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    /**
+     * Starts the workers, counts every round and stops the workers
+     *
+     * @param options - How ties are broken, and where metrics are recorded
+     * @return Every round of the count, and the winner
+     * @throws IOException - If the file can not be split, a worker can not load its shard,
+     *                       or a worker is lost during the count
+     *
+     * @post. Every worker process has exited
+     */
+    public VCSCountResult count(VCSCountOptions options) throws IOException {
+        long[] shardBoundaries = getShardBoundaries();
+        int shardCount = shardBoundaries.length - 1;
+
+        Shard[] shards = new Shard[shardCount];
+        ArrayList<Process> workers = new ArrayList<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0, shardCount, InetAddress.getLoopbackAddress())) {
+            serverSocket.setSoTimeout(connectionTimeoutMillis);
+
+            // Every worker is started before any is waited for, so they load their shards at the same time
+            for (int shard = 0; shard < shardCount; shard++) {
+                workers.add(startWorker(serverSocket.getLocalPort(), shard, shardBoundaries[shard], shardBoundaries[shard + 1]));
+            }
+
+            for (int x = 0; x < shardCount; x++) {
+                Shard shard = acceptShard(serverSocket);
+
+                if (shard.shardIndex < 0 || shard.shardIndex >= shardCount || shards[shard.shardIndex] != null) {
+                    shard.close();
+                    throw new IOException("Unexpected shard connected: " + shard.shardIndex);
+                }
+
+                shards[shard.shardIndex] = shard;
+            }
+
+            VCSCountResult countResult = countShards(shards, options);
+
+            for (Shard shard : shards) {
+                shard.finish();
+            }
+
+            return countResult;
+
+        } finally {
+            for (Shard shard : shards) {
+                if (shard != null) {
+                    shard.close();
+                }
+            }
+
+            stopWorkers(workers);
+        }
+    }
+
+    /**
+     * Reads every shard's candidates and counts the rounds from their tallies
+     */
+    private VCSCountResult countShards(Shard[] shards, VCSCountOptions options) throws IOException {
+        VCSCandidateRegistry candidateRegistry = new VCSCandidateRegistry(new String[0]);
+        long ballotCount = 0;
+
+        // Shards are read in file order, so new names are registered in the order they first appear
+        for (Shard shard : shards) {
+            shard.readCandidates(candidateRegistry);
+            ballotCount += shard.ballotCount;
+        }
+
+        if (ballotCount == 0 || candidateRegistry.getStandingCandidateCount() == 0) {
+            throw new IOException("No ballots to count in file: " + ballotFile);
+        }
+
+        if (ballotCount > Integer.MAX_VALUE) {
+            throw new IOException("Too many ballots to count in file: " + ballotFile);
+        }
+
+        VCSRoundTally roundTally = (continuingCandidates, votesByOrdinal) -> {
+            try {
+                // Every shard is sent the round before any reply is read, so the shards count at the same time
+                for (Shard shard : shards) {
+                    shard.sendRound(continuingCandidates);
+                }
+
+                Arrays.fill(votesByOrdinal, 0);
+
+                for (Shard shard : shards) {
+                    shard.addVotes(votesByOrdinal);
+                }
+
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        try {
+            return VCSCountEngine.run(roundTally, candidateRegistry, (int) ballotCount,
+                    candidateRegistry.getContinuingCandidates(), options);
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Splits the file into shards, by bytes for a CSV file or by ballots for a binary file
+     *
+     * @return The start of each shard, followed by the end of the last
+     */
+    private long[] getShardBoundaries() throws IOException {
+        try (FileChannel fileChannel = new RandomAccessFile(ballotFile, "r").getChannel()) {
+
+            if (VCSBinaryBallotFile.isBinaryBallotFile(fileChannel)) {
+                int ballotCount = VCSBinaryBallotFile.mapBallotStore(fileChannel).getBallotCount();
+                int shardCount = Math.max(1, Math.min(requestedShardCount, ballotCount));
+
+                long[] boundaries = new long[shardCount + 1];
+
+                for (int shard = 0; shard <= shardCount; shard++) {
+                    boundaries[shard] = (long) ballotCount * shard / shardCount;
+                }
+
+                return boundaries;
+            }
+
+            // Every shard starts on a new ballot, small files may give fewer shards than asked for
+            return new VCSParallelBallotLoader(fileChannel, requestedShardCount, 1).getChunkBoundaries();
+        }
+    }
+
+    /**
+     * Starts a worker JVM with the same class path as this one
+     */
+    private Process startWorker(int port, int shardIndex, long shardStart, long shardEnd) throws IOException {
+        ArrayList<String> command = new ArrayList<>();
+
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerJvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(VCSShardWorker.class.getName());
+        command.add(Integer.toString(port));
+        command.add(Integer.toString(shardIndex));
+        command.add(ballotFile.getAbsolutePath());
+        command.add(Long.toString(shardStart));
+        command.add(Long.toString(shardEnd));
+
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private Shard acceptShard(ServerSocket serverSocket) throws IOException {
+        Socket socket;
+
+        try {
+            socket = serverSocket.accept();
+        } catch (SocketTimeoutException e) {
+            throw new IOException("A worker did not connect in time", e);
+        }
+
+        // A worker which exits closes its socket, so a lost worker fails the count rather than hanging it
+        socket.setTcpNoDelay(true);
+
+        return new Shard(socket);
+    }
+
+    /**
+     * Waits for the workers to exit after being told to finish, and kills any still running
+     */
+    private static void stopWorkers(List<Process> workers) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WORKER_EXIT_TIMEOUT_MILLIS);
+
+        for (Process worker : workers) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+
+                if (!worker.waitFor(remaining, TimeUnit.NANOSECONDS)) {
+                    worker.destroyForcibly();
+                }
+
+            } catch (InterruptedException e) {
+                worker.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The connection to one worker, and the mapping from its ordinals to the count's ordinals
+     */
+    private static class Shard {
+
+        private final Socket socket;
+        private final DataInputStream input;
+        private final DataOutputStream output;
+
+        private final int shardIndex;
+        private int ballotCount;
+
+        // The count's ordinal for each of the worker's ordinals
+        private int[] ordinals;
+        private boolean[] continuingCandidates;
+
+        // The worker's ordinals eliminated since the last round, reused every round
+        private int[] eliminatedOrdinals;
+
+        Shard(Socket socket) throws IOException {
+            this.socket = socket;
+
+            input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            shardIndex = input.readInt();
+        }
+
+        /**
+         * Reads the shard's ballot count and candidate names, registering any names not yet in the count
+         */
+        void readCandidates(VCSCandidateRegistry candidateRegistry) throws IOException {
+            ballotCount = input.readInt();
+
+            if (ballotCount == VCSShardWorker.LOADING_FAILED) {
+                throw new IOException(input.readUTF());
+            }
+
+            int candidateCount = input.readInt();
+
+            ordinals = new int[candidateCount];
+            continuingCandidates = new boolean[candidateCount];
+            eliminatedOrdinals = new int[candidateCount];
+
+            for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+                ordinals[ordinal] = candidateRegistry.registerCandidateWithName(input.readUTF());
+                continuingCandidates[ordinal] = true;
+            }
+        }
+
+        /**
+         * Asks the worker to count a round, telling it who has been eliminated since the last
+         */
+        void sendRound(boolean[] countContinuingCandidates) throws IOException {
+            int eliminatedCount = 0;
+
+            for (int ordinal = 0; ordinal < ordinals.length; ordinal++) {
+                if (continuingCandidates[ordinal] && !countContinuingCandidates[ordinals[ordinal]]) {
+                    continuingCandidates[ordinal] = false;
+                    eliminatedOrdinals[eliminatedCount++] = ordinal;
+                }
+            }
+
+            output.writeByte(VCSShardWorker.COMMAND_COUNT);
+            output.writeInt(eliminatedCount);
+
+            for (int x = 0; x < eliminatedCount; x++) {
+                output.writeInt(eliminatedOrdinals[x]);
+            }
+
+            output.flush();
+        }
+
+        /**
+         * Reads the worker's tally and adds it to the count's votes
+         */
+        void addVotes(int[] votesByOrdinal) throws IOException {
+            int candidateCount = input.readInt();
+
+            if (candidateCount != ordinals.length) {
+                throw new IOException("Shard " + shardIndex + " sent a tally of the wrong size");
+            }
+
+            for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+                votesByOrdinal[ordinals[ordinal]] += input.readInt();
+            }
+        }
+
+        void finish() throws IOException {
+            output.writeByte(VCSShardWorker.COMMAND_FINISH);
+            output.flush();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The worker is stopped either way
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package Model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Holds one shard of a ballot file for a sharded count, in a process of its own.
+ *
+ * The worker connects to its coordinator over a loopback socket, loads its shard and
+ * sends the names of the candidates it found. Each round the coordinator sends the
+ * candidates eliminated since the last round, and the worker replies with the votes
+ * for each of its candidates. The worker only knows its own ordinals, the coordinator
+ * maps them to the ordinals of the whole count.
+ *
+ * A shard of a CSV file is a range of bytes, which is loaded into a store. A shard of
+ * a binary ballot file is a range of ballots, which are read from the mapped file.
+ */
+public class VCSShardWorker {
+
+    static final byte COMMAND_COUNT = 1;
+    static final byte COMMAND_FINISH = 2;
+
+    // Sent instead of a ballot count when the shard could not be loaded
+    static final int LOADING_FAILED = -1;
+
+    private static final int EXIT_SUCCESS = 0;
+    private static final int EXIT_FAILURE = 1;
+
+    private final VCSBallotStore ballotStore;
+    private final int fromBallot;
+    private final int toBallot;
+
+    private final boolean[] continuingCandidates;
+    private final int[] votes;
+
+    /**
+     * @param ballotStore - The store holding the shard's ballots
+     * @param fromBallot - The first ballot in the shard
+     * @param toBallot - The ballot after the last in the shard
+     */
+    private VCSShardWorker(VCSBallotStore ballotStore, int fromBallot, int toBallot) {
+        this.ballotStore = ballotStore;
+        this.fromBallot = fromBallot;
+        this.toBallot = toBallot;
+
+        int candidateCount = ballotStore.getCandidateRegistry().getCandidateCount();
+
+        // Every candidate named in the file stands, until the coordinator eliminates them
+        continuingCandidates = new boolean[candidateCount];
+        votes = new int[candidateCount];
+
+        Arrays.fill(continuingCandidates, true);
+    }
+
+    /**
+     * Started by VCSShardCoordinator, with the arguments: port shardIndex ballotFile shardStart shardEnd
+     *
+     * @param args - The command line arguments
+     */
+    public static void main(String args[]) {
+        if (args.length != 5) {
+            System.err.println("Usage: VCSShardWorker port shardIndex ballotFile shardStart shardEnd");
+            System.exit(EXIT_FAILURE);
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+            socket.setTcpNoDelay(true);
+
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            // Workers connect in any order, so each says which shard it holds before loading it
+            output.writeInt(Integer.parseInt(args[1]));
+            output.flush();
+
+            VCSShardWorker worker;
+
+            try {
+                worker = loadShard(new File(args[2]), Long.parseLong(args[3]), Long.parseLong(args[4]));
+            } catch (IOException e) {
+                output.writeInt(LOADING_FAILED);
+                output.writeUTF("Shard of " + args[2] + " could not be loaded: " + e.getMessage());
+                output.flush();
+
+                System.exit(EXIT_FAILURE);
+                return;
+            }
+
+            worker.sendCandidates(output);
+            worker.countRounds(input, output);
+
+        } catch (IOException e) {
+            System.err.println("Lost connection to coordinator: " + e.getMessage());
+            System.exit(EXIT_FAILURE);
+        }
+
+        System.exit(EXIT_SUCCESS);
+    }
+
+    /**
+     * Loads the ballots of one shard
+     *
+     * @param file - The ballot file
+     * @param shardStart - The first byte of a CSV shard, or the first ballot of a binary shard
+     * @param shardEnd - The byte or ballot after the end of the shard
+     * @return A worker holding the shard
+     * @throws IOException - If the file can not be read
+     */
+    static VCSShardWorker loadShard(File file, long shardStart, long shardEnd) throws IOException {
+        try (FileChannel fileChannel = new RandomAccessFile(file, "r").getChannel()) {
+
+            if (VCSBinaryBallotFile.isBinaryBallotFile(fileChannel)) {
+                // The mapped store stays readable after the file is closed, only the shard is counted
+                VCSBallotStore ballotStore = VCSBinaryBallotFile.mapBallotStore(fileChannel);
+
+                return new VCSShardWorker(ballotStore, (int) shardStart, (int) shardEnd);
+            }
+
+            // The shard's candidates are given ordinals in the order they appear in it
+            VCSBallotStore ballotStore = new VCSBallotStore(new VCSCandidateRegistry(new String[0]));
+
+            new VCSMappedBallotLoader(fileChannel, ballotStore, true).loadBallots(shardStart, shardEnd);
+
+            return new VCSShardWorker(ballotStore, 0, ballotStore.getBallotCount());
+        }
+    }
+
+    /**
+     * Tells the coordinator how many ballots the shard holds, and the name of each of its ordinals
+     */
+    private void sendCandidates(DataOutputStream output) throws IOException {
+        VCSCandidateRegistry candidateRegistry = ballotStore.getCandidateRegistry();
+
+        output.writeInt(toBallot - fromBallot);
+        output.writeInt(candidateRegistry.getCandidateCount());
+
+        for (int ordinal = 0; ordinal < candidateRegistry.getCandidateCount(); ordinal++) {
+            output.writeUTF(candidateRegistry.getCandidateWithOrdinal(ordinal).getName());
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Counts a round each time the coordinator asks, until it finishes the count
+     */
+    private void countRounds(DataInputStream input, DataOutputStream output) throws IOException {
+        while (true) {
+            byte command;
+
+            try {
+                command = input.readByte();
+            } catch (EOFException e) {
+                // The coordinator has gone, there is nothing left to count for
+                return;
+            }
+
+            if (command == COMMAND_FINISH) {
+                return;
+            }
+
+            if (command != COMMAND_COUNT) {
+                throw new IOException("Unknown command: " + command);
+            }
+
+            int eliminatedCount = input.readInt();
+
+            for (int x = 0; x < eliminatedCount; x++) {
+                continuingCandidates[input.readInt()] = false;
+            }
+
+            countRound();
+
+            output.writeInt(votes.length);
+
+            for (int candidateVotes : votes) {
+                output.writeInt(candidateVotes);
+            }
+
+            output.flush();
+        }
+    }
+
+    private void countRound() {
+        Arrays.fill(votes, 0);
+
+        VCSParallelTally.countVotesInRange(ballotStore, continuingCandidates, fromBallot, toBallot, votes);
+    }
+}
@@ -0,0 +1,48 @@
+package Model;
+
+/**
+ * A ballot which reads its preferences from a ballot store,
+ * rather than holding its own array of candidates
+ */
+public class VCSStoredBallot extends VCSBallot {
+
+    private final VCSBallotStore ballotStore;
+    private final int ballotIndex;
+
+    /**
+     * @param ballotStore - The store holding the ballot
+     * @param ballotIndex - The position of the ballot in the store
+     *
+     * @pre. ballotIndex < ballotStore.getBallotCount()
+     */
+    public VCSStoredBallot(VCSBallotStore ballotStore, int ballotIndex) {
+        this.ballotStore = ballotStore;
+        this.ballotIndex = ballotIndex;
+    }
+
+    @Override
+    public Boolean hasCandidateAtIndex(int index) {
+        return ballotStore.hasCandidateAtIndex(ballotIndex, index);
+    }
+
+    @Override
+    public VCSCandidate getCandidateChoiceAtIndex(int index) {
+        return ballotStore.getCandidateChoiceAtIndex(ballotIndex, index);
+    }
+
+    /**
+     * Stored ballots are complete and can not have candidates added
+     */
+    @Override
+    public void addCandidateToBallot(VCSCandidate candidate) {
+        assert false : "Stored ballots can not be changed";
+    }
+
+    @Override
+    public void didFinishAddingCandidatesToBallot() {}
+
+    @Override
+    public Boolean hasAtLeastOneCandidate() {
+        return hasCandidateAtIndex(0);
+    }
+}
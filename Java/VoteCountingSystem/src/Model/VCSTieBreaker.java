@@ -0,0 +1,17 @@
+package Model;
+
+import java.util.ArrayList;
+
+/**
+ * Chooses which of several candidates sharing the lowest vote is eliminated
+ */
+public interface VCSTieBreaker {
+
+    /**
+     * @param candidates - The candidates sharing the lowest vote
+     * @return The candidate to be eliminated, one of those given
+     *
+     * @pre. candidates.size() > 1
+     */
+    VCSCandidate chooseCandidateToEliminate(ArrayList<VCSCandidate> candidates);
+}
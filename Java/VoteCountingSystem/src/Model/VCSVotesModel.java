@@ -2,6 +2,10 @@ package Model;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 /**
@@ -11,195 +15,340 @@ import java.util.*;
  */
 public class VCSVotesModel extends Observable implements VCSModelInterface {
 
+    private static final VCSCandidate[] NO_CANDIDATES = new VCSCandidate[0];
+
     // Class variables
-    private /*@ spec_public @*/ ArrayList<VCSBallot> ballots;
-    private /*@ spec_public @*/ VCSCandidate[] candidates;
-    private /*@ spec_public @*/ HashMap<VCSCandidate, Integer> candidateVotes;
+    private /*@ spec_public @*/ VCSBallotStore ballotStore;
+    private /*@ spec_public @*/ VCSCandidateRegistry candidateRegistry;
+    private /*@ spec_public @*/ int[] candidateVotes;
 
-    private /*@ spec_public @*/ Scanner ballotsFileScanner;
+    // Mirrors the registry's continuing candidates, kept between rounds so counting does not allocate
+    private /*@ spec_public @*/ boolean[] continuingCandidates;
 
-    private /*@ spec_public @*/ final int NUMBER_OF_CANDIDATES = 4;
+    private /*@ spec_public @*/ FileChannel ballotsFileChannel;
+    private /*@ spec_public @*/ int loadingParallelism = Runtime.getRuntime().availableProcessors();
 
     private /*@ spec_public @*/ VCSCandidate winningCandidate;
 
-    //@ public invariant ballots >= 0
-    //@ public invariant candidates.length == NUMBER_OF_CANDIDATES
+    private /*@ spec_public @*/ VCSCountingMethod countingMethod = VCSCountingMethod.FULL_RECOUNT;
+
+    // More than one seat is counted by single transferable vote
+    private /*@ spec_public @*/ int seatCount = 1;
+
+    // Trailing candidates who can not overtake the next are eliminated together
+    private /*@ spec_public @*/ boolean isBulkExclusion;
+    private /*@ spec_public @*/ VCSCandidate[] bulkExcludedCandidates = NO_CANDIDATES;
+    private final /*@ spec_public @*/ int[] singleElimination = new int[1];
+
+    private /*@ spec_public @*/ VCSBallotPiles ballotPiles;
+    private /*@ spec_public @*/ VCSBallotTrie ballotTrie;
+
+    private /*@ spec_public @*/ int countingParallelism = Runtime.getRuntime().availableProcessors();
+    private /*@ spec_public @*/ int parallelCountingThreshold = VCSParallelTally.DEFAULT_SEQUENTIAL_THRESHOLD;
+    private /*@ spec_public @*/ VCSParallelTally parallelTally;
+    private /*@ spec_public @*/ VCSCountOptions countOptions;
+
+    // The ordinal eliminated in each round, and the rounds decided by a tie break
+    private /*@ spec_public @*/ int[] eliminatedCandidates;
+    private /*@ spec_public @*/ int eliminationCount;
+    private /*@ spec_public @*/ BitSet tieBreakEliminations = new BitSet();
+    private /*@ spec_public @*/ boolean lastEliminationWasTieBreak;
+
+    // Written after every round when set, the ballots are only rewritten when they change
+    private /*@ spec_public @*/ File checkpointFile;
+    private /*@ spec_public @*/ File checkpointBallotsFile;
+
+    // Ballots entered by hand are appended here when set
+    private /*@ spec_public @*/ VCSBallotJournal ballotJournal;
+    private /*@ spec_public @*/ VCSBallotJournalListener ballotJournalListener;
+
+    // Counting waits until the intake is sealed
+    private /*@ spec_public @*/ VCSBallotIntake ballotIntake;
+
+    // The ballots whose first standing preference is each ordinal, the first round without a pass
+    private /*@ spec_public @*/ int[] firstPreferenceVotes = new int[0];
+
+    // Shared with intake producers, the model counts the ballots it accepts itself
+    private final /*@ spec_public @*/ VCSFirstPreferenceTally firstPreferenceTally = new VCSFirstPreferenceTally();
+    private /*@ spec_public @*/ VCSFirstPreferenceTally.Counters firstPreferenceCounters = firstPreferenceTally.createCounters();
+    private /*@ spec_public @*/ boolean isAddingTalliedBallots;
+
+    // Read by monitoring on other threads
+    private final /*@ spec_public @*/ VCSCountMetrics countMetrics = new VCSCountMetrics();
+    private /*@ spec_public @*/ long countPassStartNanos;
+
+    //@ public invariant ballotStore.getBallotCount() >= 0
 
     /**
-     * Default initializer
+     * Default initializer, the vote has the four default candidates
      */
-    //@ ensures candidates.length == NUMBER_OF_CANDIDATES
     public VCSVotesModel() {
+        this(new String[] {"Ollie", "Alicia", "George", "Robert"});
+    }
+
+    /**
+     * Initialises a vote with a list of candidates.
+     * Any other names met when loading ballots are added as new candidates
+     *
+     * @param candidateNames - The names of the candidates, may be empty
+     */
+    //@ ensures candidateRegistry.getStandingCandidateCount() <= candidateNames.length
+    public VCSVotesModel(String[] candidateNames) {
+
+        // The candidates take the first ordinals in the store
+        candidateRegistry = new VCSCandidateRegistry(candidateNames);
+        ballotStore = new VCSBallotStore(candidateRegistry);
+
+        parallelTally = new VCSParallelTally(countingParallelism, parallelCountingThreshold);
 
-        candidates = new VCSCandidate[] {
-                new VCSCandidate("Ollie"),
-                new VCSCandidate("Alicia"),
-                new VCSCandidate("George"),
-                new VCSCandidate("Robert")};
+        // Whole counts share the tally, and break ties the same way as a count round by round
+        countOptions = new VCSCountOptions();
+        countOptions.setParallelTally(parallelTally);
+        countOptions.setTieBreaker(this::getRandomCandidateToRemoveFromCandidatesWithLowestVotes);
+        countOptions.setCountMetrics(countMetrics);
 
         createCandidateVotesStructure();
     }
 
     public void addBallot(VCSBallot ballot) {
-        assert ballot != null : "Ballot is null";
+        addBallots(Collections.singletonList(ballot));
+    }
+
+    public void addBallots(Collection<VCSBallot> ballots) {
+        int firstNewBallot = ballotStore.getBallotCount();
+
+        for (VCSBallot ballot : ballots) {
+            assert ballot != null : "Ballot is null";
+
+            // Notify the ballot that there will be no more changes
+            ballot.didFinishAddingCandidatesToBallot();
 
-        if (ballots == null) {
-            ballots = new ArrayList<>();
+            // Copy the ballot's preferences into the store
+            ballotStore.addBallot(ballot);
         }
 
-        // Notify the ballot that there will be no more changes
-        ballot.didFinishAddingCandidatesToBallot();
+        didAddBallotsToStore(firstNewBallot);
 
-        // Add the ballot
-        ballots.add(ballot);
+        if (ballotJournal != null) {
+            try {
+                ballotJournal.appendBallots(ballots);
+            } catch (IOException e) {
+                // The ballots stay in the vote, the listener tells whoever is entering them
+                ballotJournalListener.didFailToJournalBallots(e);
+            }
+        }
 
-        updateView();
+        // One notification for the whole batch
+        updateViewWithAddedBallots(firstNewBallot);
     }
 
     public boolean canAddNewCandidateField(int currentFieldCount) {
-        return currentFieldCount < NUMBER_OF_CANDIDATES;
+        return currentFieldCount < candidateRegistry.getStandingCandidateCount();
     }
 
     public boolean isValidCandidateWithName(String name) {
         assert !name.equals("") : "Name is empty";
 
-        // Iterate through the remaining candidates in the vote
-        // Check if the name matches anyone
-        for (VCSCandidate candidate : getAllCandidates()) {
-            if (candidate.getName().equals(name)) {
-                return true;
-            }
-        }
-
-        return false;
+        return candidateRegistry.isContinuingCandidateWithName(name);
     }
 
     public VCSCandidate getCandidateWithName(String name) {
         assert !name.equals("") : "Name is empty";
         assert isValidCandidateWithName(name) : "Name is not valid";
 
-        VCSCandidate selectedCandidate = null;
+        return candidateRegistry.getCandidateWithName(name);
+    }
 
-        // Iterate through candidates and return the candidate with that name
-        for (VCSCandidate candidate : candidates) {
-            if (candidate.getName().equals(name)) {
-                selectedCandidate = candidate;
-                break;
-            }
-        }
+    public VCSCandidate[] getAllCandidates() {
+        return candidateRegistry.getContinuingCandidates();
+    }
 
-        return selectedCandidate;
+    public VCSCandidateRegistry getCandidateRegistry() {
+        return candidateRegistry;
     }
 
-    public VCSCandidate[] getAllCandidates() {
-        ArrayList<VCSCandidate> remainingCandidates = new ArrayList<>();
+    public void registerCandidateWithName(String name) {
+        assert !name.equals("") : "Name is empty";
 
-        // For each of the original candidates
-        for (VCSCandidate candidate : candidates) {
+        candidateRegistry.registerCandidateWithName(name);
 
-            // Is the candidate still in the vote?
-            if (candidateVotes.containsKey(candidate)) {
-                remainingCandidates.add(candidate);
-            }
-        }
-        return remainingCandidates.toArray(new VCSCandidate[remainingCandidates.size()]);
+        didRegisterCandidates();
     }
 
     public boolean canStartCountingVotes() {
-        return ballots != null && ballots.size() > 0;
+        return ballotStore.getBallotCount() > 0 && (ballotIntake == null || ballotIntake.isSealed());
     }
 
     public void shouldStartCountingVotes() {
-        // Reset the votes to 0
-        resetCandidateVotes();
+        countPassStartNanos = System.nanoTime();
 
-        // For each ballot, find the highest remaining candidate and add the vote
-        for (VCSBallot ballot : ballots) {
+        if (countingMethod == VCSCountingMethod.FULL_RECOUNT && eliminationCount == 0) {
+            // Every standing candidate is in the first round, so the live tally is the count
+            for (int ordinal = 0; ordinal < candidateVotes.length; ordinal++) {
+                candidateVotes[ordinal] = ordinal < firstPreferenceVotes.length ? firstPreferenceVotes[ordinal] : 0;
+            }
 
-            int candidateIndex = 0;
+            didCountRound();
+            return;
+        }
 
-            while (ballot.hasCandidateAtIndex(candidateIndex)) {
-                // Get the candidate from the ballot
-                VCSCandidate candidate = ballot.getCandidateChoiceAtIndex(candidateIndex);
+        if (countingMethod == VCSCountingMethod.INCREMENTAL_TRANSFERS) {
+            countVotesFromBallotPiles();
+            return;
+        }
 
-                if (candidateVotes.containsKey(candidate)) {
-                    int votes = candidateVotes.get(candidate);
-                    candidateVotes.replace(candidate, votes, ++votes);
-                    break;
-                }
-                else {
-                    // That candidate doesn't appear in the hash map, so has been removed
-                    // Take the next choice instead
-                    candidateIndex++;
-                }
-            }
+        if (countingMethod == VCSCountingMethod.BALLOT_TRIE) {
+            countVotesFromBallotTrie();
+            return;
         }
 
-        checkForVoteWinner();
+        updateContinuingCandidates();
 
-        updateView();
+        // For each ballot, find the highest remaining candidate and add the vote.
+        // Large stores are counted in parallel ranges
+        parallelTally.countVotes(ballotStore, continuingCandidates, candidateVotes);
+
+        didCountRound();
+    }
+
+    public VCSCountResult countAllRounds() {
+        assert canStartCountingVotes() : "No ballots to count";
+
+        // Before any elimination the first round is the live tally
+        countOptions.setFirstRoundVotes(eliminationCount == 0 ? firstPreferenceVotes : null);
+
+        try {
+            return VCSCountEngine.run(ballotStore, getAllCandidates(), countOptions);
+        } finally {
+            countOptions.setFirstRoundVotes(null);
+        }
+    }
+
+    public VCSSTVResult countAllSeats() {
+        assert canStartCountingVotes() : "No ballots to count";
+
+        return VCSSTVCount.run(ballotStore, getAllCandidates(), seatCount, countOptions);
+    }
+
+    public void setSeatCount(int seatCount) {
+        assert seatCount > 0 : "Seat count must be at least one";
+
+        this.seatCount = seatCount;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
     }
 
     public int getVotesForCandidate(VCSCandidate candidate) {
         assert isValidCandidateWithName(candidate.getName()) : "Candidate does not exist";
 
-        return candidateVotes.get(candidate);
+        int ordinal = candidateRegistry.getOrdinalOfCandidate(candidate);
+
+        return ordinal >= 0 && ordinal < candidateVotes.length ? candidateVotes[ordinal] : 0;
     }
 
     public void redistributeVotesForCandidates() {
 
-        int lowestVote = Integer.MAX_VALUE;
-        ArrayList<VCSCandidate> potentialLowestCandidates = new ArrayList<>();
+        int[] eliminatedOrdinals = isBulkExclusion ? getBulkExclusion() : null;
 
-        // remove the candidate with the least votes
-        for (VCSCandidate candidate : getAllCandidates()) {
-            int voteCount = candidateVotes.get(candidate);
+        if (eliminatedOrdinals != null) {
+            lastEliminationWasTieBreak = false;
+        }
+        else {
+            // Reused, so a count without bulk exclusion still allocates nothing
+            singleElimination[0] = getCandidateToEliminate();
+            eliminatedOrdinals = singleElimination;
+        }
 
-            if (voteCount < lowestVote) {
-                // A new lowest vote, so reset the list of candidates with the same vote
-                potentialLowestCandidates = new ArrayList<>();
+        // Compared with the votes after the recount, to find where the ballots went
+        int eliminatedVotes = 0;
+        long countedVotes = getCountedVoteTotal();
 
-                // Add candidate to list of lowest votes
-                potentialLowestCandidates.add(candidate);
+        for (int ordinal : eliminatedOrdinals) {
+            eliminatedVotes += candidateVotes[ordinal];
 
-                // Update the lowest vote + candidate
-                lowestVote = voteCount;
-            }
-            else if (voteCount == lowestVote) {
-                // Candidate has joint lowest vote, add to lowest vote list
-                potentialLowestCandidates.add(candidate);
+            // remove from structure
+            candidateVotes[ordinal] = 0;
+            candidateRegistry.eliminateCandidate(ordinal);
+
+            // Remember the elimination, so a restored count can report the same rounds
+            if (eliminationCount == eliminatedCandidates.length) {
+                eliminatedCandidates = Arrays.copyOf(eliminatedCandidates, Math.max(eliminationCount * 2, 4));
             }
+
+            tieBreakEliminations.set(eliminationCount, lastEliminationWasTieBreak);
+            eliminatedCandidates[eliminationCount++] = ordinal;
         }
 
-        // Do more than one candidate have the lowest votes?
-        if (potentialLowestCandidates.size() > 1) {
-            // Fetch a random candidate, remove them
-            VCSCandidate lowestCandidate = getRandomCandidateToRemoveFromCandidatesWithLowestVotes(potentialLowestCandidates);
-            candidateVotes.remove(lowestCandidate);
+        bulkExcludedCandidates = eliminatedOrdinals.length > 1 ? new VCSCandidate[eliminatedOrdinals.length] : NO_CANDIDATES;
+
+        for (int x = 0; x < bulkExcludedCandidates.length; x++) {
+            bulkExcludedCandidates[x] = candidateRegistry.getCandidateWithOrdinal(eliminatedOrdinals[x]);
         }
-        else { //Only one candidate with lowest votes
 
-            // remove from structure
-            candidateVotes.remove(potentialLowestCandidates.get(0));
+        if (countingMethod == VCSCountingMethod.INCREMENTAL_TRANSFERS && ballotPiles != null) {
+            // Only the eliminated candidates' ballots need to be looked at again
+            ballotPiles.eliminateCandidates(eliminatedOrdinals);
         }
 
-        // Recount the votes
+        // Recount the votes, once however many were eliminated
         shouldStartCountingVotes();
 
+        int exhaustedVotes = (int) (countedVotes - getCountedVoteTotal());
+
+        if (eliminatedOrdinals.length > 1) {
+            countMetrics.didBulkEliminateCandidates(eliminatedOrdinals.length, eliminatedVotes - exhaustedVotes, exhaustedVotes);
+        }
+        else {
+            countMetrics.didEliminateCandidate(eliminatedVotes - exhaustedVotes, exhaustedVotes, lastEliminationWasTieBreak);
+        }
+    }
+
+    public void setBulkExclusion(boolean isBulkExclusion) {
+        this.isBulkExclusion = isBulkExclusion;
+
+        countOptions.setBulkExclusion(isBulkExclusion);
+    }
+
+    public VCSCandidate[] getBulkExcludedCandidates() {
+        return bulkExcludedCandidates.clone();
+    }
+
+    public void setCountingMethod(VCSCountingMethod countingMethod) {
+        assert countingMethod != null : "Counting method is null";
+
+        this.countingMethod = countingMethod;
+
+        // Any existing piles may be out of date with the full recount
+        ballotPiles = null;
+
+        if (countingMethod == VCSCountingMethod.BALLOT_TRIE) {
+            // Merge the ballots already loaded, later ballots are added as they arrive
+            ballotTrie = new VCSBallotTrie(ballotStore);
+        }
+        else {
+            ballotTrie = null;
+        }
     }
 
     public VCSBallot[] getBallots() {
-        if (ballots == null) {
-            ballots = new ArrayList<>();
+        VCSBallot[] ballotArray = new VCSBallot[ballotStore.getBallotCount()];
+
+        for (int x = 0; x < ballotArray.length; x++) {
+            ballotArray[x] = ballotStore.getBallot(x);
         }
 
-        VCSBallot[] ballotArray = new VCSBallot[ballots.size()];
-        return ballots.toArray(ballotArray);
+        return ballotArray;
+    }
+
+    public VCSBallotStore getBallotStore() {
+        return ballotStore;
     }
 
     public boolean canLoadFileAtPath(File file) {
         try {
-            ballotsFileScanner = new Scanner(file);
+            ballotsFileChannel = new RandomAccessFile(file, "r").getChannel();
             return true;
 
         } catch (FileNotFoundException e) {
@@ -207,45 +356,232 @@ public class VCSVotesModel extends Observable implements VCSModelInterface {
         }
     }
 
-    public void loadBallots() {
-        assert ballotsFileScanner != null : "File can not be loaded";
-
-        VCSBallot ballot = new VCSBallot();
+    public void loadBallots() throws IOException {
+        assert ballotsFileChannel != null : "File can not be loaded";
 
-        while (ballotsFileScanner.hasNextLine()) {
-            String line = ballotsFileScanner.nextLine();
+        int firstNewBallot = ballotStore.getBallotCount();
+        VCSBallotStore binaryBallotStore = null;
 
-            int commaPosition = line.indexOf(",");
-            String candidatePreference = line.substring(0, commaPosition);
-            String candidateName = line.substring(commaPosition + 1);
+        long loadStart = System.nanoTime();
 
-            // If we have got to the start of a new ballot
-            if (candidatePreference.equals("1")) {
+        IOException loadError = null;
 
-                // If the ballot has at least one candidate, add it to the list of completed ballots
-                if (ballot.hasAtLeastOneCandidate()) {
-                    addBallot(ballot);
-                }
+        // The file is closed however the load ends, a mapped store can still read it
+        try (FileChannel fileChannel = ballotsFileChannel) {
+            ballotsFileChannel = null;
 
-                // Initialise a new ballot
-                ballot = new VCSBallot();
+            if (VCSBinaryBallotFile.isBinaryBallotFile(fileChannel)) {
+                // Binary files are mapped, the store reads their ballots in place
+                binaryBallotStore = VCSBinaryBallotFile.mapBallotStore(fileChannel);
             }
+            else {
+                // Parse the file straight into the store, large files are split across threads
+                new VCSParallelBallotLoader(fileChannel, loadingParallelism,
+                        VCSParallelBallotLoader.DEFAULT_MINIMUM_CHUNK_SIZE).loadBallots(ballotStore);
+            }
+
+        } catch (IOException e) {
+            // Thrown once any ballots read before the error are in step with the counting structures
+            loadError = e;
+        }
+
+        int loadedBallotCount = binaryBallotStore != null ? binaryBallotStore.getBallotCount()
+                : ballotStore.getBallotCount() - firstNewBallot;
+
+        countMetrics.didLoadBallots(loadedBallotCount, System.nanoTime() - loadStart);
+
+        if (binaryBallotStore != null) {
+            addBallotsFromStore(binaryBallotStore, binaryBallotStore.getCandidateRegistry());
+            return;
+        }
+
+        // The file may have named new candidates
+        didRegisterCandidates();
+
+        didAddBallotsToStore(firstNewBallot);
+
+        updateViewWithAddedBallots(firstNewBallot);
+
+        if (loadError != null) {
+            throw loadError;
+        }
+    }
+
+    public void addBallotsFromStore(VCSBallotStore ballots, VCSCandidateRegistry ballotsRegistry) {
+        int firstNewBallot = ballotStore.getBallotCount();
+
+        // Find each of the other store's standing candidates in this model, by name
+        int[] ordinalMap = new int[ballotsRegistry.getCandidateCount()];
+
+        for (int ordinal = 0; ordinal < ordinalMap.length; ordinal++) {
+            VCSCandidate candidate = ballotsRegistry.getCandidateWithOrdinal(ordinal);
+
+            // Candidates who were not standing stay out of the vote. The same candidate
+            // is added once, however many batches from the same registry name them
+            ordinalMap[ordinal] = ballotsRegistry.isStandingCandidate(ordinal)
+                    ? candidateRegistry.registerCandidateWithName(candidate.getName())
+                    : candidateRegistry.addCandidate(candidate);
+        }
+
+        ballotStore.addBallotsFromStore(ballots, ordinalMap);
+
+        didRegisterCandidates();
+
+        didAddBallotsToStore(firstNewBallot);
+
+        updateViewWithAddedBallots(firstNewBallot);
+    }
+
+    public void setCountingParallelism(int countingParallelism, int parallelCountingThreshold) {
+        assert countingParallelism > 0 : "Parallelism must be at least one";
+
+        this.countingParallelism = countingParallelism;
+        this.parallelCountingThreshold = parallelCountingThreshold;
+
+        // The old tally's threads are stopped, counts share the new one
+        parallelTally.shutdown();
+
+        parallelTally = new VCSParallelTally(countingParallelism, parallelCountingThreshold);
+        countOptions.setParallelTally(parallelTally);
+    }
+
+    public void releaseCountingThreads() {
+        parallelTally.shutdown();
+    }
+
+    public void setLoadingParallelism(int loadingParallelism) {
+        assert loadingParallelism > 0 : "Parallelism must be at least one";
+
+        this.loadingParallelism = loadingParallelism;
+    }
+
+    public int getRoundNumber() {
+        return eliminationCount + 1;
+    }
+
+    public int[] getEliminatedCandidateOrdinals() {
+        return Arrays.copyOf(eliminatedCandidates, eliminationCount);
+    }
+
+    public boolean wasEliminatedByTieBreak(int round) {
+        return tieBreakEliminations.get(round - 1);
+    }
+
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public void saveCheckpoint(File checkpointFile) throws IOException {
+
+        // The ballots do not change during a count, so they are only written the first time
+        if (!checkpointFile.equals(checkpointBallotsFile) || !VCSCountCheckpoint.getBallotFile(checkpointFile).exists()) {
+            VCSCountCheckpoint.writeBallots(ballotStore, checkpointFile);
+            checkpointBallotsFile = checkpointFile;
+        }
+
+        new VCSCountCheckpoint(countingMethod, ballotStore, candidateVotes,
+                eliminatedCandidates, eliminationCount, tieBreakEliminations).write(checkpointFile);
+    }
+
+    public void restoreCheckpoint(File checkpointFile) throws IOException {
+        VCSCountCheckpoint checkpoint = VCSCountCheckpoint.read(checkpointFile);
+
+        // The restored store reads the ballots in place, its registry holds each candidate's state
+        VCSBallotStore restoredStore = checkpoint.mapBallots(checkpointFile);
+
+        ballotStore = restoredStore;
+        candidateRegistry = restoredStore.getCandidateRegistry();
+
+        candidateVotes = checkpoint.getCandidateVotes();
+        continuingCandidates = null;
+
+        eliminatedCandidates = checkpoint.getEliminatedCandidates();
+        eliminationCount = eliminatedCandidates.length;
+        tieBreakEliminations = checkpoint.getTieBreakEliminations();
+
+        // Piles are rebuilt from the continuing candidates on the next count
+        ballotPiles = null;
+        setCountingMethod(checkpoint.getCountingMethod());
+
+        // The live tally is rebuilt for the restored ballots, intake ballots already drained are no longer in the vote
+        firstPreferenceTally.removeAllCounters();
+        firstPreferenceCounters = firstPreferenceTally.createCounters();
+        firstPreferenceVotes = new int[0];
+
+        countFirstPreferences(0);
+
+        if (ballotIntake != null) {
+            ballotIntake.recountPendingBallots();
+        }
+
+        checkpointBallotsFile = checkpointFile;
+
+        countMetrics.didChangeBallotStore(ballotStore.getMemoryUsage());
+
+        if (canStartCountingVotes()) {
+            checkForVoteWinner();
+        }
+
+        updateView();
+    }
+
+    public void openBallotJournal(File journalFile, VCSBallotJournalListener journalListener) throws IOException {
+        assert journalListener != null : "Journal listener is null";
+
+        closeBallotJournal();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile,
+                VCSBallotJournal.DEFAULT_COMMIT_INTERVAL_MILLIS, VCSBallotJournal.DEFAULT_MAXIMUM_UNCOMMITTED_BALLOTS);
+        journal.setJournalListener(journalListener);
 
-            ballot.addCandidateToBallot(getCandidateWithName(candidateName));
+        VCSBallotStore replayedBallots = journal.getReplayedBallots();
 
+        // Replayed before the journal is set, so the ballots are not written to it again
+        if (replayedBallots.getBallotCount() > 0) {
+            addBallotsFromStore(replayedBallots, replayedBallots.getCandidateRegistry());
         }
-        // Add the final ballot
-        addBallot(ballot);
 
-        // Close the file
-        ballotsFileScanner.close();
+        ballotJournal = journal;
+        ballotJournalListener = journalListener;
+    }
+
+    public int getFirstPreferenceVotesForCandidate(VCSCandidate candidate) {
+        assert isValidCandidateWithName(candidate.getName()) : "Candidate does not exist";
+
+        int ordinal = candidateRegistry.getOrdinalOfCandidate(candidate);
+
+        return ordinal >= 0 && ordinal < firstPreferenceVotes.length ? firstPreferenceVotes[ordinal] : 0;
+    }
+
+    public VCSFirstPreferenceTally getFirstPreferenceTally() {
+        return firstPreferenceTally;
+    }
+
+    public VCSBallotIntake openBallotIntake() {
+        assert ballotIntake == null || ballotIntake.isSealed() : "An intake is already open";
+
+        ballotIntake = new VCSBallotIntake(this);
 
-        ballotsFileScanner = null;
+        return ballotIntake;
+    }
+
+    public void closeBallotJournal() throws IOException {
+        if (ballotJournal == null) return;
+
+        VCSBallotJournal journal = ballotJournal;
+        ballotJournal = null;
+
+        journal.close();
+    }
 
+    public VCSCountMetrics getCountMetrics() {
+        return countMetrics;
     }
 
     public void shouldResetVotingProcedure() {
         createCandidateVotesStructure();
+
+        ballotPiles = null;
     }
 
     public boolean voteHasWinner() {
@@ -271,61 +607,347 @@ public class VCSVotesModel extends Observable implements VCSModelInterface {
         return candidates.get(new Random().nextInt(candidates.size()));
     }
 
+    /**
+     * Finds the largest trailing group of candidates whose combined votes can not overtake the next candidate
+     *
+     * @return The ordinals of the group, fewest votes first, or null if no group of two or more exists
+     *
+     * @pre. The votes have been counted (shouldStartCountingVotes())
+     */
+    private int[] getBulkExclusion() {
+        BitSet continuingOrdinals = candidateRegistry.getContinuingCandidateOrdinals();
+
+        int[] ordinals = new int[continuingOrdinals.cardinality()];
+        int next = 0;
+
+        for (int ordinal = continuingOrdinals.nextSetBit(0); ordinal >= 0; ordinal = continuingOrdinals.nextSetBit(ordinal + 1)) {
+            ordinals[next++] = ordinal;
+        }
+
+        return VCSCountEngine.getBulkExclusion(candidateVotes, ordinals);
+    }
+
+    /**
+     * Finds the candidate with the lowest votes, if more than one candidate
+     * shares the lowest vote then one of them is picked at random
+     *
+     * @return The ordinal of the candidate to be removed from the vote
+     *
+     * @pre. The votes have been counted (shouldStartCountingVotes())
+     */
+    private int getCandidateToEliminate() {
+        BitSet continuingOrdinals = candidateRegistry.getContinuingCandidateOrdinals();
+
+        int lowestVote = Integer.MAX_VALUE;
+        int lowestOrdinal = -1;
+        int lowestCandidateCount = 0;
+
+        // find the candidate with the least votes
+        for (int ordinal = continuingOrdinals.nextSetBit(0); ordinal >= 0; ordinal = continuingOrdinals.nextSetBit(ordinal + 1)) {
+            int voteCount = candidateVotes[ordinal];
+
+            if (voteCount < lowestVote) {
+                // A new lowest vote
+                lowestVote = voteCount;
+                lowestOrdinal = ordinal;
+                lowestCandidateCount = 1;
+            }
+            else if (voteCount == lowestVote) {
+                // Candidate has joint lowest vote
+                lowestCandidateCount++;
+            }
+        }
+
+        lastEliminationWasTieBreak = lowestCandidateCount > 1;
+
+        //Only one candidate with lowest votes
+        if (lowestCandidateCount == 1) {
+            return lowestOrdinal;
+        }
+
+        // More than one candidate has the lowest votes, only now is a list needed
+        ArrayList<VCSCandidate> potentialLowestCandidates = new ArrayList<>(lowestCandidateCount);
+
+        for (int ordinal = continuingOrdinals.nextSetBit(0); ordinal >= 0; ordinal = continuingOrdinals.nextSetBit(ordinal + 1)) {
+            if (candidateVotes[ordinal] == lowestVote) {
+                potentialLowestCandidates.add(candidateRegistry.getCandidateWithOrdinal(ordinal));
+            }
+        }
+
+        // Fetch a random candidate
+        return candidateRegistry.getOrdinalOfCandidate(getRandomCandidateToRemoveFromCandidatesWithLowestVotes(potentialLowestCandidates));
+    }
+
+    /**
+     * Counts the votes by taking the size of each candidate's pile.
+     * The piles are built with a single pass over the ballots the first time they are needed
+     *
+     * @post. The vote counts match those of a full recount
+     * @post. Observers are notified
+     */
+    private void countVotesFromBallotPiles() {
+
+        updateContinuingCandidates();
+
+        if (ballotPiles == null) {
+            ballotPiles = new VCSBallotPiles(ballotStore, continuingCandidates);
+        }
+
+        // Each continuing candidate's votes are the ballots on their pile
+        for (int ordinal = 0; ordinal < continuingCandidates.length; ordinal++) {
+            candidateVotes[ordinal] = continuingCandidates[ordinal] ? ballotPiles.getPileSize(ordinal) : 0;
+        }
+
+        didCountRound();
+    }
+
+    /**
+     * Counts the votes by walking the distinct rankings in the ballot tree
+     *
+     * @post. The vote counts match those of a full recount
+     * @post. Observers are notified
+     */
+    private void countVotesFromBallotTrie() {
+        updateContinuingCandidates();
+
+        ballotTrie.countVotes(continuingCandidates, candidateVotes);
+
+        didCountRound();
+    }
+
+    /**
+     * Copies the registry's continuing candidates into the array passed to the counters.
+     * The arrays are only reallocated when new candidates have been given ordinals
+     *
+     * @post. continuingCandidates[n] is true if the candidate with ordinal n is still in the vote
+     * @post. candidateVotes is at least as long as continuingCandidates
+     */
+    private void updateContinuingCandidates() {
+        int candidateCount = candidateRegistry.getCandidateCount();
+
+        if (continuingCandidates == null || continuingCandidates.length != candidateCount) {
+            continuingCandidates = new boolean[candidateCount];
+            candidateVotes = Arrays.copyOf(candidateVotes, candidateCount);
+        }
+
+        for (int ordinal = 0; ordinal < candidateCount; ordinal++) {
+            continuingCandidates[ordinal] = candidateRegistry.isContinuingCandidate(ordinal);
+        }
+    }
+
+    /**
+     * @return The votes held by every candidate, ballots with no continuing candidate are not counted
+     */
+    private long getCountedVoteTotal() {
+        long total = 0;
+
+        for (int votes : candidateVotes) {
+            total += votes;
+        }
+
+        return total;
+    }
+
+    /**
+     * Called after every round is counted
+     *
+     * @post. The time taken to count the round is recorded
+     * @post. If a checkpoint file is set, the state of the count is saved to it
+     * @post. Observers are notified
+     */
+    private void didCountRound() {
+        countMetrics.didCountPass(System.nanoTime() - countPassStartNanos);
+
+        checkForVoteWinner();
+
+        IOException checkpointError = null;
+
+        if (checkpointFile != null) {
+            try {
+                saveCheckpoint(checkpointFile);
+            } catch (IOException e) {
+                checkpointError = e;
+            }
+        }
+
+        updateView();
+
+        // The round is counted either way, the caller is told the count can not be resumed from it
+        if (checkpointError != null) {
+            throw new UncheckedIOException("Checkpoint could not be saved", checkpointError);
+        }
+    }
+
     private boolean checkForVoteWinner() {
+        BitSet continuingOrdinals = candidateRegistry.getContinuingCandidateOrdinals();
+
         // If there is one candidate left, vote is over
-        if (getAllCandidates().length == 1) {
-            winningCandidate = getAllCandidates()[0];
+        if (candidateRegistry.getContinuingCandidateCount() == 1) {
+            winningCandidate = candidateRegistry.getCandidateWithOrdinal(continuingOrdinals.nextSetBit(0));
             return true;
         }
 
         // If one candidate has more than 50% of vote, vote is over
-        int ballotCount = getBallots().length;
+        int ballotCount = ballotStore.getBallotCount();
 
-        VCSCandidate provisionallyWinningCandidate = null;
+        int provisionallyWinningOrdinal = -1;
         int provisionallyWinningScore = 51;
 
         // For each candidate, check if they have more than 50% of the vote
-        for (VCSCandidate candidate : getAllCandidates()) {
-            int candidateVotes = getVotesForCandidate(candidate);
+        for (int ordinal = continuingOrdinals.nextSetBit(0); ordinal >= 0; ordinal = continuingOrdinals.nextSetBit(ordinal + 1)) {
+            int votes = ordinal < candidateVotes.length ? candidateVotes[ordinal] : 0;
 
-            int percentageOfVote = (candidateVotes * 100) / ballotCount;
+            int percentageOfVote = (int) ((votes * 100L) / ballotCount);
 
             if (percentageOfVote >= provisionallyWinningScore) {
-                provisionallyWinningCandidate = candidate;
+                provisionallyWinningOrdinal = ordinal;
                 provisionallyWinningScore = percentageOfVote;
             }
         }
 
-        winningCandidate = provisionallyWinningCandidate;
+        winningCandidate = provisionallyWinningOrdinal < 0 ? null : candidateRegistry.getCandidateWithOrdinal(provisionallyWinningOrdinal);
 
-        return provisionallyWinningCandidate != null;
+        return winningCandidate != null;
     }
 
     private void createCandidateVotesStructure() {
 
-        candidateVotes = new HashMap<>();
+        // Return every candidate to the vote
+        candidateRegistry.reinstateAllCandidates();
+
+        // Forget the eliminations, the array is kept for the next count
+        if (eliminatedCandidates == null) {
+            eliminatedCandidates = new int[Math.max(candidateRegistry.getCandidateCount(), 4)];
+        }
+
+        eliminationCount = 0;
+        tieBreakEliminations.clear();
+        bulkExcludedCandidates = NO_CANDIDATES;
+
+        // Each candidate's votes are kept at their ordinal, the array is reused when a vote is reset
+        if (candidateVotes == null || candidateVotes.length != candidateRegistry.getCandidateCount()) {
+            candidateVotes = new int[candidateRegistry.getCandidateCount()];
+        }
+        else {
+            Arrays.fill(candidateVotes, 0);
+        }
+    }
+
+    /**
+     * Gives any newly registered candidates a vote count
+     *
+     * @post. Every candidate has an entry in candidateVotes
+     */
+    private void didRegisterCandidates() {
 
-        // Add the candidates to a hash map, with the candidate as a key
-        for (VCSCandidate candidate : candidates) {
-            candidateVotes.put(candidate, 0);
+        if (candidateVotes.length < candidateRegistry.getCandidateCount()) {
+            candidateVotes = Arrays.copyOf(candidateVotes, candidateRegistry.getCandidateCount());
         }
+
+        // The piles only cover the candidates known when they were built
+        ballotPiles = null;
+
+        // A checkpoint's ballot file no longer names every candidate
+        checkpointBallotsFile = null;
     }
 
     /**
-     * Resets all the candidate votes left in the vote to 0
+     * Adds ballots from an intake, which were counted in the live tally when they were accepted
+     *
+     * @param ballots - The ballots to be added, in order
+     * @param ballotsRegistry - Gives the name and standing of each ordinal in the store
      */
-    private void resetCandidateVotes() {
+    void addTalliedBallotsFromStore(VCSBallotStore ballots, VCSCandidateRegistry ballotsRegistry) {
+        isAddingTalliedBallots = true;
 
-        for (VCSCandidate candidate : getAllCandidates()) {
-            int votes = candidateVotes.get(candidate);
-            candidateVotes.replace(candidate, votes, 0);
+        try {
+            addBallotsFromStore(ballots, ballotsRegistry);
+        } finally {
+            isAddingTalliedBallots = false;
         }
     }
 
+    /**
+     * Adds the first standing preference of each new ballot to the first preference tallies
+     *
+     * @param firstNewBallot - The index in the store of the first ballot added
+     */
+    private void countFirstPreferences(int firstNewBallot) {
+        if (firstPreferenceVotes.length < candidateRegistry.getCandidateCount()) {
+            firstPreferenceVotes = Arrays.copyOf(firstPreferenceVotes, candidateRegistry.getCandidateCount());
+        }
+
+        for (int ballotIndex = firstNewBallot; ballotIndex < ballotStore.getBallotCount(); ballotIndex++) {
+            int firstOrdinal = -1;
+
+            int preferenceCount = ballotStore.getPreferenceCount(ballotIndex);
+
+            for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
+                int ordinal = ballotStore.getOrdinalAtIndex(ballotIndex, preferenceIndex);
+
+                if (candidateRegistry.isStandingCandidate(ordinal)) {
+                    firstOrdinal = ordinal;
+                    break;
+                }
+            }
+
+            if (firstOrdinal >= 0) {
+                firstPreferenceVotes[firstOrdinal]++;
+            }
+
+            // Ballots from an intake were counted by their producer
+            if (!isAddingTalliedBallots) {
+                firstPreferenceCounters.countBallot(firstOrdinal, candidateRegistry);
+            }
+        }
+    }
+
+    /**
+     * Keeps the counting structures in step with the ballot store after ballots are added
+     *
+     * @param firstNewBallot - The index in the store of the first ballot added
+     *
+     * @post. The piles will be rebuilt on the next count
+     * @post. If counting with the ballot tree, the new ballots are merged into it
+     * @post. The new ballots are in the live first preference tally
+     */
+    private void didAddBallotsToStore(int firstNewBallot) {
+
+        // The piles no longer cover every ballot, they will be rebuilt on the next count
+        ballotPiles = null;
+
+        // A checkpoint's ballot file no longer holds every ballot
+        checkpointBallotsFile = null;
+
+        countMetrics.didChangeBallotStore(ballotStore.getMemoryUsage());
+
+        countFirstPreferences(firstNewBallot);
+
+        if (ballotTrie != null) {
+            for (int ballotIndex = firstNewBallot; ballotIndex < ballotStore.getBallotCount(); ballotIndex++) {
+                ballotTrie.addBallotFromStore(ballotStore, ballotIndex);
+            }
+        }
+    }
+
+    /**
+     * Signals an update to the view, telling the observers which ballots are new
+     *
+     * @param firstNewBallot - The index in the store of the first ballot added
+     */
+    private void updateViewWithAddedBallots(int firstNewBallot) {
+        setChanged();
+        notifyObservers(new VCSBallotsAddedEvent(firstNewBallot, ballotStore.getBallotCount() - firstNewBallot));
+    }
+
     /**
      * Signals an update to the view
      */
     private void updateView() {
+
+        // Notifying allocates a copy of the observer list, which is not needed when there are no observers
+        if (countObservers() == 0) return;
+
         setChanged();
         notifyObservers();
     }
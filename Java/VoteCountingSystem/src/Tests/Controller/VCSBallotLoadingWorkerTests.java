@@ -0,0 +1,102 @@
+package Tests.Controller;
+
+import Controller.VCSBallotLoadingWorker;
+import Controller.VCSVotesController;
+import Model.VCSVotesModel;
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSBallotLoadingWorker Class
+ */
+public class VCSBallotLoadingWorkerTests {
+
+    @Test
+    public void testBatchesPendingWhenCancelledAreDropped() throws Exception {
+        // Enough ballots for more than one batch
+        StringBuilder text = new StringBuilder();
+        for (int x = 0; x < 60000; x++) {
+            text.append("1,Ollie\n2,Alicia\n");
+        }
+
+        File file = File.createTempFile("ballots", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        VCSVotesController controller = new VCSVotesController(new VCSVotesModel(new String[0])) {
+            @Override
+            public void didLoadBallotBatch(VCSBallotLoadingWorker.LoadedBatch batch) {
+                events.add("batch");
+            }
+
+            @Override
+            public void didFinishLoadingVotes(Throwable error, boolean wasCancelled) {
+                events.add(wasCancelled ? "cancelled" : "finished");
+                finished.countDown();
+            }
+        };
+
+        CountDownLatch batchPublished = new CountDownLatch(1);
+        CountDownLatch wasCancelled = new CountDownLatch(1);
+
+        VCSBallotLoadingWorker worker = new VCSBallotLoadingWorker(file, new String[0], controller) {
+            @Override
+            public boolean didLoadBallots(long bytesParsed, int ballotsLoaded) {
+                boolean shouldContinue = super.didLoadBallots(bytesParsed, ballotsLoaded);
+
+                // Hold the load after its first batch until it has been cancelled
+                if (batchPublished.getCount() > 0) {
+                    batchPublished.countDown();
+                    awaitLatch(wasCancelled);
+                }
+
+                return shouldContinue;
+            }
+        };
+
+        // Keep the event dispatch thread busy, so the first batch is still waiting when the load is cancelled
+        CountDownLatch isDispatchThreadBlocked = new CountDownLatch(1);
+        SwingUtilities.invokeLater(() -> awaitLatch(isDispatchThreadBlocked));
+
+        worker.execute();
+
+        assertTrue(batchPublished.await(10, TimeUnit.SECONDS));
+
+        worker.cancel(false);
+        wasCancelled.countDown();
+
+        // Give the published batch time to be queued behind done()
+        Thread.sleep(200);
+        isDispatchThreadBlocked.countDown();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        Thread.sleep(200);
+        SwingUtilities.invokeAndWait(() -> { });
+
+        // Nothing is handed to the controller once it has been told the load was cancelled
+        assertEquals(events.get(events.size() - 1), "cancelled");
+        assertFalse(events.contains("batch"));
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
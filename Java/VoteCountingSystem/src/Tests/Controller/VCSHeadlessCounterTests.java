@@ -0,0 +1,66 @@
+package Tests.Controller;
+
+import Controller.VCSHeadlessCounter;
+import Model.VCSElectionRegistry;
+import Model.VCSVotesModel;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSHeadlessCounter Class
+ */
+public class VCSHeadlessCounterTests {
+
+    @Test
+    public void testCountBallotsInFile() throws Exception {
+        File ballotFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VCSHeadlessCounter counter = new VCSHeadlessCounter(new VCSVotesModel(new String[0]), new PrintStream(output, true));
+
+        assertEquals(counter.countBallotsInFile(ballotFile), VCSHeadlessCounter.EXIT_SUCCESS);
+
+        // Every round is counted through to the winner
+        String results = output.toString();
+
+        assertTrue(results.contains("Round 3"));
+        assertTrue(results.contains("Eliminated: George"));
+        assertTrue(results.contains("Eliminated: Robert"));
+        assertTrue(results.endsWith("Winner: Ollie with 13 votes" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testCountMissingFile() throws Exception {
+        VCSHeadlessCounter counter = new VCSHeadlessCounter(new VCSVotesModel(new String[0]), new PrintStream(new ByteArrayOutputStream()));
+
+        assertEquals(counter.countBallotsInFile(new File("missing-ballots.csv")), VCSHeadlessCounter.EXIT_LOADING_ERROR);
+    }
+
+    @Test
+    public void testCountBallotsInFiles() throws Exception {
+        File firstFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+        File secondFile = new File(getClass().getResource("/Resources/ballots.csv").toURI());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VCSHeadlessCounter counter = new VCSHeadlessCounter(new VCSElectionRegistry(2), new PrintStream(output, true));
+
+        assertEquals(counter.countBallotsInFiles(Arrays.asList(firstFile, secondFile, new File("missing-ballots.csv"))),
+                VCSHeadlessCounter.EXIT_LOADING_ERROR);
+
+        // Results are printed in the order the files were given
+        String results = output.toString();
+
+        int firstElection = results.indexOf("Election: " + firstFile.getPath());
+        int secondElection = results.indexOf("Election: " + secondFile.getPath());
+
+        assertTrue(firstElection >= 0 && secondElection > firstElection);
+        assertTrue(results.indexOf("Winner: Ollie with 13 votes") < secondElection);
+        assertTrue(results.contains("Election: missing-ballots.csv"));
+    }
+}
@@ -0,0 +1,148 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test adding ballots from several threads with the VCSBallotIntake Class
+ */
+public class VCSBallotIntakeTests {
+
+    private static final int PRODUCER_COUNT = 6;
+    private static final int SLOT_COUNT = 7;
+    private static final int MAXIMUM_BALLOTS_PER_PRODUCER = 500000;
+
+    @Test
+    public void testEveryAcceptedBallotReachesModelOnce() throws Exception {
+        VCSVotesModel model = new VCSVotesModel(createCandidateNames());
+        VCSBallotIntake intake = model.openBallotIntake();
+        VCSCandidate[] candidates = getCandidates(model);
+
+        int[] acceptedBallots = new int[PRODUCER_COUNT];
+        Thread[] producers = new Thread[PRODUCER_COUNT];
+
+        CountDownLatch started = new CountDownLatch(PRODUCER_COUNT);
+        AtomicBoolean rejected = new AtomicBoolean();
+
+        for (int p = 0; p < PRODUCER_COUNT; p++) {
+            int producer = p;
+
+            producers[p] = new Thread(() -> {
+                started.countDown();
+
+                // Keep adding until the seal turns ballots away
+                for (int sequence = 0; sequence < MAXIMUM_BALLOTS_PER_PRODUCER; sequence++) {
+                    if (!intake.addBallot(createBallot(candidates, producer, sequence))) {
+                        rejected.set(true);
+                        return;
+                    }
+
+                    acceptedBallots[producer]++;
+                }
+            });
+
+            producers[p].start();
+        }
+
+        started.await();
+
+        // Drain while the producers are still adding
+        for (int x = 0; x < 20; x++) {
+            intake.drain();
+            Thread.sleep(2);
+        }
+
+        assertFalse(model.canStartCountingVotes());
+
+        intake.seal();
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // Unless every producer finished before the seal, some ballots were turned away
+        int totalAccepted = 0;
+        for (int accepted : acceptedBallots) {
+            totalAccepted += accepted;
+        }
+
+        assertTrue(rejected.get() || totalAccepted == PRODUCER_COUNT * MAXIMUM_BALLOTS_PER_PRODUCER);
+        assertTrue(model.canStartCountingVotes());
+        assertEquals(intake.getPendingBallotCount(), 0);
+
+        VCSBallotStore ballotStore = model.getBallotStore();
+        assertEquals(ballotStore.getBallotCount(), totalAccepted);
+
+        // Each producer's ballots arrive in the order they were added, with none missing or repeated
+        int[] nextSequence = new int[PRODUCER_COUNT];
+
+        for (int ballotIndex = 0; ballotIndex < ballotStore.getBallotCount(); ballotIndex++) {
+            String producerName = ballotStore.getCandidateChoiceAtIndex(ballotIndex, 0).getName();
+            int producer = Integer.parseInt(producerName.substring("Producer ".length()));
+
+            String slotName = ballotStore.getCandidateChoiceAtIndex(ballotIndex, 1).getName();
+            assertEquals(slotName, "Slot " + (nextSequence[producer] % SLOT_COUNT));
+
+            nextSequence[producer]++;
+        }
+
+        assertArrayEquals(nextSequence, acceptedBallots);
+    }
+
+    @Test
+    public void testSealedIntakeRejectsBallots() throws Exception {
+        VCSVotesModel model = new VCSVotesModel(createCandidateNames());
+        VCSBallotIntake intake = model.openBallotIntake();
+        VCSCandidate[] candidates = getCandidates(model);
+
+        assertTrue(intake.addBallot(createBallot(candidates, 0, 0)));
+        assertEquals(intake.getPendingBallotCount(), 1);
+
+        assertEquals(intake.seal(), 1);
+        assertTrue(intake.isSealed());
+
+        assertFalse(intake.addBallot(createBallot(candidates, 0, 1)));
+        assertEquals(model.getBallotStore().getBallotCount(), 1);
+
+        // A new intake can be opened once the last is sealed
+        assertTrue(model.openBallotIntake().addBallot(createBallot(candidates, 1, 0)));
+        assertFalse(model.canStartCountingVotes());
+    }
+
+    private String[] createCandidateNames() {
+        String[] names = new String[PRODUCER_COUNT + SLOT_COUNT];
+
+        for (int x = 0; x < PRODUCER_COUNT; x++) {
+            names[x] = "Producer " + x;
+        }
+
+        for (int x = 0; x < SLOT_COUNT; x++) {
+            names[PRODUCER_COUNT + x] = "Slot " + x;
+        }
+
+        return names;
+    }
+
+    private VCSBallot createBallot(VCSCandidate[] candidates, int producer, int sequence) {
+        return new VCSBallot(new VCSCandidate[] {candidates[producer], candidates[PRODUCER_COUNT + sequence % SLOT_COUNT]});
+    }
+
+    /**
+     * Found before the producers start, so they never touch the model
+     */
+    private VCSCandidate[] getCandidates(VCSVotesModel model) {
+        String[] names = createCandidateNames();
+        VCSCandidate[] candidates = new VCSCandidate[names.length];
+
+        for (int x = 0; x < names.length; x++) {
+            candidates[x] = model.getCandidateWithName(names[x]);
+        }
+
+        return candidates;
+    }
+}
@@ -0,0 +1,291 @@
+package Tests.Model;
+
+import Model.VCSBallot;
+import Model.VCSBallotJournal;
+import Model.VCSBallotStore;
+import Model.VCSCandidate;
+import Model.VCSVotesModel;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test writing and replaying ballots with the VCSBallotJournal Class
+ */
+public class VCSBallotJournalTests {
+
+    @Test
+    public void testBallotsReplayedWhenReopened() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSVotesModel model = new VCSVotesModel();
+        model.openBallotJournal(journalFile, this::failOnJournalError);
+
+        addBallot(model, "Alicia", "Ollie");
+        addBallot(model, "Robert");
+        addBallot(model, "George", "Robert", "Alicia");
+
+        model.closeBallotJournal();
+
+        // A new model, as after a restart
+        VCSVotesModel restoredModel = new VCSVotesModel();
+        restoredModel.openBallotJournal(journalFile, this::failOnJournalError);
+
+        VCSBallotStore restoredBallots = restoredModel.getBallotStore();
+
+        assertEquals(restoredBallots.getBallotCount(), 3);
+        assertEquals(restoredBallots.getCandidateChoiceAtIndex(0, 0).getName(), "Alicia");
+        assertEquals(restoredBallots.getCandidateChoiceAtIndex(0, 1).getName(), "Ollie");
+        assertEquals(restoredBallots.getCandidateChoiceAtIndex(2, 2).getName(), "Alicia");
+
+        // Replayed ballots are not written again, new ones follow them
+        addBallot(restoredModel, "Ollie");
+        restoredModel.closeBallotJournal();
+
+        VCSVotesModel thirdModel = new VCSVotesModel();
+        thirdModel.openBallotJournal(journalFile, this::failOnJournalError);
+
+        assertEquals(thirdModel.getBallotStore().getBallotCount(), 4);
+        assertEquals(thirdModel.getBallotStore().getCandidateChoiceAtIndex(3, 0).getName(), "Ollie");
+
+        thirdModel.closeBallotJournal();
+    }
+
+    @Test
+    public void testBallotsCommittedWithinInterval() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile, 10, 1000);
+        VCSVotesModel model = new VCSVotesModel();
+
+        journal.appendBallots(Arrays.asList(createBallot(model, "Robert", "Ollie")));
+
+        // Nothing is written until the background commit
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journalFile.length() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(journalFile.length() > 0);
+
+        // Read by a second journal while the first is still open
+        VCSBallotJournal replayedJournal = new VCSBallotJournal(journalFile, 10, 1000);
+        assertEquals(replayedJournal.getReplayedBallots().getBallotCount(), 1);
+
+        replayedJournal.close();
+        journal.close();
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile, 1000, 1000);
+        VCSVotesModel model = new VCSVotesModel();
+
+        journal.appendBallots(Arrays.asList(createBallot(model, "Alicia", "George")));
+        journal.commit();
+
+        long firstBallotLength = journalFile.length();
+
+        journal.appendBallots(Arrays.asList(createBallot(model, "George", "Alicia")));
+        journal.close();
+
+        // Cut the last record short, as if the machine lost power while writing it
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(journalFile, "rw")) {
+            randomAccessFile.setLength(journalFile.length() - 3);
+        }
+
+        VCSBallotJournal replayedJournal = new VCSBallotJournal(journalFile, 1000, 1000);
+
+        assertEquals(replayedJournal.getReplayedBallots().getBallotCount(), 1);
+        assertEquals(journalFile.length(), firstBallotLength);
+
+        // New records follow the last complete one
+        replayedJournal.appendBallots(Arrays.asList(createBallot(model, "Ollie")));
+        replayedJournal.close();
+
+        VCSBallotJournal reopenedJournal = new VCSBallotJournal(journalFile, 1000, 1000);
+        VCSBallotStore replayedBallots = reopenedJournal.getReplayedBallots();
+
+        assertEquals(replayedBallots.getBallotCount(), 2);
+        assertEquals(replayedBallots.getCandidateChoiceAtIndex(1, 0).getName(), "Ollie");
+
+        reopenedJournal.close();
+    }
+
+    @Test
+    public void testBallotWithUnknownOrdinalIsDiscarded() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile, 1000, 1000);
+        VCSVotesModel model = new VCSVotesModel();
+
+        journal.appendBallots(Arrays.asList(createBallot(model, "Alicia", "George")));
+        journal.close();
+
+        long firstBallotLength = journalFile.length();
+
+        // A ballot record with a good checksum, whose second preference was never named in the journal
+        ByteBuffer record = ByteBuffer.allocate(15).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(7);
+        record.put((byte) 2);
+        record.putShort((short) 2);
+        record.putShort((short) 0);
+        record.putShort((short) 9);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 4, 7);
+        record.putInt((int) checksum.getValue());
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(journalFile, "rw")) {
+            randomAccessFile.seek(firstBallotLength);
+            randomAccessFile.write(record.array());
+        }
+
+        VCSBallotJournal replayedJournal = new VCSBallotJournal(journalFile, 1000, 1000);
+        VCSBallotStore replayedBallots = replayedJournal.getReplayedBallots();
+
+        // The first preference of the bad record is not left in the replayed ballots
+        assertEquals(replayedBallots.getBallotCount(), 1);
+        assertFalse(replayedBallots.hasPreferencesInCurrentBallot());
+        assertEquals(journalFile.length(), firstBallotLength);
+
+        replayedJournal.close();
+    }
+
+    @Test
+    public void testBallotsAppendedDuringCommitsAreKept() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile, 1000, Integer.MAX_VALUE);
+        VCSVotesModel model = new VCSVotesModel();
+
+        VCSBallot[] ballots = {createBallot(model, "Alicia", "George"), createBallot(model, "Ollie")};
+        List<Exception> commitErrors = new CopyOnWriteArrayList<>();
+        AtomicBoolean isAppending = new AtomicBoolean(true);
+
+        // Commit over and over, so most ballots are appended while another buffer is being written
+        Thread committingThread = new Thread(() -> {
+            try {
+                while (isAppending.get()) {
+                    journal.commit();
+                }
+            } catch (IOException e) {
+                commitErrors.add(e);
+            }
+        });
+        committingThread.start();
+
+        for (int x = 0; x < 2000; x++) {
+            journal.appendBallots(Arrays.asList(ballots[x % 2]));
+        }
+
+        // Not interrupted, since that would close the journal's channel
+        isAppending.set(false);
+        committingThread.join();
+        journal.close();
+
+        assertTrue(commitErrors.isEmpty());
+
+        VCSBallotJournal replayedJournal = new VCSBallotJournal(journalFile, 1000, 1000);
+        VCSBallotStore replayedBallots = replayedJournal.getReplayedBallots();
+
+        assertEquals(replayedBallots.getBallotCount(), 2000);
+
+        for (int x = 0; x < 2000; x++) {
+            assertEquals(replayedBallots.getCandidateChoiceAtIndex(x, 0).getName(), x % 2 == 0 ? "Alicia" : "Ollie");
+        }
+
+        replayedJournal.close();
+    }
+
+    @Test
+    public void testFailedCommitIsReported() throws Exception {
+        // Every write to this device fails as if the disk were full
+        File fullDevice = new File("/dev/full");
+        if (!fullDevice.exists()) return;
+
+        List<IOException> journalErrors = new CopyOnWriteArrayList<>();
+
+        VCSVotesModel model = new VCSVotesModel();
+        model.openBallotJournal(fullDevice, journalErrors::add);
+
+        addBallot(model, "Alicia", "Ollie");
+
+        // The background commit fails, and tells the listener
+        long deadline = System.currentTimeMillis() + 5000;
+        while (journalErrors.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(journalErrors.size(), 1);
+
+        // The ballot stays in the vote, and the next ballot is refused by the journal
+        addBallot(model, "Robert");
+
+        assertEquals(model.getBallotStore().getBallotCount(), 2);
+        assertEquals(journalErrors.size(), 2);
+    }
+
+    @Test
+    public void testTooManyCandidatesIsRefused() throws Exception {
+        File journalFile = createJournalFile();
+
+        VCSBallotJournal journal = new VCSBallotJournal(journalFile, 1000, Integer.MAX_VALUE);
+
+        // Ordinals are written as unsigned shorts, so 65536 names fit
+        for (int x = 0; x <= 0xFFFF; x++) {
+            journal.appendBallots(Arrays.asList(new VCSBallot(new VCSCandidate[] {new VCSCandidate("Candidate " + x)})));
+        }
+
+        try {
+            journal.appendBallots(Arrays.asList(new VCSBallot(new VCSCandidate[] {new VCSCandidate("One too many")})));
+            fail("Ballot with a candidate beyond the journal's ordinals was accepted");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        journal.close();
+
+        VCSBallotJournal replayedJournal = new VCSBallotJournal(journalFile, 1000, 1000);
+        assertEquals(replayedJournal.getReplayedBallots().getBallotCount(), 0xFFFF + 1);
+
+        replayedJournal.close();
+    }
+
+    private void failOnJournalError(IOException error) {
+        fail("Ballots could not be journaled: " + error.getMessage());
+    }
+
+    private void addBallot(VCSVotesModel model, String... names) {
+        model.addBallot(createBallot(model, names));
+    }
+
+    private VCSBallot createBallot(VCSVotesModel model, String... names) {
+        VCSCandidate[] candidates = new VCSCandidate[names.length];
+
+        for (int x = 0; x < names.length; x++) {
+            candidates[x] = model.getCandidateWithName(names[x]);
+        }
+
+        return new VCSBallot(candidates);
+    }
+
+    private File createJournalFile() throws Exception {
+        File journalFile = File.createTempFile("ballots", ".vcsj");
+        journalFile.deleteOnExit();
+        return journalFile;
+    }
+}
@@ -0,0 +1,116 @@
+package Tests.Model;
+
+import Model.VCSBallot;
+import Model.VCSBallotStore;
+import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSBallotStore Class
+ */
+public class VCSBallotStoreTests {
+
+    private VCSCandidateRegistry registry;
+    private VCSCandidate[] candidates;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George", "Robert"});
+        candidates = registry.getContinuingCandidates().clone();
+    }
+
+    @Test
+    public void testAddBallot() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1], candidates[3]}));
+        store.addBallot(new VCSBallot(candidates));
+
+        assertEquals(store.getBallotCount(), 2);
+        assertEquals(store.getPreferenceCount(0), 2);
+        assertEquals(store.getPreferenceCount(1), 4);
+
+        // The first ballot should read back in order
+        assertEquals(store.getCandidateChoiceAtIndex(0, 0), candidates[1]);
+        assertEquals(store.getOrdinalAtIndex(0, 1), 3);
+        assertFalse(store.hasCandidateAtIndex(0, 2));
+    }
+
+    @Test
+    public void testGetBallot() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        VCSBallot ballot = new VCSBallot(candidates);
+        store.addBallot(ballot);
+
+        // The stored view should match the original ballot
+        VCSBallot storedBallot = store.getBallot(0);
+
+        for (int x = 0; x < candidates.length; x++) {
+            assertSame(storedBallot.getCandidateChoiceAtIndex(x), ballot.getCandidateChoiceAtIndex(x));
+        }
+
+        assertFalse(storedBallot.hasCandidateAtIndex(candidates.length));
+    }
+
+    @Test
+    public void testAddBallotsFromStoreWithOrdinalMap() throws Exception {
+        VCSCandidateRegistry otherRegistry = new VCSCandidateRegistry(new String[] {"Robert", "Ollie"});
+        VCSBallotStore otherStore = new VCSBallotStore(otherRegistry);
+
+        otherStore.addBallot(new VCSBallot(otherRegistry.getContinuingCandidates().clone()));
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(candidates));
+
+        // Robert is ordinal 3 in this store, Ollie is ordinal 0
+        store.addBallotsFromStore(otherStore, new int[] {3, 0});
+
+        assertEquals(store.getBallotCount(), 2);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 0), candidates[3]);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 1), candidates[0]);
+    }
+
+    @Test
+    public void testUnfinishedBallotIsNotCopied() throws Exception {
+        VCSBallotStore otherStore = new VCSBallotStore(registry);
+        otherStore.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1]}));
+
+        // Still being built when the store is copied
+        otherStore.addPreferenceToCurrentBallot(2);
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallotsFromStore(otherStore);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[3]}));
+
+        assertEquals(store.getBallotCount(), 2);
+        assertEquals(store.getPreferenceCount(1), 1);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 0), candidates[3]);
+    }
+
+    @Test
+    public void testPreferencesSurviveWideningColumn() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[3], candidates[0]}));
+
+        // Add enough candidates that an ordinal no longer fits in a byte
+        for (int x = 0; x < 300; x++) {
+            registry.registerCandidateWithName("Candidate " + x);
+        }
+
+        VCSCandidate lastCandidate = registry.getCandidateWithName("Candidate 299");
+
+        store.addBallot(new VCSBallot(new VCSCandidate[] {lastCandidate, candidates[1]}));
+
+        // Ballots added before and after widening should both be intact
+        assertEquals(store.getCandidateChoiceAtIndex(0, 0), candidates[3]);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 0), lastCandidate);
+        assertEquals(store.getOrdinalAtIndex(1, 0), 303);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 1), candidates[1]);
+    }
+}
@@ -0,0 +1,120 @@
+package Tests.Model;
+
+import Model.VCSBallot;
+import Model.VCSBallotStore;
+import Model.VCSBallotTrie;
+import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSBallotTrie Class
+ */
+public class VCSBallotTrieTests {
+
+    private final VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George"});
+    private final VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+    @Test
+    public void testIdenticalRankingsShareNodes() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // Three identical ballots and one which shares the first preference
+        store.addBallot(new VCSBallot(candidates));
+        store.addBallot(new VCSBallot(candidates));
+        store.addBallot(new VCSBallot(candidates));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[0], candidates[2]}));
+
+        VCSBallotTrie trie = new VCSBallotTrie(store);
+
+        assertEquals(trie.getBallotCount(), 4);
+
+        // Ollie -> Alicia -> George, and Ollie -> George
+        assertEquals(trie.getNodeCount(), 4);
+    }
+
+    @Test
+    public void testCountVotes() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[0], candidates[1]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[2], candidates[0]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[2]}));
+
+        VCSBallotTrie trie = new VCSBallotTrie(store);
+        int[] votes = new int[candidates.length];
+
+        // All candidates in the vote
+        trie.countVotes(new boolean[] {true, true, true}, votes);
+        assertArrayEquals(votes, new int[] {1, 1, 2});
+
+        // George eliminated, one ballot moves to Ollie and one is exhausted
+        trie.countVotes(new boolean[] {true, true, false}, votes);
+        assertArrayEquals(votes, new int[] {2, 1, 0});
+        assertEquals(trie.getExhaustedBallotCount(), 1);
+    }
+
+    @Test
+    public void testLaterCountsMatchNewTree() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"A", "B", "C", "D", "E"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        for (int x = 0; x < 200; x++) {
+            int first = (x * 7) % candidates.length;
+            int length = 1 + x % candidates.length;
+
+            VCSCandidate[] preferences = new VCSCandidate[length];
+            for (int preference = 0; preference < length; preference++) {
+                preferences[preference] = candidates[(first + preference * (1 + x % 2)) % candidates.length];
+            }
+
+            store.addBallot(new VCSBallot(preferences));
+        }
+
+        VCSBallotTrie trie = new VCSBallotTrie(store);
+        boolean[] continuingCandidates = {true, true, true, true, true};
+
+        assertSameCount(trie, store, continuingCandidates);
+
+        // Candidates eliminated one and two at a time
+        continuingCandidates[3] = false;
+        assertSameCount(trie, store, continuingCandidates);
+
+        continuingCandidates[0] = false;
+        continuingCandidates[4] = false;
+        assertSameCount(trie, store, continuingCandidates);
+
+        // A new ballot, then a candidate returned to the vote
+        trie.addBallotFromStore(addBallot(store, candidates[4], candidates[1]), store.getBallotCount() - 1);
+        assertSameCount(trie, store, continuingCandidates);
+
+        continuingCandidates[4] = true;
+        assertSameCount(trie, store, continuingCandidates);
+
+        continuingCandidates[2] = false;
+        assertSameCount(trie, store, continuingCandidates);
+    }
+
+    private VCSBallotStore addBallot(VCSBallotStore store, VCSCandidate... preferences) {
+        store.addBallot(new VCSBallot(preferences));
+        return store;
+    }
+
+    private void assertSameCount(VCSBallotTrie trie, VCSBallotStore store, boolean[] continuingCandidates) {
+        VCSBallotTrie newTrie = new VCSBallotTrie(store);
+
+        int[] votes = new int[continuingCandidates.length];
+        int[] expectedVotes = new int[continuingCandidates.length];
+
+        trie.countVotes(continuingCandidates, votes);
+        newTrie.countVotes(continuingCandidates, expectedVotes);
+
+        assertArrayEquals(votes, expectedVotes);
+        assertEquals(trie.getExhaustedBallotCount(), newTrie.getExhaustedBallotCount());
+    }
+}
@@ -0,0 +1,315 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSBinaryBallotFile Class
+ */
+public class VCSBinaryBallotFileTests {
+
+    private final VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George", "Robert"});
+    private final VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+    @Test
+    public void testWriteAndMapBallotStore() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[2], candidates[0]}));
+        store.addBallot(new VCSBallot(candidates));
+
+        VCSBallotStore mappedStore = writeAndMap(store);
+
+        assertTrue(mappedStore.isMapped());
+        assertEquals(mappedStore.getBallotCount(), 2);
+        assertEquals(mappedStore.getPreferenceCount(1), 4);
+
+        // Ballots read back with the same names and order
+        assertEquals(mappedStore.getCandidateChoiceAtIndex(0, 0).getName(), "George");
+        assertEquals(mappedStore.getOrdinalAtIndex(0, 1), 0);
+        assertEquals(mappedStore.getCandidateChoiceAtIndex(1, 3).getName(), "Robert");
+    }
+
+    @Test
+    public void testWriteAndMapShortOrdinals() throws Exception {
+        for (int x = 0; x < 300; x++) {
+            registry.registerCandidateWithName("Candidate " + x);
+        }
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {registry.getCandidateWithName("Candidate 299"), candidates[1]}));
+
+        VCSBallotStore mappedStore = writeAndMap(store);
+
+        assertEquals(mappedStore.getOrdinalAtIndex(0, 0), 303);
+        assertEquals(mappedStore.getCandidateChoiceAtIndex(0, 1).getName(), "Alicia");
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptFileFailsChecksum() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(candidates));
+
+        File file = createTemporaryFile();
+        VCSBinaryBallotFile.writeBallotStore(store, file);
+
+        // Change the last preference
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 9);
+            randomAccessFile.write(1);
+        }
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            VCSBinaryBallotFile.mapBallotStore(channel);
+        }
+    }
+
+    @Test
+    public void testCandidatesNotStandingAreRestored() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // Neither is standing, and one shares a standing candidate's name
+        store.addBallot(new VCSBallot(new VCSCandidate[] {new VCSCandidate("Zoe"), candidates[0]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {new VCSCandidate("Ollie"), candidates[1]}));
+
+        VCSCandidateRegistry mappedRegistry = writeAndMap(store).getCandidateRegistry();
+
+        assertEquals(mappedRegistry.getCandidateCount(), 6);
+        assertEquals(mappedRegistry.getStandingCandidateCount(), 4);
+        assertFalse(mappedRegistry.isStandingCandidate(4));
+        assertFalse(mappedRegistry.isStandingCandidate(5));
+        assertNull(mappedRegistry.getCandidateWithName("Zoe"));
+        assertEquals(mappedRegistry.getOrdinalOfCandidate(mappedRegistry.getCandidateWithName("Ollie")), 0);
+        assertEquals(mappedRegistry.getContinuingCandidateCount(), 4);
+    }
+
+    @Test
+    public void testModelKeepsCandidatesNotStanding() throws Exception {
+        // A different order to the model's own candidates, and a candidate who is not standing
+        VCSCandidateRegistry fileRegistry = new VCSCandidateRegistry(new String[] {"Robert", "Ollie"});
+        VCSCandidate robert = fileRegistry.getCandidateWithName("Robert");
+        VCSCandidate ollie = fileRegistry.getCandidateWithName("Ollie");
+        VCSCandidate writeIn = new VCSCandidate("Zoe");
+
+        VCSBallotStore store = new VCSBallotStore(fileRegistry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {robert, writeIn}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {ollie}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {writeIn, robert}));
+
+        File file = createTemporaryFile();
+        VCSBinaryBallotFile.writeBallotStore(store, file);
+
+        VCSVotesModel model = new VCSVotesModel();
+        VCSVotesModel headlessModel = new VCSVotesModel(new String[0]);
+
+        for (VCSVotesModel loadingModel : new VCSVotesModel[] {model, headlessModel}) {
+            assertTrue(loadingModel.canLoadFileAtPath(file));
+            loadingModel.loadBallots();
+
+            assertFalse(loadingModel.isValidCandidateWithName("Zoe"));
+            assertEquals(loadingModel.getBallots()[2].getCandidateChoiceAtIndex(0).getName(), "Zoe");
+        }
+
+        assertEquals(model.getAllCandidates().length, 4);
+        assertEquals(headlessModel.getAllCandidates().length, 2);
+
+        // Zoe's ballot counts for Robert, the first standing candidate on it
+        for (String name : new String[] {"Robert", "Ollie"}) {
+            assertEquals(model.getFirstPreferenceVotesForCandidate(model.getCandidateWithName(name)),
+                    headlessModel.getFirstPreferenceVotesForCandidate(headlessModel.getCandidateWithName(name)));
+        }
+
+        assertEquals(model.getFirstPreferenceVotesForCandidate(model.getCandidateWithName("Robert")), 2);
+
+        assertBallotsHaveSameNames(model.getBallots(), headlessModel.getBallots());
+    }
+
+    @Test
+    public void testMappedColumnsAreTranslatedWhenOrdinalsDiffer() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[3], candidates[1]}));
+        store.addBallot(new VCSBallot(candidates));
+
+        VCSBallotStore mappedStore = writeAndMap(store);
+
+        // Ordinals past a byte move the copy into a short column
+        VCSBallotStore modelStore = new VCSBallotStore(registry);
+        for (int x = 0; x < 300; x++) {
+            registry.registerCandidateWithName("Candidate " + x);
+        }
+
+        modelStore.addBallotsFromStore(mappedStore, new int[] {303, 2, 1, 0});
+
+        assertFalse(modelStore.isMapped());
+        assertEquals(modelStore.getBallotCount(), 2);
+        assertEquals(modelStore.getPreferenceCount(0), 2);
+        assertEquals(modelStore.getOrdinalAtIndex(0, 0), 0);
+        assertEquals(modelStore.getOrdinalAtIndex(0, 1), 2);
+        assertEquals(modelStore.getOrdinalAtIndex(1, 0), 303);
+        assertEquals(modelStore.getOrdinalAtIndex(1, 3), 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOffsetsOutOfOrderAreRejected() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[2], candidates[0]}));
+        store.addBallot(new VCSBallot(candidates));
+
+        File file = createTemporaryFile();
+        VCSBinaryBallotFile.writeBallotStore(store, file);
+
+        // The middle offset, after the checksum, six preferences and the last offset
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 8 - 6 - 8);
+            randomAccessFile.write(7);
+        }
+
+        mapWithNewChecksum(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownOrdinalIsRejected() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(candidates));
+
+        File file = createTemporaryFile();
+        VCSBinaryBallotFile.writeBallotStore(store, file);
+
+        // Only ordinals 0 to 3 are in the candidate table
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 9);
+            randomAccessFile.write(4);
+        }
+
+        mapWithNewChecksum(file);
+    }
+
+    @Test
+    public void testModelReportsCorruptFile() throws Exception {
+        File csvFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+        File binaryFile = createTemporaryFile();
+
+        VCSBinaryBallotFile.convertCsvFile(csvFile, binaryFile);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(binaryFile, "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 9);
+            randomAccessFile.write(1);
+        }
+
+        VCSVotesModel model = new VCSVotesModel();
+        assertTrue(model.canLoadFileAtPath(binaryFile));
+
+        try {
+            model.loadBallots();
+            fail("Corrupt file was loaded");
+        } catch (IOException e) {
+            assertEquals(model.getBallotStore().getBallotCount(), 0);
+        }
+    }
+
+    @Test
+    public void testModelLoadsConvertedFile() throws Exception {
+        File csvFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+        File binaryFile = createTemporaryFile();
+
+        assertEquals(VCSBinaryBallotFile.convertCsvFile(csvFile, binaryFile), 20);
+
+        VCSVotesModel csvModel = new VCSVotesModel();
+        VCSVotesModel binaryModel = new VCSVotesModel();
+
+        if (csvModel.canLoadFileAtPath(csvFile)) {
+            csvModel.loadBallots();
+        }
+
+        if (binaryModel.canLoadFileAtPath(binaryFile)) {
+            binaryModel.loadBallots();
+        }
+
+        assertBallotsHaveSameNames(binaryModel.getBallots(), csvModel.getBallots());
+
+        // Ballots can still be added after a binary file is loaded
+        binaryModel.addBallot(new VCSBallot(new VCSCandidate[] {binaryModel.getCandidateWithName("Robert")}));
+
+        assertFalse(binaryModel.getBallotStore().isMapped());
+        assertEquals(binaryModel.getBallotStore().getBallotCount(), 21);
+        assertBallotsHaveSameNames(new VCSBallot[] {binaryModel.getBallots()[19]}, new VCSBallot[] {csvModel.getBallots()[19]});
+    }
+
+    @Test
+    public void testEmptyStoreReadsMappedColumnsInPlace() throws Exception {
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(candidates));
+
+        VCSBallotStore mappedStore = writeAndMap(store);
+
+        VCSBallotStore modelStore = new VCSBallotStore(registry);
+        modelStore.addBallotsFromStore(mappedStore, new int[] {0, 1, 2, 3});
+
+        assertTrue(modelStore.isMapped());
+        assertEquals(modelStore.getCandidateChoiceAtIndex(0, 2), candidates[2]);
+    }
+
+    /**
+     * Each model has its own candidates, so ballots are compared by name
+     */
+    private void assertBallotsHaveSameNames(VCSBallot[] ballots, VCSBallot[] expectedBallots) {
+        assertEquals(ballots.length, expectedBallots.length);
+
+        for (int x = 0; x < ballots.length; x++) {
+            int preferenceIndex = 0;
+
+            while (expectedBallots[x].hasCandidateAtIndex(preferenceIndex)) {
+                assertEquals(ballots[x].getCandidateChoiceAtIndex(preferenceIndex).getName(),
+                        expectedBallots[x].getCandidateChoiceAtIndex(preferenceIndex).getName());
+                preferenceIndex++;
+            }
+
+            assertFalse(ballots[x].hasCandidateAtIndex(preferenceIndex));
+        }
+    }
+
+    private VCSBallotStore writeAndMap(VCSBallotStore store) throws Exception {
+        File file = createTemporaryFile();
+
+        VCSBinaryBallotFile.writeBallotStore(store, file);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            assertTrue(VCSBinaryBallotFile.isBinaryBallotFile(channel));
+            return VCSBinaryBallotFile.mapBallotStore(channel);
+        }
+    }
+
+    /**
+     * Rewrites the checksum of a changed file, so only the columns can reject it
+     */
+    private void mapWithNewChecksum(File file) throws Exception {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            byte[] contents = new byte[(int) randomAccessFile.length() - 8];
+            randomAccessFile.readFully(contents);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(contents);
+
+            randomAccessFile.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(checksum.getValue()).array());
+        }
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            VCSBinaryBallotFile.mapBallotStore(channel);
+        }
+    }
+
+    private File createTemporaryFile() throws Exception {
+        File file = File.createTempFile("ballots", "." + VCSBinaryBallotFile.FILE_EXTENSION);
+        file.deleteOnExit();
+        return file;
+    }
+}
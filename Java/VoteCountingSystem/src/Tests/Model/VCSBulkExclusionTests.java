@@ -0,0 +1,155 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the bulk exclusion of candidates, through VCSCountEngine and VCSVotesModel
+ */
+public class VCSBulkExclusionTests {
+
+    @Test
+    public void testTrailingGroupIsExcludedTogether() {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Alicia", "Bert", "Ciara", "Declan", "Eve"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // Ciara, Declan and Eve hold 6 votes between them, fewer than Bert's 8
+        addBallots(store, 10, candidates[0]);
+        addBallots(store, 8, candidates[1]);
+        addBallots(store, 3, candidates[2], candidates[1]);
+        addBallots(store, 2, candidates[3], candidates[1]);
+        addBallots(store, 1, candidates[4], candidates[1]);
+
+        VCSCountOptions options = new VCSCountOptions();
+        options.setBulkExclusion(true);
+
+        VCSCountResult result = VCSCountEngine.run(store, candidates, options);
+
+        assertTrue(result.isBulkExclusion(0));
+        assertEquals(result.getEliminatedCandidates(0).length, 3);
+        assertTrue(Arrays.asList(result.getEliminatedCandidates(0)).containsAll(
+                Arrays.asList(candidates[2], candidates[3], candidates[4])));
+
+        // The first of the group is still reported as the eliminated candidate
+        assertEquals(result.getEliminatedCandidate(0), candidates[4]);
+
+        assertArrayEquals(result.getRoundVotes(1), new int[] {10, 14, 0, 0, 0});
+        assertEquals(result.getWinningCandidate(), candidates[1]);
+
+        VCSCountResult singleResult = VCSCountEngine.run(store, candidates, new VCSCountOptions());
+
+        assertFalse(singleResult.isBulkExclusion(0));
+        assertEquals(singleResult.getRoundCount(), 4);
+        assertEquals(result.getRoundCount(), 2);
+        assertEquals(singleResult.getWinningCandidate(), result.getWinningCandidate());
+    }
+
+    @Test
+    public void testNoGroupWhenTrailingVotesCouldOvertake() {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Alicia", "Bert", "Ciara", "Declan"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // 1 + 2 is not fewer than 3, so Declan's ballot could still lift Ciara past Bert
+        addBallots(store, 6, candidates[0]);
+        addBallots(store, 3, candidates[1]);
+        addBallots(store, 2, candidates[2]);
+        addBallots(store, 1, candidates[3], candidates[2]);
+
+        VCSCountOptions options = new VCSCountOptions();
+        options.setBulkExclusion(true);
+
+        VCSCountResult result = VCSCountEngine.run(store, candidates, options);
+
+        assertFalse(result.isBulkExclusion(0));
+        assertArrayEquals(result.getEliminatedCandidates(0), new VCSCandidate[] {candidates[3]});
+        assertArrayEquals(result.getRoundVotes(1), new int[] {6, 3, 3, 0});
+    }
+
+    @Test
+    public void testGeneratedElectionHasSameWinnerInFewerRounds() throws Exception {
+        File ballotFile = createBallotFile(40, 20000);
+
+        VCSVotesModel model = loadModel(ballotFile);
+        VCSCountResult singleResult = model.countAllRounds();
+
+        model.setBulkExclusion(true);
+        VCSCountResult bulkResult = model.countAllRounds();
+
+        assertEquals(bulkResult.getWinningCandidate(), singleResult.getWinningCandidate());
+        assertEquals(bulkResult.getWinningVotes(), singleResult.getWinningVotes());
+        assertTrue(bulkResult.getRoundCount() < singleResult.getRoundCount());
+
+        assertTrue(model.getCountMetrics().getBulkEliminations() > 0);
+    }
+
+    @Test
+    public void testModelReportsBulkExcludedCandidates() throws Exception {
+        File ballotFile = createBallotFile(40, 20000);
+
+        for (VCSCountingMethod countingMethod : VCSCountingMethod.values()) {
+            VCSVotesModel model = loadModel(ballotFile);
+            model.setCountingMethod(countingMethod);
+            model.setBulkExclusion(true);
+
+            VCSCountResult result = model.countAllRounds();
+
+            model.shouldStartCountingVotes();
+
+            // Each press of redistribute matches a round of the whole count
+            for (int round = 1; round < result.getRoundCount(); round++) {
+                model.redistributeVotesForCandidates();
+
+                VCSCandidate[] eliminatedCandidates = result.getEliminatedCandidates(round - 1);
+
+                if (result.isBulkExclusion(round - 1)) {
+                    assertArrayEquals(model.getBulkExcludedCandidates(), eliminatedCandidates);
+                } else {
+                    assertEquals(model.getBulkExcludedCandidates().length, 0);
+                }
+
+                for (VCSCandidate candidate : model.getAllCandidates()) {
+                    assertEquals(model.getVotesForCandidate(candidate),
+                            result.getVotes(round, result.getIndexOfCandidate(candidate)));
+                }
+            }
+
+            assertTrue(model.voteHasWinner());
+            assertEquals(model.getWinningCandidate(), result.getWinningCandidate());
+        }
+    }
+
+    private File createBallotFile(int candidateCount, int ballotCount) throws Exception {
+        File ballotFile = File.createTempFile("bulk", ".csv");
+        ballotFile.deleteOnExit();
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(candidateCount), VCSPreferenceDistribution.PLACKETT_LUCE, 7);
+        generator.setBallotLength(candidateCount, 0.5);
+        generator.writeCsvFile(ballotFile, ballotCount);
+
+        return ballotFile;
+    }
+
+    private VCSVotesModel loadModel(File ballotFile) throws Exception {
+        VCSVotesModel model = new VCSVotesModelWithoutRandomness();
+        model.canLoadFileAtPath(ballotFile);
+        model.loadBallots();
+
+        return model;
+    }
+
+    private void addBallots(VCSBallotStore store, int ballotCount, VCSCandidate... preferences) {
+        for (int x = 0; x < ballotCount; x++) {
+            store.addBallot(new VCSBallot(preferences));
+        }
+    }
+}
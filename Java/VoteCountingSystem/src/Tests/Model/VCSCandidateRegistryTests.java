@@ -0,0 +1,64 @@
+package Tests.Model;
+
+import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSCandidateRegistry Class
+ */
+public class VCSCandidateRegistryTests {
+
+    @Test
+    public void testRegisterCandidateWithName() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia"});
+
+        // A new name takes the next ordinal
+        assertEquals(registry.registerCandidateWithName("George"), 2);
+
+        // A name already registered keeps its ordinal
+        assertEquals(registry.registerCandidateWithName("Ollie"), 0);
+
+        assertEquals(registry.getStandingCandidateCount(), 3);
+        assertEquals(registry.getCandidateWithName("George").getName(), "George");
+        assertNull(registry.getCandidateWithName("Robert"));
+    }
+
+    @Test
+    public void testCandidatesNotStanding() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie"});
+
+        // A candidate from outside the registry is given an ordinal, but is not in the count
+        VCSCandidate outsideCandidate = new VCSCandidate("Ollie");
+
+        // Looking the candidate up does not give them an ordinal
+        assertEquals(registry.getOrdinalOfCandidate(outsideCandidate), -1);
+        assertEquals(registry.getCandidateCount(), 1);
+
+        int ordinal = registry.addCandidate(outsideCandidate);
+
+        assertEquals(ordinal, 1);
+        assertFalse(registry.isContinuingCandidate(ordinal));
+        assertNotSame(registry.getCandidateWithName("Ollie"), outsideCandidate);
+        assertEquals(registry.getOrdinalOfCandidate(outsideCandidate), 1);
+        assertEquals(registry.addCandidate(outsideCandidate), 1);
+    }
+
+    @Test
+    public void testEliminateAndReinstateCandidates() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George"});
+
+        registry.eliminateCandidate(1);
+
+        assertFalse(registry.isContinuingCandidateWithName("Alicia"));
+        assertEquals(registry.getContinuingCandidates().length, 2);
+        assertEquals(registry.getContinuingCandidates()[1].getName(), "George");
+
+        registry.reinstateAllCandidates();
+
+        assertTrue(registry.isContinuingCandidateWithName("Alicia"));
+        assertEquals(registry.getContinuingCandidateCount(), 3);
+    }
+}
@@ -0,0 +1,123 @@
+package Tests.Model;
+
+import Model.VCSCandidate;
+import Model.VCSCountCheckpoint;
+import Model.VCSCountingMethod;
+import Model.VCSVotesModel;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test saving and restoring a count with the VCSCountCheckpoint Class
+ */
+public class VCSCountCheckpointTests {
+
+    @Test
+    public void testRestoreResumesAtSameRound() throws Exception {
+        File checkpointFile = createCheckpointFile();
+
+        VCSVotesModel model = createModelWithBallots();
+        model.setCountingMethod(VCSCountingMethod.INCREMENTAL_TRANSFERS);
+
+        model.shouldStartCountingVotes();
+        model.redistributeVotesForCandidates();
+
+        model.saveCheckpoint(checkpointFile);
+
+        // Restore into a new model, as after a crash
+        VCSVotesModel restoredModel = new VCSVotesModelWithoutRandomness();
+        restoredModel.restoreCheckpoint(checkpointFile);
+
+        assertEquals(restoredModel.getRoundNumber(), 2);
+        assertArrayEquals(restoredModel.getEliminatedCandidateOrdinals(), model.getEliminatedCandidateOrdinals());
+        assertEquals(restoredModel.getAllCandidates().length, 3);
+        assertEquals(restoredModel.getBallotStore().getBallotCount(), 20);
+
+        assertVotesHaveSameNames(restoredModel, model);
+
+        // Both models finish the count the same way
+        while (!model.voteHasWinner()) {
+            model.redistributeVotesForCandidates();
+            restoredModel.redistributeVotesForCandidates();
+
+            assertVotesHaveSameNames(restoredModel, model);
+        }
+
+        assertTrue(restoredModel.voteHasWinner());
+        assertEquals(restoredModel.getWinningCandidate().getName(), model.getWinningCandidate().getName());
+    }
+
+    @Test
+    public void testCheckpointSavedAfterEachRound() throws Exception {
+        File checkpointFile = createCheckpointFile();
+
+        VCSVotesModel model = createModelWithBallots();
+        model.setCheckpointFile(checkpointFile);
+
+        model.shouldStartCountingVotes();
+        model.redistributeVotesForCandidates();
+        model.redistributeVotesForCandidates();
+
+        VCSVotesModel restoredModel = new VCSVotesModelWithoutRandomness();
+        restoredModel.restoreCheckpoint(checkpointFile);
+
+        assertEquals(restoredModel.getRoundNumber(), 3);
+        assertEquals(restoredModel.getAllCandidates().length, 2);
+        assertFalse(restoredModel.wasEliminatedByTieBreak(1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptCheckpointIsRejected() throws Exception {
+        File checkpointFile = createCheckpointFile();
+
+        VCSVotesModel model = createModelWithBallots();
+        model.shouldStartCountingVotes();
+        model.saveCheckpoint(checkpointFile);
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(checkpointFile, "rw")) {
+            randomAccessFile.seek(12);
+            randomAccessFile.write(7);
+        }
+
+        new VCSVotesModel().restoreCheckpoint(checkpointFile);
+    }
+
+    private VCSVotesModel createModelWithBallots() throws Exception {
+        File ballotFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+
+        VCSVotesModel model = new VCSVotesModelWithoutRandomness();
+
+        if (model.canLoadFileAtPath(ballotFile)) {
+            model.loadBallots();
+        }
+
+        return model;
+    }
+
+    /**
+     * Each model has its own candidates, so votes are compared by name
+     */
+    private void assertVotesHaveSameNames(VCSVotesModel model, VCSVotesModel expectedModel) {
+        VCSCandidate[] candidates = model.getAllCandidates();
+        VCSCandidate[] expectedCandidates = expectedModel.getAllCandidates();
+
+        assertEquals(candidates.length, expectedCandidates.length);
+
+        for (int x = 0; x < candidates.length; x++) {
+            assertEquals(candidates[x].getName(), expectedCandidates[x].getName());
+            assertEquals(model.getVotesForCandidate(candidates[x]), expectedModel.getVotesForCandidate(expectedCandidates[x]));
+        }
+    }
+
+    private File createCheckpointFile() throws Exception {
+        File checkpointFile = File.createTempFile("count", ".vcsk");
+        checkpointFile.deleteOnExit();
+        VCSCountCheckpoint.getBallotFile(checkpointFile).deleteOnExit();
+        return checkpointFile;
+    }
+}
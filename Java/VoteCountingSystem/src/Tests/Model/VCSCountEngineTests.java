@@ -0,0 +1,95 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSCountEngine Class
+ */
+public class VCSCountEngineTests {
+
+    @Test
+    public void testRunMatchesModelRoundByRound() throws Exception {
+        File ballotFile = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+
+        VCSVotesModel model = new VCSVotesModelWithoutRandomness();
+
+        if (model.canLoadFileAtPath(ballotFile)) {
+            model.loadBallots();
+        }
+
+        VCSCountResult result = model.countAllRounds();
+
+        // Counting the whole vote does not change the model
+        assertEquals(model.getAllCandidates().length, 4);
+
+        model.shouldStartCountingVotes();
+
+        for (int round = 0; round < result.getRoundCount(); round++) {
+            if (round > 0) {
+                model.redistributeVotesForCandidates();
+            }
+
+            for (VCSCandidate candidate : model.getAllCandidates()) {
+                int candidateIndex = result.getIndexOfCandidate(candidate);
+
+                assertTrue(result.isContinuingInRound(round, candidateIndex));
+                assertEquals(result.getVotes(round, candidateIndex), model.getVotesForCandidate(candidate));
+            }
+        }
+
+        assertTrue(model.voteHasWinner());
+        assertEquals(result.getWinningCandidate(), model.getWinningCandidate());
+        assertEquals(result.getWinningVotes(), model.getVotesForCandidate(model.getWinningCandidate()));
+    }
+
+    @Test
+    public void testRunRecordsEliminations() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // George is eliminated first, and his ballot moves to Alicia
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[0]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[0]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[2], candidates[1]}));
+
+        VCSCountResult result = VCSCountEngine.run(store, candidates, new VCSCountOptions());
+
+        assertEquals(result.getRoundCount(), 2);
+        assertArrayEquals(result.getRoundVotes(0), new int[] {2, 2, 1});
+        assertEquals(result.getEliminatedCandidate(0), candidates[2]);
+
+        assertArrayEquals(result.getRoundVotes(1), new int[] {2, 3, 0});
+        assertFalse(result.isContinuingInRound(1, 2));
+        assertNull(result.getEliminatedCandidate(1));
+
+        assertEquals(result.getWinningCandidate(), candidates[1]);
+    }
+
+    @Test
+    public void testRunUsesTieBreaker() throws Exception {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[0]}));
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[1]}));
+
+        // Always eliminate the last tied candidate
+        VCSCountOptions options = new VCSCountOptions();
+        options.setTieBreaker(tiedCandidates -> tiedCandidates.get(tiedCandidates.size() - 1));
+
+        VCSCountResult result = VCSCountEngine.run(store, candidates, options);
+
+        assertEquals(result.getEliminatedCandidate(0), candidates[1]);
+        assertEquals(result.getWinningCandidate(), candidates[0]);
+    }
+}
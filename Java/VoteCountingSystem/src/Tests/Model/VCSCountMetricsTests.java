@@ -0,0 +1,121 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the metrics recorded by the VCSCountMetrics Class
+ */
+public class VCSCountMetricsTests {
+
+    private static final int BALLOT_COUNT = 2000;
+
+    private File ballotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        ballotFile = File.createTempFile("metrics", ".csv");
+        ballotFile.deleteOnExit();
+
+        // Truncated ballots, so some are exhausted as candidates are eliminated
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(6), VCSPreferenceDistribution.PLACKETT_LUCE, 3);
+        generator.setBallotLength(6, 0.4);
+        generator.writeCsvFile(ballotFile, BALLOT_COUNT);
+    }
+
+    @Test
+    public void testCountRecordsEveryRound() throws Exception {
+        VCSVotesModel model = createModel();
+
+        model.shouldStartCountingVotes();
+
+        while (!model.voteHasWinner()) {
+            model.redistributeVotesForCandidates();
+        }
+
+        VCSCountMetricsSnapshot snapshot = model.getCountMetrics().snapshot();
+
+        assertEquals(snapshot.getBallotsLoaded(), BALLOT_COUNT);
+        assertTrue(snapshot.getLastLoadBallotsPerSecond() > 0);
+        assertTrue(snapshot.getPeakBallotStoreBytes() >= BALLOT_COUNT * 4L);
+
+        assertEquals(snapshot.getEliminations(), model.getRoundNumber() - 1);
+        assertEquals(snapshot.getCountPasses(), model.getRoundNumber());
+        assertTrue(snapshot.getMaximumCountPassNanos() >= snapshot.getLastCountPassNanos());
+
+        // Every ballot is either still counted for a candidate or was exhausted
+        long countedVotes = 0;
+        for (VCSCandidate candidate : model.getAllCandidates()) {
+            countedVotes += model.getVotesForCandidate(candidate);
+        }
+
+        assertTrue(snapshot.getBallotsExhausted() > 0);
+        assertEquals(countedVotes + snapshot.getBallotsExhausted(), BALLOT_COUNT);
+    }
+
+    @Test
+    public void testEngineRecordsSameTransfersAsModel() throws Exception {
+        VCSVotesModel model = createModel();
+
+        model.shouldStartCountingVotes();
+
+        while (!model.voteHasWinner()) {
+            model.redistributeVotesForCandidates();
+        }
+
+        VCSCountMetricsSnapshot roundByRound = model.getCountMetrics().snapshot();
+
+        VCSVotesModel engineModel = createModel();
+        engineModel.countAllRounds();
+
+        VCSCountMetricsSnapshot wholeCount = engineModel.getCountMetrics().snapshot();
+
+        assertEquals(wholeCount.getEliminations(), roundByRound.getEliminations());
+        assertEquals(wholeCount.getBallotsTransferred(), roundByRound.getBallotsTransferred());
+        assertEquals(wholeCount.getBallotsExhausted(), roundByRound.getBallotsExhausted());
+        assertEquals(wholeCount.getTieBreaks(), roundByRound.getTieBreaks());
+    }
+
+    @Test
+    public void testMetricsPublishedThroughJmx() throws Exception {
+        VCSVotesModel model = createModel();
+        model.shouldStartCountingVotes();
+
+        ObjectName objectName = model.getCountMetrics().registerMBean("metrics test");
+
+        try {
+            Object ballotsLoaded = ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "BallotsLoaded");
+            Object countPasses = ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "CountPasses");
+
+            assertEquals(ballotsLoaded, (long) BALLOT_COUNT);
+            assertEquals(countPasses, 1L);
+
+        } finally {
+            VCSCountMetrics.unregisterMBean("metrics test");
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+    private VCSVotesModel createModel() throws Exception {
+        VCSVotesModel model = new VCSVotesModelWithoutRandomness();
+
+        // The generated names stand in the vote
+        for (String name : VCSElectorateGenerator.createCandidateNames(6)) {
+            model.registerCandidateWithName(name);
+        }
+
+        model.canLoadFileAtPath(ballotFile);
+        model.loadBallots();
+
+        return model;
+    }
+}
@@ -0,0 +1,108 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test counting several elections with the VCSElectionRegistry Class
+ */
+public class VCSElectionRegistryTests {
+
+    @Test
+    public void testElectionsCountedIndependently() throws Exception {
+        VCSElectionRegistry registry = new VCSElectionRegistry(3);
+
+        File[] ballotFiles = new File[8];
+        VCSCountResult[] expectedResults = new VCSCountResult[ballotFiles.length];
+
+        for (int x = 0; x < ballotFiles.length; x++) {
+            ballotFiles[x] = createBallotFile(x, 500 + 100 * x);
+
+            // Counted alone for comparison
+            VCSVotesModel model = new VCSVotesModel(new String[0]);
+            model.canLoadFileAtPath(ballotFiles[x]);
+            model.loadBallots();
+            expectedResults[x] = model.countAllRounds();
+
+            registry.submitElection("Constituency " + x, ballotFiles[x]);
+        }
+
+        registry.awaitAllElections();
+
+        assertEquals(registry.getElectionCountWithStatus(VCSElectionStatus.COUNTED), ballotFiles.length);
+        assertEquals(registry.getElections().get(2).getElectionId(), "Constituency 2");
+
+        for (int x = 0; x < ballotFiles.length; x++) {
+            String electionId = "Constituency " + x;
+
+            assertEquals(registry.getStatus(electionId), VCSElectionStatus.COUNTED);
+
+            VCSCountResult countResult = registry.getCountResult(electionId);
+
+            assertEquals(countResult.getBallotCount(), 500 + 100 * x);
+            assertEquals(countResult.getWinningCandidate().getName(), expectedResults[x].getWinningCandidate().getName());
+            assertEquals(countResult.getWinningVotes(), expectedResults[x].getWinningVotes());
+
+            // Each election keeps its own metrics
+            assertEquals(registry.getElection(electionId).getCountMetrics().getBallotsLoaded(), 500 + 100 * x);
+        }
+
+        assertTrue(registry.shutdown(1000));
+    }
+
+    @Test
+    public void testMissingFileFailsOnlyItsElection() throws Exception {
+        VCSElectionRegistry registry = new VCSElectionRegistry(2);
+
+        VCSElection missingElection = registry.submitElection("Missing", new File("missing-ballots.csv"));
+        VCSElection election = registry.submitElection("Present", createBallotFile(1, 100));
+
+        assertNull(missingElection.awaitCountResult());
+        assertEquals(missingElection.getStatus(), VCSElectionStatus.FAILED);
+        assertNotNull(missingElection.getFailureMessage());
+
+        assertNotNull(election.awaitCountResult());
+        assertEquals(election.getStatus(), VCSElectionStatus.COUNTED);
+        assertNull(election.getFailureMessage());
+
+        assertNull(registry.getElection("Unknown"));
+        assertTrue(registry.shutdown(1000));
+    }
+
+    @Test
+    public void testErrorFailsItsElection() throws Exception {
+        // Only an error when assertions are enabled, otherwise the line is skipped
+        if (!VCSMappedBallotLoader.class.desiredAssertionStatus()) return;
+
+        File ballotFile = File.createTempFile("constituency", ".csv");
+        ballotFile.deleteOnExit();
+        Files.write(ballotFile.toPath(), "1,Ollie\n2 Alicia\n".getBytes(StandardCharsets.UTF_8));
+
+        VCSElectionRegistry registry = new VCSElectionRegistry(1);
+        VCSElection election = registry.submitElection("Broken", ballotFile);
+
+        assertNull(election.awaitCountResult());
+        assertEquals(election.getStatus(), VCSElectionStatus.FAILED);
+        assertTrue(election.getFailureMessage().contains("AssertionError"));
+
+        assertTrue(registry.shutdown(1000));
+    }
+
+    private File createBallotFile(long seed, int ballotCount) throws Exception {
+        File ballotFile = File.createTempFile("constituency", ".csv");
+        ballotFile.deleteOnExit();
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(5), VCSPreferenceDistribution.PLACKETT_LUCE, seed);
+        generator.setBallotLength(5, 0.6);
+        generator.writeCsvFile(ballotFile, ballotCount);
+
+        return ballotFile;
+    }
+}
@@ -0,0 +1,162 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSElectorateGenerator Class
+ */
+public class VCSElectorateGeneratorTests {
+
+    private final String[] candidateNames = VCSElectorateGenerator.createCandidateNames(6);
+
+    @Test
+    public void testSameSeedGivesSameBallots() throws Exception {
+        for (VCSPreferenceDistribution distribution : VCSPreferenceDistribution.values()) {
+            VCSElectorateGenerator generator = new VCSElectorateGenerator(candidateNames, distribution, 7);
+            VCSElectorateGenerator otherGenerator = new VCSElectorateGenerator(candidateNames, distribution, 7);
+
+            int[] preferences = new int[candidateNames.length];
+            int[] otherPreferences = new int[candidateNames.length];
+
+            for (int ballot = 0; ballot < 100; ballot++) {
+                int length = generator.nextBallot(preferences);
+
+                assertEquals(otherGenerator.nextBallot(otherPreferences), length);
+
+                for (int x = 0; x < length; x++) {
+                    assertEquals(otherPreferences[x], preferences[x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBallotsRankDistinctCandidates() throws Exception {
+        for (VCSPreferenceDistribution distribution : VCSPreferenceDistribution.values()) {
+            VCSElectorateGenerator generator = new VCSElectorateGenerator(candidateNames, distribution, 7);
+            generator.setBallotLength(4, 0.5);
+
+            int[] preferences = new int[candidateNames.length];
+
+            for (int ballot = 0; ballot < 1000; ballot++) {
+                int length = generator.nextBallot(preferences);
+
+                // Truncated ballots are between one and four preferences long
+                assertTrue(length >= 1 && length <= 4);
+
+                BitSet seen = new BitSet();
+
+                for (int x = 0; x < length; x++) {
+                    assertFalse(seen.get(preferences[x]));
+                    seen.set(preferences[x]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMallowsWithLowDispersionKeepsOrdinalOrder() throws Exception {
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(candidateNames, VCSPreferenceDistribution.MALLOWS, 7);
+        generator.setDispersion(1e-9);
+
+        int[] preferences = new int[candidateNames.length];
+
+        assertEquals(generator.nextBallot(preferences), candidateNames.length);
+
+        for (int x = 0; x < candidateNames.length; x++) {
+            assertEquals(preferences[x], x);
+        }
+    }
+
+    @Test
+    public void testPlackettLuceFavoursHeavierCandidates() throws Exception {
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(candidateNames, VCSPreferenceDistribution.PLACKETT_LUCE, 7);
+        generator.setCandidateWeights(new double[] {1, 1, 1, 100, 1, 1});
+
+        int[] preferences = new int[candidateNames.length];
+        int firstPreferencesForHeaviest = 0;
+
+        for (int ballot = 0; ballot < 1000; ballot++) {
+            generator.nextBallot(preferences);
+
+            if (preferences[0] == 3) firstPreferencesForHeaviest++;
+        }
+
+        // Expected to be about 950
+        assertTrue(firstPreferencesForHeaviest > 900);
+    }
+
+    @Test
+    public void testCsvAndBinaryFilesHoldSameBallots() throws Exception {
+        File csvFile = createFile(".csv");
+        File binaryFile = createFile(".vcsb");
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(candidateNames, VCSPreferenceDistribution.MALLOWS, 7);
+        generator.setBallotLength(5, 0.7);
+
+        generator.writeFile(csvFile, 500);
+        generator.writeFile(binaryFile, 500);
+
+        VCSBallotStore csvStore = new VCSBallotStore(new VCSCandidateRegistry(candidateNames));
+
+        try (FileChannel fileChannel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            new VCSMappedBallotLoader(fileChannel, csvStore, true).loadBallots();
+        }
+
+        VCSBallotStore binaryStore;
+
+        try (FileChannel fileChannel = FileChannel.open(binaryFile.toPath(), StandardOpenOption.READ)) {
+            binaryStore = VCSBinaryBallotFile.mapBallotStore(fileChannel);
+        }
+
+        assertEquals(csvStore.getBallotCount(), 500);
+        assertEquals(binaryStore.getBallotCount(), 500);
+
+        for (int ballot = 0; ballot < 500; ballot++) {
+            assertEquals(binaryStore.getPreferenceCount(ballot), csvStore.getPreferenceCount(ballot));
+
+            for (int x = 0; x < csvStore.getPreferenceCount(ballot); x++) {
+                assertEquals(binaryStore.getOrdinalAtIndex(ballot, x), csvStore.getOrdinalAtIndex(ballot, x));
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryFileWithShortOrdinals() throws Exception {
+        File binaryFile = createFile(".vcsb");
+
+        // More candidates than fit in a byte
+        String[] manyCandidateNames = VCSElectorateGenerator.createCandidateNames(300);
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(manyCandidateNames, VCSPreferenceDistribution.UNIFORM, 7);
+        generator.setBallotLength(3, 1.0);
+        generator.writeBinaryFile(binaryFile, 50);
+
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+        model.canLoadFileAtPath(binaryFile);
+        model.loadBallots();
+
+        assertEquals(model.getBallotStore().getBallotCount(), 50);
+        assertEquals(model.getAllCandidates().length, 300);
+
+        int[] preferences = new int[manyCandidateNames.length];
+        generator.reset();
+        generator.nextBallot(preferences);
+
+        assertEquals(model.getBallotStore().getCandidateChoiceAtIndex(0, 2).getName(), manyCandidateNames[preferences[2]]);
+    }
+
+    private File createFile(String suffix) throws Exception {
+        File file = File.createTempFile("electorate", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+}
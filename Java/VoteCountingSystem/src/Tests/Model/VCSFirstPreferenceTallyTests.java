@@ -0,0 +1,198 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the live first preference tally kept by the VCSVotesModel Class
+ */
+public class VCSFirstPreferenceTallyTests {
+
+    private static final String[] CANDIDATE_NAMES = {"Alice", "Bob", "Carol", "Dave"};
+
+    @Test
+    public void testTallyMatchesFirstRoundOfCount() {
+        VCSVotesModel model = new VCSVotesModel(CANDIDATE_NAMES);
+        model.addBallots(createBallots(model, 1000));
+
+        int[] expectedVotes = countFirstPreferences(model);
+
+        VCSCountResult countResult = model.countAllRounds();
+
+        for (int x = 0; x < CANDIDATE_NAMES.length; x++) {
+            VCSCandidate candidate = model.getCandidateWithName(CANDIDATE_NAMES[x]);
+
+            assertEquals(model.getFirstPreferenceVotesForCandidate(candidate), expectedVotes[x]);
+            assertEquals(countResult.getVotes(0, countResult.getIndexOfCandidate(candidate)), expectedVotes[x]);
+        }
+    }
+
+    @Test
+    public void testFirstRoundNeedsNoCount() {
+        VCSVotesModel model = new VCSVotesModel(CANDIDATE_NAMES);
+        model.setCountingMethod(VCSCountingMethod.FULL_RECOUNT);
+        model.addBallots(createBallots(model, 500));
+
+        int[] expectedVotes = countFirstPreferences(model);
+
+        model.shouldStartCountingVotes();
+
+        for (int x = 0; x < CANDIDATE_NAMES.length; x++) {
+            assertEquals(model.getVotesForCandidate(model.getCandidateWithName(CANDIDATE_NAMES[x])), expectedVotes[x]);
+        }
+    }
+
+    @Test
+    public void testProvisionalStandingsIncludeIntakeBallotsOnce() {
+        VCSVotesModel model = new VCSVotesModel(CANDIDATE_NAMES);
+        VCSFirstPreferenceTally tally = model.getFirstPreferenceTally();
+
+        model.addBallots(createBallots(model, 10));
+        assertEquals(tally.getBallotCount(), 10);
+
+        VCSBallotIntake intake = model.openBallotIntake();
+        for (VCSBallot ballot : createBallots(model, 30)) {
+            intake.addBallot(ballot);
+        }
+
+        // Undrained ballots are already in the provisional standings
+        assertEquals(tally.getBallotCount(), 40);
+        assertEquals(model.getBallotStore().getBallotCount(), 10);
+
+        intake.seal();
+
+        // Draining adds the ballots to the model without counting them again
+        assertEquals(tally.getBallotCount(), 40);
+
+        int[] expectedVotes = countFirstPreferences(model);
+        Map<String, Integer> provisionalVotes = tally.getFirstPreferenceVotes();
+
+        for (int x = 0; x < CANDIDATE_NAMES.length; x++) {
+            VCSCandidate candidate = model.getCandidateWithName(CANDIDATE_NAMES[x]);
+
+            assertEquals((int) provisionalVotes.getOrDefault(CANDIDATE_NAMES[x], 0), expectedVotes[x]);
+            assertEquals(model.getFirstPreferenceVotesForCandidate(candidate), expectedVotes[x]);
+        }
+    }
+
+    @Test
+    public void testRestoreDoesNotCountDrainedBallotsTwice() throws Exception {
+        File checkpointFile = File.createTempFile("count", ".vcsk");
+        checkpointFile.deleteOnExit();
+        VCSCountCheckpoint.getBallotFile(checkpointFile).deleteOnExit();
+
+        VCSVotesModel model = new VCSVotesModel(CANDIDATE_NAMES);
+        VCSFirstPreferenceTally tally = model.getFirstPreferenceTally();
+
+        model.addBallots(createBallots(model, 10));
+
+        VCSBallotIntake intake = model.openBallotIntake();
+        for (VCSBallot ballot : createBallots(model, 30)) {
+            intake.addBallot(ballot);
+        }
+
+        intake.drain();
+        model.saveCheckpoint(checkpointFile);
+
+        // Still waiting in the intake when the checkpoint is restored
+        for (VCSBallot ballot : createBallots(model, 5)) {
+            intake.addBallot(ballot);
+        }
+
+        model.restoreCheckpoint(checkpointFile);
+
+        assertEquals(model.getBallotStore().getBallotCount(), 40);
+        assertEquals(tally.getBallotCount(), 45);
+
+        intake.seal();
+
+        assertEquals(tally.getBallotCount(), 45);
+
+        int[] expectedVotes = countFirstPreferences(model);
+        Map<String, Integer> provisionalVotes = tally.getFirstPreferenceVotes();
+
+        for (int x = 0; x < CANDIDATE_NAMES.length; x++) {
+            assertEquals((int) provisionalVotes.getOrDefault(CANDIDATE_NAMES[x], 0), expectedVotes[x]);
+        }
+    }
+
+    @Test
+    public void testTallyCanBeReadWhileBallotsAreAdded() throws Exception {
+        VCSVotesModel model = new VCSVotesModel(CANDIDATE_NAMES);
+        VCSFirstPreferenceTally tally = model.getFirstPreferenceTally();
+        VCSBallotIntake intake = model.openBallotIntake();
+        ArrayList<VCSBallot> ballots = createBallots(model, 20000);
+
+        Thread producer = new Thread(() -> {
+            for (VCSBallot ballot : ballots) {
+                intake.addBallot(ballot);
+            }
+        });
+
+        producer.start();
+
+        // Readings only ever grow, and the votes never exceed the ballots seen
+        long lastBallotCount = 0;
+
+        while (producer.isAlive()) {
+            Map<String, Integer> votes = tally.getFirstPreferenceVotes();
+            long ballotCount = tally.getBallotCount();
+
+            int totalVotes = 0;
+            for (int candidateVotes : votes.values()) {
+                totalVotes += candidateVotes;
+            }
+
+            assertTrue(ballotCount >= lastBallotCount);
+            assertTrue(totalVotes <= ballotCount);
+
+            lastBallotCount = ballotCount;
+        }
+
+        producer.join();
+        intake.seal();
+
+        assertEquals(tally.getBallotCount(), ballots.size());
+    }
+
+    private ArrayList<VCSBallot> createBallots(VCSVotesModel model, int ballotCount) {
+        VCSCandidate[] candidates = new VCSCandidate[CANDIDATE_NAMES.length];
+
+        for (int x = 0; x < candidates.length; x++) {
+            candidates[x] = model.getCandidateWithName(CANDIDATE_NAMES[x]);
+        }
+
+        ArrayList<VCSBallot> ballots = new ArrayList<>();
+
+        for (int x = 0; x < ballotCount; x++) {
+            int first = (x * 7 + x / 3) % candidates.length;
+            int second = (first + 1 + x % 3) % candidates.length;
+
+            ballots.add(new VCSBallot(new VCSCandidate[] {candidates[first], candidates[second]}));
+        }
+
+        return ballots;
+    }
+
+    private int[] countFirstPreferences(VCSVotesModel model) {
+        int[] votes = new int[CANDIDATE_NAMES.length];
+
+        for (VCSBallot ballot : model.getBallots()) {
+            String name = ballot.getCandidateChoiceAtIndex(0).getName();
+
+            for (int x = 0; x < CANDIDATE_NAMES.length; x++) {
+                if (CANDIDATE_NAMES[x].equals(name)) {
+                    votes[x]++;
+                }
+            }
+        }
+
+        return votes;
+    }
+}
@@ -0,0 +1,153 @@
+package Tests.Model;
+
+import Model.VCSBallot;
+import Model.VCSBallotStore;
+import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import Model.VCSMappedBallotLoader;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSMappedBallotLoader Class
+ */
+public class VCSMappedBallotLoaderTests {
+
+    @Test
+    public void testLongLineDiscardsUnfinishedBallot() throws Exception {
+        File file = File.createTempFile("ballots", ".csv");
+        file.deleteOnExit();
+
+        // The third line does not fit in a 32 byte window
+        String text = "1,Ollie\n2,Alicia\n1,George\n2,Robert with a name longer than the window\n";
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            VCSMappedBallotLoader loader = new VCSMappedBallotLoader(channel, store, true);
+            loader.setMappingWindowSize(32);
+
+            loader.loadBallots();
+            fail("Line longer than the window was loaded");
+
+        } catch (IOException e) {
+            // George's ballot was never finished
+            assertEquals(store.getBallotCount(), 1);
+            assertFalse(store.hasPreferencesInCurrentBallot());
+        }
+
+        // Ballots added afterwards start a ballot of their own
+        store.addBallot(new VCSBallot(new VCSCandidate[] {candidates[3]}));
+
+        assertEquals(store.getBallotCount(), 2);
+        assertEquals(store.getPreferenceCount(1), 1);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 0), candidates[3]);
+    }
+
+    private final VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George", "Robert"});
+    private final VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+    @Test
+    public void testLoadBallots() throws Exception {
+        VCSBallotStore store = loadStoreFromText("1,Ollie\n2,Alicia\n1,Robert\n1,George\n2,Ollie\n3,Alicia\n");
+
+        assertEquals(store.getBallotCount(), 3);
+
+        assertEquals(store.getPreferenceCount(0), 2);
+        assertEquals(store.getCandidateChoiceAtIndex(0, 1), candidates[1]);
+
+        assertEquals(store.getPreferenceCount(1), 1);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 0), candidates[3]);
+
+        assertEquals(store.getPreferenceCount(2), 3);
+        assertEquals(store.getCandidateChoiceAtIndex(2, 2), candidates[1]);
+    }
+
+    @Test
+    public void testLoadBallotsWithWindowsLineEndings() throws Exception {
+        // No new line at the end of the file, and carriage returns before each new line
+        VCSBallotStore store = loadStoreFromText("1,Ollie\r\n2,George\r\n1,Alicia\r\n\r\n2,Robert");
+
+        assertEquals(store.getBallotCount(), 2);
+        assertEquals(store.getCandidateChoiceAtIndex(0, 1), candidates[2]);
+        assertEquals(store.getCandidateChoiceAtIndex(1, 1), candidates[3]);
+    }
+
+    @Test
+    public void testLoadingListenerReceivesBatches() throws Exception {
+        File file = writeFileWithText("1,Ollie\n1,Alicia\n2,George\n1,Robert\n1,George\n");
+
+        VCSBallotStore firstBatch = new VCSBallotStore(registry);
+        VCSBallotStore secondBatch = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            VCSMappedBallotLoader loader = new VCSMappedBallotLoader(channel, firstBatch, false);
+
+            // Send every ballot after the second into another store
+            loader.setLoadingListener((bytesParsed, ballotsLoaded) -> {
+                assertEquals(ballotsLoaded, 2);
+                loader.setBallotStore(secondBatch);
+                return true;
+            }, 2);
+
+            assertEquals(loader.loadBallots(), 4);
+            assertFalse(loader.isCancelled());
+        }
+
+        assertEquals(firstBatch.getBallotCount(), 2);
+        assertEquals(firstBatch.getCandidateChoiceAtIndex(1, 1), candidates[2]);
+
+        assertEquals(secondBatch.getBallotCount(), 2);
+        assertEquals(secondBatch.getCandidateChoiceAtIndex(0, 0), candidates[3]);
+    }
+
+    @Test
+    public void testLoadingListenerCancelsLoad() throws Exception {
+        File file = writeFileWithText("1,Ollie\n1,Alicia\n1,George\n1,Robert\n");
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            VCSMappedBallotLoader loader = new VCSMappedBallotLoader(channel, store, false);
+            loader.setLoadingListener((bytesParsed, ballotsLoaded) -> false, 1);
+
+            loader.loadBallots();
+
+            assertTrue(loader.isCancelled());
+        }
+
+        // Only the ballot completed before the listener stopped the load is kept
+        assertEquals(store.getBallotCount(), 1);
+        assertFalse(store.hasPreferencesInCurrentBallot());
+    }
+
+    private VCSBallotStore loadStoreFromText(String text) throws Exception {
+        File file = writeFileWithText(text);
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            new VCSMappedBallotLoader(channel, store, false).loadBallots();
+        }
+
+        return store;
+    }
+
+    private File writeFileWithText(String text) throws Exception {
+        File file = File.createTempFile("ballots", ".csv");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+}
@@ -0,0 +1,149 @@
+package Tests.Model;
+
+import Model.VCSBallotStore;
+import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import Model.VCSMappedBallotLoader;
+import Model.VCSParallelBallotLoader;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSParallelBallotLoader Class
+ */
+public class VCSParallelBallotLoaderTests {
+
+    private final VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Ollie", "Alicia", "George", "Robert"});
+    private final VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() throws Exception {
+        File file = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+
+        VCSBallotStore sequentialStore = new VCSBallotStore(registry);
+        VCSBallotStore parallelStore = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            new VCSMappedBallotLoader(channel, sequentialStore, false).loadBallots();
+
+            // Use tiny chunks so the small file is split across every thread
+            new VCSParallelBallotLoader(channel, 4, 16).loadBallots(parallelStore);
+        }
+
+        assertBallotsEqual(sequentialStore, parallelStore);
+    }
+
+    @Test
+    public void testChunksOnlyStartAtFirstPreferences() throws Exception {
+        // Long ballots, so most chunk boundaries first land on a later preference
+        StringBuilder text = new StringBuilder();
+        for (int x = 0; x < 50; x++) {
+            text.append("1,").append(candidates[x % 4].getName()).append("\n");
+            text.append("2,").append(candidates[(x + 1) % 4].getName()).append("\n");
+            text.append("3,").append(candidates[(x + 2) % 4].getName()).append("\n");
+            text.append("4,").append(candidates[(x + 3) % 4].getName()).append("\n");
+        }
+
+        File file = File.createTempFile("ballots", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        VCSBallotStore parallelStore = new VCSBallotStore(registry);
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            new VCSParallelBallotLoader(channel, 7, 10).loadBallots(parallelStore);
+        }
+
+        assertEquals(parallelStore.getBallotCount(), 50);
+
+        for (int x = 0; x < 50; x++) {
+            assertEquals(parallelStore.getPreferenceCount(x), 4);
+            assertEquals(parallelStore.getOrdinalAtIndex(x, 0), x % 4);
+        }
+    }
+
+    @Test
+    public void testParallelLoadRegistersNewCandidatesInFileOrder() throws Exception {
+        File file = new File(getClass().getResource("/Resources/ballots-testing-only(3).csv").toURI());
+
+        // Every name in the file is new to both registries
+        VCSCandidateRegistry sequentialRegistry = new VCSCandidateRegistry(new String[0]);
+        VCSCandidateRegistry parallelRegistry = new VCSCandidateRegistry(new String[0]);
+
+        VCSBallotStore sequentialStore = new VCSBallotStore(sequentialRegistry);
+        VCSBallotStore parallelStore = new VCSBallotStore(parallelRegistry);
+
+        VCSParallelBallotLoader parallelLoader;
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            new VCSMappedBallotLoader(channel, sequentialStore, true).loadBallots();
+
+            parallelLoader = new VCSParallelBallotLoader(channel, 4, 16);
+            parallelLoader.loadBallots(parallelStore);
+        }
+
+        // The file was not loaded again on a single thread
+        assertTrue(parallelLoader.getLoadedChunkCount() > 1);
+
+        assertEquals(parallelRegistry.getCandidateCount(), sequentialRegistry.getCandidateCount());
+
+        for (int ordinal = 0; ordinal < sequentialRegistry.getCandidateCount(); ordinal++) {
+            assertEquals(parallelRegistry.getCandidateWithOrdinal(ordinal).getName(),
+                    sequentialRegistry.getCandidateWithOrdinal(ordinal).getName());
+        }
+
+        assertEquals(sequentialStore.getBallotCount(), parallelStore.getBallotCount());
+
+        for (int x = 0; x < sequentialStore.getBallotCount(); x++) {
+            assertEquals(parallelStore.getPreferenceCount(x), sequentialStore.getPreferenceCount(x));
+
+            for (int preference = 0; preference < sequentialStore.getPreferenceCount(x); preference++) {
+                assertEquals(parallelStore.getOrdinalAtIndex(x, preference), sequentialStore.getOrdinalAtIndex(x, preference));
+            }
+        }
+    }
+
+    @Test
+    public void testChunksWithShortOrdinalsMatchSequentialLoad() throws Exception {
+        // Later chunks name more candidates than fit in a byte
+        StringBuilder text = new StringBuilder();
+        for (int x = 0; x < 400; x++) {
+            text.append("1,Candidate ").append(x).append("\n");
+            text.append("2,").append(candidates[x % 4].getName()).append("\n");
+        }
+
+        File file = File.createTempFile("ballots", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+
+        VCSBallotStore sequentialStore = new VCSBallotStore(new VCSCandidateRegistry(new String[0]));
+        VCSBallotStore parallelStore = new VCSBallotStore(new VCSCandidateRegistry(new String[0]));
+
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            new VCSMappedBallotLoader(channel, sequentialStore, true).loadBallots();
+            new VCSParallelBallotLoader(channel, 4, 64).loadBallots(parallelStore);
+        }
+
+        assertEquals(parallelStore.getOrdinalAtIndex(399, 0), sequentialStore.getOrdinalAtIndex(399, 0));
+        assertBallotsEqual(sequentialStore, parallelStore);
+    }
+
+    private void assertBallotsEqual(VCSBallotStore expected, VCSBallotStore actual) {
+        assertEquals(expected.getBallotCount(), actual.getBallotCount());
+
+        for (int x = 0; x < expected.getBallotCount(); x++) {
+            assertEquals(expected.getPreferenceCount(x), actual.getPreferenceCount(x));
+
+            for (int preference = 0; preference < expected.getPreferenceCount(x); preference++) {
+                assertEquals(expected.getOrdinalAtIndex(x, preference), actual.getOrdinalAtIndex(x, preference));
+            }
+        }
+    }
+}
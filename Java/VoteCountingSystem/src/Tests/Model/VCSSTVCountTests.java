@@ -0,0 +1,180 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test the VCSSTVCount Class
+ */
+public class VCSSTVCountTests {
+
+    private static final long VOTE = VCSSTVCount.WEIGHT_SCALE;
+
+    @Test
+    public void testSurplusAndExclusionTransfers() {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Alicia", "Bert", "Ciara", "Declan"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        addBallots(store, 6, candidates[0], candidates[1]);
+        addBallots(store, 2, candidates[0], candidates[2]);
+        addBallots(store, 3, candidates[2]);
+        addBallots(store, 4, candidates[3]);
+        addBallots(store, 1, candidates[1], candidates[3]);
+
+        VCSSTVResult result = VCSSTVCount.run(store, candidates, 2, new VCSCountOptions());
+
+        // 16 ballots for 2 seats gives a quota of 6
+        assertEquals(result.getQuota(), 6 * VOTE);
+        assertEquals(result.getStageCount(), 4);
+
+        assertStageVotes(result, 0, 8 * VOTE, VOTE, 3 * VOTE, 4 * VOTE);
+
+        // Alicia's surplus of 2 moves on at a quarter of a vote per ballot
+        assertEquals(result.getSurplusCandidate(1), candidates[0]);
+        assertStageVotes(result, 1, 6 * VOTE, 5 * VOTE / 2, 7 * VOTE / 2, 4 * VOTE);
+
+        // Bert's own ballot goes to Declan, the quarter votes from Alicia exhaust
+        assertEquals(result.getExcludedCandidate(2), candidates[1]);
+        assertStageVotes(result, 2, 6 * VOTE, 0, 7 * VOTE / 2, 5 * VOTE);
+        assertEquals(result.getExhaustedVotes(2), 3 * VOTE / 2);
+
+        assertEquals(result.getExcludedCandidate(3), candidates[2]);
+        assertEquals(result.getExhaustedVotes(3), 5 * VOTE);
+
+        assertArrayEquals(result.getElectedCandidates(), new VCSCandidate[] {candidates[0], candidates[3]});
+        assertTrue(result.isElectedByStage(0, 0));
+        assertFalse(result.isElectedByStage(2, 3));
+        assertFalse(result.isInCountAtStage(2, 1));
+    }
+
+    @Test
+    public void testWeightsAreTruncatedToFixedPoint() {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Alicia", "Bert", "Ciara"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // 7 ballots for 2 seats gives a quota of 3, Alicia's surplus of 3 is spread over 6 ballots
+        addBallots(store, 6, candidates[0], candidates[1]);
+        addBallots(store, 1, candidates[2]);
+
+        VCSSTVResult result = VCSSTVCount.run(store, candidates, 2, new VCSCountOptions());
+
+        assertEquals(result.getQuota(), 3 * VOTE);
+        assertEquals(result.getVotes(1, 1), 6 * (3 * VOTE * VOTE / (6 * VOTE)));
+
+        assertArrayEquals(result.getElectedCandidates(), new VCSCandidate[] {candidates[0], candidates[1]});
+    }
+
+    @Test
+    public void testCountFillsEverySeatReproducibly() throws Exception {
+        File ballotFile = File.createTempFile("stv", ".csv");
+        ballotFile.deleteOnExit();
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(10), VCSPreferenceDistribution.PLACKETT_LUCE, 5);
+        generator.setBallotLength(10, 0.7);
+        generator.writeCsvFile(ballotFile, 50000);
+
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+        model.canLoadFileAtPath(ballotFile);
+        model.loadBallots();
+
+        model.setSeatCount(5);
+
+        VCSSTVResult result = model.countAllSeats();
+        VCSSTVResult otherResult = model.countAllSeats();
+
+        assertEquals(result.getElectedCandidates().length, 5);
+        assertArrayEquals(result.getElectedCandidates(), otherResult.getElectedCandidates());
+
+        for (int stage = 0; stage < result.getStageCount(); stage++) {
+            long total = result.getExhaustedVotes(stage);
+
+            for (int x = 0; x < result.getCandidateCount(); x++) {
+                total += result.getVotes(stage, x);
+                assertEquals(result.getVotes(stage, x), otherResult.getVotes(stage, x));
+            }
+
+            // Only truncation is lost, at most one unit per ballot per stage
+            long lostToTruncation = result.getBallotCount() * VOTE - total;
+
+            assertTrue(lostToTruncation >= 0);
+            assertTrue(lostToTruncation <= (long) result.getBallotCount() * stage);
+        }
+    }
+
+    @Test
+    public void testTruncatedVotesAreLostByFraction() {
+        VCSCandidateRegistry registry = new VCSCandidateRegistry(new String[] {"Alicia", "Bert", "Ciara"});
+        VCSCandidate[] candidates = registry.getContinuingCandidates().clone();
+
+        VCSBallotStore store = new VCSBallotStore(registry);
+
+        // 10 ballots for 2 seats gives a quota of 4, Alicia's surplus of 3 is spread over 7 ballots
+        addBallots(store, 7, candidates[0], candidates[1]);
+        addBallots(store, 3, candidates[2]);
+
+        VCSSTVResult result = VCSSTVCount.run(store, candidates, 2, new VCSCountOptions());
+
+        long transferWeight = 3 * VOTE * VOTE / (7 * VOTE);
+
+        assertEquals(result.getLossByFraction(0), 0);
+        assertEquals(result.getVotes(1, 1), 7 * transferWeight);
+        assertEquals(result.getLossByFraction(1), 3 * VOTE - 7 * transferWeight);
+
+        assertStagesReconcile(result);
+    }
+
+    @Test
+    public void testGeneratedCountReconcilesAtEveryStage() throws Exception {
+        File ballotFile = File.createTempFile("stv", ".csv");
+        ballotFile.deleteOnExit();
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(12), VCSPreferenceDistribution.MALLOWS, 11);
+        generator.setBallotLength(12, 0.6);
+        generator.writeCsvFile(ballotFile, 20000);
+
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+        model.canLoadFileAtPath(ballotFile);
+        model.loadBallots();
+
+        model.setSeatCount(4);
+
+        VCSSTVResult result = model.countAllSeats();
+
+        assertTrue(result.getLossByFraction(result.getStageCount() - 1) > 0);
+        assertStagesReconcile(result);
+    }
+
+    private void assertStagesReconcile(VCSSTVResult result) {
+        for (int stage = 0; stage < result.getStageCount(); stage++) {
+            long total = result.getExhaustedVotes(stage) + result.getLossByFraction(stage);
+
+            for (int x = 0; x < result.getCandidateCount(); x++) {
+                total += result.getVotes(stage, x);
+            }
+
+            assertEquals(total, result.getBallotCount() * VOTE);
+        }
+    }
+
+    private void addBallots(VCSBallotStore store, int ballotCount, VCSCandidate... preferences) {
+        for (int x = 0; x < ballotCount; x++) {
+            store.addBallot(new VCSBallot(preferences));
+        }
+    }
+
+    private void assertStageVotes(VCSSTVResult result, int stage, long... votes) {
+        for (int x = 0; x < votes.length; x++) {
+            assertEquals(result.getVotes(stage, x), votes[x]);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package Tests.Model;
+
+import Model.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test Class to test counting a file split across worker processes with the VCSShardCoordinator Class
+ */
+public class VCSShardCoordinatorTests {
+
+    private static final int SHARD_COUNT = 3;
+
+    @Test
+    public void testShardedCountMatchesSingleProcessCount() throws Exception {
+        File ballotFile = createBallotFile(".csv");
+
+        VCSCountResult countResult = new VCSShardCoordinator(ballotFile, SHARD_COUNT).count(createCountOptions());
+
+        assertCountResultsEqual(countResult, countInOneProcess(ballotFile));
+        assertTrue(countResult.getRoundCount() > 1);
+    }
+
+    @Test
+    public void testShardedCountOfBinaryFileMatchesSingleProcessCount() throws Exception {
+        File ballotFile = createBallotFile("." + VCSBinaryBallotFile.FILE_EXTENSION);
+
+        VCSCountResult countResult = new VCSShardCoordinator(ballotFile, SHARD_COUNT).count(createCountOptions());
+
+        assertCountResultsEqual(countResult, countInOneProcess(ballotFile));
+    }
+
+    @Test
+    public void testCandidatesFirstNamedInLaterShardsKeepFileOrder() throws Exception {
+        File ballotFile = File.createTempFile("shards", ".csv");
+        ballotFile.deleteOnExit();
+
+        // Each candidate is first named further into the file, and ties need breaking
+        try (PrintWriter writer = new PrintWriter(ballotFile, "UTF-8")) {
+            String[] ballots = {"Dave,Carol", "Carol", "Bob,Alice", "Alice", "Erin,Bob", "Bob", "Carol,Dave", "Alice,Erin"};
+
+            for (String ballot : ballots) {
+                String[] names = ballot.split(",");
+
+                for (int x = 0; x < names.length; x++) {
+                    writer.println((x + 1) + "," + names[x]);
+                }
+            }
+        }
+
+        VCSCountResult countResult = new VCSShardCoordinator(ballotFile, 4).count(createCountOptions());
+
+        assertCountResultsEqual(countResult, countInOneProcess(ballotFile));
+        assertEquals(countResult.getCandidate(0).getName(), "Dave");
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingFileFailsCount() throws Exception {
+        new VCSShardCoordinator(new File("missing-ballots.csv"), SHARD_COUNT).count(createCountOptions());
+    }
+
+    private VCSCountResult countInOneProcess(File ballotFile) throws Exception {
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+
+        assertTrue(model.canLoadFileAtPath(ballotFile));
+        model.loadBallots();
+
+        return VCSCountEngine.run(model.getBallotStore(), model.getAllCandidates(), createCountOptions());
+    }
+
+    private void assertCountResultsEqual(VCSCountResult countResult, VCSCountResult expectedResult) {
+        assertEquals(countResult.getBallotCount(), expectedResult.getBallotCount());
+        assertEquals(countResult.getCandidateCount(), expectedResult.getCandidateCount());
+        assertEquals(countResult.getRoundCount(), expectedResult.getRoundCount());
+
+        for (int x = 0; x < countResult.getCandidateCount(); x++) {
+            assertEquals(countResult.getCandidate(x).getName(), expectedResult.getCandidate(x).getName());
+        }
+
+        for (int round = 0; round < countResult.getRoundCount(); round++) {
+            assertArrayEquals(countResult.getRoundVotes(round), expectedResult.getRoundVotes(round));
+
+            VCSCandidate eliminated = countResult.getEliminatedCandidate(round);
+            VCSCandidate expectedEliminated = expectedResult.getEliminatedCandidate(round);
+
+            assertEquals(eliminated == null ? null : eliminated.getName(),
+                    expectedEliminated == null ? null : expectedEliminated.getName());
+        }
+
+        assertEquals(countResult.getWinningCandidate().getName(), expectedResult.getWinningCandidate().getName());
+        assertEquals(countResult.getWinningVotes(), expectedResult.getWinningVotes());
+    }
+
+    private VCSCountOptions createCountOptions() {
+        VCSCountOptions options = new VCSCountOptions();
+
+        // Ties are broken the same way in both counts
+        options.setTieBreaker(tiedCandidates -> tiedCandidates.get(tiedCandidates.size() - 1));
+
+        return options;
+    }
+
+    private File createBallotFile(String extension) throws Exception {
+        File ballotFile = File.createTempFile("shards", extension);
+        ballotFile.deleteOnExit();
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(8), VCSPreferenceDistribution.UNIFORM, 11);
+        generator.setBallotLength(8, 0.6);
+        generator.writeFile(ballotFile, 30000);
+
+        return ballotFile;
+    }
+}
@@ -1,13 +1,20 @@
 package Tests.Model;
 
 import Model.VCSBallot;
+import Model.VCSBallotStore;
+import Model.VCSBallotsAddedEvent;
 import Model.VCSCandidate;
+import Model.VCSCandidateRegistry;
+import Model.VCSCountingMethod;
+import Model.VCSParallelTally;
 import Model.VCSVotesModel;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
-import java.util.Arrays;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 
 import static org.junit.Assert.*;
 
@@ -34,7 +41,7 @@ public class VCSVotesModelTest {
     /* Functionality tests */
 
     @Test
-    public void testOverallFunctionality1() {
+    public void testOverallFunctionality1() throws Exception {
         VCSVotesModel model = new VCSVotesModel();
 
         // Load the ballots
@@ -67,7 +74,7 @@ public class VCSVotesModelTest {
     }
 
     @Test
-    public void testOverallFunctionality2() {
+    public void testOverallFunctionality2() throws Exception {
 
         // use the votes model that doesn't use random, so the results can be repeated
         VCSVotesModel model = new VCSVotesModelWithoutRandomness();
@@ -127,7 +134,7 @@ public class VCSVotesModelTest {
     }
 
     @Test
-    public void testOverallFunctionality3() {
+    public void testOverallFunctionality3() throws Exception {
 
         // Use the model without randomness so the result can be predicted
         VCSVotesModel model = new VCSVotesModelWithoutRandomness();
@@ -157,6 +164,126 @@ public class VCSVotesModelTest {
     }
 
 
+    @Test
+    public void testIncrementalTransfersMatchFullRecount() throws Exception {
+        assertCountingMethodMatchesFullRecount(VCSCountingMethod.INCREMENTAL_TRANSFERS);
+    }
+
+    @Test
+    public void testBallotTrieMatchesFullRecount() throws Exception {
+        assertCountingMethodMatchesFullRecount(VCSCountingMethod.BALLOT_TRIE);
+    }
+
+    @Test
+    public void testParallelTallyMatchesSequentialTally() throws Exception {
+        VCSVotesModel sequentialModel = new VCSVotesModelWithoutRandomness();
+        VCSVotesModel parallelModel = new VCSVotesModelWithoutRandomness();
+
+        sequentialModel.setCountingParallelism(1, Integer.MAX_VALUE);
+
+        // A threshold of zero makes even the smallest vote count in parallel
+        parallelModel.setCountingParallelism(4, 0);
+
+        if (sequentialModel.canLoadFileAtPath(fourthBallotFile)) {
+            sequentialModel.loadBallots();
+        }
+
+        if (parallelModel.canLoadFileAtPath(fourthBallotFile)) {
+            parallelModel.loadBallots();
+        }
+
+        sequentialModel.shouldStartCountingVotes();
+        parallelModel.shouldStartCountingVotes();
+
+        while (!sequentialModel.voteHasWinner()) {
+            for (VCSCandidate candidate : sequentialModel.getAllCandidates()) {
+                assertEquals(sequentialModel.getVotesForCandidate(candidate),
+                        parallelModel.getVotesForCandidate(parallelModel.getCandidateWithName(candidate.getName())));
+            }
+
+            sequentialModel.redistributeVotesForCandidates();
+            parallelModel.redistributeVotesForCandidates();
+        }
+
+        assertEquals(sequentialModel.getWinningCandidate().getName(), parallelModel.getWinningCandidate().getName());
+    }
+
+    @Test
+    public void testCountingThreadsStartAgainAfterRelease() throws Exception {
+        VCSVotesModel model = new VCSVotesModelWithoutRandomness();
+        model.setCountingParallelism(3, 0);
+
+        if (model.canLoadFileAtPath(fourthBallotFile)) {
+            model.loadBallots();
+        }
+
+        model.shouldStartCountingVotes();
+
+        VCSCandidate[] candidates = model.getAllCandidates();
+        int[] firstRoundVotes = new int[candidates.length];
+
+        for (int x = 0; x < candidates.length; x++) {
+            firstRoundVotes[x] = model.getVotesForCandidate(candidates[x]);
+        }
+
+        // Replacing the tally stops its pool, releasing stops the new one
+        model.setCountingParallelism(2, 0);
+        model.shouldStartCountingVotes();
+        model.releaseCountingThreads();
+
+        model.shouldStartCountingVotes();
+
+        for (int x = 0; x < candidates.length; x++) {
+            assertEquals(model.getVotesForCandidate(candidates[x]), firstRoundVotes[x]);
+        }
+
+        model.releaseCountingThreads();
+    }
+
+    /**
+     * Counts the twenty ballot file round by round with a counting method,
+     * checking every round against a full recount
+     */
+    private void assertCountingMethodMatchesFullRecount(VCSCountingMethod countingMethod) throws Exception {
+
+        // Use the models without randomness so both eliminate the same candidates
+        VCSVotesModel fullRecountModel = new VCSVotesModelWithoutRandomness();
+        VCSVotesModel otherModel = new VCSVotesModelWithoutRandomness();
+        otherModel.setCountingMethod(countingMethod);
+
+        if (fullRecountModel.canLoadFileAtPath(fourthBallotFile)) {
+            fullRecountModel.loadBallots();
+        }
+
+        if (otherModel.canLoadFileAtPath(fourthBallotFile)) {
+            otherModel.loadBallots();
+        }
+
+        fullRecountModel.shouldStartCountingVotes();
+        otherModel.shouldStartCountingVotes();
+
+        // Each round, the remaining candidates and their votes should be the same
+        while (true) {
+            VCSCandidate[] remainingCandidates = fullRecountModel.getAllCandidates();
+
+            assertEquals(remainingCandidates.length, otherModel.getAllCandidates().length);
+
+            for (VCSCandidate candidate : remainingCandidates) {
+                assertEquals(fullRecountModel.getVotesForCandidate(candidate),
+                        otherModel.getVotesForCandidate(otherModel.getCandidateWithName(candidate.getName())));
+            }
+
+            assertEquals(fullRecountModel.voteHasWinner(), otherModel.voteHasWinner());
+
+            if (fullRecountModel.voteHasWinner()) break;
+
+            fullRecountModel.redistributeVotesForCandidates();
+            otherModel.redistributeVotesForCandidates();
+        }
+
+        assertEquals(fullRecountModel.getWinningCandidate().getName(), otherModel.getWinningCandidate().getName());
+    }
+
 
     /* Test class methods */
 
@@ -173,8 +300,39 @@ public class VCSVotesModelTest {
         // Fetch the ballots
         VCSBallot[] ballots = model.getBallots();
 
-        // Ensure the ballot is returned in getBallots()
-        assertTrue(Arrays.asList(ballots).contains(ballot));
+        // Ensure the ballot's preferences are returned in getBallots()
+        assertEquals(ballots.length, 1);
+        assertSame(ballots[0].getCandidateChoiceAtIndex(0), candidates[0]);
+        assertSame(ballots[0].getCandidateChoiceAtIndex(1), candidates[1]);
+        assertFalse(ballots[0].hasCandidateAtIndex(2));
+    }
+
+    @Test
+    public void testAddBallotsNotifiesOnce() throws Exception {
+        VCSVotesModel model = new VCSVotesModel();
+        VCSCandidate[] candidates = model.getAllCandidates();
+
+        model.addBallot(new VCSBallot(candidates));
+
+        // Record each notification sent to observers
+        ArrayList<Object> notifications = new ArrayList<>();
+        model.addObserver((observable, argument) -> notifications.add(argument));
+
+        ArrayList<VCSBallot> ballots = new ArrayList<>();
+        for (int x = 0; x < 10; x++) {
+            ballots.add(new VCSBallot(new VCSCandidate[] {candidates[x % candidates.length]}));
+        }
+
+        model.addBallots(ballots);
+
+        assertEquals(model.getBallots().length, 11);
+
+        // One notification, describing the ten new ballots
+        assertEquals(notifications.size(), 1);
+
+        VCSBallotsAddedEvent event = (VCSBallotsAddedEvent) notifications.get(0);
+        assertEquals(event.getFirstBallotIndex(), 1);
+        assertEquals(event.getBallotCount(), 10);
     }
 
     @Test
@@ -305,6 +463,110 @@ public class VCSVotesModelTest {
         }
     }
 
+    @Test
+    public void testLoadBallotsRegistersNewCandidates() throws Exception {
+
+        // A vote with no candidates takes them from the ballot file
+        VCSVotesModel model = new VCSVotesModel(new String[0]);
+
+        if (model.canLoadFileAtPath(firstBallotFile)) {
+            model.loadBallots();
+        }
+
+        // Candidates are added in the order they first appear
+        VCSCandidate[] candidates = model.getAllCandidates();
+
+        assertEquals(candidates.length, 3);
+        assertEquals(candidates[0].getName(), "Ollie");
+        assertEquals(candidates[1].getName(), "Alicia");
+        assertEquals(candidates[2].getName(), "George");
+
+        assertTrue(model.isValidCandidateWithName("George"));
+        assertFalse(model.isValidCandidateWithName("Robert"));
+    }
+
+    @Test
+    public void testAddBallotsFromStoreMatchesCandidatesByName() throws Exception {
+        VCSVotesModel model = new VCSVotesModel();
+
+        // A store loaded with its own registry, as the background loader does
+        VCSCandidateRegistry loadingRegistry = new VCSCandidateRegistry(new String[] {"George", "Zoe"});
+        VCSBallotStore batch = new VCSBallotStore(loadingRegistry);
+        batch.addBallot(new VCSBallot(loadingRegistry.getContinuingCandidates().clone()));
+
+        model.addBallotsFromStore(batch, loadingRegistry);
+
+        VCSBallot ballot = model.getBallots()[0];
+
+        // George keeps the model's candidate, Zoe is added to the vote
+        assertEquals(ballot.getCandidateChoiceAtIndex(0), model.getCandidateWithName("George"));
+        assertEquals(ballot.getCandidateChoiceAtIndex(1), model.getCandidateWithName("Zoe"));
+        assertEquals(model.getAllCandidates().length, 5);
+    }
+
+    @Test
+    public void testCountingDoesNotAllocate() throws Exception {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        // Only some virtual machines can measure allocation
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return;
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) return;
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        VCSVotesModel model = new VCSVotesModel();
+        model.setCountingParallelism(1, VCSParallelTally.DEFAULT_SEQUENTIAL_THRESHOLD);
+
+        VCSCandidate ollie = model.getCandidateWithName("Ollie");
+        VCSCandidate alicia = model.getCandidateWithName("Alicia");
+        VCSCandidate george = model.getCandidateWithName("George");
+        VCSCandidate robert = model.getCandidateWithName("Robert");
+
+        // No round has a tie for last place, so no tie break list is needed
+        ArrayList<VCSBallot> ballots = new ArrayList<>();
+        addCopiesOfBallot(ballots, 3500, new VCSCandidate[] {ollie});
+        addCopiesOfBallot(ballots, 3000, new VCSCandidate[] {alicia, ollie});
+        addCopiesOfBallot(ballots, 2000, new VCSCandidate[] {george, alicia});
+        addCopiesOfBallot(ballots, 1500, new VCSCandidate[] {robert, george});
+        model.addBallots(ballots);
+
+        // Load every class and size every array before measuring
+        for (int x = 0; x < 20; x++) {
+            countToCompletion(model);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+
+        for (int x = 0; x < 100; x++) {
+            countToCompletion(model);
+        }
+
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        // 100 counts of three rounds over 10,000 ballots, allowing only for the measurement itself
+        assertTrue("Counting allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private void countToCompletion(VCSVotesModel model) {
+        model.shouldStartCountingVotes();
+
+        while (!model.voteHasWinner()) {
+            model.redistributeVotesForCandidates();
+        }
+
+        assertEquals(model.getWinningCandidate().getName(), "Ollie");
+
+        model.shouldResetVotingProcedure();
+    }
+
+    private void addCopiesOfBallot(ArrayList<VCSBallot> ballots, int copies, VCSCandidate[] candidates) {
+        for (int x = 0; x < copies; x++) {
+            ballots.add(new VCSBallot(candidates));
+        }
+    }
+
     @Test
     public void testCanLoadFileAtPath() throws Exception {
         VCSVotesModel model = new VCSVotesModel();
@@ -0,0 +1,45 @@
+package View.ViewVotes;
+
+import Model.VCSBallot;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import java.awt.*;
+
+/**
+ * Draws a single ballot in the ballot list, with the candidates in order of preference.
+ * The same label is reused for every row.
+ */
+public class VCSBallotCellRenderer extends DefaultListCellRenderer {
+
+    private final StringBuilder text = new StringBuilder();
+
+    private final Border rowBorder = BorderFactory.createCompoundBorder(
+            BorderFactory.createEtchedBorder(),
+            BorderFactory.createEmptyBorder(2, 4, 2, 4));
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        VCSBallot ballot = (VCSBallot) value;
+
+        text.setLength(0);
+        text.append("Ballot ").append(index + 1).append(":");
+
+        int candidateNumber = 0;
+
+        while (ballot.hasCandidateAtIndex(candidateNumber)) {
+            text.append("  ").append(candidateNumber + 1).append(". ")
+                    .append(ballot.getCandidateChoiceAtIndex(candidateNumber).getName());
+
+            candidateNumber++;
+        }
+
+        super.getListCellRendererComponent(list, text.toString(), index, isSelected, cellHasFocus);
+
+        // Add a border to the row
+        setBorder(rowBorder);
+
+        return this;
+    }
+}
@@ -0,0 +1,73 @@
+package View.ViewVotes;
+
+import Model.VCSBallot;
+import Model.VCSBallotStore;
+
+import javax.swing.*;
+
+/**
+ * A list model which reads ballots from the model's ballot store as they are displayed.
+ * No ballots are copied, so the list only ever holds the rows currently on screen.
+ */
+public class VCSBallotListModel extends AbstractListModel<VCSBallot> {
+
+    private VCSBallotStore ballotStore;
+
+    // The number of ballots the list has been told about
+    private int ballotCount;
+
+    /**
+     * @param ballotStore - The store to read the ballots from
+     */
+    public VCSBallotListModel(VCSBallotStore ballotStore) {
+        this.ballotStore = ballotStore;
+        this.ballotCount = ballotStore.getBallotCount();
+    }
+
+    public int getSize() {
+        return ballotCount;
+    }
+
+    public VCSBallot getElementAt(int index) {
+        return ballotStore.getBallot(index);
+    }
+
+    /**
+     * Tells the list that ballots have been added to the end of the store
+     *
+     * @param firstBallotIndex - The index of the first new ballot
+     * @param addedBallotCount - The number of new ballots
+     *
+     * @post. Only the new rows are inserted into the list
+     */
+    public void ballotsWereAdded(int firstBallotIndex, int addedBallotCount) {
+        if (addedBallotCount <= 0) return;
+
+        ballotCount = firstBallotIndex + addedBallotCount;
+
+        fireIntervalAdded(this, firstBallotIndex, ballotCount - 1);
+    }
+
+    /**
+     * Tells the list the store may have changed completely
+     *
+     * @param ballotStore - The model's store, which is replaced when a count is restored
+     */
+    public void ballotsDidChange(VCSBallotStore ballotStore) {
+        this.ballotStore = ballotStore;
+
+        int previousCount = ballotCount;
+        ballotCount = ballotStore.getBallotCount();
+
+        if (previousCount > ballotCount) {
+            fireIntervalRemoved(this, ballotCount, previousCount - 1);
+        }
+        else if (ballotCount > previousCount) {
+            fireIntervalAdded(this, previousCount, ballotCount - 1);
+        }
+
+        if (ballotCount > 0) {
+            fireContentsChanged(this, 0, ballotCount - 1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package View.ViewVotes;
+
+import Controller.VCSVotesController;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * A dialog showing the progress of a ballot file being loaded, with a button to cancel it
+ */
+public class VCSLoadingProgressDialog extends JDialog {
+
+    private static final int PROGRESS_BAR_MAXIMUM = 1000;
+
+    private VCSVotesController controller;
+
+    // User Interface Components
+    private JProgressBar progressBar;
+    private JLabel progressLabel;
+    private JButton cancelButton;
+
+    /**
+     * @param owner - The frame the dialog is shown over
+     * @param fileName - The name of the file being loaded
+     */
+    public VCSLoadingProgressDialog(JFrame owner, VCSVotesController controller, String fileName) {
+        super(owner, "Loading " + fileName);
+
+        this.controller = controller;
+
+        buildInterface();
+    }
+
+    private void buildInterface() {
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        setResizable(false);
+
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        progressBar = new JProgressBar(0, PROGRESS_BAR_MAXIMUM);
+        progressBar.setStringPainted(true);
+        panel.add(progressBar);
+
+        progressLabel = new JLabel("Starting...");
+        progressLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        panel.add(progressLabel);
+
+        cancelButton = new JButton("Cancel");
+        cancelButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        cancelButton.addActionListener(e -> cancelButtonClicked());
+        panel.add(cancelButton);
+
+        getContentPane().add(panel);
+
+        setSize(360, 120);
+        setLocationRelativeTo(getOwner());
+    }
+
+    private void cancelButtonClicked() {
+        // Only one cancel is needed, the load stops after the current batch
+        cancelButton.setEnabled(false);
+        progressLabel.setText("Cancelling...");
+
+        controller.cancelLoadingVotes();
+    }
+
+    /**
+     * Shows how far through the file the load is
+     *
+     * @param bytesParsed - The number of bytes read so far
+     * @param totalBytes - The size of the file
+     * @param ballotsLoaded - The number of ballots loaded so far
+     * @param ballotsPerSecond - The rate ballots are being loaded at
+     */
+    public void setProgress(long bytesParsed, long totalBytes, int ballotsLoaded, double ballotsPerSecond) {
+        int progress = totalBytes == 0 ? PROGRESS_BAR_MAXIMUM : (int) (bytesParsed * PROGRESS_BAR_MAXIMUM / totalBytes);
+
+        progressBar.setValue(progress);
+
+        if (cancelButton.isEnabled()) {
+            progressLabel.setText(String.format("%,d ballots (%,.0f per second)", ballotsLoaded, ballotsPerSecond));
+        }
+    }
+}
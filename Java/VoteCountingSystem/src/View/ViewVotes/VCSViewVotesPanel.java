@@ -2,6 +2,7 @@ package View.ViewVotes;
 
 import Controller.VCSVotesController;
 import Model.VCSBallot;
+import Model.VCSBinaryBallotFile;
 import Model.VCSVotesModel;
 import View.VCSPanel;
 
@@ -21,7 +22,12 @@ public class VCSViewVotesPanel extends VCSPanel {
     private VCSVotesController controller;
 
     // User Interface Components
-    private JPanel verticalBallotPanel;
+    private JList<VCSBallot> ballotList;
+    private VCSBallotListModel ballotListModel;
+
+    // Rows have a fixed size so the list never has to measure every ballot
+    private static final int BALLOT_ROW_HEIGHT = 28;
+    private static final int BALLOT_ROW_WIDTH = 600;
 
     public VCSViewVotesPanel(VCSVotesModel model, VCSVotesController controller) {
         super();
@@ -39,74 +45,22 @@ public class VCSViewVotesPanel extends VCSPanel {
 
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 
-        verticalBallotPanel = new JPanel();
-        verticalBallotPanel.setLayout(new BoxLayout(verticalBallotPanel, BoxLayout.Y_AXIS));
+        // The list reads ballots from the store as rows come into view
+        ballotListModel = new VCSBallotListModel(model.getBallotStore());
 
-        createBallotsVerticalPanel();
+        ballotList = new JList<>(ballotListModel);
+        ballotList.setCellRenderer(new VCSBallotCellRenderer());
+        ballotList.setFixedCellHeight(BALLOT_ROW_HEIGHT);
+        ballotList.setFixedCellWidth(BALLOT_ROW_WIDTH);
 
         // Create a new scroll pane to house the completed getBallots
-        JScrollPane scrollPane = new JScrollPane(verticalBallotPanel);
+        JScrollPane scrollPane = new JScrollPane(ballotList);
 
         // Add the scroll pane and the interaction buttons
         add(scrollPane);
         add(createButtonsPanel());
     }
 
-    private void createBallotsVerticalPanel() {
-
-        // For each ballot, add it to the completed getBallots
-        for (VCSBallot ballot : model.getBallots()) {
-            addBallotToVerticalPanelWithBallot(ballot);
-        }
-    }
-
-    /***
-     * Adds a ballot to the vertical ballot view
-     *
-     * @param ballot - The ballot to add to the view
-     *
-     * @pre. Ballot is not null
-     */
-    private void addBallotToVerticalPanelWithBallot(VCSBallot ballot) {
-        assert ballot != null : "Ballot is null";
-
-        // Add ballot panel
-        verticalBallotPanel.add(getBallotPanelWithBallot(ballot));
-
-        // Add horizontal struct
-        verticalBallotPanel.add(Box.createVerticalStrut(10));
-    }
-
-
-    private JPanel getBallotPanelWithBallot(VCSBallot ballot) {
-
-        JPanel ballotPanel = new JPanel();
-        ballotPanel.setLayout(new BoxLayout(ballotPanel, BoxLayout.Y_AXIS));
-
-        ballotPanel.add(new JLabel("Ballot"));
-        ballotPanel.add(Box.createVerticalStrut(10));
-
-        int candidateNumber = 0;
-
-        while (ballot.hasCandidateAtIndex(candidateNumber)) {
-            JPanel candidatePanel = new JPanel();
-            candidatePanel.setLayout(new BoxLayout(candidatePanel, BoxLayout.X_AXIS));
-
-            // Add the label and text field
-            candidatePanel.add(new JLabel(ballot.getCandidateChoiceAtIndex(candidateNumber).getName()));
-            candidatePanel.add(new JLabel("  " + (candidateNumber + 1)));
-
-            ballotPanel.add(candidatePanel);
-
-            candidateNumber++;
-        }
-
-        // Add a border to the panel
-        ballotPanel.setBorder(BorderFactory.createEtchedBorder());
-
-        return ballotPanel;
-    }
-
     private JPanel createButtonsPanel() {
 
         JPanel panel = new JPanel();
@@ -128,7 +82,7 @@ public class VCSViewVotesPanel extends VCSPanel {
     private void loadVotesButtonClicked() {
         JFileChooser fileChooser = new JFileChooser();
 
-        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv", "text"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("Ballot Files", "csv", "text", VCSBinaryBallotFile.FILE_EXTENSION));
         int fileChooserResponse = fileChooser.showOpenDialog(this);
 
         if (fileChooserResponse == JFileChooser.APPROVE_OPTION) {
@@ -138,12 +92,17 @@ public class VCSViewVotesPanel extends VCSPanel {
 
     }
 
-    public void updatePanel() {
-        verticalBallotPanel.removeAll();
-
-        createBallotsVerticalPanel();
+    /**
+     * Adds newly added ballots to the end of the list, without rebuilding the existing rows
+     *
+     * @param firstBallotIndex - The index in the ballot store of the first new ballot
+     * @param ballotCount - The number of new ballots
+     */
+    public void addBallotsInRange(int firstBallotIndex, int ballotCount) {
+        ballotListModel.ballotsWereAdded(firstBallotIndex, ballotCount);
+    }
 
-        verticalBallotPanel.revalidate();
-        verticalBallotPanel.repaint();
+    public void updatePanel() {
+        ballotListModel.ballotsDidChange(model.getBallotStore());
     }
 }
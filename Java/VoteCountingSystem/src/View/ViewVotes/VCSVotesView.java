@@ -1,6 +1,7 @@
 package View.ViewVotes;
 
 import Controller.VCSVotesController;
+import Model.VCSBallotsAddedEvent;
 import Model.VCSVotesModel;
 import View.ViewVotes.VCSAddVotePanel;
 import View.ViewVotes.VCSViewVotesPanel;
@@ -22,6 +23,7 @@ public class VCSVotesView implements Observer {
     private JFrame frame;
     private VCSViewVotesPanel viewVotesPanel;
     private VCSAddVotePanel addVotesPanel;
+    private VCSLoadingProgressDialog loadingProgressDialog;
 
     /**
      * Default Initializer, builds the view's interface
@@ -75,8 +77,38 @@ public class VCSVotesView implements Observer {
 
     }
 
+    /**
+     * Shows a dialog with the progress of a file being loaded
+     *
+     * @param fileName - The name of the file being loaded
+     */
+    public void showLoadingProgress(String fileName) {
+        loadingProgressDialog = new VCSLoadingProgressDialog(frame, controller, fileName);
+        loadingProgressDialog.setVisible(true);
+    }
+
+    public void setLoadingProgress(long bytesParsed, long totalBytes, int ballotsLoaded, double ballotsPerSecond) {
+        if (loadingProgressDialog != null) {
+            loadingProgressDialog.setProgress(bytesParsed, totalBytes, ballotsLoaded, ballotsPerSecond);
+        }
+    }
+
+    public void hideLoadingProgress() {
+        if (loadingProgressDialog != null) {
+            loadingProgressDialog.dispose();
+            loadingProgressDialog = null;
+        }
+    }
+
     public void update(Observable o, Object arg) {
-        viewVotesPanel.updatePanel();
+        if (arg instanceof VCSBallotsAddedEvent) {
+            // Only the new ballots need to be added to the panel
+            VCSBallotsAddedEvent event = (VCSBallotsAddedEvent) arg;
+            viewVotesPanel.addBallotsInRange(event.getFirstBallotIndex(), event.getBallotCount());
+        }
+        else {
+            viewVotesPanel.updatePanel();
+        }
     }
 
     public void displayErrorAlertWithMessage(String message) {
@@ -1,6 +1,8 @@
 package View.VoteCounting;
 
 import Controller.VCSVotesController;
+import Model.VCSCountResult;
+import Model.VCSSTVResult;
 import Model.VCSVotesModel;
 
 import javax.swing.*;
@@ -59,6 +61,26 @@ public class VCSCountingView implements Observer {
         voteCountingPanel.setRedistributeVotesButtonEnabled(isEnabled);
     }
 
+    /**
+     * Shows the votes from one round of a whole count
+     *
+     * @param countResult - The counted rounds
+     * @param round - The round to show, starting from zero
+     */
+    public void showRound(VCSCountResult countResult, int round) {
+        voteCountingPanel.showRound(countResult, round);
+    }
+
+    /**
+     * Shows the votes at one stage of a single transferable vote count
+     *
+     * @param stvResult - The counted stages
+     * @param stage - The stage to show, starting from zero
+     */
+    public void showStage(VCSSTVResult stvResult, int stage) {
+        voteCountingPanel.showStage(stvResult, stage);
+    }
+
     public void update(Observable o, Object arg) {
         // Ask the panel to update the vote counts
         voteCountingPanel.updateVoteCounts();
@@ -2,6 +2,8 @@ package View.VoteCounting;
 
 import Controller.VCSVotesController;
 import Model.VCSCandidate;
+import Model.VCSCountResult;
+import Model.VCSSTVResult;
 import Model.VCSVotesModel;
 import View.VCSPanel;
 
@@ -18,6 +20,14 @@ public class VCSVoteCountingPanel extends VCSPanel {
 
     private JPanel candidatesPanel;
 
+    // The round of a whole count being shown, if the votes have been counted
+    private VCSCountResult countResult;
+    private int displayedRound;
+
+    // The stage of a single transferable vote count being shown, if several seats were counted
+    private VCSSTVResult stvResult;
+
+    private JSpinner seatCountSpinner;
     private JButton startCountingButton;
     private JButton redistributeVotesButton;
 
@@ -47,23 +57,53 @@ public class VCSVoteCountingPanel extends VCSPanel {
 
     private void addCandidatesToCandidatePanel() {
 
-        VCSCandidate[] candidates = model.getAllCandidates();
+        if (stvResult != null) {
+            // Show the candidates not yet excluded, elected candidates hold the quota
+            for (int x = 0; x < stvResult.getCandidateCount(); x++) {
+                if (stvResult.isInCountAtStage(displayedRound, x)) {
+                    String votes = VCSSTVResult.formatVotes(stvResult.getVotes(displayedRound, x));
+
+                    if (stvResult.isElectedByStage(displayedRound, x)) {
+                        votes += " (elected)";
+                    }
+
+                    candidatesPanel.add(getCandidatePanelWithCandidate(stvResult.getCandidate(x), votes));
+                }
+            }
+            return;
+        }
+
+        if (countResult == null) {
+            // Nothing counted yet, show the candidates from the model. Until someone is
+            // eliminated the first round is the live first preference tally, so needs no count
+            boolean isFirstRound = model.getRoundNumber() == 1;
+
+            for (VCSCandidate candidate : model.getAllCandidates()) {
+                int votes = isFirstRound ? model.getFirstPreferenceVotesForCandidate(candidate) : model.getVotesForCandidate(candidate);
 
-        if (model.voteHasWinner()) {
-            controller.oneCandidateRemainingWithCandidate(model.getWinningCandidate());
+                candidatesPanel.add(getCandidatePanelWithCandidate(candidate, votes));
+            }
             return;
         }
 
-        for (VCSCandidate candidate : candidates) {
-            candidatesPanel.add(getCandidatePanelWithCandidate(candidate));
+        // Show the candidates still in the count in the round being shown
+        for (int x = 0; x < countResult.getCandidateCount(); x++) {
+            if (countResult.isContinuingInRound(displayedRound, x)) {
+                candidatesPanel.add(getCandidatePanelWithCandidate(countResult.getCandidate(x),
+                        countResult.getVotes(displayedRound, x)));
+            }
         }
     }
 
-    private JPanel getCandidatePanelWithCandidate(VCSCandidate candidate) {
+    private JPanel getCandidatePanelWithCandidate(VCSCandidate candidate, int votes) {
+        return getCandidatePanelWithCandidate(candidate, "" + votes);
+    }
+
+    private JPanel getCandidatePanelWithCandidate(VCSCandidate candidate, String votes) {
         JPanel candidatePanel = new JPanel(new BorderLayout());
 
         candidatePanel.add(new JLabel(candidate.getName()), BorderLayout.NORTH);
-        candidatePanel.add(new JLabel("" + model.getVotesForCandidate(candidate)), BorderLayout.CENTER);
+        candidatePanel.add(new JLabel(votes), BorderLayout.CENTER);
 
         candidatePanel.setBorder(BorderFactory.createEtchedBorder());
 
@@ -71,12 +111,21 @@ public class VCSVoteCountingPanel extends VCSPanel {
     }
 
     /**
-     * Creates the two buttons, "Start Counting" and "Redistribute Votes"
+     * Creates the number of seats, and the two buttons, "Start Counting" and "Redistribute Votes"
      */
     private JPanel createButtonPanel() {
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
 
+        // More than one seat is counted by single transferable vote
+        int candidateCount = Math.max(1, model.getAllCandidates().length);
+
+        seatCountSpinner = new JSpinner(new SpinnerNumberModel(Math.min(model.getSeatCount(), candidateCount), 1, candidateCount, 1));
+        seatCountSpinner.addChangeListener(e -> controller.seatCountChanged((Integer) seatCountSpinner.getValue()));
+
+        panel.add(new JLabel("Seats"));
+        panel.add(seatCountSpinner);
+
         startCountingButton = new JButton("Start Counting");
         startCountingButton.addActionListener(e -> controller.startVoteCountButtonClicked());
 
@@ -89,6 +138,20 @@ public class VCSVoteCountingPanel extends VCSPanel {
         return panel;
     }
 
+    /**
+     * Shows the votes from one round of a whole count
+     *
+     * @param countResult - The counted rounds
+     * @param round - The round to show, starting from zero
+     */
+    public void showRound(VCSCountResult countResult, int round) {
+        this.countResult = countResult;
+        this.stvResult = null;
+        this.displayedRound = round;
+
+        updateVoteCounts();
+    }
+
     public void updateVoteCounts() {
         candidatesPanel.removeAll();
 
@@ -98,8 +161,23 @@ public class VCSVoteCountingPanel extends VCSPanel {
         candidatesPanel.repaint();
     }
 
+    /**
+     * Shows the votes at one stage of a single transferable vote count
+     *
+     * @param stvResult - The counted stages
+     * @param stage - The stage to show, starting from zero
+     */
+    public void showStage(VCSSTVResult stvResult, int stage) {
+        this.stvResult = stvResult;
+        this.countResult = null;
+        this.displayedRound = stage;
+
+        updateVoteCounts();
+    }
+
     public void setVoteCountingButtonEnabled(Boolean isEnabled) {
         startCountingButton.setEnabled(isEnabled);
+        seatCountSpinner.setEnabled(isEnabled);
     }
 
     public void setRedistributeVotesButtonEnabled(Boolean isEnabled) {
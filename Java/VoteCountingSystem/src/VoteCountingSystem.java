@@ -1,14 +1,63 @@
+import Controller.VCSHeadlessCounter;
 import Controller.VCSVotesController;
+import Model.VCSBinaryBallotFile;
+import Model.VCSElectionRegistry;
+import Model.VCSElectorateGenerator;
+import Model.VCSPreferenceDistribution;
 import Model.VCSVotesModel;
 import View.ViewVotes.VCSVotesView;
 
+import javax.management.JMException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+
 /**
  * Created by Oliver Poole(12022846) on 23/10/15.
  */
 public class VoteCountingSystem {
 
+    private static final String HEADLESS_ARGUMENT = "--headless";
+    private static final String OUTPUT_ARGUMENT = "--output";
+    private static final String CONVERT_ARGUMENT = "--convert";
+    private static final String JOURNAL_ARGUMENT = "--journal";
+    private static final String GENERATE_ARGUMENT = "--generate";
+    private static final String SHARDS_ARGUMENT = "--shards";
+    private static final String SEATS_ARGUMENT = "--seats";
+    private static final String BULK_EXCLUSION_ARGUMENT = "--bulk-exclusion";
+    private static final String METRICS_ARGUMENT = "--metrics";
+
+    private static final String METRICS_NAME = "VoteCountingSystem";
+
+    private static final String USAGE = "Usage: VoteCountingSystem [--headless [--shards workerCount] [--seats seatCount] [--bulk-exclusion] [--metrics] [--output results.txt] ballots.csv [more.csv ...]]"
+            + " | [--convert ballots.csv ballots.vcsb] | [--journal ballots.vcsj]"
+            + " | [--generate ballots.csv|ballots.vcsb ballotCount candidateCount [uniform|plackett_luce|mallows]]";
+
     public static void main(String args[]) {
 
+        if (args.length > 0 && args[0].equals(CONVERT_ARGUMENT)) {
+            System.exit(convertBallotFile(args));
+        }
+
+        if (args.length > 0 && args[0].equals(GENERATE_ARGUMENT)) {
+            System.exit(generateBallotFile(args));
+        }
+
+        // Ballots entered by hand are kept in the journal, and replayed on the next start
+        File journalFile = null;
+
+        if (args.length == 2 && args[0].equals(JOURNAL_ARGUMENT)) {
+            journalFile = new File(args[1]);
+
+        } else if (args.length > 0) {
+            // Count from the command line, without starting Swing
+            System.exit(runHeadless(args));
+        }
+
+        final File ballotJournalFile = journalFile;
 
         javax.swing.SwingUtilities.invokeLater( new Runnable() {
             public void run () {
@@ -21,7 +70,253 @@ public class VoteCountingSystem {
                 VCSVotesController controller = new VCSVotesController(model);
 
                 new VCSVotesView(model, controller);
+
+                publishCountMetrics(model);
+
+                if (ballotJournalFile != null) {
+                    openBallotJournal(model, controller);
+                }
+            }
+
+            private void openBallotJournal(VCSVotesModel model, VCSVotesController controller) {
+                try {
+                    // Failures to write are shown to the operator by the controller
+                    model.openBallotJournal(ballotJournalFile, controller);
+                } catch (IOException e) {
+                    System.err.println("Could not open journal: " + e.getMessage());
+                    return;
+                }
+
+                // Write any ballots still waiting when the window is closed
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        model.closeBallotJournal();
+                    } catch (IOException e) {
+                        System.err.println("Could not write journal: " + e.getMessage());
+                    }
+                }));
             }
         } );
     }
+
+    /**
+     * Publishes the model's metrics through JMX, so a running count can be monitored
+     *
+     * @param model - The model of the count
+     */
+    private static void publishCountMetrics(VCSVotesModel model) {
+        try {
+            model.getCountMetrics().registerMBean(METRICS_NAME);
+        } catch (JMException e) {
+            System.err.println("Could not publish metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a CSV ballot file into a binary ballot file, which loads without parsing
+     *
+     * @param args - The command line arguments
+     * @return The exit code for the process
+     */
+    private static int convertBallotFile(String args[]) {
+        if (args.length != 3) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        try {
+            int ballotCount = VCSBinaryBallotFile.convertCsvFile(new File(args[1]), new File(args[2]));
+            System.out.println("Converted " + ballotCount + " ballots");
+
+            return VCSHeadlessCounter.EXIT_SUCCESS;
+
+        } catch (IOException e) {
+            System.err.println("Could not convert file: " + e.getMessage());
+            return VCSHeadlessCounter.EXIT_LOADING_ERROR;
+        }
+    }
+
+    /**
+     * Writes a ballot file of generated ballots, the same ballots for the same arguments
+     *
+     * @param args - The command line arguments
+     * @return The exit code for the process
+     */
+    private static int generateBallotFile(String args[]) {
+        if (args.length != 4 && args.length != 5) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        int ballotCount;
+        int candidateCount;
+        VCSPreferenceDistribution distribution = VCSPreferenceDistribution.UNIFORM;
+
+        try {
+            ballotCount = Integer.parseInt(args[2]);
+            candidateCount = Integer.parseInt(args[3]);
+
+            if (args.length == 5) {
+                distribution = VCSPreferenceDistribution.valueOf(args[4].toUpperCase());
+            }
+
+        } catch (IllegalArgumentException e) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        if (ballotCount < 0 || candidateCount < 1 || candidateCount > 65536) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        VCSElectorateGenerator generator = new VCSElectorateGenerator(
+                VCSElectorateGenerator.createCandidateNames(candidateCount), distribution, VCSElectorateGenerator.DEFAULT_SEED);
+
+        try {
+            generator.writeFile(new File(args[1]), ballotCount);
+            System.out.println("Generated " + ballotCount + " ballots");
+
+            return VCSHeadlessCounter.EXIT_SUCCESS;
+
+        } catch (IOException e) {
+            System.err.println("Could not write file: " + e.getMessage());
+            return VCSHeadlessCounter.EXIT_LOADING_ERROR;
+        }
+    }
+
+    /**
+     * Counts a ballot file and prints the result of every round
+     *
+     * @param args - The command line arguments
+     * @return The exit code for the process
+     */
+    private static int runHeadless(String args[]) {
+        System.setProperty("java.awt.headless", "true");
+
+        // A file may be split across worker processes, and may fill several seats
+        int shardCount = 0;
+        int seatCount = 1;
+        boolean isBulkExclusion = false;
+
+        // Metrics are only published through JMX when asked for, so a scripted count starts quickly
+        boolean isPublishingMetrics = false;
+
+        if (!args[0].equals(HEADLESS_ARGUMENT)) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        ArrayList<File> ballotFiles = new ArrayList<>();
+        File outputFile = null;
+
+        // Flags may come before or after the ballot files, in any order
+        for (int x = 1; x < args.length; x++) {
+
+            if (args[x].equals(BULK_EXCLUSION_ARGUMENT)) {
+                isBulkExclusion = true;
+            }
+            else if (args[x].equals(METRICS_ARGUMENT)) {
+                isPublishingMetrics = true;
+            }
+            else if (args[x].equals(SHARDS_ARGUMENT) || args[x].equals(SEATS_ARGUMENT) || args[x].equals(OUTPUT_ARGUMENT)) {
+                // Each of these takes the argument after it
+                if (x + 1 == args.length) {
+                    System.err.println(USAGE);
+                    return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+                }
+
+                String flag = args[x];
+                String value = args[++x];
+
+                if (flag.equals(OUTPUT_ARGUMENT)) {
+                    if (outputFile != null) {
+                        System.err.println(USAGE);
+                        return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+                    }
+
+                    outputFile = new File(value);
+                    continue;
+                }
+
+                int count;
+
+                try {
+                    count = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    count = -1;
+                }
+
+                if (count < 1) {
+                    System.err.println(USAGE);
+                    return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+                }
+
+                if (flag.equals(SHARDS_ARGUMENT)) {
+                    shardCount = count;
+                } else {
+                    seatCount = count;
+                }
+            }
+            else {
+                ballotFiles.add(new File(args[x]));
+            }
+        }
+
+        if (ballotFiles.isEmpty()) {
+            System.err.println(USAGE);
+            return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+
+        PrintStream output = System.out;
+
+        if (outputFile != null) {
+            try {
+                output = new PrintStream(outputFile, "UTF-8");
+            } catch (FileNotFoundException | UnsupportedEncodingException e) {
+                System.err.println("Could not write to file: " + outputFile.getPath());
+                return VCSHeadlessCounter.EXIT_USAGE_ERROR;
+            }
+        }
+
+        int exitCode;
+
+        if ((seatCount > 1 || isBulkExclusion || isPublishingMetrics) && (shardCount > 0 || ballotFiles.size() > 1)) {
+            // Several seats, bulk exclusion and metrics need a single file counted in this process
+            System.err.println(USAGE);
+            exitCode = VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+        else if (shardCount > 0 && ballotFiles.size() == 1) {
+            // The file is never held in this process, only the merged tallies
+            exitCode = new VCSHeadlessCounter(output).countBallotsInShards(ballotFiles.get(0), shardCount);
+        }
+        else if (shardCount > 0) {
+            System.err.println(USAGE);
+            exitCode = VCSHeadlessCounter.EXIT_USAGE_ERROR;
+        }
+        else if (ballotFiles.size() == 1) {
+            // The candidates are the names found in the file
+            VCSVotesModel model = new VCSVotesModel(new String[0]);
+            model.setSeatCount(seatCount);
+            model.setBulkExclusion(isBulkExclusion);
+
+            if (isPublishingMetrics) {
+                publishCountMetrics(model);
+            }
+
+            exitCode = new VCSHeadlessCounter(model, output).countBallotsInFile(ballotFiles.get(0));
+        }
+        else {
+            // Each file is a separate election, counted side by side
+            exitCode = new VCSHeadlessCounter(new VCSElectionRegistry(), output).countBallotsInFiles(ballotFiles);
+        }
+
+        output.flush();
+
+        if (output != System.out) {
+            output.close();
+        }
+
+        return exitCode;
+    }
 }